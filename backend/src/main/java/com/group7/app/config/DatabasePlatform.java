@@ -0,0 +1,31 @@
+package com.group7.app.config;
+
+import java.sql.DatabaseMetaData;
+import javax.sql.DataSource;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tells hand-written SQL whether it runs against Supabase Postgres or the H2 database used in dev
+ * and tests. Plain upserts go through {@link PlatformUpserts}.
+ */
+@Component
+public class DatabasePlatform {
+
+  private final boolean postgres;
+
+  public DatabasePlatform(DataSource dataSource) {
+    try {
+      String productName =
+          JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+      this.postgres = "PostgreSQL".equalsIgnoreCase(productName);
+    } catch (MetaDataAccessException e) {
+      throw new IllegalStateException("could not read database metadata", e);
+    }
+  }
+
+  public boolean isPostgres() {
+    return postgres;
+  }
+}
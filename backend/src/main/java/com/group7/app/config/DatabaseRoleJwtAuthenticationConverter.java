@@ -9,7 +9,6 @@ import org.springframework.security.authentication.AbstractAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.jwt.Jwt;
-import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
 import org.springframework.stereotype.Component;
 
@@ -33,6 +32,6 @@ public class DatabaseRoleJwtAuthenticationConverter
         new LinkedHashSet<>(jwtGrantedAuthoritiesConverter.convert(jwt));
     authorities.add(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()));
 
-    return new JwtAuthenticationToken(jwt, authorities, jwt.getSubject());
+    return new ResolvedUserJwtAuthenticationToken(jwt, authorities, user);
   }
 }
@@ -0,0 +1,44 @@
+package com.group7.app.config;
+
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs hand-written upserts on whichever database {@link DatabasePlatform} detected. Postgres
+ * takes {@code INSERT ... ON CONFLICT}. H2 in PostgreSQL mode only understands {@code ON CONFLICT
+ * DO NOTHING}, and its {@code MERGE ... KEY} overwrites the stored row, so upserts that add to or
+ * keep stored values use the standard {@code MERGE INTO ... USING} form there instead.
+ *
+ * <p>These writes bypass the persistence context. Repositories therefore read upserted rows back as
+ * projections rather than entities, which could otherwise sit stale in the session.
+ */
+@Component
+public class PlatformUpserts {
+
+  /** One upsert spelled for both databases; the two take the same parameters in the same order. */
+  public record Statement(String postgres, String h2) {}
+
+  private final JdbcTemplate jdbcTemplate;
+  private final DatabasePlatform databasePlatform;
+
+  public PlatformUpserts(JdbcTemplate jdbcTemplate, DatabasePlatform databasePlatform) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.databasePlatform = databasePlatform;
+  }
+
+  public int update(Statement statement, Object... args) {
+    return jdbcTemplate.update(sql(statement), args);
+  }
+
+  /** Runs the statement once per row in a single JDBC batch; no rows means no round trip. */
+  public void batchUpdate(Statement statement, List<Object[]> rows) {
+    if (!rows.isEmpty()) {
+      jdbcTemplate.batchUpdate(sql(statement), rows);
+    }
+  }
+
+  private String sql(Statement statement) {
+    return databasePlatform.isPostgres() ? statement.postgres() : statement.h2();
+  }
+}
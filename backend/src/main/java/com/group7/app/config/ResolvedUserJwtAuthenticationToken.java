@@ -0,0 +1,28 @@
+package com.group7.app.config;
+
+import com.group7.app.user.User;
+import java.util.Collection;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+/**
+ * JWT authentication that also carries the {@link User} resolved while computing its authorities,
+ * so the rest of the request can reuse it instead of reading {@code users} again. The principal is
+ * still the {@link Jwt}.
+ */
+public class ResolvedUserJwtAuthenticationToken extends JwtAuthenticationToken {
+
+  // sessions are stateless, so the token is never serialized with its user
+  private final transient User user;
+
+  public ResolvedUserJwtAuthenticationToken(
+      Jwt jwt, Collection<? extends GrantedAuthority> authorities, User user) {
+    super(jwt, authorities, jwt.getSubject());
+    this.user = user;
+  }
+
+  public User getUser() {
+    return user;
+  }
+}
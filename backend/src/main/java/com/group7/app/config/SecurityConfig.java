@@ -57,6 +57,10 @@ public class SecurityConfig {
                     .requestMatchers("/api/contents/pending/**")
                     .hasAnyRole("MODERATOR", "ADMIN")
 
+                    // Item analysis is for the moderators who review lessons too
+                    .requestMatchers("/api/admin/analytics/**")
+                    .hasAnyRole("MODERATOR", "ADMIN")
+
                     // Restrict Admin-only endpoints
                     .requestMatchers("/api/admin/**")
                     .hasRole("ADMIN")
@@ -7,6 +7,7 @@ import com.group7.app.content.model.ContentWithVotesResponse;
 import com.group7.app.content.repository.ContentRepository;
 import com.group7.app.content.repository.ContentVoteRepository;
 import com.group7.app.user.User;
+import com.group7.app.user.UserProfileCache;
 import com.group7.app.user.UserRepository;
 import java.util.Collection;
 import java.util.Collections;
@@ -14,7 +15,6 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -27,14 +27,17 @@ public class ContentVoteService {
   private final ContentVoteRepository contentVoteRepository;
   private final ContentRepository contentRepository;
   private final UserRepository userRepository;
+  private final UserProfileCache userProfileCache;
 
   public ContentVoteService(
       ContentVoteRepository contentVoteRepository,
       ContentRepository contentRepository,
-      UserRepository userRepository) {
+      UserRepository userRepository,
+      UserProfileCache userProfileCache) {
     this.contentVoteRepository = contentVoteRepository;
     this.contentRepository = contentRepository;
     this.userRepository = userRepository;
+    this.userProfileCache = userProfileCache;
   }
 
   @Transactional
@@ -107,14 +110,17 @@ public class ContentVoteService {
         buildVoteCountsByContentId(contentIds);
     Map<Long, ContentVote.VoteType> userVotesByContentId =
         buildUserVotesByContentId(contentIds, userId);
-    Map<String, User> usersByLowercaseEmail = buildUsersByLowercaseEmail(contents);
+    Map<String, UserProfileCache.UserProfile> submittersByLowercaseEmail =
+        userProfileCache.getAllByEmail(
+            contents.stream().map(Content::getSubmittedBy).distinct().toList());
 
     return contents.stream()
         .map(
             content -> {
               Map<ContentVote.VoteType, Long> voteCounts =
                   voteCountsByContentId.getOrDefault(content.getId(), Collections.emptyMap());
-              User submitter = usersByLowercaseEmail.get(normalizeEmail(content.getSubmittedBy()));
+              UserProfileCache.UserProfile submitter =
+                  submittersByLowercaseEmail.get(normalizeEmail(content.getSubmittedBy()));
               String displayName = resolveDisplayName(content.getSubmittedBy(), submitter);
               return new ContentWithVotesResponse(
                   content,
@@ -163,22 +169,12 @@ public class ContentVoteService {
         .collect(Collectors.toMap(vote -> vote.getContent().getId(), ContentVote::getVoteType));
   }
 
-  private Map<String, User> buildUsersByLowercaseEmail(List<Content> contents) {
-    List<String> submittedByEmails =
-        contents.stream()
-            .map(Content::getSubmittedBy)
-            .map(ContentVoteService::normalizeEmail)
-            .distinct()
-            .toList();
-    return userRepository.findAllByEmailLowercaseIn(submittedByEmails).stream()
-        .collect(Collectors.toMap(user -> normalizeEmail(user.getEmail()), Function.identity()));
-  }
-
-  private static String resolveDisplayName(String submittedBy, User submitter) {
-    if (submitter == null || submitter.getDisplayName() == null) {
+  private static String resolveDisplayName(
+      String submittedBy, UserProfileCache.UserProfile submitter) {
+    if (submitter == null || submitter.displayName() == null) {
       return submittedBy;
     }
-    return submitter.getDisplayName();
+    return submitter.displayName();
   }
 
   private static String normalizeEmail(String email) {
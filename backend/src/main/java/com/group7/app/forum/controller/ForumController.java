@@ -8,7 +8,9 @@ import com.group7.app.forum.model.QuestionVote;
 import com.group7.app.forum.service.AnswerService;
 import com.group7.app.forum.service.ForumMappingService;
 import com.group7.app.forum.service.ForumVoteService;
+import com.group7.app.forum.service.QuestionFeedCursor;
 import com.group7.app.forum.service.QuestionService;
+import com.group7.app.lesson.service.AuthContextService;
 import com.group7.app.user.User;
 import com.group7.app.user.UserService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -18,6 +20,7 @@ import java.util.List;
 import java.util.UUID;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -35,58 +38,85 @@ public class ForumController {
   private final ForumVoteService voteService;
   private final ForumMappingService mappingService;
   private final UserService userService;
+  private final AuthContextService authContextService;
 
   public ForumController(
       QuestionService questionService,
       AnswerService answerService,
       ForumVoteService voteService,
       ForumMappingService mappingService,
-      UserService userService) {
+      UserService userService,
+      AuthContextService authContextService) {
     this.questionService = questionService;
     this.answerService = answerService;
     this.voteService = voteService;
     this.mappingService = mappingService;
     this.userService = userService;
+    this.authContextService = authContextService;
   }
 
   // ── Questions ────────────────────────────────────────────────────────────
 
   @GetMapping("/questions")
-  @Operation(summary = "Get all questions with answers, author info, and vote summaries")
+  @Operation(
+      summary = "Get all questions with answers, author info, and vote summaries",
+      description =
+          "Pass after (empty for the first page, then nextCursor) for a newest-first feed that"
+              + " skips the totals; page/size paging with totals still works without it.")
   public ResponseEntity<ForumQuestionPageResponse> getAllQuestions(
       @AuthenticationPrincipal Jwt jwt,
       @RequestParam(defaultValue = "0") int page,
       @RequestParam(defaultValue = "10") int size,
-      @RequestParam(required = false) String q) {
+      @RequestParam(required = false) String q,
+      @RequestParam(required = false) String after) {
     if (page < 0 || size < 1 || size > 50) {
       throw new ResponseStatusException(
           HttpStatus.BAD_REQUEST, "page must be >= 0 and size must be between 1 and 50");
     }
-
+    boolean searching = q != null && !q.isBlank();
     UUID userId = jwt != null ? parseUserId(jwt) : null;
-    Page<Question> resultPage = questionService.getQuestions(PageRequest.of(page, size), q);
-    List<Question> questions = resultPage.getContent();
-    var answerCounts =
-        answerService.getAnswerCounts(questions.stream().map(Question::getId).toList());
-    List<QuestionListItemResponse> items =
-        mappingService.toQuestionListItemResponses(questions, userId, answerCounts);
 
+    if (after != null) {
+      if (searching || page != 0) {
+        throw new ResponseStatusException(
+            HttpStatus.BAD_REQUEST, "after cannot be combined with q or page");
+      }
+      QuestionFeedCursor cursor = after.isBlank() ? null : QuestionFeedCursor.decode(after);
+      Slice<Question> slice = questionService.getQuestionFeed(cursor, size);
+      return ResponseEntity.ok(
+          new ForumQuestionPageResponse(
+              mappingService.toQuestionListItemResponses(slice.getContent(), userId),
+              null,
+              size,
+              null,
+              null,
+              slice.hasNext(),
+              nextCursor(slice)));
+    }
+
+    Page<Question> resultPage = questionService.getQuestions(PageRequest.of(page, size), q);
     return ResponseEntity.ok(
         new ForumQuestionPageResponse(
-            items,
+            mappingService.toQuestionListItemResponses(resultPage.getContent(), userId),
             resultPage.getNumber(),
             resultPage.getSize(),
             resultPage.getTotalElements(),
             resultPage.getTotalPages(),
-            resultPage.hasNext()));
+            resultPage.hasNext(),
+            // search results are ranked by relevance, which a feed cursor cannot resume
+            searching ? null : nextCursor(resultPage)));
   }
 
   @GetMapping("/questions/{id}")
-  @Operation(summary = "Get a single question by ID")
+  @Operation(
+      summary = "Get a single question by ID",
+      description =
+          "Authors also see their own posts while pending moderation or after rejection; poll"
+              + " moderationStatus here after posting.")
   public ResponseEntity<QuestionResponse> getQuestion(
       @PathVariable Long id, @AuthenticationPrincipal Jwt jwt) {
     UUID userId = jwt != null ? parseUserId(jwt) : null;
-    Question q = questionService.getQuestionWithAnswers(id);
+    Question q = questionService.getQuestionWithAnswers(id, userId);
     return ResponseEntity.ok(mappingService.toQuestionResponse(q, userId));
   }
 
@@ -129,8 +159,7 @@ public class ForumController {
       @PathVariable Long id, @AuthenticationPrincipal Jwt jwt) {
     User user = resolveUser(jwt);
     Question q = questionService.resolveQuestion(id, user.getId());
-    var answerCounts = answerService.getAnswerCounts(List.of(q.getId()));
-    var items = mappingService.toQuestionListItemResponses(List.of(q), user.getId(), answerCounts);
+    var items = mappingService.toQuestionListItemResponses(List.of(q), user.getId());
     return ResponseEntity.ok(items.getFirst());
   }
 
@@ -142,7 +171,7 @@ public class ForumController {
       @PathVariable Long id, @AuthenticationPrincipal Jwt jwt) {
     UUID userId = jwt != null ? parseUserId(jwt) : null;
     List<AnswerResponse> result =
-        mappingService.toAnswerResponses(answerService.getAnswersForQuestion(id), userId);
+        mappingService.toAnswerResponses(answerService.getAnswersForQuestion(id, userId), userId);
     return ResponseEntity.ok(result);
   }
 
@@ -224,10 +253,15 @@ public class ForumController {
 
   // ── Helpers ──────────────────────────────────────────────────────────────
 
+  private static String nextCursor(Slice<Question> slice) {
+    if (!slice.hasNext() || slice.getContent().isEmpty()) {
+      return null;
+    }
+    return QuestionFeedCursor.of(slice.getContent().get(slice.getContent().size() - 1)).encode();
+  }
+
   private User resolveUser(Jwt jwt) {
-    UUID userId = parseUserId(jwt);
-    String email = getEmail(jwt);
-    return userService.findById(userId).orElseGet(() -> userService.createFromAuth(userId, email));
+    return authContextService.resolveUser(jwt);
   }
 
   private void requireOnboardingCompleted(User user) {
@@ -248,12 +282,4 @@ public class ForumController {
       throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "invalid token subject");
     }
   }
-
-  private static String getEmail(Jwt jwt) {
-    String email = jwt.getClaimAsString("email");
-    if (email == null || email.isBlank()) {
-      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "missing email claim");
-    }
-    return email;
-  }
 }
@@ -2,6 +2,7 @@ package com.group7.app.forum.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.group7.app.forum.dto.ForumMediaSignedUrlRequest;
+import com.group7.app.lesson.service.AuthContextService;
 import com.group7.app.user.User;
 import com.group7.app.user.UserService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,7 +14,6 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Map;
-import java.util.UUID;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -38,18 +38,21 @@ public class ForumMediaController {
   private final RestClient restClient;
   private final ObjectMapper mapper;
   private final UserService userService;
+  private final AuthContextService authContextService;
   private final String supabaseUrl;
   private final String serviceRole;
 
   public ForumMediaController(
       ObjectMapper mapper,
       UserService userService,
+      AuthContextService authContextService,
       RestClient.Builder restClientBuilder,
       @Value("${SUPABASE_URL:}") String configuredSupabaseUrl,
       @Value("${SUPABASE_JWK_SET_URI:}") String jwkSetUri,
       @Value("${SUPABASE_SERVICE_ROLE:}") String serviceRole) {
     this.mapper = mapper;
     this.userService = userService;
+    this.authContextService = authContextService;
     this.restClient = restClientBuilder.build();
     this.supabaseUrl = resolveSupabaseUrl(configuredSupabaseUrl, jwkSetUri);
     this.serviceRole = trimToNull(serviceRole);
@@ -168,9 +171,7 @@ public class ForumMediaController {
   }
 
   private User resolveUser(Jwt jwt) {
-    UUID userId = parseUserId(jwt);
-    String email = getEmail(jwt);
-    return userService.findById(userId).orElseGet(() -> userService.createFromAuth(userId, email));
+    return authContextService.resolveUser(jwt);
   }
 
   private void requireOnboardingCompleted(User user) {
@@ -180,26 +181,6 @@ public class ForumMediaController {
     }
   }
 
-  private static UUID parseUserId(Jwt jwt) {
-    String subject = jwt.getSubject();
-    if (subject == null || subject.isBlank()) {
-      throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "missing token subject");
-    }
-    try {
-      return UUID.fromString(subject);
-    } catch (IllegalArgumentException ex) {
-      throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "invalid token subject");
-    }
-  }
-
-  private static String getEmail(Jwt jwt) {
-    String email = jwt.getClaimAsString("email");
-    if (email == null || email.isBlank()) {
-      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "missing email claim");
-    }
-    return email;
-  }
-
   private static String stripTrailingSlash(String value) {
     return value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
   }
@@ -0,0 +1,26 @@
+package com.group7.app.forum.controller;
+
+import com.group7.app.forum.service.ModerationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/moderation")
+@Tag(name = "Moderation Stats", description = "Moderation cache and batching metrics")
+public class ModerationStatsController {
+
+  private final ModerationService moderationService;
+
+  public ModerationStatsController(ModerationService moderationService) {
+    this.moderationService = moderationService;
+  }
+
+  @GetMapping("/stats")
+  @Operation(summary = "Get moderation cache hit rate and batch sizes since startup")
+  public ModerationService.Stats getStats() {
+    return moderationService.stats();
+  }
+}
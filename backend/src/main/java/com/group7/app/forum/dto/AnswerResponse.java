@@ -6,4 +6,6 @@ public record AnswerResponse(
     String author,
     AuthorInfo authorInfo,
     String createdAt,
-    VoteSummary votes) {}
+    VoteSummary votes,
+    String moderationStatus,
+    String moderationReason) {}
@@ -2,10 +2,16 @@ package com.group7.app.forum.dto;
 
 import java.util.List;
 
+/**
+ * One page of the question list. Feed requests ({@code after}) leave {@code page}, {@code
+ * totalItems} and {@code totalPages} null because they never count; {@code nextCursor} is null when
+ * nothing follows or the page is a search result.
+ */
 public record ForumQuestionPageResponse(
     List<QuestionListItemResponse> items,
-    int page,
+    Integer page,
     int size,
-    long totalItems,
-    int totalPages,
-    boolean hasNext) {}
+    Long totalItems,
+    Integer totalPages,
+    boolean hasNext,
+    String nextCursor) {}
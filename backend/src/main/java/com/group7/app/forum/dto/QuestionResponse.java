@@ -12,4 +12,6 @@ public record QuestionResponse(
     long answerCount,
     List<AnswerResponse> answers,
     VoteSummary votes,
-    boolean resolved) {}
+    boolean resolved,
+    String moderationStatus,
+    String moderationReason) {}
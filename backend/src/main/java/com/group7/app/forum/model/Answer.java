@@ -7,8 +7,12 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import org.hibernate.annotations.DynamicUpdate;
 
+// only changed columns are written, so saving the entity never rolls back counters that were
+// incremented in SQL since it was loaded
 @Entity
+@DynamicUpdate
 @Table(name = "answers")
 public class Answer {
 
@@ -27,6 +31,22 @@ public class Answer {
 
   private LocalDateTime createdAt;
 
+  // PUBLISHED unless the service queues the post for moderation
+  @Enumerated(EnumType.STRING)
+  @Column(name = "moderation_status", nullable = false)
+  private ModerationStatus moderationStatus = ModerationStatus.PUBLISHED;
+
+  // flagged categories, set when the post is rejected
+  @Column(name = "moderation_reason", columnDefinition = "TEXT")
+  private String moderationReason;
+
+  // denormalized from answer_votes; ForumCounterService repairs any drift
+  @Column(nullable = false)
+  private long upvotes;
+
+  @Column(nullable = false)
+  private long downvotes;
+
   @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "question_id", nullable = false)
   @JsonBackReference
@@ -100,4 +120,42 @@ public class Answer {
   public void setVotes(List<AnswerVote> votes) {
     this.votes = votes;
   }
+
+  public long getUpvotes() {
+    return upvotes;
+  }
+
+  public void setUpvotes(long upvotes) {
+    this.upvotes = upvotes;
+  }
+
+  public long getDownvotes() {
+    return downvotes;
+  }
+
+  public void setDownvotes(long downvotes) {
+    this.downvotes = downvotes;
+  }
+
+  public ModerationStatus getModerationStatus() {
+    return moderationStatus;
+  }
+
+  public void setModerationStatus(ModerationStatus moderationStatus) {
+    this.moderationStatus = moderationStatus;
+  }
+
+  public String getModerationReason() {
+    return moderationReason;
+  }
+
+  public void setModerationReason(String moderationReason) {
+    this.moderationReason = moderationReason;
+  }
+
+  /** Published posts are visible to everyone, anything else only to its author. */
+  public boolean isVisibleTo(UUID viewerId) {
+    return moderationStatus == ModerationStatus.PUBLISHED
+        || (viewerId != null && viewerId.equals(authorId));
+  }
 }
@@ -0,0 +1,11 @@
+package com.group7.app.forum.model;
+
+/**
+ * Where a forum post is in moderation. Only {@link #PUBLISHED} posts are listed; the other two are
+ * shown to their author alone, so they can follow what happened to the post.
+ */
+public enum ModerationStatus {
+  PENDING_MODERATION,
+  PUBLISHED,
+  REJECTED
+}
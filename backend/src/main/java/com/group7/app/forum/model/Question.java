@@ -7,9 +7,16 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import org.hibernate.annotations.DynamicUpdate;
 
+// only changed columns are written, so saving the entity never rolls back counters that were
+// incremented in SQL since it was loaded
 @Entity
-@Table(name = "questions")
+@DynamicUpdate
+@Table(
+    name = "questions",
+    indexes =
+        @Index(name = "idx_questions_created_id", columnList = "created_at DESC, id DESC"))
 public class Question {
 
   @Id
@@ -30,12 +37,31 @@ public class Question {
 
   private LocalDateTime createdAt;
 
+  // PUBLISHED unless the service queues the post for moderation
+  @Enumerated(EnumType.STRING)
+  @Column(name = "moderation_status", nullable = false)
+  private ModerationStatus moderationStatus = ModerationStatus.PUBLISHED;
+
+  // flagged categories, set when the post is rejected
+  @Column(name = "moderation_reason", columnDefinition = "TEXT")
+  private String moderationReason;
+
   @Column(nullable = false)
   private boolean resolved = false;
 
   @Column(name = "resolved_at")
   private LocalDateTime resolvedAt;
 
+  // denormalized from answers and question_votes; ForumCounterService repairs any drift
+  @Column(name = "answer_count", nullable = false)
+  private long answerCount;
+
+  @Column(nullable = false)
+  private long upvotes;
+
+  @Column(nullable = false)
+  private long downvotes;
+
   @OneToMany(
       mappedBy = "question",
       cascade = CascadeType.ALL,
@@ -136,4 +162,50 @@ public class Question {
   public void setResolvedAt(LocalDateTime resolvedAt) {
     this.resolvedAt = resolvedAt;
   }
+
+  public long getAnswerCount() {
+    return answerCount;
+  }
+
+  public void setAnswerCount(long answerCount) {
+    this.answerCount = answerCount;
+  }
+
+  public long getUpvotes() {
+    return upvotes;
+  }
+
+  public void setUpvotes(long upvotes) {
+    this.upvotes = upvotes;
+  }
+
+  public long getDownvotes() {
+    return downvotes;
+  }
+
+  public void setDownvotes(long downvotes) {
+    this.downvotes = downvotes;
+  }
+
+  public ModerationStatus getModerationStatus() {
+    return moderationStatus;
+  }
+
+  public void setModerationStatus(ModerationStatus moderationStatus) {
+    this.moderationStatus = moderationStatus;
+  }
+
+  public String getModerationReason() {
+    return moderationReason;
+  }
+
+  public void setModerationReason(String moderationReason) {
+    this.moderationReason = moderationReason;
+  }
+
+  /** Published posts are visible to everyone, anything else only to its author. */
+  public boolean isVisibleTo(UUID viewerId) {
+    return moderationStatus == ModerationStatus.PUBLISHED
+        || (viewerId != null && viewerId.equals(authorId));
+  }
 }
@@ -1,26 +1,113 @@
 package com.group7.app.forum.repository;
 
 import com.group7.app.forum.model.Answer;
+import com.group7.app.forum.model.AnswerVote;
+import com.group7.app.forum.model.ModerationStatus;
+import jakarta.persistence.LockModeType;
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface AnswerRepository extends JpaRepository<Answer, Long> {
-  List<Answer> findByQuestionIdOrderByCreatedAtAsc(Long questionId);
+  // published answers plus the viewer's own, whatever their moderation state
+  @Query(
+      """
+      select a from Answer a
+      where a.question.id = :questionId
+        and (a.moderationStatus = :published or a.authorId = :viewerId)
+      order by a.createdAt asc
+      """)
+  List<Answer> findVisibleByQuestionId(
+      @Param("questionId") Long questionId,
+      @Param("viewerId") UUID viewerId,
+      @Param("published") ModerationStatus published);
+
+  long countByQuestionIdAndModerationStatus(Long questionId, ModerationStatus moderationStatus);
+
+  /** Loads the answer with a row lock held until commit, serializing its counter updates. */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select a from Answer a where a.id = :id")
+  Optional<Answer> lockById(@Param("id") Long id);
+
+  // reads the row rather than the persistence context, which bulk updates leave stale; empty when
+  // the answer or its question is missing or hidden from the viewer
+  @Query(
+      """
+      select a.upvotes as upvotes, a.downvotes as downvotes from Answer a join a.question q
+      where a.id = :id
+        and (a.moderationStatus = :published or a.authorId = :viewerId)
+        and (q.moderationStatus = :published or q.authorId = :viewerId)
+      """)
+  Optional<VoteCountsView> findVoteCountsById(
+      @Param("id") Long id,
+      @Param("viewerId") UUID viewerId,
+      @Param("published") ModerationStatus published);
 
   @Query(
       """
-      select a.question.id as questionId, count(a) as answerCount
-      from Answer a
-      where a.question.id in :questionIds
-      group by a.question.id
+      select a.id from Answer a
+      where a.upvotes <> (select count(v) from AnswerVote v
+                          where v.answer = a and v.voteType = :up)
+         or a.downvotes <> (select count(v) from AnswerVote v
+                            where v.answer = a and v.voteType = :down)
+      order by a.id
       """)
-  List<QuestionAnswerCountView> countByQuestionIds(Collection<Long> questionIds);
+  List<Long> findIdsWithDriftedCounters(
+      @Param("up") AnswerVote.VoteType up, @Param("down") AnswerVote.VoteType down);
 
-  interface QuestionAnswerCountView {
-    Long getQuestionId();
+  // oldest first, so a backlog left by a restart drains in posting order
+  @Query(
+      """
+      select a.id from Answer a
+      where a.moderationStatus = :status and a.createdAt < :before
+      order by a.createdAt, a.id
+      """)
+  List<Long> findIdsByModerationStatusCreatedBefore(
+      @Param("status") ModerationStatus status,
+      @Param("before") LocalDateTime before,
+      Pageable pageable);
 
-    long getAnswerCount();
-  }
+  /** Moves a post out of {@code from}; returns 0 if it already left that state or is gone. */
+  @Modifying
+  @Query(
+      """
+      update Answer a set a.moderationStatus = :to, a.moderationReason = :reason
+      where a.id = :id and a.moderationStatus = :from
+      """)
+  int transitionModerationStatus(
+      @Param("id") Long id,
+      @Param("from") ModerationStatus from,
+      @Param("to") ModerationStatus to,
+      @Param("reason") String reason);
+
+  /**
+   * Legacy answers without an author id whose stored name matches exactly one user's display
+   * name, so the match is unambiguous.
+   */
+  @Query(
+      """
+      select a.id from Answer a
+      where a.authorId is null
+        and (select count(u) from User u where lower(u.displayName) = lower(a.author)) = 1
+      order by a.id
+      """)
+  List<Long> findIdsWithBackfillableAuthor(Pageable pageable);
+
+  @Modifying
+  @Query(
+      """
+      update Answer a
+      set a.authorId =
+          (select u.id from User u where lower(u.displayName) = lower(a.author))
+      where a.id in :ids and a.authorId is null
+      """)
+  int backfillAuthorIds(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,25 @@
+package com.group7.app.forum.repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.transaction.annotation.Transactional;
+
+// each write runs in its own transaction unless the caller already has one
+public interface AnswerVoteRepositoryCustom {
+
+  /**
+   * Inserts or switches the user's vote and shifts the answer's counters to match, without loading
+   * either row. Returns whether anything changed; repeating the current vote is a no-op.
+   */
+  @Transactional
+  boolean castVote(Long answerId, UUID userId, String voteType, Instant now);
+
+  /** Deletes the user's vote, if any, and takes it off the answer's counters. */
+  @Transactional
+  boolean clearVote(Long answerId, UUID userId);
+
+  /** Applies a batch of coalesced writes, at most one per answer and user. */
+  @Transactional
+  void applyVotes(List<VoteWrite> writes, Instant now);
+}
@@ -0,0 +1,32 @@
+package com.group7.app.forum.repository;
+
+import com.group7.app.config.DatabasePlatform;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class AnswerVoteRepositoryCustomImpl implements AnswerVoteRepositoryCustom {
+
+  private final VoteWriter voteWriter;
+
+  AnswerVoteRepositoryCustomImpl(JdbcTemplate jdbcTemplate, DatabasePlatform databasePlatform) {
+    this.voteWriter =
+        new VoteWriter(jdbcTemplate, databasePlatform, "answer_votes", "answer_id", "answers");
+  }
+
+  @Override
+  public boolean castVote(Long answerId, UUID userId, String voteType, Instant now) {
+    return voteWriter.cast(answerId, userId, voteType, now);
+  }
+
+  @Override
+  public boolean clearVote(Long answerId, UUID userId) {
+    return voteWriter.clear(answerId, userId);
+  }
+
+  @Override
+  public void applyVotes(List<VoteWrite> writes, Instant now) {
+    voteWriter.apply(writes, now);
+  }
+}
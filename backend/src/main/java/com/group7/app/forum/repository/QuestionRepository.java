@@ -1,37 +1,143 @@
 package com.group7.app.forum.repository;
 
+import com.group7.app.forum.model.ModerationStatus;
 import com.group7.app.forum.model.Question;
+import com.group7.app.forum.model.QuestionVote;
+import jakarta.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
-public interface QuestionRepository extends JpaRepository<Question, Long> {
-  Page<Question> findAllByOrderByCreatedAtDesc(Pageable pageable);
-
-  @Query(
-      value =
-          """
-          SELECT DISTINCT q FROM Question q
-          LEFT JOIN q.answers a
-          WHERE LOWER(q.title)   LIKE LOWER(CONCAT('%', :search, '%'))
-             OR LOWER(q.content) LIKE LOWER(CONCAT('%', :search, '%'))
-             OR LOWER(a.content) LIKE LOWER(CONCAT('%', :search, '%'))
-          ORDER BY q.createdAt DESC
-          """,
-      countQuery =
-          """
-          SELECT COUNT(DISTINCT q) FROM Question q
-          LEFT JOIN q.answers a
-          WHERE LOWER(q.title)   LIKE LOWER(CONCAT('%', :search, '%'))
-             OR LOWER(q.content) LIKE LOWER(CONCAT('%', :search, '%'))
-             OR LOWER(a.content) LIKE LOWER(CONCAT('%', :search, '%'))
-          """)
-  Page<Question> searchIncludingAnswers(@Param("search") String search, Pageable pageable);
+public interface QuestionRepository
+    extends JpaRepository<Question, Long>, QuestionRepositoryCustom {
+  Page<Question> findByModerationStatusOrderByCreatedAtDescIdDesc(
+      ModerationStatus moderationStatus, Pageable pageable);
+
+  // slices skip the count query; both walk idx_questions_created_id from the newest end
+  Slice<Question> findFeedByModerationStatusOrderByCreatedAtDescIdDesc(
+      ModerationStatus moderationStatus, Pageable pageable);
+
+  // the first condition bounds the index scan, the second only breaks ties on createdAt
+  @Query(
+      """
+      SELECT q FROM Question q
+      WHERE q.moderationStatus = :status
+        AND q.createdAt <= :createdAt
+        AND (q.createdAt < :createdAt OR q.id < :id)
+      ORDER BY q.createdAt DESC, q.id DESC
+      """)
+  Slice<Question> findFeedAfter(
+      @Param("status") ModerationStatus status,
+      @Param("createdAt") LocalDateTime createdAt,
+      @Param("id") Long id,
+      Pageable pageable);
 
   @EntityGraph(attributePaths = "answers")
   Optional<Question> findWithAnswersById(Long id);
+
+  /** Loads the question with a row lock held until commit, serializing its counter updates. */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select q from Question q where q.id = :id")
+  Optional<Question> lockById(@Param("id") Long id);
+
+  @Modifying
+  @Query("update Question q set q.answerCount = q.answerCount + :delta where q.id = :id")
+  int adjustAnswerCount(@Param("id") Long id, @Param("delta") long delta);
+
+  // reads the row rather than the persistence context, which bulk updates leave stale; empty when
+  // the question is missing or hidden from the viewer
+  @Query(
+      """
+      select q.upvotes as upvotes, q.downvotes as downvotes from Question q
+      where q.id = :id and (q.moderationStatus = :published or q.authorId = :viewerId)
+      """)
+  Optional<VoteCountsView> findVoteCountsById(
+      @Param("id") Long id,
+      @Param("viewerId") UUID viewerId,
+      @Param("published") ModerationStatus published);
+
+  @Query(
+      """
+      select count(q) > 0 from Question q
+      where q.id = :id and (q.moderationStatus = :published or q.authorId = :viewerId)
+      """)
+  boolean existsVisibleById(
+      @Param("id") Long id,
+      @Param("viewerId") UUID viewerId,
+      @Param("published") ModerationStatus published);
+
+  @Query(
+      """
+      select q.id from Question q
+      where q.answerCount <> (select count(a) from Answer a
+                              where a.question = q and a.moderationStatus = :published)
+         or q.upvotes <> (select count(v) from QuestionVote v
+                          where v.question = q and v.voteType = :up)
+         or q.downvotes <> (select count(v) from QuestionVote v
+                            where v.question = q and v.voteType = :down)
+      order by q.id
+      """)
+  List<Long> findIdsWithDriftedCounters(
+      @Param("up") QuestionVote.VoteType up,
+      @Param("down") QuestionVote.VoteType down,
+      @Param("published") ModerationStatus published);
+
+  // oldest first, so a backlog left by a restart drains in posting order
+  @Query(
+      """
+      select q.id from Question q
+      where q.moderationStatus = :status and q.createdAt < :before
+      order by q.createdAt, q.id
+      """)
+  List<Long> findIdsByModerationStatusCreatedBefore(
+      @Param("status") ModerationStatus status,
+      @Param("before") LocalDateTime before,
+      Pageable pageable);
+
+  /** Moves a post out of {@code from}; returns 0 if it already left that state or is gone. */
+  @Modifying
+  @Query(
+      """
+      update Question q set q.moderationStatus = :to, q.moderationReason = :reason
+      where q.id = :id and q.moderationStatus = :from
+      """)
+  int transitionModerationStatus(
+      @Param("id") Long id,
+      @Param("from") ModerationStatus from,
+      @Param("to") ModerationStatus to,
+      @Param("reason") String reason);
+
+  /**
+   * Legacy questions without an author id whose stored name matches exactly one user's display
+   * name, so the match is unambiguous.
+   */
+  @Query(
+      """
+      select q.id from Question q
+      where q.authorId is null
+        and (select count(u) from User u where lower(u.displayName) = lower(q.author)) = 1
+      order by q.id
+      """)
+  List<Long> findIdsWithBackfillableAuthor(Pageable pageable);
+
+  @Modifying
+  @Query(
+      """
+      update Question q
+      set q.authorId =
+          (select u.id from User u where lower(u.displayName) = lower(q.author))
+      where q.id in :ids and q.authorId is null
+      """)
+  int backfillAuthorIds(@Param("ids") Collection<Long> ids);
 }
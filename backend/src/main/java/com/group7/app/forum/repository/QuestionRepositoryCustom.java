@@ -0,0 +1,14 @@
+package com.group7.app.forum.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface QuestionRepositoryCustom {
+
+  /**
+   * Ids of the questions whose title, content or answers match {@code search}, best match first.
+   * On Postgres every word is a prefix match against the full-text indexes; elsewhere the whole
+   * string is matched as a case-insensitive substring, newest first.
+   */
+  Page<Long> searchQuestionIds(String search, Pageable pageable);
+}
@@ -0,0 +1,128 @@
+package com.group7.app.forum.repository;
+
+import com.group7.app.config.DatabasePlatform;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class QuestionRepositoryCustomImpl implements QuestionRepositoryCustom {
+
+  // both branches are served by the gin indexes on the generated search_vector columns; answer
+  // matches count half as much as matches in the question itself. Only published posts match.
+  private static final String POSTGRES_MATCHES =
+      """
+      with query as (select to_tsquery('simple', ?) as tsq),
+      matches as (
+          select q.id as question_id, ts_rank(q.search_vector, query.tsq) as rank
+          from questions q, query
+          where q.search_vector @@ query.tsq and q.moderation_status = 'PUBLISHED'
+          union all
+          select a.question_id, ts_rank(a.search_vector, query.tsq) * 0.5
+          from answers a join questions aq on aq.id = a.question_id, query
+          where a.search_vector @@ query.tsq and a.moderation_status = 'PUBLISHED'
+            and aq.moderation_status = 'PUBLISHED'
+      )
+      """;
+
+  private static final String POSTGRES_SEARCH =
+      POSTGRES_MATCHES
+          + """
+          select question_id from matches
+          group by question_id
+          order by sum(rank) desc, question_id desc
+          limit ? offset ?
+          """;
+
+  private static final String POSTGRES_COUNT =
+      POSTGRES_MATCHES + "select count(distinct question_id) from matches";
+
+  private static final String H2_WHERE =
+      """
+      from questions q
+      where q.moderation_status = 'PUBLISHED'
+        and (lower(q.title) like ?
+             or lower(q.content) like ?
+             or exists (select 1 from answers a
+                        where a.question_id = q.id and a.moderation_status = 'PUBLISHED'
+                          and lower(a.content) like ?))
+      """;
+
+  private static final String H2_SEARCH =
+      "select q.id "
+          + H2_WHERE
+          + "order by q.created_at desc, q.id desc limit ? offset ?";
+
+  private static final String H2_COUNT = "select count(*) " + H2_WHERE;
+
+  private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+
+  private final JdbcTemplate jdbcTemplate;
+  private final DatabasePlatform databasePlatform;
+
+  QuestionRepositoryCustomImpl(JdbcTemplate jdbcTemplate, DatabasePlatform databasePlatform) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.databasePlatform = databasePlatform;
+  }
+
+  @Override
+  public Page<Long> searchQuestionIds(String search, Pageable pageable) {
+    if (databasePlatform.isPostgres()) {
+      String tsQuery = toPrefixQuery(search);
+      if (tsQuery.isEmpty()) {
+        return Page.empty(pageable);
+      }
+      List<Long> ids =
+          jdbcTemplate.queryForList(
+              POSTGRES_SEARCH, Long.class, tsQuery, pageable.getPageSize(), pageable.getOffset());
+      return new PageImpl<>(ids, pageable, count(ids, pageable, () -> countPostgres(tsQuery)));
+    }
+
+    String pattern = "%" + search.trim().toLowerCase(Locale.ROOT) + "%";
+    List<Long> ids =
+        jdbcTemplate.queryForList(
+            H2_SEARCH,
+            Long.class,
+            pattern,
+            pattern,
+            pattern,
+            pageable.getPageSize(),
+            pageable.getOffset());
+    return new PageImpl<>(
+        ids,
+        pageable,
+        count(
+            ids,
+            pageable,
+            () -> jdbcTemplate.queryForObject(H2_COUNT, Long.class, pattern, pattern, pattern)));
+  }
+
+  // "rizz cap" becomes "rizz:* & cap:*"; anything but letters and digits is dropped, which also
+  // keeps tsquery operators out of user input
+  private static String toPrefixQuery(String search) {
+    List<String> terms = new ArrayList<>();
+    Matcher matcher = WORD.matcher(search.toLowerCase(Locale.ROOT));
+    while (matcher.find()) {
+      terms.add(matcher.group() + ":*");
+    }
+    return String.join(" & ", terms);
+  }
+
+  private long countPostgres(String tsQuery) {
+    return jdbcTemplate.queryForObject(POSTGRES_COUNT, Long.class, tsQuery);
+  }
+
+  // a short first page already tells the total, so only run the count when it cannot
+  private static long count(List<Long> ids, Pageable pageable, LongSupplier counter) {
+    if (pageable.getOffset() == 0 && ids.size() < pageable.getPageSize()) {
+      return ids.size();
+    }
+    return counter.getAsLong();
+  }
+}
@@ -0,0 +1,32 @@
+package com.group7.app.forum.repository;
+
+import com.group7.app.config.DatabasePlatform;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class QuestionVoteRepositoryCustomImpl implements QuestionVoteRepositoryCustom {
+
+  private final VoteWriter voteWriter;
+
+  QuestionVoteRepositoryCustomImpl(JdbcTemplate jdbcTemplate, DatabasePlatform databasePlatform) {
+    this.voteWriter =
+        new VoteWriter(jdbcTemplate, databasePlatform, "question_votes", "question_id", "questions");
+  }
+
+  @Override
+  public boolean castVote(Long questionId, UUID userId, String voteType, Instant now) {
+    return voteWriter.cast(questionId, userId, voteType, now);
+  }
+
+  @Override
+  public boolean clearVote(Long questionId, UUID userId) {
+    return voteWriter.clear(questionId, userId);
+  }
+
+  @Override
+  public void applyVotes(List<VoteWrite> writes, Instant now) {
+    voteWriter.apply(writes, now);
+  }
+}
@@ -0,0 +1,8 @@
+package com.group7.app.forum.repository;
+
+/** Denormalized vote counters of a question or answer row. */
+public interface VoteCountsView {
+  long getUpvotes();
+
+  long getDownvotes();
+}
@@ -0,0 +1,9 @@
+package com.group7.app.forum.repository;
+
+import java.util.UUID;
+
+/**
+ * The state one user's vote on a question or answer should end up in. {@code voteType} is the
+ * vote type name, or {@code null} to clear the vote.
+ */
+public record VoteWrite(Long targetId, UUID userId, String voteType) {}
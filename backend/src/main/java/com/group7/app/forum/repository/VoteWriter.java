@@ -0,0 +1,169 @@
+package com.group7.app.forum.repository;
+
+import com.group7.app.config.DatabasePlatform;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Writes a vote row and shifts the counters on its question or answer without loading either
+ * entity. On Postgres each write is one statement: the upsert reports whether it inserted or
+ * switched the vote, and the counter update joins against that report, so a repeated vote touches
+ * nothing. Vote types are binary, so a switch always moves one vote from the other type.
+ */
+final class VoteWriter {
+
+  private static final String POSTGRES_CAST =
+      """
+      with vote as (
+          insert into %1$s (%2$s, user_id, vote_type, created_at, updated_at)
+          values (?, ?, ?, ?, ?)
+          on conflict (%2$s, user_id) do update set
+              vote_type = excluded.vote_type,
+              updated_at = excluded.updated_at
+          where %1$s.vote_type <> excluded.vote_type
+          returning (xmax = 0) as inserted
+      )
+      update %3$s t set
+          upvotes = t.upvotes
+              + case when ? = 'THUMBS_UP' then 1 when vote.inserted then 0 else -1 end,
+          downvotes = t.downvotes
+              + case when ? = 'THUMBS_DOWN' then 1 when vote.inserted then 0 else -1 end
+      from vote
+      where t.id = ?
+      """;
+
+  private static final String POSTGRES_CLEAR =
+      """
+      with removed as (
+          delete from %1$s where %2$s = ? and user_id = ?
+          returning vote_type
+      )
+      update %3$s t set
+          upvotes = t.upvotes - case when removed.vote_type = 'THUMBS_UP' then 1 else 0 end,
+          downvotes = t.downvotes - case when removed.vote_type = 'THUMBS_DOWN' then 1 else 0 end
+      from removed
+      where t.id = ?
+      """;
+
+  // h2 has neither on conflict nor xmax; the row lock taken by the select keeps the steps atomic
+  private static final String H2_LOCK =
+      "select vote_type from %1$s where %2$s = ? and user_id = ? for update";
+
+  private static final String H2_INSERT =
+      """
+      insert into %1$s (%2$s, user_id, vote_type, created_at, updated_at)
+      values (?, ?, ?, ?, ?)
+      """;
+
+  private static final String H2_SWITCH =
+      "update %1$s set vote_type = ?, updated_at = ? where %2$s = ? and user_id = ?";
+
+  private static final String H2_DELETE = "delete from %1$s where %2$s = ? and user_id = ?";
+
+  private static final String H2_ADJUST =
+      "update %3$s set upvotes = upvotes + ?, downvotes = downvotes + ? where id = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final DatabasePlatform databasePlatform;
+  private final String voteTable;
+  private final String targetColumn;
+  private final String targetTable;
+
+  VoteWriter(
+      JdbcTemplate jdbcTemplate,
+      DatabasePlatform databasePlatform,
+      String voteTable,
+      String targetColumn,
+      String targetTable) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.databasePlatform = databasePlatform;
+    this.voteTable = voteTable;
+    this.targetColumn = targetColumn;
+    this.targetTable = targetTable;
+  }
+
+  boolean cast(Long targetId, UUID userId, String voteType, Instant now) {
+    if (databasePlatform.isPostgres()) {
+      Object[] args = castArgs(targetId, userId, voteType, now);
+      return jdbcTemplate.update(sql(POSTGRES_CAST), args) > 0;
+    }
+    List<String> previous =
+        jdbcTemplate.queryForList(sql(H2_LOCK), String.class, targetId, userId);
+    Timestamp writtenAt = Timestamp.from(now);
+    if (previous.isEmpty()) {
+      jdbcTemplate.update(sql(H2_INSERT), targetId, userId, voteType, writtenAt, writtenAt);
+      adjust(targetId, voteType, 1);
+      return true;
+    }
+    if (previous.getFirst().equals(voteType)) {
+      return false;
+    }
+    jdbcTemplate.update(sql(H2_SWITCH), voteType, writtenAt, targetId, userId);
+    adjust(targetId, previous.getFirst(), -1);
+    adjust(targetId, voteType, 1);
+    return true;
+  }
+
+  boolean clear(Long targetId, UUID userId) {
+    if (databasePlatform.isPostgres()) {
+      return jdbcTemplate.update(sql(POSTGRES_CLEAR), targetId, userId, targetId) > 0;
+    }
+    List<String> previous =
+        jdbcTemplate.queryForList(sql(H2_LOCK), String.class, targetId, userId);
+    if (previous.isEmpty()) {
+      return false;
+    }
+    jdbcTemplate.update(sql(H2_DELETE), targetId, userId);
+    adjust(targetId, previous.getFirst(), -1);
+    return true;
+  }
+
+  /** Applies many writes with one batch per statement kind; the caller supplies the transaction. */
+  void apply(List<VoteWrite> writes, Instant now) {
+    if (!databasePlatform.isPostgres()) {
+      for (VoteWrite write : writes) {
+        if (write.voteType() == null) {
+          clear(write.targetId(), write.userId());
+        } else {
+          cast(write.targetId(), write.userId(), write.voteType(), now);
+        }
+      }
+      return;
+    }
+    List<Object[]> casts = new ArrayList<>();
+    List<Object[]> clears = new ArrayList<>();
+    for (VoteWrite write : writes) {
+      if (write.voteType() == null) {
+        clears.add(new Object[] {write.targetId(), write.userId(), write.targetId()});
+      } else {
+        casts.add(castArgs(write.targetId(), write.userId(), write.voteType(), now));
+      }
+    }
+    if (!casts.isEmpty()) {
+      jdbcTemplate.batchUpdate(sql(POSTGRES_CAST), casts);
+    }
+    if (!clears.isEmpty()) {
+      jdbcTemplate.batchUpdate(sql(POSTGRES_CLEAR), clears);
+    }
+  }
+
+  private Object[] castArgs(Long targetId, UUID userId, String voteType, Instant now) {
+    Timestamp writtenAt = Timestamp.from(now);
+    return new Object[] {
+      targetId, userId, voteType, writtenAt, writtenAt, voteType, voteType, targetId
+    };
+  }
+
+  private void adjust(Long targetId, String voteType, long delta) {
+    boolean up = "THUMBS_UP".equals(voteType);
+    jdbcTemplate.update(sql(H2_ADJUST), up ? delta : 0, up ? 0 : delta, targetId);
+  }
+
+  private String sql(String template) {
+    return template.formatted(voteTable, targetColumn, targetTable);
+  }
+}
@@ -1,15 +1,15 @@
 package com.group7.app.forum.service;
 
 import com.group7.app.forum.model.Answer;
+import com.group7.app.forum.model.ModerationStatus;
 import com.group7.app.forum.model.Question;
 import com.group7.app.forum.repository.AnswerRepository;
 import com.group7.app.forum.repository.QuestionRepository;
-import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.UUID;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 @Service
@@ -18,30 +18,30 @@ public class AnswerService {
   private final AnswerRepository answerRepository;
   private final QuestionRepository questionRepository;
   private final ModerationService moderationService;
+  private final ForumModerationQueue moderationQueue;
 
   public AnswerService(
       AnswerRepository answerRepository,
       QuestionRepository questionRepository,
-      ModerationService moderationService) {
+      ModerationService moderationService,
+      ForumModerationQueue moderationQueue) {
     this.answerRepository = answerRepository;
     this.questionRepository = questionRepository;
     this.moderationService = moderationService;
+    this.moderationQueue = moderationQueue;
   }
 
-  public List<Answer> getAnswersForQuestion(Long questionId) {
-    return answerRepository.findByQuestionIdOrderByCreatedAtAsc(questionId);
-  }
-
-  public Map<Long, Long> getAnswerCounts(Collection<Long> questionIds) {
-    if (questionIds.isEmpty()) {
-      return Map.of();
-    }
-
-    Map<Long, Long> counts = new HashMap<>();
-    for (var row : answerRepository.countByQuestionIds(questionIds)) {
-      counts.put(row.getQuestionId(), row.getAnswerCount());
+  /**
+   * Published answers, plus any of {@code viewerId}'s own still pending or rejected. A question
+   * hidden from the viewer is reported as not found.
+   */
+  public List<Answer> getAnswersForQuestion(Long questionId, UUID viewerId) {
+    if (!questionRepository.existsVisibleById(questionId, viewerId, ModerationStatus.PUBLISHED)) {
+      throw new ResponseStatusException(
+          HttpStatus.NOT_FOUND, "Question not found with id: " + questionId);
     }
-    return counts;
+    return answerRepository.findVisibleByQuestionId(
+        questionId, viewerId, ModerationStatus.PUBLISHED);
   }
 
   public Answer getAnswer(Long answerId) {
@@ -53,6 +53,11 @@ public class AnswerService {
                     HttpStatus.NOT_FOUND, "Answer not found with id: " + answerId));
   }
 
+  /**
+   * Saves the answer. With moderation on it is queued once the transaction commits and only counts
+   * towards the question's answer_count when published; otherwise the count is bumped right here.
+   */
+  @Transactional
   public Answer postAnswer(Long questionId, Answer answer) {
     if (answer.getContent() == null || answer.getContent().isBlank()) {
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Answer content is required");
@@ -60,20 +65,39 @@ public class AnswerService {
     Question question =
         questionRepository
             .findById(questionId)
+            .filter(q -> q.isVisibleTo(answer.getAuthorId()))
             .orElseThrow(
                 () ->
                     new ResponseStatusException(
                         HttpStatus.NOT_FOUND, "Question not found with id: " + questionId));
     answer.setQuestion(question);
-    moderationService.moderateContent(answer.getContent());
-    return answerRepository.save(answer);
+    boolean moderated = moderationService.isActive();
+    answer.setModerationStatus(
+        moderated ? ModerationStatus.PENDING_MODERATION : ModerationStatus.PUBLISHED);
+    Answer saved = answerRepository.save(answer);
+    if (moderated) {
+      moderationQueue.submitAnswer(saved.getId());
+    } else {
+      questionRepository.adjustAnswerCount(questionId, 1);
+    }
+    return saved;
   }
 
+  @Transactional
   public void deleteAnswer(Long answerId) {
-    if (!answerRepository.existsById(answerId)) {
-      throw new ResponseStatusException(
-          HttpStatus.NOT_FOUND, "Answer not found with id: " + answerId);
+    // the lock keeps a moderation verdict from publishing the answer between the status check
+    // and the delete, and makes a concurrent delete of the same answer wait and then find nothing
+    Answer answer =
+        answerRepository
+            .lockById(answerId)
+            .orElseThrow(
+                () ->
+                    new ResponseStatusException(
+                        HttpStatus.NOT_FOUND, "Answer not found with id: " + answerId));
+    Long questionId = answer.getQuestion().getId();
+    answerRepository.delete(answer);
+    if (answer.getModerationStatus() == ModerationStatus.PUBLISHED) {
+      questionRepository.adjustAnswerCount(questionId, -1);
     }
-    answerRepository.deleteById(answerId);
   }
 }
@@ -0,0 +1,39 @@
+package com.group7.app.forum.service;
+
+import com.group7.app.forum.repository.AnswerRepository;
+import com.group7.app.forum.repository.QuestionRepository;
+import java.util.List;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Links legacy questions and answers that only stored the author's display name to that user's id.
+ * Names shared by several users are left alone; those posts keep showing the stored name.
+ */
+@Service
+public class ForumAuthorBackfillService {
+
+  private final QuestionRepository questionRepository;
+  private final AnswerRepository answerRepository;
+
+  public ForumAuthorBackfillService(
+      QuestionRepository questionRepository, AnswerRepository answerRepository) {
+    this.questionRepository = questionRepository;
+    this.answerRepository = answerRepository;
+  }
+
+  /** Fills in one batch of questions; returns how many rows were updated. */
+  @Transactional
+  public int backfillQuestions(int batchSize) {
+    List<Long> ids = questionRepository.findIdsWithBackfillableAuthor(PageRequest.of(0, batchSize));
+    return ids.isEmpty() ? 0 : questionRepository.backfillAuthorIds(ids);
+  }
+
+  /** Fills in one batch of answers; returns how many rows were updated. */
+  @Transactional
+  public int backfillAnswers(int batchSize) {
+    List<Long> ids = answerRepository.findIdsWithBackfillableAuthor(PageRequest.of(0, batchSize));
+    return ids.isEmpty() ? 0 : answerRepository.backfillAuthorIds(ids);
+  }
+}
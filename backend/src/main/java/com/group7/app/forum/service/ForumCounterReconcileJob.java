@@ -0,0 +1,39 @@
+package com.group7.app.forum.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/** Periodically finds forum rows whose counters drifted and recounts them one at a time. */
+@Component
+public class ForumCounterReconcileJob {
+
+  private static final Logger log = LoggerFactory.getLogger(ForumCounterReconcileJob.class);
+  private final ForumCounterService forumCounterService;
+
+  public ForumCounterReconcileJob(ForumCounterService forumCounterService) {
+    this.forumCounterService = forumCounterService;
+  }
+
+  @Scheduled(
+      fixedDelayString = "${forum.counters.reconcile-interval:PT1H}",
+      initialDelayString = "${forum.counters.reconcile-interval:PT1H}")
+  public void run() {
+    int questions = 0;
+    for (Long questionId : forumCounterService.findDriftedQuestionIds()) {
+      if (forumCounterService.reconcileQuestion(questionId)) {
+        questions++;
+      }
+    }
+    int answers = 0;
+    for (Long answerId : forumCounterService.findDriftedAnswerIds()) {
+      if (forumCounterService.reconcileAnswer(answerId)) {
+        answers++;
+      }
+    }
+    if (questions > 0 || answers > 0) {
+      log.warn("Repaired forum counters on {} questions and {} answers", questions, answers);
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package com.group7.app.forum.service;
+
+import com.group7.app.forum.model.Answer;
+import com.group7.app.forum.model.AnswerVote;
+import com.group7.app.forum.model.ModerationStatus;
+import com.group7.app.forum.model.Question;
+import com.group7.app.forum.model.QuestionVote;
+import com.group7.app.forum.repository.AnswerRepository;
+import com.group7.app.forum.repository.AnswerVoteRepository;
+import com.group7.app.forum.repository.QuestionRepository;
+import com.group7.app.forum.repository.QuestionVoteRepository;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repairs the denormalized answer and vote counters on questions and answers. Writes keep them in
+ * step, but rows removed behind the application's back (e.g. votes cascading away with a deleted
+ * user) still make them drift.
+ */
+@Service
+public class ForumCounterService {
+
+  private final QuestionRepository questionRepository;
+  private final AnswerRepository answerRepository;
+  private final QuestionVoteRepository questionVoteRepository;
+  private final AnswerVoteRepository answerVoteRepository;
+
+  public ForumCounterService(
+      QuestionRepository questionRepository,
+      AnswerRepository answerRepository,
+      QuestionVoteRepository questionVoteRepository,
+      AnswerVoteRepository answerVoteRepository) {
+    this.questionRepository = questionRepository;
+    this.answerRepository = answerRepository;
+    this.questionVoteRepository = questionVoteRepository;
+    this.answerVoteRepository = answerVoteRepository;
+  }
+
+  @Transactional(readOnly = true)
+  public List<Long> findDriftedQuestionIds() {
+    return questionRepository.findIdsWithDriftedCounters(
+        QuestionVote.VoteType.THUMBS_UP,
+        QuestionVote.VoteType.THUMBS_DOWN,
+        ModerationStatus.PUBLISHED);
+  }
+
+  @Transactional(readOnly = true)
+  public List<Long> findDriftedAnswerIds() {
+    return answerRepository.findIdsWithDriftedCounters(
+        AnswerVote.VoteType.THUMBS_UP, AnswerVote.VoteType.THUMBS_DOWN);
+  }
+
+  /**
+   * Recounts one question under its row lock, so a vote or answer committed meanwhile is either
+   * counted here or applies its delta afterwards. Returns whether anything had drifted.
+   */
+  @Transactional
+  public boolean reconcileQuestion(Long questionId) {
+    Optional<Question> locked = questionRepository.lockById(questionId);
+    if (locked.isEmpty()) {
+      return false;
+    }
+    Question question = locked.get();
+    // only published answers count; pending ones are added when moderation lets them through
+    long answerCount =
+        answerRepository.countByQuestionIdAndModerationStatus(
+            questionId, ModerationStatus.PUBLISHED);
+    long upvotes =
+        questionVoteRepository.countByQuestionIdAndVoteType(
+            questionId, QuestionVote.VoteType.THUMBS_UP);
+    long downvotes =
+        questionVoteRepository.countByQuestionIdAndVoteType(
+            questionId, QuestionVote.VoteType.THUMBS_DOWN);
+    if (question.getAnswerCount() == answerCount
+        && question.getUpvotes() == upvotes
+        && question.getDownvotes() == downvotes) {
+      return false;
+    }
+    question.setAnswerCount(answerCount);
+    question.setUpvotes(upvotes);
+    question.setDownvotes(downvotes);
+    return true;
+  }
+
+  /** Same as {@link #reconcileQuestion} for an answer's vote counters. */
+  @Transactional
+  public boolean reconcileAnswer(Long answerId) {
+    Optional<Answer> locked = answerRepository.lockById(answerId);
+    if (locked.isEmpty()) {
+      return false;
+    }
+    Answer answer = locked.get();
+    long upvotes =
+        answerVoteRepository.countByAnswerIdAndVoteType(answerId, AnswerVote.VoteType.THUMBS_UP);
+    long downvotes =
+        answerVoteRepository.countByAnswerIdAndVoteType(
+            answerId, AnswerVote.VoteType.THUMBS_DOWN);
+    if (answer.getUpvotes() == upvotes && answer.getDownvotes() == downvotes) {
+      return false;
+    }
+    answer.setUpvotes(upvotes);
+    answer.setDownvotes(downvotes);
+    return true;
+  }
+}
@@ -2,8 +2,11 @@ package com.group7.app.forum.service;
 
 import com.group7.app.forum.dto.*;
 import com.group7.app.forum.model.Answer;
+import com.group7.app.forum.model.ModerationStatus;
 import com.group7.app.forum.model.Question;
 import com.group7.app.user.User;
+import com.group7.app.user.UserProfileCache;
+import com.group7.app.user.UserProfileCache.UserProfile;
 import com.group7.app.user.UserRepository;
 import java.util.*;
 import org.springframework.stereotype.Service;
@@ -12,22 +15,26 @@ import org.springframework.stereotype.Service;
 public class ForumMappingService {
 
   private final UserRepository userRepo;
+  private final UserProfileCache profileCache;
   private final ForumVoteService voteService;
 
-  public ForumMappingService(UserRepository userRepo, ForumVoteService voteService) {
+  public ForumMappingService(
+      UserRepository userRepo, UserProfileCache profileCache, ForumVoteService voteService) {
     this.userRepo = userRepo;
+    this.profileCache = profileCache;
     this.voteService = voteService;
   }
 
+  /** Counts come from the question rows; the only extra reads are authors and viewer votes. */
   public List<QuestionListItemResponse> toQuestionListItemResponses(
-      List<Question> questions, UUID currentUserId, Map<Long, Long> answerCounts) {
+      List<Question> questions, UUID currentUserId) {
     if (questions.isEmpty()) {
       return List.of();
     }
 
-    Map<UUID, User> userCache = buildUserCache(collectAuthorIds(questions), Set.of());
-    Map<Long, VoteSummary> voteSummaries =
-        voteService.getQuestionVoteSummaries(
+    Authors authors = loadAuthors(questions, List.of());
+    Map<Long, String> userVotes =
+        voteService.getQuestionUserVotes(
             questions.stream().map(Question::getId).filter(Objects::nonNull).toList(),
             currentUserId);
 
@@ -39,28 +46,34 @@ public class ForumMappingService {
                     question.getTitle(),
                     question.getContent(),
                     question.getAuthor(),
-                    resolveAuthorInfo(question.getAuthorId(), question.getAuthor(), userCache),
+                    authors.resolve(question.getAuthorId(), question.getAuthor()),
                     question.getCreatedAt() != null ? question.getCreatedAt().toString() : null,
-                    answerCounts.getOrDefault(question.getId(), 0L),
-                    voteSummaries.getOrDefault(question.getId(), new VoteSummary(0, 0, null)),
+                    question.getAnswerCount(),
+                    new VoteSummary(
+                        question.getUpvotes(),
+                        question.getDownvotes(),
+                        userVotes.get(question.getId())),
                     question.isResolved()))
         .toList();
   }
 
   public QuestionResponse toQuestionResponse(Question q, UUID currentUserId) {
-    List<Answer> answers = q.getAnswers() == null ? List.of() : q.getAnswers();
-    Map<UUID, User> userCache =
-        buildUserCache(collectAuthorIds(List.of(q)), collectAuthorIdsFromAnswers(answers));
-    Map<Long, VoteSummary> questionVotes =
-        voteService.getQuestionVoteSummaries(List.of(q.getId()), currentUserId);
-    Map<Long, VoteSummary> answerVotes =
-        voteService.getAnswerVoteSummaries(
+    // the fetched collection holds every answer; pending and rejected ones are the author's only
+    List<Answer> answers =
+        q.getAnswers() == null
+            ? List.of()
+            : q.getAnswers().stream().filter(a -> a.isVisibleTo(currentUserId)).toList();
+    Authors authors = loadAuthors(List.of(q), answers);
+    Map<Long, String> questionVotes =
+        voteService.getQuestionUserVotes(List.of(q.getId()), currentUserId);
+    Map<Long, String> answerVotes =
+        voteService.getAnswerUserVotes(
             answers.stream().map(Answer::getId).filter(Objects::nonNull).toList(), currentUserId);
-    AuthorInfo authorInfo = resolveAuthorInfo(q.getAuthorId(), q.getAuthor(), userCache);
+    AuthorInfo authorInfo = authors.resolve(q.getAuthorId(), q.getAuthor());
 
     List<AnswerResponse> mappedAnswers =
         answers.stream()
-            .map(a -> toAnswerResponse(a, userCache, answerVotes.get(a.getId())))
+            .map(a -> toAnswerResponse(a, authors, answerVotes.get(a.getId())))
             .toList();
 
     return new QuestionResponse(
@@ -70,10 +83,14 @@ public class ForumMappingService {
         q.getAuthor(),
         authorInfo,
         q.getCreatedAt() != null ? q.getCreatedAt().toString() : null,
-        mappedAnswers.size(),
+        answers.stream()
+            .filter(a -> a.getModerationStatus() == ModerationStatus.PUBLISHED)
+            .count(),
         mappedAnswers,
-        questionVotes.getOrDefault(q.getId(), new VoteSummary(0, 0, null)),
-        q.isResolved());
+        new VoteSummary(q.getUpvotes(), q.getDownvotes(), questionVotes.get(q.getId())),
+        q.isResolved(),
+        q.getModerationStatus().name(),
+        q.getModerationReason());
   }
 
   public List<AnswerResponse> toAnswerResponses(List<Answer> answers, UUID currentUserId) {
@@ -81,13 +98,13 @@ public class ForumMappingService {
       return List.of();
     }
 
-    Map<UUID, User> userCache = buildUserCache(Set.of(), collectAuthorIdsFromAnswers(answers));
-    Map<Long, VoteSummary> voteSummaries =
-        voteService.getAnswerVoteSummaries(
+    Authors authors = loadAuthors(List.of(), answers);
+    Map<Long, String> userVotes =
+        voteService.getAnswerUserVotes(
             answers.stream().map(Answer::getId).filter(Objects::nonNull).toList(), currentUserId);
 
     return answers.stream()
-        .map(answer -> toAnswerResponse(answer, userCache, voteSummaries.get(answer.getId())))
+        .map(answer -> toAnswerResponse(answer, authors, userVotes.get(answer.getId())))
         .toList();
   }
 
@@ -95,74 +112,85 @@ public class ForumMappingService {
     return toAnswerResponses(List.of(answer), currentUserId).getFirst();
   }
 
-  private AnswerResponse toAnswerResponse(
-      Answer answer, Map<UUID, User> userCache, VoteSummary votes) {
-    AuthorInfo authorInfo = resolveAuthorInfo(answer.getAuthorId(), answer.getAuthor(), userCache);
+  private AnswerResponse toAnswerResponse(Answer answer, Authors authors, String userVote) {
+    AuthorInfo authorInfo = authors.resolve(answer.getAuthorId(), answer.getAuthor());
     return new AnswerResponse(
         answer.getId(),
         answer.getContent(),
         answer.getAuthor(),
         authorInfo,
         answer.getCreatedAt() != null ? answer.getCreatedAt().toString() : null,
-        votes != null ? votes : new VoteSummary(0, 0, null));
+        new VoteSummary(answer.getUpvotes(), answer.getDownvotes(), userVote),
+        answer.getModerationStatus().name(),
+        answer.getModerationReason());
   }
 
-  private AuthorInfo resolveAuthorInfo(UUID authorId, String fallbackName, Map<UUID, User> cache) {
-    User user = null;
-    if (authorId != null) {
-      user = cache.computeIfAbsent(authorId, id -> userRepo.findById(id).orElse(null));
-    }
-    // fallback: try matching by display name for old posts without author_id
-    if (user == null && fallbackName != null && !fallbackName.isBlank()) {
-      user = userRepo.findFirstByDisplayNameIgnoreCase(fallbackName).orElse(null);
-      if (user != null) {
-        cache.put(user.getId(), user);
-      }
+  /**
+   * Resolves every author on the page from the shared profile cache, plus at most one query by
+   * lowercased display name for legacy posts whose author id is missing or no longer matches a
+   * user.
+   */
+  private Authors loadAuthors(List<Question> questions, List<Answer> answers) {
+    List<AuthorRef> refs = new ArrayList<>();
+    for (Question question : questions) {
+      refs.add(new AuthorRef(question.getAuthorId(), question.getAuthor()));
     }
-    if (user == null) {
-      return new AuthorInfo(null, fallbackName, null, null, null);
+    for (Answer answer : answers) {
+      refs.add(new AuthorRef(answer.getAuthorId(), answer.getAuthor()));
     }
-    String name = user.getDisplayName() != null ? user.getDisplayName() : fallbackName;
-    return new AuthorInfo(
-        user.getId().toString(),
-        name,
-        user.getAvatarPath(),
-        user.getAvatarColor(),
-        user.getRole() != null ? user.getRole().name() : null);
-  }
-
-  private Map<UUID, User> buildUserCache(Set<UUID> questionAuthorIds, Set<UUID> answerAuthorIds) {
-    Set<UUID> authorIds = new HashSet<>(questionAuthorIds);
-    authorIds.addAll(answerAuthorIds);
 
-    if (authorIds.isEmpty()) {
-      return new HashMap<>();
+    Set<UUID> authorIds = new HashSet<>();
+    for (AuthorRef ref : refs) {
+      if (ref.authorId() != null) {
+        authorIds.add(ref.authorId());
+      }
     }
-
-    Map<UUID, User> cache = new HashMap<>();
-    for (User user : userRepo.findAllById(authorIds)) {
-      cache.put(user.getId(), user);
+    Map<UUID, UserProfile> byId = authorIds.isEmpty() ? Map.of() : profileCache.getAll(authorIds);
+
+    Set<String> fallbackNames = new HashSet<>();
+    for (AuthorRef ref : refs) {
+      if ((ref.authorId() == null || !byId.containsKey(ref.authorId()))
+          && ref.name() != null
+          && !ref.name().isBlank()) {
+        fallbackNames.add(ref.name().toLowerCase(Locale.ROOT));
+      }
     }
-    return cache;
-  }
-
-  private Set<UUID> collectAuthorIds(List<Question> questions) {
-    Set<UUID> authorIds = new HashSet<>();
-    for (Question question : questions) {
-      if (question.getAuthorId() != null) {
-        authorIds.add(question.getAuthorId());
+    Map<String, UserProfile> byName = new HashMap<>();
+    if (!fallbackNames.isEmpty()) {
+      Set<String> sharedNames = new HashSet<>();
+      for (User user : userRepo.findAllByDisplayNameLowercaseIn(fallbackNames)) {
+        String name = user.getDisplayName().toLowerCase(Locale.ROOT);
+        if (byName.putIfAbsent(name, UserProfile.of(user)) != null) {
+          sharedNames.add(name);
+        }
       }
+      // like the author backfill, a name shared by several users resolves to none of them, so a
+      // post never shows a different author depending on query order
+      byName.keySet().removeAll(sharedNames);
     }
-    return authorIds;
+    return new Authors(byId, byName);
   }
 
-  private Set<UUID> collectAuthorIdsFromAnswers(List<Answer> answers) {
-    Set<UUID> authorIds = new HashSet<>();
-    for (Answer answer : answers) {
-      if (answer.getAuthorId() != null) {
-        authorIds.add(answer.getAuthorId());
+  private record AuthorRef(UUID authorId, String name) {}
+
+  private record Authors(Map<UUID, UserProfile> byId, Map<String, UserProfile> byName) {
+
+    AuthorInfo resolve(UUID authorId, String fallbackName) {
+      UserProfile user = authorId != null ? byId.get(authorId) : null;
+      // fallback: match by display name for old posts without author_id
+      if (user == null && fallbackName != null && !fallbackName.isBlank()) {
+        user = byName.get(fallbackName.toLowerCase(Locale.ROOT));
+      }
+      if (user == null) {
+        return new AuthorInfo(null, fallbackName, null, null, null);
       }
+      String name = user.displayName() != null ? user.displayName() : fallbackName;
+      return new AuthorInfo(
+          user.id().toString(),
+          name,
+          user.avatarPath(),
+          user.avatarColor(),
+          user.role() != null ? user.role().name() : null);
     }
-    return authorIds;
   }
 }
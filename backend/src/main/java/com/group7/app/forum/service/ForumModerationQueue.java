@@ -0,0 +1,153 @@
+package com.group7.app.forum.service;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Moderates new forum posts off the request thread. Posts are saved as pending and handed to a
+ * fixed pool of virtual threads, which caps the moderation calls in flight. A post that finds the
+ * queue full, fails its check, or is still queued when the process stops stays pending; {@link
+ * #sweep} picks it up again.
+ */
+@Component
+public class ForumModerationQueue {
+
+  static final int SWEEP_BATCH_SIZE = 200;
+
+  private static final Logger log = LoggerFactory.getLogger(ForumModerationQueue.class);
+
+  private final ModerationService moderationService;
+  private final ForumModerationService forumModerationService;
+  private final Duration sweepInterval;
+  private final ThreadPoolExecutor executor;
+  // posts waiting in or running on the executor, so a sweep never queues one twice
+  private final Set<Key> queued = ConcurrentHashMap.newKeySet();
+
+  public ForumModerationQueue(
+      ModerationService moderationService,
+      ForumModerationService forumModerationService,
+      @Value("${forum.moderation.workers:4}") int workers,
+      @Value("${forum.moderation.queue-capacity:1000}") int queueCapacity,
+      @Value("${forum.moderation.sweep-interval:PT1M}") Duration sweepInterval) {
+    this.moderationService = moderationService;
+    this.forumModerationService = forumModerationService;
+    this.sweepInterval = sweepInterval;
+    this.executor =
+        new ThreadPoolExecutor(
+            workers,
+            workers,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            Thread.ofVirtual().name("forum-moderation-", 0).factory());
+  }
+
+  public void submitQuestion(Long questionId) {
+    submit(new Key(Kind.QUESTION, questionId));
+  }
+
+  public void submitAnswer(Long answerId) {
+    submit(new Key(Kind.ANSWER, answerId));
+  }
+
+  /**
+   * Re-queues posts that have been pending for longer than one sweep interval. Returns how many
+   * were queued.
+   */
+  @Scheduled(
+      fixedDelayString = "${forum.moderation.sweep-interval:PT1M}",
+      initialDelayString = "${forum.moderation.sweep-interval:PT1M}")
+  public int sweep() {
+    LocalDateTime createdBefore = LocalDateTime.now().minus(sweepInterval);
+    int submitted = 0;
+    for (Long id : forumModerationService.findPendingQuestionIds(createdBefore, SWEEP_BATCH_SIZE)) {
+      submitted += enqueue(new Key(Kind.QUESTION, id)) ? 1 : 0;
+    }
+    for (Long id : forumModerationService.findPendingAnswerIds(createdBefore, SWEEP_BATCH_SIZE)) {
+      submitted += enqueue(new Key(Kind.ANSWER, id)) ? 1 : 0;
+    }
+    return submitted;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  // inside a transaction the post is not visible to the worker before the commit
+  private void submit(Key key) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              enqueue(key);
+            }
+          });
+      return;
+    }
+    enqueue(key);
+  }
+
+  private boolean enqueue(Key key) {
+    if (!queued.add(key)) {
+      return false;
+    }
+    try {
+      executor.execute(() -> moderate(key));
+      return true;
+    } catch (RejectedExecutionException ex) {
+      queued.remove(key);
+      log.warn("Moderation queue is full; {} {} waits for the next sweep", key.kind(), key.id());
+      return false;
+    }
+  }
+
+  private void moderate(Key key) {
+    try {
+      Optional<String> text =
+          key.kind() == Kind.QUESTION
+              ? forumModerationService.pendingQuestionText(key.id())
+              : forumModerationService.pendingAnswerText(key.id());
+      if (text.isEmpty()) {
+        return;
+      }
+      Optional<ModerationService.Verdict> verdict = moderationService.review(text.get());
+      if (verdict.isEmpty()) {
+        log.warn("Moderation unavailable; {} {} waits for the next sweep", key.kind(), key.id());
+        return;
+      }
+      if (key.kind() == Kind.QUESTION) {
+        forumModerationService.applyQuestionVerdict(key.id(), verdict.get());
+      } else {
+        forumModerationService.applyAnswerVerdict(key.id(), verdict.get());
+      }
+    } catch (RuntimeException ex) {
+      log.warn("Moderating {} {} failed; the next sweep retries it", key.kind(), key.id(), ex);
+    } finally {
+      queued.remove(key);
+    }
+  }
+
+  private enum Kind {
+    QUESTION,
+    ANSWER
+  }
+
+  private record Key(Kind kind, Long id) {}
+}
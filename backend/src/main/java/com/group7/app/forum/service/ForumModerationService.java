@@ -0,0 +1,97 @@
+package com.group7.app.forum.service;
+
+import com.group7.app.forum.model.Answer;
+import com.group7.app.forum.model.ModerationStatus;
+import com.group7.app.forum.model.Question;
+import com.group7.app.forum.repository.AnswerRepository;
+import com.group7.app.forum.repository.QuestionRepository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Reads and settles forum posts waiting for moderation. A verdict only applies to a post that is
+ * still {@link ModerationStatus#PENDING_MODERATION}, so one that arrives twice, or after the post
+ * was deleted, changes nothing.
+ */
+@Service
+public class ForumModerationService {
+
+  private final QuestionRepository questionRepository;
+  private final AnswerRepository answerRepository;
+
+  public ForumModerationService(
+      QuestionRepository questionRepository, AnswerRepository answerRepository) {
+    this.questionRepository = questionRepository;
+    this.answerRepository = answerRepository;
+  }
+
+  /** The text to moderate, or empty when the question is gone or no longer pending. */
+  @Transactional(readOnly = true)
+  public Optional<String> pendingQuestionText(Long questionId) {
+    return questionRepository
+        .findById(questionId)
+        .filter(q -> q.getModerationStatus() == ModerationStatus.PENDING_MODERATION)
+        .map(q -> q.getTitle() + "\n" + q.getContent());
+  }
+
+  /** The text to moderate, or empty when the answer is gone or no longer pending. */
+  @Transactional(readOnly = true)
+  public Optional<String> pendingAnswerText(Long answerId) {
+    return answerRepository
+        .findById(answerId)
+        .filter(a -> a.getModerationStatus() == ModerationStatus.PENDING_MODERATION)
+        .map(Answer::getContent);
+  }
+
+  /** Publishes or rejects the question; returns whether it was still pending. */
+  @Transactional
+  public boolean applyQuestionVerdict(Long questionId, ModerationService.Verdict verdict) {
+    return questionRepository.transitionModerationStatus(
+            questionId, ModerationStatus.PENDING_MODERATION, target(verdict), reason(verdict))
+        > 0;
+  }
+
+  /**
+   * Publishes or rejects the answer; returns whether it was still pending. A published answer is
+   * counted on its question only now, so pending and rejected ones never show in answer_count.
+   */
+  @Transactional
+  public boolean applyAnswerVerdict(Long answerId, ModerationService.Verdict verdict) {
+    Optional<Long> questionId =
+        answerRepository.findById(answerId).map(Answer::getQuestion).map(Question::getId);
+    if (questionId.isEmpty()
+        || answerRepository.transitionModerationStatus(
+                answerId, ModerationStatus.PENDING_MODERATION, target(verdict), reason(verdict))
+            == 0) {
+      return false;
+    }
+    if (!verdict.flagged()) {
+      questionRepository.adjustAnswerCount(questionId.get(), 1);
+    }
+    return true;
+  }
+
+  @Transactional(readOnly = true)
+  public List<Long> findPendingQuestionIds(LocalDateTime createdBefore, int limit) {
+    return questionRepository.findIdsByModerationStatusCreatedBefore(
+        ModerationStatus.PENDING_MODERATION, createdBefore, PageRequest.of(0, limit));
+  }
+
+  @Transactional(readOnly = true)
+  public List<Long> findPendingAnswerIds(LocalDateTime createdBefore, int limit) {
+    return answerRepository.findIdsByModerationStatusCreatedBefore(
+        ModerationStatus.PENDING_MODERATION, createdBefore, PageRequest.of(0, limit));
+  }
+
+  private static ModerationStatus target(ModerationService.Verdict verdict) {
+    return verdict.flagged() ? ModerationStatus.REJECTED : ModerationStatus.PUBLISHED;
+  }
+
+  private static String reason(ModerationService.Verdict verdict) {
+    return verdict.flagged() ? verdict.message() : null;
+  }
+}
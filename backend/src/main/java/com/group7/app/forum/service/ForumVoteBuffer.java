@@ -0,0 +1,87 @@
+package com.group7.app.forum.service;
+
+import com.group7.app.forum.repository.VoteWrite;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Write-behind queue for forum votes, off unless {@code forum.votes.write-behind.enabled} is set.
+ * Only the latest state per user and target is kept, so a burst of toggles on a viral post turns
+ * into at most one write per voter when {@link ForumVoteFlushJob} drains it. Votes still queued
+ * when the process dies are lost.
+ */
+@Component
+public class ForumVoteBuffer {
+
+  public enum Target {
+    QUESTION,
+    ANSWER
+  }
+
+  private final boolean enabled;
+  private final Map<Key, Pending> pending = new ConcurrentHashMap<>();
+
+  public ForumVoteBuffer(@Value("${forum.votes.write-behind.enabled:false}") boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /** Queues the vote's new state; {@code voteType} is the type name, or null to clear it. */
+  public void put(Target target, Long targetId, UUID userId, String voteType) {
+    pending.put(new Key(target, targetId, userId), new Pending(voteType));
+  }
+
+  /**
+   * Queued states of {@code userId}'s votes on the given targets, so reads can show a vote before
+   * it is flushed. A present key with a null value is a queued clear.
+   */
+  public Map<Long, String> pendingFor(Target target, Collection<Long> targetIds, UUID userId) {
+    if (pending.isEmpty()) {
+      return Map.of();
+    }
+    Map<Long, String> votes = new HashMap<>();
+    for (Long targetId : targetIds) {
+      Pending state = pending.get(new Key(target, targetId, userId));
+      if (state != null) {
+        votes.put(targetId, state.voteType());
+      }
+    }
+    return votes;
+  }
+
+  /**
+   * Removes up to {@code limit} queued writes for one target kind. An entry overwritten while being
+   * drained stays queued for the next round.
+   */
+  public List<VoteWrite> drain(Target target, int limit) {
+    List<VoteWrite> writes = new ArrayList<>();
+    for (Map.Entry<Key, Pending> entry : pending.entrySet()) {
+      if (writes.size() == limit) {
+        break;
+      }
+      Key key = entry.getKey();
+      if (key.target() == target && pending.remove(key, entry.getValue())) {
+        writes.add(new VoteWrite(key.targetId(), key.userId(), entry.getValue().voteType()));
+      }
+    }
+    return writes;
+  }
+
+  public int size() {
+    return pending.size();
+  }
+
+  private record Key(Target target, Long targetId, UUID userId) {}
+
+  private record Pending(String voteType) {}
+}
@@ -0,0 +1,67 @@
+package com.group7.app.forum.service;
+
+import com.group7.app.forum.repository.VoteWrite;
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/** Drains {@link ForumVoteBuffer} in batches every write-behind window, and once on shutdown. */
+@Component
+public class ForumVoteFlushJob {
+
+  static final int BATCH_SIZE = 500;
+
+  private static final Logger log = LoggerFactory.getLogger(ForumVoteFlushJob.class);
+  private final ForumVoteBuffer voteBuffer;
+  private final ForumVoteService voteService;
+
+  public ForumVoteFlushJob(ForumVoteBuffer voteBuffer, ForumVoteService voteService) {
+    this.voteBuffer = voteBuffer;
+    this.voteService = voteService;
+  }
+
+  /** Returns the number of vote writes applied. */
+  @Scheduled(
+      fixedDelayString = "${forum.votes.write-behind.window:PT1S}",
+      initialDelayString = "${forum.votes.write-behind.window:PT1S}")
+  public synchronized int flush() {
+    int applied = 0;
+    for (ForumVoteBuffer.Target target : ForumVoteBuffer.Target.values()) {
+      List<VoteWrite> writes;
+      do {
+        writes = voteBuffer.drain(target, BATCH_SIZE);
+        if (!writes.isEmpty()) {
+          applied += apply(target, writes);
+        }
+      } while (writes.size() == BATCH_SIZE);
+    }
+    return applied;
+  }
+
+  @PreDestroy
+  public void flushOnShutdown() {
+    flush();
+  }
+
+  // one bad write (e.g. a vote on a post deleted meanwhile) must not sink the whole batch
+  private int apply(ForumVoteBuffer.Target target, List<VoteWrite> writes) {
+    try {
+      voteService.applyBuffered(target, writes);
+      return writes.size();
+    } catch (RuntimeException batchFailure) {
+      int applied = 0;
+      for (VoteWrite write : writes) {
+        try {
+          voteService.applyBuffered(target, List.of(write));
+          applied++;
+        } catch (RuntimeException ex) {
+          log.warn("Dropping buffered {} vote {}: {}", target, write, ex.getMessage());
+        }
+      }
+      return applied;
+    }
+  }
+}
@@ -1,26 +1,39 @@
 package com.group7.app.forum.service;
 
 import com.group7.app.forum.dto.VoteSummary;
-import com.group7.app.forum.model.Answer;
 import com.group7.app.forum.model.AnswerVote;
-import com.group7.app.forum.model.Question;
+import com.group7.app.forum.model.ModerationStatus;
 import com.group7.app.forum.model.QuestionVote;
 import com.group7.app.forum.repository.AnswerRepository;
 import com.group7.app.forum.repository.AnswerVoteRepository;
 import com.group7.app.forum.repository.QuestionRepository;
 import com.group7.app.forum.repository.QuestionVoteRepository;
-import com.group7.app.user.User;
+import com.group7.app.forum.repository.VoteCountsView;
+import com.group7.app.forum.repository.VoteWrite;
 import com.group7.app.user.UserRepository;
+import java.time.Instant;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+/**
+ * Casts and clears forum votes. Each change is one upsert or delete that also shifts the
+ * upvotes/downvotes counters on its question or answer, so neither row is loaded and reads never
+ * count votes. Casts run outside a service transaction so that, after a failed insert, the
+ * follow-up lookups can still tell a missing post from a missing voter, and a lost race to insert
+ * the first vote can simply be repeated. With write-behind enabled, changes are queued in {@link
+ * ForumVoteBuffer} instead and the returned counts lag until the next flush. A post that
+ * moderation hides from the voter, or an answer under such a question, is reported as not found.
+ */
 @Service
 public class ForumVoteService {
 
@@ -29,188 +42,173 @@ public class ForumVoteService {
   private final QuestionRepository questionRepo;
   private final AnswerRepository answerRepo;
   private final UserRepository userRepo;
+  private final ForumVoteBuffer voteBuffer;
 
   public ForumVoteService(
       QuestionVoteRepository questionVoteRepo,
       AnswerVoteRepository answerVoteRepo,
       QuestionRepository questionRepo,
       AnswerRepository answerRepo,
-      UserRepository userRepo) {
+      UserRepository userRepo,
+      ForumVoteBuffer voteBuffer) {
     this.questionVoteRepo = questionVoteRepo;
     this.answerVoteRepo = answerVoteRepo;
     this.questionRepo = questionRepo;
     this.answerRepo = answerRepo;
     this.userRepo = userRepo;
+    this.voteBuffer = voteBuffer;
   }
 
   // ── Question votes ──────────────────────────────────────────────────────
 
-  @Transactional
   public VoteSummary castQuestionVote(
       Long questionId, UUID userId, QuestionVote.VoteType voteType) {
-    Question question =
-        questionRepo
-            .findById(questionId)
-            .orElseThrow(
-                () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Question not found"));
-    User user =
-        userRepo
-            .findById(userId)
-            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
-
-    QuestionVote vote =
-        questionVoteRepo
-            .findByQuestionIdAndUserId(questionId, userId)
-            .map(
-                existing -> {
-                  existing.setVoteType(voteType);
-                  return existing;
-                })
-            .orElseGet(() -> new QuestionVote(question, user, voteType));
-
-    questionVoteRepo.save(vote);
-    return buildQuestionVoteSummary(questionId, userId);
+    if (voteBuffer.isEnabled()) {
+      VoteCountsView counts = questionCounts(questionId, userId);
+      voteBuffer.put(ForumVoteBuffer.Target.QUESTION, questionId, userId, voteType.name());
+      return summary(counts, voteType.name());
+    }
+    // the vote write itself cannot see moderation, so check the post is visible first
+    questionCounts(questionId, userId);
+    writeVote(
+        () -> questionVoteRepo.castVote(questionId, userId, voteType.name(), Instant.now()),
+        () -> questionCounts(questionId, userId),
+        userId);
+    return summary(questionCounts(questionId, userId), voteType.name());
   }
 
-  @Transactional
   public VoteSummary clearQuestionVote(Long questionId, UUID userId) {
-    questionVoteRepo.deleteByQuestionIdAndUserId(questionId, userId);
-    return buildQuestionVoteSummary(questionId, userId);
-  }
-
-  @Transactional(readOnly = true)
-  public VoteSummary getQuestionVoteSummary(Long questionId, UUID userId) {
-    return getQuestionVoteSummaries(List.of(questionId), userId)
-        .getOrDefault(questionId, new VoteSummary(0, 0, null));
+    if (voteBuffer.isEnabled()) {
+      voteBuffer.put(ForumVoteBuffer.Target.QUESTION, questionId, userId, null);
+    } else {
+      questionVoteRepo.clearVote(questionId, userId);
+    }
+    return summary(
+        questionRepo.findVoteCountsById(questionId, userId, ModerationStatus.PUBLISHED), null);
   }
 
+  /** The viewer's own vote per question; the counts come from the question rows themselves. */
   @Transactional(readOnly = true)
-  public Map<Long, VoteSummary> getQuestionVoteSummaries(List<Long> questionIds, UUID userId) {
-    return buildQuestionVoteSummaries(questionIds, userId);
-  }
-
-  private VoteSummary buildQuestionVoteSummary(Long questionId, UUID userId) {
-    return getQuestionVoteSummary(questionId, userId);
+  public Map<Long, String> getQuestionUserVotes(Collection<Long> questionIds, UUID userId) {
+    if (userId == null || questionIds.isEmpty()) {
+      return Map.of();
+    }
+    Map<Long, String> userVotes = new HashMap<>();
+    for (QuestionVote vote : questionVoteRepo.findAllByQuestionIdInAndUserId(questionIds, userId)) {
+      userVotes.put(vote.getQuestion().getId(), vote.getVoteType().name());
+    }
+    return withPending(userVotes, ForumVoteBuffer.Target.QUESTION, questionIds, userId);
   }
 
   // ── Answer votes ────────────────────────────────────────────────────────
 
-  @Transactional
   public VoteSummary castAnswerVote(Long answerId, UUID userId, AnswerVote.VoteType voteType) {
-    Answer answer =
-        answerRepo
-            .findById(answerId)
-            .orElseThrow(
-                () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Answer not found"));
-    User user =
-        userRepo
-            .findById(userId)
-            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
-
-    AnswerVote vote =
-        answerVoteRepo
-            .findByAnswerIdAndUserId(answerId, userId)
-            .map(
-                existing -> {
-                  existing.setVoteType(voteType);
-                  return existing;
-                })
-            .orElseGet(() -> new AnswerVote(answer, user, voteType));
-
-    answerVoteRepo.save(vote);
-    return buildAnswerVoteSummary(answerId, userId);
+    if (voteBuffer.isEnabled()) {
+      VoteCountsView counts = answerCounts(answerId, userId);
+      voteBuffer.put(ForumVoteBuffer.Target.ANSWER, answerId, userId, voteType.name());
+      return summary(counts, voteType.name());
+    }
+    answerCounts(answerId, userId);
+    writeVote(
+        () -> answerVoteRepo.castVote(answerId, userId, voteType.name(), Instant.now()),
+        () -> answerCounts(answerId, userId),
+        userId);
+    return summary(answerCounts(answerId, userId), voteType.name());
   }
 
-  @Transactional
   public VoteSummary clearAnswerVote(Long answerId, UUID userId) {
-    answerVoteRepo.deleteByAnswerIdAndUserId(answerId, userId);
-    return buildAnswerVoteSummary(answerId, userId);
-  }
-
-  @Transactional(readOnly = true)
-  public VoteSummary getAnswerVoteSummary(Long answerId, UUID userId) {
-    return getAnswerVoteSummaries(List.of(answerId), userId)
-        .getOrDefault(answerId, new VoteSummary(0, 0, null));
+    if (voteBuffer.isEnabled()) {
+      voteBuffer.put(ForumVoteBuffer.Target.ANSWER, answerId, userId, null);
+    } else {
+      answerVoteRepo.clearVote(answerId, userId);
+    }
+    return summary(
+        answerRepo.findVoteCountsById(answerId, userId, ModerationStatus.PUBLISHED), null);
   }
 
+  /** The viewer's own vote per answer; the counts come from the answer rows themselves. */
   @Transactional(readOnly = true)
-  public Map<Long, VoteSummary> getAnswerVoteSummaries(List<Long> answerIds, UUID userId) {
-    return buildAnswerVoteSummaries(answerIds, userId);
-  }
-
-  private VoteSummary buildAnswerVoteSummary(Long answerId, UUID userId) {
-    return getAnswerVoteSummary(answerId, userId);
-  }
-
-  private Map<Long, VoteSummary> buildQuestionVoteSummaries(
-      Collection<Long> questionIds, UUID userId) {
-    if (questionIds.isEmpty()) {
+  public Map<Long, String> getAnswerUserVotes(Collection<Long> answerIds, UUID userId) {
+    if (userId == null || answerIds.isEmpty()) {
       return Map.of();
     }
-
-    Map<Long, Long> upCounts = new HashMap<>();
-    Map<Long, Long> downCounts = new HashMap<>();
-
-    for (var row : questionVoteRepo.summarizeByQuestionIds(questionIds)) {
-      if (row.getVoteType() == QuestionVote.VoteType.THUMBS_UP) {
-        upCounts.put(row.getQuestionId(), row.getVoteCount());
-      } else if (row.getVoteType() == QuestionVote.VoteType.THUMBS_DOWN) {
-        downCounts.put(row.getQuestionId(), row.getVoteCount());
-      }
-    }
-
     Map<Long, String> userVotes = new HashMap<>();
-    if (userId != null) {
-      for (QuestionVote vote :
-          questionVoteRepo.findAllByQuestionIdInAndUserId(questionIds, userId)) {
-        userVotes.put(vote.getQuestion().getId(), vote.getVoteType().name());
-      }
+    for (AnswerVote vote : answerVoteRepo.findAllByAnswerIdInAndUserId(answerIds, userId)) {
+      userVotes.put(vote.getAnswer().getId(), vote.getVoteType().name());
     }
-
-    Map<Long, VoteSummary> summaries = new HashMap<>();
-    for (Long questionId : questionIds) {
-      summaries.put(
-          questionId,
-          new VoteSummary(
-              upCounts.getOrDefault(questionId, 0L),
-              downCounts.getOrDefault(questionId, 0L),
-              userVotes.get(questionId)));
-    }
-    return summaries;
+    return withPending(userVotes, ForumVoteBuffer.Target.ANSWER, answerIds, userId);
   }
 
-  private Map<Long, VoteSummary> buildAnswerVoteSummaries(Collection<Long> answerIds, UUID userId) {
-    if (answerIds.isEmpty()) {
-      return Map.of();
+  // ── Write-behind ────────────────────────────────────────────────────────
+
+  /** Writes one drained batch from {@link ForumVoteBuffer} in a single transaction. */
+  @Transactional
+  public int applyBuffered(ForumVoteBuffer.Target target, List<VoteWrite> writes) {
+    if (target == ForumVoteBuffer.Target.QUESTION) {
+      questionVoteRepo.applyVotes(writes, Instant.now());
+    } else {
+      answerVoteRepo.applyVotes(writes, Instant.now());
     }
+    return writes.size();
+  }
 
-    Map<Long, Long> upCounts = new HashMap<>();
-    Map<Long, Long> downCounts = new HashMap<>();
+  private Map<Long, String> withPending(
+      Map<Long, String> userVotes,
+      ForumVoteBuffer.Target target,
+      Collection<Long> targetIds,
+      UUID userId) {
+    voteBuffer
+        .pendingFor(target, targetIds, userId)
+        .forEach(
+            (targetId, voteType) -> {
+              if (voteType == null) {
+                userVotes.remove(targetId);
+              } else {
+                userVotes.put(targetId, voteType);
+              }
+            });
+    return userVotes;
+  }
 
-    for (var row : answerVoteRepo.summarizeByAnswerIds(answerIds)) {
-      if (row.getVoteType() == AnswerVote.VoteType.THUMBS_UP) {
-        upCounts.put(row.getAnswerId(), row.getVoteCount());
-      } else if (row.getVoteType() == AnswerVote.VoteType.THUMBS_DOWN) {
-        downCounts.put(row.getAnswerId(), row.getVoteCount());
+  /**
+   * Runs one direct vote write. A duplicate key means a concurrent first vote by the same user
+   * inserted the row first (only possible where the write cannot upsert), so the write is repeated
+   * against that row. Any other violation is a foreign key: the post or the voter is gone, and
+   * {@code requirePost} reports a missing post first.
+   */
+  private void writeVote(Runnable write, Runnable requirePost, UUID userId) {
+    try {
+      write.run();
+    } catch (DuplicateKeyException ex) {
+      write.run();
+    } catch (DataIntegrityViolationException ex) {
+      requirePost.run();
+      if (!userRepo.existsById(userId)) {
+        throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
       }
+      throw ex;
     }
+  }
 
-    Map<Long, String> userVotes = new HashMap<>();
-    if (userId != null) {
-      for (AnswerVote vote : answerVoteRepo.findAllByAnswerIdInAndUserId(answerIds, userId)) {
-        userVotes.put(vote.getAnswer().getId(), vote.getVoteType().name());
-      }
-    }
+  /** Counters of a question the voter can see; a hidden one is as missing as a deleted one. */
+  private VoteCountsView questionCounts(Long questionId, UUID userId) {
+    return questionRepo
+        .findVoteCountsById(questionId, userId, ModerationStatus.PUBLISHED)
+        .orElseThrow(
+            () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Question not found"));
+  }
 
-    Map<Long, VoteSummary> summaries = new HashMap<>();
-    for (Long answerId : answerIds) {
-      summaries.put(
-          answerId,
-          new VoteSummary(
-              upCounts.getOrDefault(answerId, 0L),
-              downCounts.getOrDefault(answerId, 0L),
-              userVotes.get(answerId)));
-    }
-    return summaries;
+  private VoteCountsView answerCounts(Long answerId, UUID userId) {
+    return answerRepo
+        .findVoteCountsById(answerId, userId, ModerationStatus.PUBLISHED)
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Answer not found"));
+  }
+
+  private static VoteSummary summary(VoteCountsView counts, String userVote) {
+    return new VoteSummary(counts.getUpvotes(), counts.getDownvotes(), userVote);
+  }
+
+  private static VoteSummary summary(Optional<VoteCountsView> counts, String userVote) {
+    return counts.map(c -> summary(c, userVote)).orElse(new VoteSummary(0, 0, userVote));
   }
 }
@@ -0,0 +1,126 @@
+package com.group7.app.forum.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coalesces text checks from concurrent callers into one moderation call with an array {@code
+ * input}. Whoever takes the dispatch lock waits {@code linger} for others to queue up and takes up
+ * to {@code maxItems} texts; it releases the lock before sending them and hands every caller the
+ * result at its own index, so the next batch can gather and go out while this one is in flight.
+ * Callers keep dispatching while anything is queued, then wait for the batch holding their text.
+ * Identical texts already waiting share one slot.
+ */
+final class ModerationBatcher {
+
+  private static final Logger log = LoggerFactory.getLogger(ModerationBatcher.class);
+
+  private final int maxItems;
+  private final Duration linger;
+  private final Function<List<String>, List<ModerationService.Verdict>> call;
+  private final BlockingQueue<Pending> queued = new LinkedBlockingQueue<>();
+  private final ConcurrentMap<String, Pending> waiting = new ConcurrentHashMap<>();
+  private final ReentrantLock dispatching = new ReentrantLock();
+  private final LongAdder batches = new LongAdder();
+  private final LongAdder batchedTexts = new LongAdder();
+  private final AtomicInteger largestBatch = new AtomicInteger();
+
+  /**
+   * @param call sends one batch and returns one verdict per text in the same order, or {@code
+   *     null} when the call failed
+   */
+  ModerationBatcher(
+      int maxItems,
+      Duration linger,
+      Function<List<String>, List<ModerationService.Verdict>> call) {
+    this.maxItems = Math.max(1, maxItems);
+    this.linger = linger;
+    this.call = call;
+  }
+
+  /** The verdict for {@code text}, or {@code null} when its batch failed. */
+  ModerationService.Verdict check(String key, String text) {
+    Pending fresh = new Pending(key, text, new CompletableFuture<>());
+    Pending slot = waiting.putIfAbsent(key, fresh);
+    if (slot == null) {
+      slot = fresh;
+      queued.add(fresh);
+    }
+    while (!slot.result().isDone()) {
+      List<Pending> batch;
+      dispatching.lock();
+      try {
+        if (queued.isEmpty()) {
+          break; // our slot is in a batch already in flight, which completes it
+        }
+        batch = gather();
+      } finally {
+        dispatching.unlock();
+      }
+      send(batch);
+    }
+    return slot.result().join();
+  }
+
+  long batches() {
+    return batches.sum();
+  }
+
+  long batchedTexts() {
+    return batchedTexts.sum();
+  }
+
+  int largestBatch() {
+    return largestBatch.get();
+  }
+
+  // runs under the dispatch lock
+  private List<Pending> gather() {
+    if (linger.isPositive()) {
+      try {
+        Thread.sleep(linger);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    List<Pending> batch = new ArrayList<>();
+    queued.drainTo(batch, maxItems);
+    return batch;
+  }
+
+  // runs outside the dispatch lock; every slot in the batch is completed, even when the call throws
+  private void send(List<Pending> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    List<ModerationService.Verdict> verdicts = null;
+    try {
+      verdicts = call.apply(batch.stream().map(Pending::text).toList());
+    } catch (RuntimeException ex) {
+      log.error("Moderation batch of {} text(s) failed", batch.size(), ex);
+    }
+    for (int i = 0; i < batch.size(); i++) {
+      Pending pending = batch.get(i);
+      waiting.remove(pending.key(), pending);
+      pending.result().complete(verdicts == null ? null : verdicts.get(i));
+    }
+    batches.increment();
+    batchedTexts.add(batch.size());
+    largestBatch.accumulateAndGet(batch.size(), Math::max);
+  }
+
+  private record Pending(
+      String key, String text, CompletableFuture<ModerationService.Verdict> result) {}
+}
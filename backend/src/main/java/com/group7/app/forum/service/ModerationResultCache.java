@@ -0,0 +1,101 @@
+package com.group7.app.forum.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moderation verdicts by content, so re-posted text and images embedded in many posts are only
+ * sent to the API once per TTL. Text is keyed by the SHA-256 of its normalized form, images by
+ * URL. Only real verdicts are stored; a fail-open pass is never cached.
+ */
+@Component
+public class ModerationResultCache {
+
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  private final int maxSize;
+  private final long ttlNanos;
+  private final Map<String, CachedVerdict> entries;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public ModerationResultCache(
+      @Value("${openai.moderation.cache.max-size:10000}") int maxSize,
+      @Value("${openai.moderation.cache.ttl:PT24H}") Duration ttl) {
+    this.maxSize = maxSize;
+    this.ttlNanos = ttl.toNanos();
+    // access order, so the eldest entry is the least recently used one
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, CachedVerdict> eldest) {
+            return size() > ModerationResultCache.this.maxSize;
+          }
+        };
+  }
+
+  /** NFC form with surrounding whitespace stripped and inner runs collapsed to one space. */
+  static String normalize(String text) {
+    String composed = Normalizer.normalize(text, Normalizer.Form.NFC);
+    return WHITESPACE.matcher(composed.strip()).replaceAll(" ");
+  }
+
+  /** Key for already {@link #normalize normalized} text. */
+  static String textKey(String normalizedText) {
+    try {
+      byte[] digest =
+          MessageDigest.getInstance("SHA-256")
+              .digest(normalizedText.getBytes(StandardCharsets.UTF_8));
+      return "text:" + HexFormat.of().formatHex(digest);
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException("SHA-256 is not available", ex);
+    }
+  }
+
+  static String imageKey(String imageUrl) {
+    return "image:" + imageUrl.strip();
+  }
+
+  /** The cached verdict, or {@code null} when absent or expired. Counts as a hit or a miss. */
+  public synchronized ModerationService.Verdict get(String key) {
+    CachedVerdict entry = entries.get(key);
+    if (entry != null && System.nanoTime() - entry.expiresAt() >= 0) {
+      entries.remove(key);
+      entry = null;
+    }
+    if (entry == null) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    return entry.verdict();
+  }
+
+  public synchronized void put(String key, ModerationService.Verdict verdict) {
+    entries.put(key, new CachedVerdict(verdict, System.nanoTime() + ttlNanos));
+  }
+
+  public long hits() {
+    return hits.sum();
+  }
+
+  public long misses() {
+    return misses.sum();
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  private record CachedVerdict(ModerationService.Verdict verdict, long expiresAt) {}
+}
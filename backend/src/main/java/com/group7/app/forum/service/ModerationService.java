@@ -6,9 +6,16 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.slf4j.Logger;
@@ -22,21 +29,35 @@ import org.springframework.web.server.ResponseStatusException;
 public class ModerationService {
 
   private static final Logger log = LoggerFactory.getLogger(ModerationService.class);
-  private static final String MODERATION_URL = "https://api.openai.com/v1/moderations";
   private static final Pattern MARKDOWN_IMAGE_PATTERN = Pattern.compile("!\\[[^]]*]\\(([^)]+)\\)");
 
   private final String apiKey;
   private final boolean enabled;
+  private final URI moderationUrl;
+  private final Duration timeout;
   private HttpClient httpClient;
+  private final ModerationResultCache resultCache;
+  private final ModerationBatcher batcher;
+  private final LongAdder imageCalls = new LongAdder();
   private final ObjectMapper objectMapper;
 
   public ModerationService(
       @Value("${openai.api-key:}") String apiKey,
       @Value("${openai.moderation.enabled:true}") boolean enabled,
+      @Value("${openai.moderation.url:https://api.openai.com/v1/moderations}")
+          String moderationUrl,
+      @Value("${openai.moderation.timeout:PT10S}") Duration timeout,
+      @Value("${openai.moderation.batch.max-items:32}") int batchMaxItems,
+      @Value("${openai.moderation.batch.linger:PT0.02S}") Duration batchLinger,
+      ModerationResultCache resultCache,
       ObjectMapper objectMapper) {
     this.apiKey = apiKey;
     this.enabled = enabled;
-    this.httpClient = HttpClient.newHttpClient();
+    this.moderationUrl = URI.create(moderationUrl);
+    this.timeout = timeout;
+    this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+    this.resultCache = resultCache;
+    this.batcher = new ModerationBatcher(batchMaxItems, batchLinger, this::callForTexts);
     this.objectMapper = objectMapper;
     log.info(
         "ModerationService initialized: enabled={}, apiKey={}",
@@ -49,82 +70,144 @@ public class ModerationService {
     this.httpClient = httpClient;
   }
 
+  /** Whether posts are actually checked; when not, every check passes without a call. */
+  public boolean isActive() {
+    return enabled && apiKey != null && !apiKey.isBlank();
+  }
+
   /** Moderate text content. Throws 400 if flagged. */
   public void moderateText(String text) {
-    if (!enabled || apiKey == null || apiKey.isBlank()) {
+    if (!isActive()) {
       log.debug("Moderation skipped (disabled or no API key)");
       return;
     }
+    throwIfFlagged(failOpen(checkText(text)));
+  }
 
-    Map<String, Object> body =
-        Map.of(
-            "model",
-            "omni-moderation-latest",
-            "input",
-            List.of(Map.of("type", "text", "text", text)));
-    JsonNode result = callModerationApi(body);
-    checkResults(result);
+  /** Moderate markdown content like {@link #review}. Throws 400 if flagged; fails open. */
+  public void moderateContent(String markdownContent) {
+    throwIfFlagged(review(markdownContent).orElse(Verdict.PASSED));
   }
 
   /**
-   * Moderate markdown content — extracts text and any embedded image URLs, then sends them all in a
-   * single moderation call.
+   * Checks markdown content — the text and every embedded image URL, each answered from the result
+   * cache when possible. Text misses are batched with concurrent checks. Empty when a part could
+   * not be checked because the API was unreachable or answered badly, unless another part was
+   * flagged anyway; the caller decides whether to fail open or try again later.
    */
-  public void moderateContent(String markdownContent) {
-    if (!enabled || apiKey == null || apiKey.isBlank()) {
+  public Optional<Verdict> review(String markdownContent) {
+    if (!isActive()) {
       log.debug("Moderation skipped (disabled or no API key)");
-      return;
+      return Optional.of(Verdict.PASSED);
     }
 
     // Extract image URLs from markdown ![alt](url)
-    List<String> imageUrls = new ArrayList<>();
+    Set<String> imageUrls = new LinkedHashSet<>();
     Matcher matcher = MARKDOWN_IMAGE_PATTERN.matcher(markdownContent);
     while (matcher.find()) {
       imageUrls.add(matcher.group(1));
     }
 
-    // Build multi-modal input array
-    List<Map<String, Object>> input = new ArrayList<>();
-    input.add(Map.of("type", "text", "text", markdownContent));
+    log.debug("Moderating content: text + {} image(s)", imageUrls.size());
+    List<Verdict> verdicts = new ArrayList<>();
+    verdicts.add(checkText(markdownContent));
     for (String url : imageUrls) {
-      input.add(Map.of("type", "image_url", "image_url", Map.of("url", url)));
+      verdicts.add(checkImage(url));
     }
-
-    log.debug("Moderating content: text + {} image(s)", imageUrls.size());
-    Map<String, Object> body = Map.of("model", "omni-moderation-latest", "input", input);
-    JsonNode result = callModerationApi(body);
-    checkResults(result);
+    return combine(verdicts);
   }
 
   /** Moderate an image by URL. Throws 400 if flagged. */
   public void moderateImageUrl(String imageUrl) {
-    if (!enabled || apiKey == null || apiKey.isBlank()) {
+    if (!isActive()) {
       return;
     }
+    throwIfFlagged(failOpen(checkImage(imageUrl)));
+  }
 
+  /** Moderate text + image together; flagged if either is. */
+  public void moderateTextAndImageUrl(String text, String imageUrl) {
+    if (!isActive()) {
+      return;
+    }
+    throwIfFlagged(
+        combine(Arrays.asList(checkText(text), checkImage(imageUrl))).orElse(Verdict.PASSED));
+  }
+
+  /** Cache and batching counters since startup. */
+  public Stats stats() {
+    long hits = resultCache.hits();
+    long lookups = hits + resultCache.misses();
+    long batches = batcher.batches();
+    long batchedTexts = batcher.batchedTexts();
+    return new Stats(
+        hits,
+        lookups - hits,
+        lookups == 0 ? 0.0 : (double) hits / lookups,
+        resultCache.size(),
+        batches,
+        batchedTexts,
+        batches == 0 ? 0.0 : (double) batchedTexts / batches,
+        batcher.largestBatch(),
+        imageCalls.sum());
+  }
+
+  // checkText and checkImage return null when the API gave no usable answer
+  private Verdict checkText(String text) {
+    String normalized = ModerationResultCache.normalize(text);
+    String key = ModerationResultCache.textKey(normalized);
+    Verdict cached = resultCache.get(key);
+    if (cached != null) {
+      return cached;
+    }
+    return remember(key, batcher.check(key, normalized));
+  }
+
+  private Verdict checkImage(String imageUrl) {
+    String key = ModerationResultCache.imageKey(imageUrl);
+    Verdict cached = resultCache.get(key);
+    if (cached != null) {
+      return cached;
+    }
+    // images go one per call; the API takes a single image per request
+    imageCalls.increment();
     Map<String, Object> body =
         Map.of(
             "model",
             "omni-moderation-latest",
             "input",
-            List.of(Map.of("type", "image_url", "image_url", Map.of("url", imageUrl))));
-    JsonNode result = callModerationApi(body);
-    checkResults(result);
+            List.of(Map.of("type", "image_url", "image_url", Map.of("url", imageUrl.strip()))));
+    List<Verdict> verdicts = toVerdicts(callModerationApi(body), 1);
+    return remember(key, verdicts == null ? null : verdicts.get(0));
   }
 
-  /** Moderate text + image together in one call. */
-  public void moderateTextAndImageUrl(String text, String imageUrl) {
-    if (!enabled || apiKey == null || apiKey.isBlank()) {
-      return;
+  private Verdict remember(String key, Verdict verdict) {
+    if (verdict != null) {
+      resultCache.put(key, verdict); // a failed check is not cached, so the next one asks again
     }
+    return verdict;
+  }
 
-    List<Map<String, Object>> input = new ArrayList<>();
-    input.add(Map.of("type", "text", "text", text));
-    input.add(Map.of("type", "image_url", "image_url", Map.of("url", imageUrl)));
+  // a flagged part settles it; otherwise one unanswered part leaves the whole unknown
+  private static Optional<Verdict> combine(List<Verdict> parts) {
+    List<Verdict> answered = parts.stream().filter(Objects::nonNull).toList();
+    Verdict combined = Verdict.combine(answered);
+    if (combined.flagged() || answered.size() == parts.size()) {
+      return Optional.of(combined);
+    }
+    return Optional.empty();
+  }
 
-    Map<String, Object> body = Map.of("model", "omni-moderation-latest", "input", input);
-    JsonNode result = callModerationApi(body);
-    checkResults(result);
+  // synchronous checks never block the user because the API is down
+  private static Verdict failOpen(Verdict verdict) {
+    return verdict == null ? Verdict.PASSED : verdict;
+  }
+
+  // an array of plain strings gets one result per string, in the same order
+  private List<Verdict> callForTexts(List<String> texts) {
+    log.debug("Moderating {} text(s) in one call", texts.size());
+    Map<String, Object> body = Map.of("model", "omni-moderation-latest", "input", texts);
+    return toVerdicts(callModerationApi(body), texts.size());
   }
 
   private JsonNode callModerationApi(Map<String, Object> body) {
@@ -133,7 +216,8 @@ public class ModerationService {
 
       HttpRequest request =
           HttpRequest.newBuilder()
-              .uri(URI.create(MODERATION_URL))
+              .uri(moderationUrl)
+              .timeout(timeout)
               .header("Content-Type", "application/json")
               .header("Authorization", "Bearer " + apiKey)
               .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
@@ -144,48 +228,96 @@ public class ModerationService {
 
       if (response.statusCode() != 200) {
         log.error("OpenAI Moderation API error: {} {}", response.statusCode(), response.body());
-        // fail open — don't block the user if the API is down
+        // no verdict; callers fail open or leave the post for the sweep
         return null;
       }
 
       return objectMapper.readTree(response.body());
     } catch (Exception e) {
       log.error("Failed to call OpenAI Moderation API", e);
-      // fail open
       return null;
     }
   }
 
-  private void checkResults(JsonNode response) {
+  /** One verdict per input, or {@code null} when the response is missing or malformed. */
+  private List<Verdict> toVerdicts(JsonNode response, int expected) {
     if (response == null) {
-      return; // fail open
+      return null;
     }
 
     JsonNode results = response.get("results");
-    if (results == null || !results.isArray() || results.isEmpty()) {
-      return;
+    if (results == null || !results.isArray() || results.size() != expected) {
+      log.error("Unexpected OpenAI Moderation API response for {} input(s)", expected);
+      return null;
+    }
+
+    List<Verdict> verdicts = new ArrayList<>(expected);
+    for (JsonNode result : results) {
+      verdicts.add(toVerdict(result));
     }
+    return verdicts;
+  }
 
-    JsonNode first = results.get(0);
-    if (first.has("flagged") && first.get("flagged").asBoolean()) {
-      List<String> flaggedCategories = new ArrayList<>();
-      JsonNode categories = first.get("categories");
-      if (categories != null) {
-        var it = categories.fieldNames();
-        while (it.hasNext()) {
-          String field = it.next();
-          if (categories.get(field).asBoolean()) {
-            flaggedCategories.add(field);
-          }
+  private Verdict toVerdict(JsonNode result) {
+    if (!result.has("flagged") || !result.get("flagged").asBoolean()) {
+      return Verdict.PASSED;
+    }
+    List<String> flaggedCategories = new ArrayList<>();
+    JsonNode categories = result.get("categories");
+    if (categories != null) {
+      var it = categories.fieldNames();
+      while (it.hasNext()) {
+        String field = it.next();
+        if (categories.get(field).asBoolean()) {
+          flaggedCategories.add(field);
         }
       }
+    }
+    log.info("Content flagged by moderation. Categories: {}", flaggedCategories);
+    return new Verdict(true, flaggedCategories);
+  }
 
-      log.info("Content flagged by moderation. Categories: {}", flaggedCategories);
-      throw new ResponseStatusException(
-          HttpStatus.BAD_REQUEST,
-          "Your post was flagged by our content moderation system and cannot be published. "
-              + "Flagged categories: "
-              + String.join(", ", flaggedCategories));
+  private static void throwIfFlagged(Verdict verdict) {
+    if (verdict.flagged()) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, verdict.message());
     }
   }
+
+  /** Outcome of one moderation check; {@code categories} lists what was flagged. */
+  public record Verdict(boolean flagged, List<String> categories) {
+
+    public static final Verdict PASSED = new Verdict(false, List.of());
+
+    /** Flagged when any part is, with the categories of every flagged part. */
+    static Verdict combine(List<Verdict> parts) {
+      Set<String> categories = new LinkedHashSet<>();
+      boolean flagged = false;
+      for (Verdict part : parts) {
+        flagged |= part.flagged();
+        categories.addAll(part.categories());
+      }
+      return flagged ? new Verdict(true, List.copyOf(categories)) : PASSED;
+    }
+
+    public String message() {
+      return "Your post was flagged by our content moderation system and cannot be published. "
+          + "Flagged categories: "
+          + String.join(", ", categories);
+    }
+  }
+
+  /**
+   * Counters behind the moderation metrics. Text checks that reach the API are grouped into
+   * batches; images are always sent on their own.
+   */
+  public record Stats(
+      long cacheHits,
+      long cacheMisses,
+      double cacheHitRate,
+      int cachedResults,
+      long textBatches,
+      long batchedTexts,
+      double averageBatchSize,
+      int largestBatch,
+      long imageCalls) {}
 }
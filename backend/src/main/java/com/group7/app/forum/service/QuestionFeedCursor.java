@@ -0,0 +1,41 @@
+package com.group7.app.forum.service;
+
+import com.group7.app.forum.model.Question;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Position in the newest-first question feed: the last question a client has seen. Handed out as
+ * an opaque token so the encoding can change without breaking clients.
+ */
+public record QuestionFeedCursor(LocalDateTime createdAt, long id) {
+
+  public static QuestionFeedCursor of(Question question) {
+    return new QuestionFeedCursor(question.getCreatedAt(), question.getId());
+  }
+
+  public String encode() {
+    String raw = createdAt + "," + id;
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static QuestionFeedCursor decode(String token) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      int comma = raw.indexOf(',');
+      if (comma > 0) {
+        return new QuestionFeedCursor(
+            LocalDateTime.parse(raw.substring(0, comma)), Long.parseLong(raw.substring(comma + 1)));
+      }
+    } catch (IllegalArgumentException | DateTimeParseException ex) {
+      // reported below together with a missing comma
+    }
+    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "after is not a valid feed cursor");
+  }
+}
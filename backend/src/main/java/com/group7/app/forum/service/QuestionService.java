@@ -1,13 +1,21 @@
 package com.group7.app.forum.service;
 
+import com.group7.app.forum.model.ModerationStatus;
 import com.group7.app.forum.model.Question;
 import com.group7.app.forum.repository.QuestionRepository;
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
@@ -18,17 +26,49 @@ public class QuestionService {
   private final QuestionRepository repository;
   private static final Logger log = LoggerFactory.getLogger(QuestionService.class);
   private final ModerationService moderationService;
+  private final ForumModerationQueue moderationQueue;
 
-  public QuestionService(QuestionRepository repository, ModerationService moderationService) {
+  public QuestionService(
+      QuestionRepository repository,
+      ModerationService moderationService,
+      ForumModerationQueue moderationQueue) {
     this.repository = repository;
     this.moderationService = moderationService;
+    this.moderationQueue = moderationQueue;
   }
 
   public Page<Question> getQuestions(Pageable pageable, String search) {
     if (search != null && !search.isBlank()) {
-      return repository.searchIncludingAnswers(search, pageable);
+      return search(search, pageable);
     }
-    return repository.findAllByOrderByCreatedAtDesc(pageable);
+    return repository.findByModerationStatusOrderByCreatedAtDescIdDesc(
+        ModerationStatus.PUBLISHED, pageable);
+  }
+
+  /**
+   * Newest-first page of at most {@code limit} questions after {@code after}, or from the top when
+   * it is {@code null}. Costs the same however deep the client has scrolled.
+   */
+  public Slice<Question> getQuestionFeed(QuestionFeedCursor after, int limit) {
+    Pageable pageable = PageRequest.of(0, limit);
+    if (after == null) {
+      return repository.findFeedByModerationStatusOrderByCreatedAtDescIdDesc(
+          ModerationStatus.PUBLISHED, pageable);
+    }
+    return repository.findFeedAfter(
+        ModerationStatus.PUBLISHED, after.createdAt(), after.id(), pageable);
+  }
+
+  // the search returns ids in relevance order; findAllById does not keep that order
+  private Page<Question> search(String search, Pageable pageable) {
+    Page<Long> ids = repository.searchQuestionIds(search, pageable);
+    Map<Long, Question> byId = new HashMap<>();
+    for (Question question : repository.findAllById(ids.getContent())) {
+      byId.put(question.getId(), question);
+    }
+    List<Question> questions =
+        ids.getContent().stream().map(byId::get).filter(Objects::nonNull).toList();
+    return new PageImpl<>(questions, pageable, ids.getTotalElements());
   }
 
   public Question getQuestion(Long id) {
@@ -40,9 +80,11 @@ public class QuestionService {
                     HttpStatus.NOT_FOUND, "Question not found with id: " + id));
   }
 
-  public Question getQuestionWithAnswers(Long id) {
+  /** The question if {@code viewerId} may see it; unpublished ones only exist for their author. */
+  public Question getQuestionWithAnswers(Long id, UUID viewerId) {
     return repository
         .findWithAnswersById(id)
+        .filter(question -> question.isVisibleTo(viewerId))
         .orElseThrow(
             () ->
                 new ResponseStatusException(
@@ -81,8 +123,15 @@ public class QuestionService {
         author.length(),
         question.getContent() == null ? 0 : question.getContent().length());
 
-    moderationService.moderateContent(question.getTitle() + "\n" + question.getContent());
-    return repository.save(question);
+    // the post stays hidden until the moderation queue has checked it
+    boolean moderated = moderationService.isActive();
+    question.setModerationStatus(
+        moderated ? ModerationStatus.PENDING_MODERATION : ModerationStatus.PUBLISHED);
+    Question saved = repository.save(question);
+    if (moderated) {
+      moderationQueue.submitQuestion(saved.getId());
+    }
+    return saved;
   }
 
   public Question resolveQuestion(Long id, UUID requestingUserId) {
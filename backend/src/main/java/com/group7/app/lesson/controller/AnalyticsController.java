@@ -1,7 +1,8 @@
 package com.group7.app.lesson.controller;
 
-import com.group7.app.lesson.model.LessonAttempt;
-import com.group7.app.lesson.repository.LessonAttemptRepository;
+import com.group7.app.lesson.model.UserDailyStats;
+import com.group7.app.lesson.repository.UserDailyStatsRepository;
+import com.group7.app.lesson.repository.UserUnitStatsRepository;
 import com.group7.app.lesson.service.AuthContextService;
 import com.group7.app.user.User;
 import io.swagger.v3.oas.annotations.Operation;
@@ -25,12 +26,16 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "Analytics", description = "Learning analytics endpoints")
 public class AnalyticsController {
 
-  private final LessonAttemptRepository lessonAttemptRepository;
+  private final UserDailyStatsRepository userDailyStatsRepository;
+  private final UserUnitStatsRepository userUnitStatsRepository;
   private final AuthContextService authContextService;
 
   public AnalyticsController(
-      LessonAttemptRepository lessonAttemptRepository, AuthContextService authContextService) {
-    this.lessonAttemptRepository = lessonAttemptRepository;
+      UserDailyStatsRepository userDailyStatsRepository,
+      UserUnitStatsRepository userUnitStatsRepository,
+      AuthContextService authContextService) {
+    this.userDailyStatsRepository = userDailyStatsRepository;
+    this.userUnitStatsRepository = userUnitStatsRepository;
     this.authContextService = authContextService;
   }
 
@@ -38,22 +43,23 @@ public class AnalyticsController {
   @Operation(summary = "Get learning analytics for the current user")
   public ResponseEntity<UserAnalyticsResponse> getMyAnalytics(@AuthenticationPrincipal Jwt jwt) {
     User user = authContextService.resolveUser(jwt);
-    List<LessonAttempt> attempts =
-        lessonAttemptRepository.findByUserIdWithLessonAndUnit(user.getId());
-
     LocalDate today = LocalDate.now(ZoneOffset.UTC);
+    LocalDate thirtyDaysAgo = today.minusDays(29);
+    LocalDate eightWeeksAgo = today.with(DayOfWeek.MONDAY).minusWeeks(7);
+
+    // both charts come from the daily rollup; the eight weeks cover the 30 days, so this is at
+    // most 56 rows however long the history is
+    List<UserDailyStats> days =
+        userDailyStatsRepository.findByUserIdAndStatDateBetweenOrderByStatDateAsc(
+            user.getId(), eightWeeksAgo, today);
 
     // Daily XP for last 30 days
-    LocalDate thirtyDaysAgo = today.minusDays(29);
     Map<LocalDate, Integer> dailyXpMap = new LinkedHashMap<>();
     for (int i = 0; i < 30; i++) {
       dailyXpMap.put(thirtyDaysAgo.plusDays(i), 0);
     }
-    for (LessonAttempt a : attempts) {
-      LocalDate date = a.getSubmittedAt().atZone(ZoneOffset.UTC).toLocalDate();
-      if (!date.isBefore(thirtyDaysAgo) && !date.isAfter(today)) {
-        dailyXpMap.merge(date, a.getScore(), Integer::sum);
-      }
+    for (UserDailyStats day : days) {
+      dailyXpMap.computeIfPresent(day.getStatDate(), (date, xp) -> xp + day.getXp());
     }
     List<DailyXpEntry> dailyXp = new ArrayList<>();
     for (Map.Entry<LocalDate, Integer> e : dailyXpMap.entrySet()) {
@@ -61,18 +67,15 @@ public class AnalyticsController {
     }
 
     // Weekly attempts for last 8 weeks
-    LocalDate weekStart = today.with(DayOfWeek.MONDAY);
-    LocalDate eightWeeksAgo = weekStart.minusWeeks(7);
     Map<LocalDate, int[]> weeklyMap = new LinkedHashMap<>();
     for (int i = 0; i < 8; i++) {
       weeklyMap.put(eightWeeksAgo.plusWeeks(i), new int[] {0, 0});
     }
-    for (LessonAttempt a : attempts) {
-      LocalDate date = a.getSubmittedAt().atZone(ZoneOffset.UTC).toLocalDate();
-      LocalDate ws = date.with(DayOfWeek.MONDAY);
-      if (weeklyMap.containsKey(ws)) {
-        weeklyMap.get(ws)[0]++;
-        if (a.isPassed()) weeklyMap.get(ws)[1]++;
+    for (UserDailyStats day : days) {
+      int[] week = weeklyMap.get(day.getStatDate().with(DayOfWeek.MONDAY));
+      if (week != null) {
+        week[0] += day.getAttempts();
+        week[1] += day.getPassed();
       }
     }
     List<WeeklyEntry> weeklyAttempts = new ArrayList<>();
@@ -80,28 +83,30 @@ public class AnalyticsController {
       weeklyAttempts.add(new WeeklyEntry(e.getKey().toString(), e.getValue()[0], e.getValue()[1]));
     }
 
-    // Per-unit accuracy (categories)
+    // Per-unit accuracy (categories) and overall totals, from the all-time unit rollup. Units are
+    // grouped by title in the order the learner first attempted them.
+    int totalAttempts = 0;
+    int totalCorrect = 0;
+    int totalQuestions = 0;
     Map<String, int[]> unitMap = new LinkedHashMap<>();
-    for (LessonAttempt a : attempts) {
-      if (a.getTotalQuestions() == 0) continue;
-      String unitTitle = a.getLesson().getUnit().getTitle();
-      unitMap.computeIfAbsent(unitTitle, k -> new int[] {0, 0});
-      unitMap.get(unitTitle)[0] += a.getCorrectCount();
-      unitMap.get(unitTitle)[1] += a.getTotalQuestions();
+    for (UserUnitStatsRepository.UnitStatsView unit :
+        userUnitStatsRepository.findUnitStats(user.getId())) {
+      totalAttempts += unit.getAttempts();
+      totalCorrect += unit.getCorrect();
+      totalQuestions += unit.getTotal();
+      if (unit.getTotal() == 0) continue;
+      int[] counts = unitMap.computeIfAbsent(unit.getUnitTitle(), k -> new int[] {0, 0});
+      counts[0] += unit.getCorrect();
+      counts[1] += unit.getTotal();
     }
     List<UnitAccuracy> unitAccuracy = new ArrayList<>();
     for (Map.Entry<String, int[]> e : unitMap.entrySet()) {
       int correct = e.getValue()[0];
       int total = e.getValue()[1];
-      int pct = total > 0 ? (int) Math.round((correct * 100.0) / total) : 0;
+      int pct = (int) Math.round((correct * 100.0) / total);
       unitAccuracy.add(new UnitAccuracy(e.getKey(), correct, total, pct));
     }
 
-    // Overall accuracy
-    int totalAttempts = attempts.size();
-    int totalCorrect = attempts.stream().mapToInt(LessonAttempt::getCorrectCount).sum();
-    int totalQuestions = attempts.stream().mapToInt(LessonAttempt::getTotalQuestions).sum();
-
     int completedLessons = user.getCompletedLessonsCount();
     int maxStreak = user.getMaxCorrectStreak();
     int currentStreak = user.getCurrentCorrectStreak();
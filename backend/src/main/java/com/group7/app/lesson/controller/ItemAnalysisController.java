@@ -0,0 +1,36 @@
+package com.group7.app.lesson.controller;
+
+import com.group7.app.lesson.service.ItemAnalysisService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/analytics")
+@Tag(name = "Item Analysis", description = "Per-question statistics for lesson authors")
+public class ItemAnalysisController {
+
+  private final ItemAnalysisService itemAnalysisService;
+
+  public ItemAnalysisController(ItemAnalysisService itemAnalysisService) {
+    this.itemAnalysisService = itemAnalysisService;
+  }
+
+  @GetMapping("/items")
+  @Operation(
+      summary = "Get item analysis for a lesson's questions, or the hardest questions overall")
+  public List<ItemAnalysisService.ItemReport> getItemAnalysis(
+      @RequestParam(required = false) Long lessonId,
+      @RequestParam(defaultValue = "20") int limit,
+      @RequestParam(defaultValue = "20") long minResponses) {
+    if (lessonId != null) {
+      return itemAnalysisService.reportForLesson(lessonId);
+    }
+    return itemAnalysisService.reportHardest(
+        Math.max(1, minResponses), Math.max(1, Math.min(limit, 100)));
+  }
+}
@@ -108,6 +108,13 @@ public class LearningProgressController {
         queue.items().stream().map(this::toReviseQueueItem).toList(), queue.dueCount());
   }
 
+  @GetMapping("/due-summary")
+  @Operation(summary = "Get due revise and vocab counts")
+  public LessonAttemptService.DueSummary getDueSummary(@AuthenticationPrincipal Jwt jwt) {
+    User actor = authContextService.resolveUser(jwt);
+    return lessonAttemptService.getDueSummary(actor);
+  }
+
   @PostMapping("/revise-attempts")
   @Operation(summary = "Submit revise session answers")
   public LessonAttemptService.ReviseAttemptResult submitReviseAttempt(
@@ -10,7 +10,7 @@ import com.group7.app.lesson.service.AuthContextService;
 import com.group7.app.lesson.service.LessonService;
 import com.group7.app.lesson.service.LessonStepPayloadService;
 import com.group7.app.user.User;
-import com.group7.app.user.UserService;
+import com.group7.app.user.UserProfileCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -18,6 +18,9 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
@@ -38,17 +41,17 @@ public class LessonController {
 
   private final LessonService lessonService;
   private final LessonStepPayloadService lessonStepPayloadService;
-  private final UserService userService;
+  private final UserProfileCache userProfileCache;
   private final AuthContextService authContextService;
 
   public LessonController(
       LessonService lessonService,
       LessonStepPayloadService lessonStepPayloadService,
       AuthContextService authContextService,
-      UserService userService) {
+      UserProfileCache userProfileCache) {
     this.lessonService = lessonService;
     this.lessonStepPayloadService = lessonStepPayloadService;
-    this.userService = userService;
+    this.userProfileCache = userProfileCache;
     this.authContextService = authContextService;
   }
 
@@ -60,9 +63,7 @@ public class LessonController {
       @RequestParam(required = false) LessonStatus status,
       @RequestParam(defaultValue = "false") boolean mine) {
     User actor = authContextService.resolveUser(jwt);
-    return lessonService.listLessons(actor, unitId, status, mine).stream()
-        .map(this::toSummary)
-        .toList();
+    return toSummaries(lessonService.listLessons(actor, unitId, status, mine));
   }
 
   @GetMapping("/{lessonId}")
@@ -90,7 +91,7 @@ public class LessonController {
             .map(step -> toStepResponse(step, false))
             .toList();
 
-    return new LessonPlayResponse(toSummary(lesson), steps);
+    return new LessonPlayResponse(toSummaries(List.of(lesson)).getFirst(), steps);
   }
 
   @PostMapping
@@ -184,23 +185,18 @@ public class LessonController {
     return ResponseEntity.noContent().build();
   }
 
-  private LessonSummaryResponse toSummary(Lesson lesson) {
-    String submittedBy = null;
-    try {
-      if (lesson.getCreatedBy() != null) {
-        var uOpt = userService.findById(lesson.getCreatedBy());
-        if (uOpt.isPresent()) {
-          var u = uOpt.get();
-          submittedBy =
-              u.getDisplayName() != null && !u.getDisplayName().isBlank()
-                  ? u.getDisplayName()
-                  : u.getEmail();
-        }
-      }
-    } catch (Exception e) {
-      submittedBy = null;
-    }
+  // one cache lookup for the whole list; creators already cached cost no query at all
+  private List<LessonSummaryResponse> toSummaries(List<Lesson> lessons) {
+    Map<UUID, UserProfileCache.UserProfile> creators =
+        userProfileCache.getAll(
+            lessons.stream().map(Lesson::getCreatedBy).filter(Objects::nonNull).toList());
+    return lessons.stream()
+        .map(lesson -> toSummary(lesson, creators.get(lesson.getCreatedBy())))
+        .toList();
+  }
 
+  private LessonSummaryResponse toSummary(Lesson lesson, UserProfileCache.UserProfile creator) {
+    String submittedBy = creator != null ? creator.label() : null;
     return new LessonSummaryResponse(
         lesson.getId(),
         lesson.getUnit().getId(),
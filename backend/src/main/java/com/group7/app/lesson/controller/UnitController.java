@@ -5,12 +5,15 @@ import com.group7.app.lesson.model.Unit;
 import com.group7.app.lesson.service.AuthContextService;
 import com.group7.app.lesson.service.LessonService;
 import com.group7.app.user.User;
-import com.group7.app.user.UserService;
+import com.group7.app.user.UserProfileCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
@@ -29,13 +32,15 @@ import org.springframework.web.bind.annotation.RestController;
 public class UnitController {
 
   private final LessonService lessonService;
-  private final UserService userService;
+  private final UserProfileCache userProfileCache;
   private final AuthContextService authContextService;
 
   public UnitController(
-      LessonService lessonService, AuthContextService authContextService, UserService userService) {
+      LessonService lessonService,
+      AuthContextService authContextService,
+      UserProfileCache userProfileCache) {
     this.lessonService = lessonService;
-    this.userService = userService;
+    this.userProfileCache = userProfileCache;
     this.authContextService = authContextService;
   }
 
@@ -49,10 +54,10 @@ public class UnitController {
         .map(
             unit -> {
               List<LessonSummaryResponse> lessons =
-                  lessonService.listLessons(actor, unit.getId(), null, false).stream()
-                      .filter(lesson -> lesson.getUnit().getId().equals(unit.getId()))
-                      .map(this::toLessonSummary)
-                      .toList();
+                  toLessonSummaries(
+                      lessonService.listLessons(actor, unit.getId(), null, false).stream()
+                          .filter(lesson -> lesson.getUnit().getId().equals(unit.getId()))
+                          .toList());
               return new UnitResponse(
                   unit.getId(),
                   unit.getTitle(),
@@ -89,10 +94,10 @@ public class UnitController {
             new LessonService.UnitPatchInput(
                 request.title(), request.description(), request.orderIndex()));
     List<LessonSummaryResponse> lessons =
-        lessonService.listLessons(actor, unit.getId(), null, false).stream()
-            .filter(lesson -> lesson.getUnit().getId().equals(unit.getId()))
-            .map(this::toLessonSummary)
-            .toList();
+        toLessonSummaries(
+            lessonService.listLessons(actor, unit.getId(), null, false).stream()
+                .filter(lesson -> lesson.getUnit().getId().equals(unit.getId()))
+                .toList());
     return toUnitResponse(unit, lessons);
   }
 
@@ -105,23 +110,19 @@ public class UnitController {
     return ResponseEntity.noContent().build();
   }
 
-  private LessonSummaryResponse toLessonSummary(Lesson lesson) {
-    String submittedBy = null;
-    try {
-      if (lesson.getCreatedBy() != null) {
-        var uOpt = userService.findById(lesson.getCreatedBy());
-        if (uOpt.isPresent()) {
-          var u = uOpt.get();
-          submittedBy =
-              u.getDisplayName() != null && !u.getDisplayName().isBlank()
-                  ? u.getDisplayName()
-                  : u.getEmail();
-        }
-      }
-    } catch (Exception e) {
-      submittedBy = null;
-    }
+  // one cache lookup for the whole list; creators already cached cost no query at all
+  private List<LessonSummaryResponse> toLessonSummaries(List<Lesson> lessons) {
+    Map<UUID, UserProfileCache.UserProfile> creators =
+        userProfileCache.getAll(
+            lessons.stream().map(Lesson::getCreatedBy).filter(Objects::nonNull).toList());
+    return lessons.stream()
+        .map(lesson -> toLessonSummary(lesson, creators.get(lesson.getCreatedBy())))
+        .toList();
+  }
 
+  private LessonSummaryResponse toLessonSummary(
+      Lesson lesson, UserProfileCache.UserProfile creator) {
+    String submittedBy = creator != null ? creator.label() : null;
     return new LessonSummaryResponse(
         lesson.getId(),
         lesson.getUnit().getId(),
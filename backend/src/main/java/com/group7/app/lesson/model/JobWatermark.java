@@ -0,0 +1,57 @@
+package com.group7.app.lesson.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+
+/**
+ * How far an incremental job has read a table, as the {@code (created_at, id)} of the last row it
+ * processed.
+ */
+@Entity
+@Table(name = "job_watermarks")
+public class JobWatermark {
+
+  @Id
+  @Column(name = "job_name", length = 64)
+  private String jobName;
+
+  @Column(name = "last_created_at", nullable = false)
+  private Instant lastCreatedAt = Instant.EPOCH;
+
+  @Column(name = "last_id", nullable = false)
+  private Long lastId = 0L;
+
+  @Column(name = "updated_at", nullable = false)
+  private Instant updatedAt;
+
+  protected JobWatermark() {}
+
+  public JobWatermark(String jobName) {
+    this.jobName = jobName;
+  }
+
+  public String getJobName() {
+    return jobName;
+  }
+
+  public Instant getLastCreatedAt() {
+    return lastCreatedAt;
+  }
+
+  public Long getLastId() {
+    return lastId;
+  }
+
+  public Instant getUpdatedAt() {
+    return updatedAt;
+  }
+
+  public void advance(Instant lastCreatedAt, Long lastId, Instant now) {
+    this.lastCreatedAt = lastCreatedAt;
+    this.lastId = lastId;
+    this.updatedAt = now;
+  }
+}
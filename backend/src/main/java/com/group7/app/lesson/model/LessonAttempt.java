@@ -8,6 +8,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import java.time.Instant;
 import java.util.UUID;
@@ -17,7 +18,9 @@ import java.util.UUID;
 public class LessonAttempt {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lesson_attempts_id_seq")
+  @SequenceGenerator(
+      name = "lesson_attempts_id_seq", sequenceName = "lesson_attempts_id_seq", allocationSize = 50)
   private Long id;
 
   @Column(name = "user_id", nullable = false)
@@ -7,18 +7,27 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
 @Entity
-@Table(name = "lesson_attempt_results")
+@Table(
+    name = "lesson_attempt_results",
+    indexes =
+        @Index(name = "idx_lesson_attempt_results_created_id", columnList = "created_at, id"))
 public class LessonAttemptResult {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lesson_attempt_results_id_seq")
+  @SequenceGenerator(
+      name = "lesson_attempt_results_id_seq",
+      sequenceName = "lesson_attempt_results_id_seq",
+      allocationSize = 50)
   private Long id;
 
   @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,137 @@
+package com.group7.app.lesson.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+/**
+ * Running item-analysis totals of one question step, folded in from {@code
+ * lesson_attempt_results} by the item-analysis job. The sums are enough to derive the p-value and
+ * the point-biserial discrimination without revisiting old answers.
+ */
+@Entity
+@Table(
+    name = "lesson_step_item_stats",
+    indexes = @Index(name = "idx_lesson_step_item_stats_lesson", columnList = "lesson_id"))
+public class LessonStepItemStats {
+
+  @Id
+  @Column(name = "lesson_step_id")
+  private Long lessonStepId;
+
+  @Column(name = "lesson_id", nullable = false)
+  private Long lessonId;
+
+  @Column(nullable = false)
+  private Long responses = 0L;
+
+  @Column(name = "correct_responses", nullable = false)
+  private Long correctResponses = 0L;
+
+  @Column(name = "score_sum", nullable = false)
+  private Long scoreSum = 0L;
+
+  @Column(name = "score_square_sum", nullable = false)
+  private Long scoreSquareSum = 0L;
+
+  @Column(name = "correct_score_sum", nullable = false)
+  private Long correctScoreSum = 0L;
+
+  // answer -> approximate count, bounded to the most frequent wrong answers
+  @JdbcTypeCode(SqlTypes.JSON)
+  @Column(name = "wrong_answers", columnDefinition = "jsonb")
+  private JsonNode wrongAnswers;
+
+  // attempt durations, counted per bucket
+  @JdbcTypeCode(SqlTypes.JSON)
+  @Column(name = "duration_histogram", columnDefinition = "jsonb")
+  private JsonNode durationHistogram;
+
+  @Column(name = "updated_at", nullable = false)
+  private Instant updatedAt;
+
+  protected LessonStepItemStats() {}
+
+  public LessonStepItemStats(Long lessonStepId, Long lessonId) {
+    this.lessonStepId = lessonStepId;
+    this.lessonId = lessonId;
+  }
+
+  public Long getLessonStepId() {
+    return lessonStepId;
+  }
+
+  public Long getLessonId() {
+    return lessonId;
+  }
+
+  public Long getResponses() {
+    return responses;
+  }
+
+  public void setResponses(Long responses) {
+    this.responses = responses;
+  }
+
+  public Long getCorrectResponses() {
+    return correctResponses;
+  }
+
+  public void setCorrectResponses(Long correctResponses) {
+    this.correctResponses = correctResponses;
+  }
+
+  public Long getScoreSum() {
+    return scoreSum;
+  }
+
+  public void setScoreSum(Long scoreSum) {
+    this.scoreSum = scoreSum;
+  }
+
+  public Long getScoreSquareSum() {
+    return scoreSquareSum;
+  }
+
+  public void setScoreSquareSum(Long scoreSquareSum) {
+    this.scoreSquareSum = scoreSquareSum;
+  }
+
+  public Long getCorrectScoreSum() {
+    return correctScoreSum;
+  }
+
+  public void setCorrectScoreSum(Long correctScoreSum) {
+    this.correctScoreSum = correctScoreSum;
+  }
+
+  public JsonNode getWrongAnswers() {
+    return wrongAnswers;
+  }
+
+  public void setWrongAnswers(JsonNode wrongAnswers) {
+    this.wrongAnswers = wrongAnswers;
+  }
+
+  public JsonNode getDurationHistogram() {
+    return durationHistogram;
+  }
+
+  public void setDurationHistogram(JsonNode durationHistogram) {
+    this.durationHistogram = durationHistogram;
+  }
+
+  public Instant getUpdatedAt() {
+    return updatedAt;
+  }
+
+  public void setUpdatedAt(Instant updatedAt) {
+    this.updatedAt = updatedAt;
+  }
+}
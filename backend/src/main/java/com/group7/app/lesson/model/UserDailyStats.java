@@ -0,0 +1,99 @@
+package com.group7.app.lesson.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * One learner's lesson attempts on one UTC day, summed. Attempts add to the row by upsert, so the
+ * analytics charts read a bounded number of days instead of the learner's whole history.
+ */
+@Entity
+@Table(
+    name = "user_daily_stats",
+    uniqueConstraints =
+        @UniqueConstraint(
+            name = "uq_user_daily_stats_user_date",
+            columnNames = {"user_id", "stat_date"}))
+public class UserDailyStats {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "user_id", nullable = false)
+  private UUID userId;
+
+  @Column(name = "stat_date", nullable = false)
+  private LocalDate statDate;
+
+  @Column(nullable = false)
+  private Integer xp = 0;
+
+  @Column(nullable = false)
+  private Integer attempts = 0;
+
+  @Column(nullable = false)
+  private Integer passed = 0;
+
+  @Column(nullable = false)
+  private Integer correct = 0;
+
+  @Column(nullable = false)
+  private Integer total = 0;
+
+  @Column(name = "created_at", nullable = false, updatable = false)
+  private Instant createdAt;
+
+  @Column(name = "updated_at", nullable = false)
+  private Instant updatedAt;
+
+  protected UserDailyStats() {}
+
+  public Long getId() {
+    return id;
+  }
+
+  public UUID getUserId() {
+    return userId;
+  }
+
+  public LocalDate getStatDate() {
+    return statDate;
+  }
+
+  public Integer getXp() {
+    return xp;
+  }
+
+  public Integer getAttempts() {
+    return attempts;
+  }
+
+  public Integer getPassed() {
+    return passed;
+  }
+
+  public Integer getCorrect() {
+    return correct;
+  }
+
+  public Integer getTotal() {
+    return total;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public Instant getUpdatedAt() {
+    return updatedAt;
+  }
+}
@@ -11,11 +11,17 @@ import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import java.time.Instant;
 import java.util.UUID;
 
 @Entity
-@Table(name = "user_lesson_progress")
+@Table(
+    name = "user_lesson_progress",
+    uniqueConstraints =
+        @UniqueConstraint(
+            name = "user_lesson_progress_user_id_lesson_id_key",
+            columnNames = {"user_id", "lesson_id"}))
 public class UserLessonProgress {
 
   @Id
@@ -10,6 +10,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import java.time.Instant;
 import java.util.UUID;
@@ -21,7 +22,11 @@ import org.hibernate.type.SqlTypes;
 public class UserStepEvent {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_step_events_id_seq")
+  @SequenceGenerator(
+      name = "user_step_events_id_seq",
+      sequenceName = "user_step_events_id_seq",
+      allocationSize = 50)
   private Long id;
 
   @Column(name = "user_id", nullable = false)
@@ -0,0 +1,123 @@
+package com.group7.app.lesson.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Spaced-repetition state of one question step for one learner. Rows are written by upsert from
+ * {@code ReviewStateService} whenever an attempt or revise answer is graded, so the revise queue
+ * can read them directly instead of replaying the learner's history.
+ */
+@Entity
+@Table(
+    name = "user_step_review_state",
+    uniqueConstraints =
+        @UniqueConstraint(
+            name = "uq_user_step_review_state_user_step",
+            columnNames = {"user_id", "lesson_step_id"}),
+    indexes =
+        @Index(name = "idx_user_step_review_state_due", columnList = "user_id, next_due_at"))
+public class UserStepReviewState {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "user_id", nullable = false)
+  private UUID userId;
+
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "lesson_step_id", nullable = false)
+  private LessonStep lessonStep;
+
+  @Column(nullable = false)
+  private Integer strength = 0;
+
+  @Column(name = "correct_streak", nullable = false)
+  private Integer correctStreak = 0;
+
+  @Column(name = "times_wrong", nullable = false)
+  private Integer timesWrong = 0;
+
+  @Column(name = "last_seen_at")
+  private Instant lastSeenAt;
+
+  @Column(name = "next_due_at", nullable = false)
+  private Instant nextDueAt;
+
+  @Column(name = "created_at", nullable = false, updatable = false)
+  private Instant createdAt;
+
+  @Column(name = "updated_at", nullable = false)
+  private Instant updatedAt;
+
+  protected UserStepReviewState() {}
+
+  public UserStepReviewState(
+      UUID userId,
+      LessonStep lessonStep,
+      int strength,
+      int correctStreak,
+      int timesWrong,
+      Instant lastSeenAt,
+      Instant nextDueAt) {
+    this.userId = userId;
+    this.lessonStep = lessonStep;
+    this.strength = strength;
+    this.correctStreak = correctStreak;
+    this.timesWrong = timesWrong;
+    this.lastSeenAt = lastSeenAt;
+    this.nextDueAt = nextDueAt;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public UUID getUserId() {
+    return userId;
+  }
+
+  public LessonStep getLessonStep() {
+    return lessonStep;
+  }
+
+  public Integer getStrength() {
+    return strength;
+  }
+
+  public Integer getCorrectStreak() {
+    return correctStreak;
+  }
+
+  public Integer getTimesWrong() {
+    return timesWrong;
+  }
+
+  public Instant getLastSeenAt() {
+    return lastSeenAt;
+  }
+
+  public Instant getNextDueAt() {
+    return nextDueAt;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public Instant getUpdatedAt() {
+    return updatedAt;
+  }
+}
@@ -0,0 +1,88 @@
+package com.group7.app.lesson.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.time.Instant;
+import java.util.UUID;
+
+/** All-time attempt counters of one learner in one unit, kept next to {@link UserDailyStats}. */
+@Entity
+@Table(
+    name = "user_unit_stats",
+    uniqueConstraints =
+        @UniqueConstraint(
+            name = "uq_user_unit_stats_user_unit",
+            columnNames = {"user_id", "unit_id"}))
+public class UserUnitStats {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "user_id", nullable = false)
+  private UUID userId;
+
+  @Column(name = "unit_id", nullable = false)
+  private Long unitId;
+
+  @Column(nullable = false)
+  private Integer attempts = 0;
+
+  @Column(nullable = false)
+  private Integer correct = 0;
+
+  @Column(nullable = false)
+  private Integer total = 0;
+
+  @Column(name = "first_attempt_at", nullable = false)
+  private Instant firstAttemptAt;
+
+  @Column(name = "created_at", nullable = false, updatable = false)
+  private Instant createdAt;
+
+  @Column(name = "updated_at", nullable = false)
+  private Instant updatedAt;
+
+  protected UserUnitStats() {}
+
+  public Long getId() {
+    return id;
+  }
+
+  public UUID getUserId() {
+    return userId;
+  }
+
+  public Long getUnitId() {
+    return unitId;
+  }
+
+  public Integer getAttempts() {
+    return attempts;
+  }
+
+  public Integer getCorrect() {
+    return correct;
+  }
+
+  public Integer getTotal() {
+    return total;
+  }
+
+  public Instant getFirstAttemptAt() {
+    return firstAttemptAt;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public Instant getUpdatedAt() {
+    return updatedAt;
+  }
+}
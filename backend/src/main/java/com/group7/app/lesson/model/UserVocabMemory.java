@@ -6,16 +6,24 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import java.time.Instant;
 import java.util.UUID;
 
 @Entity
-@Table(name = "user_vocab_memory")
+@Table(
+    name = "user_vocab_memory",
+    uniqueConstraints =
+        @UniqueConstraint(
+            name = "uq_user_vocab_memory_user_vocab",
+            columnNames = {"user_id", "vocab_item_id"}),
+    indexes = @Index(name = "idx_user_vocab_memory_due", columnList = "user_id, next_due_at"))
 public class UserVocabMemory {
 
   @Id
@@ -0,0 +1,7 @@
+package com.group7.app.lesson.repository;
+
+import java.time.LocalDate;
+
+/** Counters to add to one learner's {@code user_daily_stats} row for {@code statDate}. */
+public record DailyStatsDelta(
+    LocalDate statDate, int xp, int attempts, int passed, int correct, int total) {}
@@ -0,0 +1,17 @@
+package com.group7.app.lesson.repository;
+
+import com.group7.app.lesson.model.JobWatermark;
+import jakarta.persistence.LockModeType;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface JobWatermarkRepository extends JpaRepository<JobWatermark, String> {
+
+  /** Loads the watermark locked until commit, so two instances never process the same rows. */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select w from JobWatermark w where w.jobName = :jobName")
+  Optional<JobWatermark> lockByJobName(@Param("jobName") String jobName);
+}
@@ -1,6 +1,7 @@
 package com.group7.app.lesson.repository;
 
 import com.group7.app.lesson.model.LessonAttempt;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -14,4 +15,23 @@ public interface LessonAttemptRepository extends JpaRepository<LessonAttempt, Lo
           + " WHERE a.userId = :userId ORDER BY a.submittedAt ASC")
   List<LessonAttempt> findByUserIdWithLessonAndUnit(
       @org.springframework.data.repository.query.Param("userId") UUID userId);
+
+  @org.springframework.data.jpa.repository.Query("SELECT DISTINCT a.userId FROM LessonAttempt a")
+  List<UUID> findDistinctUserIds();
+
+  /** Scores on one lesson per learner, in the order the attempts were submitted. */
+  @org.springframework.data.jpa.repository.Query(
+      "SELECT a.userId AS userId, a.score AS score, a.submittedAt AS submittedAt"
+          + " FROM LessonAttempt a WHERE a.lesson.id = :lessonId"
+          + " ORDER BY a.userId, a.submittedAt, a.id")
+  List<AttemptScoreView> findScoresByLessonId(
+      @org.springframework.data.repository.query.Param("lessonId") Long lessonId);
+
+  interface AttemptScoreView {
+    UUID getUserId();
+
+    Integer getScore();
+
+    Instant getSubmittedAt();
+  }
 }
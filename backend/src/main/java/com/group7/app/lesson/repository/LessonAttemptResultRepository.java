@@ -1,12 +1,67 @@
 package com.group7.app.lesson.repository;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.group7.app.lesson.model.LessonAttemptResult;
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface LessonAttemptResultRepository extends JpaRepository<LessonAttemptResult, Long> {
   List<LessonAttemptResult> findByAttemptIdOrderByIdAsc(Long attemptId);
 
   List<LessonAttemptResult> findByAttemptUserIdOrderByCreatedAtAsc(UUID userId);
+
+  /**
+   * Next page of results in {@code (createdAt, id)} order after the given position, up to and
+   * including {@code until}, joined with the score and duration of their attempt. The plain
+   * {@code createdAt >=} bound lets each page start its index scan at the watermark; the second
+   * condition only breaks ties on {@code createdAt}.
+   */
+  @Query(
+      """
+      select r.id as id,
+             r.createdAt as createdAt,
+             r.lessonStep.id as lessonStepId,
+             r.lessonId as lessonId,
+             r.isCorrect as correct,
+             r.submittedAnswer as submittedAnswer,
+             a.score as score,
+             a.startedAt as startedAt,
+             a.submittedAt as submittedAt
+      from LessonAttemptResult r
+      join r.attempt a
+      where r.createdAt >= :afterCreatedAt
+        and (r.createdAt > :afterCreatedAt or r.id > :afterId)
+        and r.createdAt <= :until
+      order by r.createdAt asc, r.id asc
+      """)
+  List<ItemAnalysisRow> findItemAnalysisRows(
+      @Param("afterCreatedAt") Instant afterCreatedAt,
+      @Param("afterId") Long afterId,
+      @Param("until") Instant until,
+      Pageable pageable);
+
+  interface ItemAnalysisRow {
+    Long getId();
+
+    Instant getCreatedAt();
+
+    Long getLessonStepId();
+
+    Long getLessonId();
+
+    boolean getCorrect();
+
+    JsonNode getSubmittedAnswer();
+
+    Integer getScore();
+
+    Instant getStartedAt();
+
+    Instant getSubmittedAt();
+  }
 }
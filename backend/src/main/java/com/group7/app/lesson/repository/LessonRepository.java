@@ -2,8 +2,13 @@ package com.group7.app.lesson.repository;
 
 import com.group7.app.lesson.model.Lesson;
 import com.group7.app.lesson.model.LessonStatus;
+import jakarta.persistence.LockModeType;
 import java.util.List;
+import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface LessonRepository extends JpaRepository<Lesson, Long> {
   List<Lesson> findByStatusOrderByOrderIndexAsc(LessonStatus status);
@@ -20,4 +25,12 @@ public interface LessonRepository extends JpaRepository<Lesson, Long> {
   List<Lesson> findAllByOrderByOrderIndexAsc();
 
   boolean existsBySlug(String slug);
+
+  /**
+   * Loads the lesson with a row lock held until commit. Inserting progress or attempts for it
+   * waits on the lock, so nothing new is credited for a lesson that is being deleted.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select l from Lesson l where l.id = :id")
+  Optional<Lesson> lockById(@Param("id") Long id);
 }
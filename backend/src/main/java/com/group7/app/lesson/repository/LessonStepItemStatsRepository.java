@@ -0,0 +1,23 @@
+package com.group7.app.lesson.repository;
+
+import com.group7.app.lesson.model.LessonStepItemStats;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface LessonStepItemStatsRepository extends JpaRepository<LessonStepItemStats, Long> {
+
+  List<LessonStepItemStats> findByLessonIdOrderByLessonStepIdAsc(Long lessonId);
+
+  /** Steps with enough responses, hardest (lowest share answered correctly) first. */
+  @Query(
+      """
+      select s from LessonStepItemStats s
+      where s.responses >= :minResponses
+      order by (s.correctResponses * 1.0 / s.responses) asc, s.lessonStepId asc
+      """)
+  List<LessonStepItemStats> findHardest(
+      @Param("minResponses") long minResponses, Pageable pageable);
+}
@@ -1,5 +1,6 @@
 package com.group7.app.lesson.repository;
 
+import com.group7.app.lesson.model.LessonStatus;
 import com.group7.app.lesson.model.LessonStep;
 import com.group7.app.lesson.model.StepType;
 import java.util.List;
@@ -27,20 +28,28 @@ public interface LessonStepRepository extends JpaRepository<LessonStep, Long> {
             SELECT s
             FROM LessonStep s
             JOIN FETCH s.lesson l
-            WHERE s.stepType = :stepType
-              AND l.status = :status
-            ORDER BY l.orderIndex ASC, s.orderIndex ASC
+            WHERE s.id IN :stepIds
+            ORDER BY s.orderIndex ASC
             """)
-  List<LessonStep> findByStepTypeAndLessonStatusOrderByLessonOrderIndexAsc(
-      StepType stepType, com.group7.app.lesson.model.LessonStatus status);
+  List<LessonStep> findByIdInWithLesson(List<Long> stepIds);
 
+  /** Catalog rows for question steps without loading their payloads. */
   @Query(
       """
-            SELECT s
+            SELECT s.id AS stepId, l.id AS lessonId, l.title AS lessonTitle
             FROM LessonStep s
-            JOIN FETCH s.lesson l
-            WHERE s.id IN :stepIds
-            ORDER BY s.orderIndex ASC
+            JOIN s.lesson l
+            WHERE s.stepType = :stepType
+              AND l.status = :status
+            ORDER BY l.orderIndex ASC, s.orderIndex ASC, s.id ASC
             """)
-  List<LessonStep> findByIdInWithLesson(List<Long> stepIds);
+  List<CatalogStepView> findCatalogSteps(StepType stepType, LessonStatus status);
+
+  interface CatalogStepView {
+    Long getStepId();
+
+    Long getLessonId();
+
+    String getLessonTitle();
+  }
 }
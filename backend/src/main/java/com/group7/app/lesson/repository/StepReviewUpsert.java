@@ -0,0 +1,12 @@
+package com.group7.app.lesson.repository;
+
+import java.time.Instant;
+
+/** Full review state of one question step, written back with a single upsert. */
+public record StepReviewUpsert(
+    Long lessonStepId,
+    int strength,
+    int correctStreak,
+    int timesWrong,
+    Instant lastSeenAt,
+    Instant nextDueAt) {}
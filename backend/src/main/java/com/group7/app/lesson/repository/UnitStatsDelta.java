@@ -0,0 +1,10 @@
+package com.group7.app.lesson.repository;
+
+import java.time.Instant;
+
+/**
+ * Counters to add to one learner's {@code user_unit_stats} row for {@code unitId}; the row keeps
+ * the earliest {@code firstAttemptAt} it has seen.
+ */
+public record UnitStatsDelta(
+    Long unitId, int attempts, int correct, int total, Instant firstAttemptAt) {}
@@ -0,0 +1,24 @@
+package com.group7.app.lesson.repository;
+
+import com.group7.app.lesson.model.UserDailyStats;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface UserDailyStatsRepository
+    extends JpaRepository<UserDailyStats, Long>, UserDailyStatsRepositoryCustom {
+
+  List<UserDailyStats> findByUserIdAndStatDateBetweenOrderByStatDateAsc(
+      UUID userId, LocalDate from, LocalDate to);
+
+  @Query("select distinct s.userId from UserDailyStats s")
+  List<UUID> findDistinctUserIds();
+
+  @Modifying
+  @Query("delete from UserDailyStats s where s.userId = :userId")
+  int deleteAllByUserId(@Param("userId") UUID userId);
+}
@@ -0,0 +1,74 @@
+package com.group7.app.lesson.repository;
+
+import com.group7.app.config.PlatformUpserts;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+class UserDailyStatsRepositoryCustomImpl implements UserDailyStatsRepositoryCustom {
+
+  private static final PlatformUpserts.Statement ADD =
+      new PlatformUpserts.Statement(
+          """
+          insert into user_daily_stats
+              (user_id, stat_date, xp, attempts, passed, correct, total, created_at, updated_at)
+          values (?, ?, ?, ?, ?, ?, ?, ?, ?)
+          on conflict (user_id, stat_date) do update set
+              xp = user_daily_stats.xp + excluded.xp,
+              attempts = user_daily_stats.attempts + excluded.attempts,
+              passed = user_daily_stats.passed + excluded.passed,
+              correct = user_daily_stats.correct + excluded.correct,
+              total = user_daily_stats.total + excluded.total,
+              updated_at = excluded.updated_at
+          """,
+          """
+          merge into user_daily_stats t
+          using (values (cast(? as uuid), cast(? as date), cast(? as integer), cast(? as integer),
+                         cast(? as integer), cast(? as integer), cast(? as integer),
+                         cast(? as timestamp with time zone), cast(? as timestamp with time zone)))
+              s (user_id, stat_date, xp, attempts, passed, correct, total, created_at, updated_at)
+          on t.user_id = s.user_id and t.stat_date = s.stat_date
+          when matched then update set
+              xp = t.xp + s.xp,
+              attempts = t.attempts + s.attempts,
+              passed = t.passed + s.passed,
+              correct = t.correct + s.correct,
+              total = t.total + s.total,
+              updated_at = s.updated_at
+          when not matched then insert
+              (user_id, stat_date, xp, attempts, passed, correct, total, created_at, updated_at)
+              values (s.user_id, s.stat_date, s.xp, s.attempts, s.passed, s.correct, s.total,
+                      s.created_at, s.updated_at)
+          """);
+
+  private final PlatformUpserts upserts;
+
+  UserDailyStatsRepositoryCustomImpl(PlatformUpserts upserts) {
+    this.upserts = upserts;
+  }
+
+  @Override
+  public void addAll(UUID userId, Collection<DailyStatsDelta> deltas, Instant now) {
+    Timestamp writtenAt = Timestamp.from(now);
+    List<Object[]> rows =
+        deltas.stream()
+            .map(
+                delta ->
+                    new Object[] {
+                      userId,
+                      Date.valueOf(delta.statDate()),
+                      delta.xp(),
+                      delta.attempts(),
+                      delta.passed(),
+                      delta.correct(),
+                      delta.total(),
+                      writtenAt,
+                      writtenAt
+                    })
+            .toList();
+    upserts.batchUpdate(ADD, rows);
+  }
+}
@@ -1,13 +1,33 @@
 package com.group7.app.lesson.repository;
 
 import com.group7.app.lesson.model.UserLessonProgress;
+import jakarta.persistence.LockModeType;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface UserLessonProgressRepository extends JpaRepository<UserLessonProgress, Long> {
+public interface UserLessonProgressRepository
+    extends JpaRepository<UserLessonProgress, Long>, UserLessonProgressRepositoryCustom {
   List<UserLessonProgress> findByUserId(UUID userId);
 
   Optional<UserLessonProgress> findByUserIdAndLessonId(UUID userId, Long lessonId);
+
+  /**
+   * Loads the learner's progress on a lesson with a row lock held until commit, serializing
+   * concurrent attempts at the same lesson.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query(
+      "select p from UserLessonProgress p where p.userId = :userId and p.lesson.id = :lessonId")
+  Optional<UserLessonProgress> lockByUserIdAndLessonId(
+      @Param("userId") UUID userId, @Param("lessonId") Long lessonId);
+
+  /** Every learner's progress on a lesson, locked in user order like the per-learner finder. */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select p from UserLessonProgress p where p.lesson.id = :lessonId order by p.userId")
+  List<UserLessonProgress> lockAllByLessonId(@Param("lessonId") Long lessonId);
 }
@@ -0,0 +1,13 @@
+package com.group7.app.lesson.repository;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public interface UserLessonProgressRepositoryCustom {
+
+  /**
+   * Creates an empty progress row for the learner and lesson unless one exists, without raising
+   * on the conflict, so the row can be locked before it is read.
+   */
+  void insertIfAbsent(UUID userId, Long lessonId, Instant now);
+}
@@ -0,0 +1,45 @@
+package com.group7.app.lesson.repository;
+
+import com.group7.app.config.PlatformUpserts;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+import org.springframework.dao.DuplicateKeyException;
+
+class UserLessonProgressRepositoryCustomImpl implements UserLessonProgressRepositoryCustom {
+
+  private static final PlatformUpserts.Statement INSERT =
+      new PlatformUpserts.Statement(
+          """
+          insert into user_lesson_progress
+              (user_id, lesson_id, best_score, attempt_count, created_at, updated_at)
+          values (?, ?, 0, 0, ?, ?)
+          on conflict (user_id, lesson_id) do nothing
+          """,
+          """
+          merge into user_lesson_progress t
+          using (values (cast(? as uuid), cast(? as bigint),
+                         cast(? as timestamp with time zone), cast(? as timestamp with time zone)))
+              s (user_id, lesson_id, created_at, updated_at)
+          on t.user_id = s.user_id and t.lesson_id = s.lesson_id
+          when not matched then insert
+              (user_id, lesson_id, best_score, attempt_count, created_at, updated_at)
+              values (s.user_id, s.lesson_id, 0, 0, s.created_at, s.updated_at)
+          """);
+
+  private final PlatformUpserts upserts;
+
+  UserLessonProgressRepositoryCustomImpl(PlatformUpserts upserts) {
+    this.upserts = upserts;
+  }
+
+  @Override
+  public void insertIfAbsent(UUID userId, Long lessonId, Instant now) {
+    Timestamp writtenAt = Timestamp.from(now);
+    try {
+      upserts.update(INSERT, userId, lessonId, writtenAt, writtenAt);
+    } catch (DuplicateKeyException ex) {
+      // only h2's merge can still lose to a concurrent insert; either way the row now exists
+    }
+  }
+}
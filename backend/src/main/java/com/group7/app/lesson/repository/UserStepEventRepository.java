@@ -4,7 +4,11 @@ import com.group7.app.lesson.model.UserStepEvent;
 import java.util.List;
 import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 public interface UserStepEventRepository extends JpaRepository<UserStepEvent, Long> {
   List<UserStepEvent> findByUserIdAndEventTypeOrderByCreatedAtAsc(UUID userId, String eventType);
+
+  @Query("select distinct e.userId from UserStepEvent e where e.eventType = :eventType")
+  List<UUID> findDistinctUserIdsByEventType(String eventType);
 }
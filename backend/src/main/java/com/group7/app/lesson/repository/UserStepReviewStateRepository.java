@@ -0,0 +1,115 @@
+package com.group7.app.lesson.repository;
+
+import com.group7.app.lesson.model.UserStepReviewState;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface UserStepReviewStateRepository
+    extends JpaRepository<UserStepReviewState, Long>, UserStepReviewStateRepositoryCustom {
+
+  /**
+   * Reviewed approved question steps in revise-queue order: due items first, then weak ones
+   * (missed before or strength at most 2), then everything else.
+   */
+  @Query(
+      """
+      select s from UserStepReviewState s
+      join fetch s.lessonStep step
+      join fetch step.lesson lesson
+      where s.userId = :userId
+        and step.stepType = com.group7.app.lesson.model.StepType.QUESTION
+        and lesson.status = com.group7.app.lesson.model.LessonStatus.APPROVED
+      order by
+        case
+          when s.nextDueAt <= :now then 0
+          when s.timesWrong > 0 or s.strength <= 2 then 1
+          else 2
+        end,
+        s.nextDueAt asc,
+        s.timesWrong desc,
+        s.strength asc,
+        s.lastSeenAt asc nulls first,
+        lesson.title asc,
+        step.id asc
+      """)
+  List<UserStepReviewState> findReviseCandidates(UUID userId, Instant now, Pageable pageable);
+
+  @Query(
+      """
+      select count(s) from UserStepReviewState s
+      join s.lessonStep step
+      join step.lesson lesson
+      where s.userId = :userId
+        and s.nextDueAt <= :now
+        and step.stepType = com.group7.app.lesson.model.StepType.QUESTION
+        and lesson.status = com.group7.app.lesson.model.LessonStatus.APPROVED
+      """)
+  long countDueForRevise(UUID userId, Instant now);
+
+  /**
+   * Due revise steps and due vocab items in one round trip, without building either queue. Each
+   * subquery is a range scan on its table's {@code (user_id, next_due_at)} index.
+   */
+  @Query(
+      nativeQuery = true,
+      value =
+          """
+          select
+            (select count(*)
+             from user_step_review_state s
+             join lesson_steps step on step.id = s.lesson_step_id
+             join lessons lesson on lesson.id = step.lesson_id
+             where s.user_id = :userId
+               and s.next_due_at <= :now
+               and step.step_type = 'QUESTION'
+               and lesson.status = 'APPROVED') as "reviseDue",
+            (select count(*)
+             from user_vocab_memory m
+             where m.user_id = :userId
+               and m.next_due_at <= :now) as "vocabDue"
+          """)
+  DueCountsView countDueItems(@Param("userId") UUID userId, @Param("now") Instant now);
+
+  @Query("select s.lessonStep.id from UserStepReviewState s where s.userId = :userId")
+  List<Long> findLessonStepIdsByUserId(UUID userId);
+
+  @Query(
+      """
+      select s.lessonStep.id as lessonStepId,
+             s.strength as strength,
+             s.correctStreak as correctStreak,
+             s.timesWrong as timesWrong,
+             s.lastSeenAt as lastSeenAt,
+             s.nextDueAt as nextDueAt
+      from UserStepReviewState s
+      where s.userId = :userId and s.lessonStep.id in :lessonStepIds
+      """)
+  List<ReviewStateView> findStatesByUserIdAndLessonStepIds(
+      UUID userId, Collection<Long> lessonStepIds);
+
+  interface ReviewStateView {
+    Long getLessonStepId();
+
+    Integer getStrength();
+
+    Integer getCorrectStreak();
+
+    Integer getTimesWrong();
+
+    Instant getLastSeenAt();
+
+    Instant getNextDueAt();
+  }
+
+  interface DueCountsView {
+    long getReviseDue();
+
+    long getVocabDue();
+  }
+}
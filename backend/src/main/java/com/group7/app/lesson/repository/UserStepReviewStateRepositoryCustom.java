@@ -0,0 +1,14 @@
+package com.group7.app.lesson.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.UUID;
+
+public interface UserStepReviewStateRepositoryCustom {
+
+  /**
+   * Inserts or overwrites the review state rows for the given steps in one batched statement, keyed
+   * by {@code (user_id, lesson_step_id)}.
+   */
+  void upsertAll(UUID userId, Collection<StepReviewUpsert> states, Instant now);
+}
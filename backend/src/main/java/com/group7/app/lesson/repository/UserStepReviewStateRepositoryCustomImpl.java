@@ -0,0 +1,62 @@
+package com.group7.app.lesson.repository;
+
+import com.group7.app.config.PlatformUpserts;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+class UserStepReviewStateRepositoryCustomImpl implements UserStepReviewStateRepositoryCustom {
+
+  private static final PlatformUpserts.Statement UPSERT =
+      new PlatformUpserts.Statement(
+          """
+          insert into user_step_review_state
+              (user_id, lesson_step_id, strength, correct_streak, times_wrong, last_seen_at,
+               next_due_at, created_at, updated_at)
+          values (?, ?, ?, ?, ?, ?, ?, ?, ?)
+          on conflict (user_id, lesson_step_id) do update set
+              strength = excluded.strength,
+              correct_streak = excluded.correct_streak,
+              times_wrong = excluded.times_wrong,
+              last_seen_at = excluded.last_seen_at,
+              next_due_at = excluded.next_due_at,
+              updated_at = excluded.updated_at
+          """,
+          """
+          merge into user_step_review_state
+              (user_id, lesson_step_id, strength, correct_streak, times_wrong, last_seen_at,
+               next_due_at, created_at, updated_at)
+          key (user_id, lesson_step_id)
+          values (?, ?, ?, ?, ?, ?, ?, ?, ?)
+          """);
+
+  private final PlatformUpserts upserts;
+
+  UserStepReviewStateRepositoryCustomImpl(PlatformUpserts upserts) {
+    this.upserts = upserts;
+  }
+
+  @Override
+  public void upsertAll(UUID userId, Collection<StepReviewUpsert> states, Instant now) {
+    Timestamp writtenAt = Timestamp.from(now);
+    List<Object[]> rows =
+        states.stream()
+            .map(
+                state ->
+                    new Object[] {
+                      userId,
+                      state.lessonStepId(),
+                      state.strength(),
+                      state.correctStreak(),
+                      state.timesWrong(),
+                      state.lastSeenAt() == null ? null : Timestamp.from(state.lastSeenAt()),
+                      Timestamp.from(state.nextDueAt()),
+                      writtenAt,
+                      writtenAt
+                    })
+            .toList();
+    upserts.batchUpdate(UPSERT, rows);
+  }
+}
@@ -0,0 +1,39 @@
+package com.group7.app.lesson.repository;
+
+import com.group7.app.lesson.model.UserUnitStats;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface UserUnitStatsRepository
+    extends JpaRepository<UserUnitStats, Long>, UserUnitStatsRepositoryCustom {
+
+  @Query(
+      """
+      select u.title as unitTitle, s.attempts as attempts, s.correct as correct, s.total as total
+      from UserUnitStats s, Unit u
+      where u.id = s.unitId and s.userId = :userId
+      order by s.firstAttemptAt asc, s.id asc
+      """)
+  List<UnitStatsView> findUnitStats(@Param("userId") UUID userId);
+
+  @Query("select distinct s.userId from UserUnitStats s")
+  List<UUID> findDistinctUserIds();
+
+  @Modifying
+  @Query("delete from UserUnitStats s where s.userId = :userId")
+  int deleteAllByUserId(@Param("userId") UUID userId);
+
+  interface UnitStatsView {
+    String getUnitTitle();
+
+    int getAttempts();
+
+    int getCorrect();
+
+    int getTotal();
+  }
+}
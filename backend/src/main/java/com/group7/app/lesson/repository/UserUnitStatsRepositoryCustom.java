@@ -0,0 +1,11 @@
+package com.group7.app.lesson.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.UUID;
+
+public interface UserUnitStatsRepositoryCustom {
+
+  /** Adds each delta to the learner's row for that unit, creating missing rows. */
+  void addAll(UUID userId, Collection<UnitStatsDelta> deltas, Instant now);
+}
@@ -0,0 +1,71 @@
+package com.group7.app.lesson.repository;
+
+import com.group7.app.config.PlatformUpserts;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+class UserUnitStatsRepositoryCustomImpl implements UserUnitStatsRepositoryCustom {
+
+  private static final PlatformUpserts.Statement ADD =
+      new PlatformUpserts.Statement(
+          """
+          insert into user_unit_stats
+              (user_id, unit_id, attempts, correct, total, first_attempt_at, created_at, updated_at)
+          values (?, ?, ?, ?, ?, ?, ?, ?)
+          on conflict (user_id, unit_id) do update set
+              attempts = user_unit_stats.attempts + excluded.attempts,
+              correct = user_unit_stats.correct + excluded.correct,
+              total = user_unit_stats.total + excluded.total,
+              first_attempt_at = least(user_unit_stats.first_attempt_at, excluded.first_attempt_at),
+              updated_at = excluded.updated_at
+          """,
+          """
+          merge into user_unit_stats t
+          using (values (cast(? as uuid), cast(? as bigint), cast(? as integer), cast(? as integer),
+                         cast(? as integer), cast(? as timestamp with time zone),
+                         cast(? as timestamp with time zone), cast(? as timestamp with time zone)))
+              s (user_id, unit_id, attempts, correct, total, first_attempt_at, created_at,
+                 updated_at)
+          on t.user_id = s.user_id and t.unit_id = s.unit_id
+          when matched then update set
+              attempts = t.attempts + s.attempts,
+              correct = t.correct + s.correct,
+              total = t.total + s.total,
+              first_attempt_at = least(t.first_attempt_at, s.first_attempt_at),
+              updated_at = s.updated_at
+          when not matched then insert
+              (user_id, unit_id, attempts, correct, total, first_attempt_at, created_at, updated_at)
+              values (s.user_id, s.unit_id, s.attempts, s.correct, s.total, s.first_attempt_at,
+                      s.created_at, s.updated_at)
+          """);
+
+  private final PlatformUpserts upserts;
+
+  UserUnitStatsRepositoryCustomImpl(PlatformUpserts upserts) {
+    this.upserts = upserts;
+  }
+
+  @Override
+  public void addAll(UUID userId, Collection<UnitStatsDelta> deltas, Instant now) {
+    Timestamp writtenAt = Timestamp.from(now);
+    List<Object[]> rows =
+        deltas.stream()
+            .map(
+                delta ->
+                    new Object[] {
+                      userId,
+                      delta.unitId(),
+                      delta.attempts(),
+                      delta.correct(),
+                      delta.total(),
+                      Timestamp.from(delta.firstAttemptAt()),
+                      writtenAt,
+                      writtenAt
+                    })
+            .toList();
+    upserts.batchUpdate(ADD, rows);
+  }
+}
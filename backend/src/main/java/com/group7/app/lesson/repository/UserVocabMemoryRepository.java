@@ -2,15 +2,43 @@ package com.group7.app.lesson.repository;
 
 import com.group7.app.lesson.model.UserVocabMemory;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
-public interface UserVocabMemoryRepository extends JpaRepository<UserVocabMemory, Long> {
+public interface UserVocabMemoryRepository
+    extends JpaRepository<UserVocabMemory, Long>, UserVocabMemoryRepositoryCustom {
   List<UserVocabMemory> findByUserIdAndNextDueAtLessThanEqualOrderByNextDueAtAsc(
       UUID userId, Instant now, Pageable pageable);
 
   Optional<UserVocabMemory> findByUserIdAndVocabItemId(UUID userId, Long vocabItemId);
+
+  @Query(
+      """
+      select m.vocabItem.id as vocabItemId,
+             m.strength as strength,
+             m.correctStreak as correctStreak,
+             m.lastSeenAt as lastSeenAt,
+             m.nextDueAt as nextDueAt
+      from UserVocabMemory m
+      where m.userId = :userId and m.vocabItem.id in :vocabItemIds
+      """)
+  List<VocabMemoryStateView> findStatesByUserIdAndVocabItemIds(
+      UUID userId, Collection<Long> vocabItemIds);
+
+  interface VocabMemoryStateView {
+    Long getVocabItemId();
+
+    Integer getStrength();
+
+    Integer getCorrectStreak();
+
+    Instant getLastSeenAt();
+
+    Instant getNextDueAt();
+  }
 }
@@ -0,0 +1,14 @@
+package com.group7.app.lesson.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.UUID;
+
+public interface UserVocabMemoryRepositoryCustom {
+
+  /**
+   * Inserts or overwrites the memory rows for the given cards in one batched statement, keyed by
+   * {@code (user_id, vocab_item_id)}.
+   */
+  void upsertAll(UUID userId, Collection<VocabMemoryUpsert> memories, Instant now);
+}
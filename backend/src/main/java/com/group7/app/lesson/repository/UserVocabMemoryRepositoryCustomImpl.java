@@ -0,0 +1,60 @@
+package com.group7.app.lesson.repository;
+
+import com.group7.app.config.PlatformUpserts;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+class UserVocabMemoryRepositoryCustomImpl implements UserVocabMemoryRepositoryCustom {
+
+  private static final PlatformUpserts.Statement UPSERT =
+      new PlatformUpserts.Statement(
+          """
+          insert into user_vocab_memory
+              (user_id, vocab_item_id, strength, correct_streak, last_seen_at, next_due_at,
+               created_at, updated_at)
+          values (?, ?, ?, ?, ?, ?, ?, ?)
+          on conflict (user_id, vocab_item_id) do update set
+              strength = excluded.strength,
+              correct_streak = excluded.correct_streak,
+              last_seen_at = excluded.last_seen_at,
+              next_due_at = excluded.next_due_at,
+              updated_at = excluded.updated_at
+          """,
+          """
+          merge into user_vocab_memory
+              (user_id, vocab_item_id, strength, correct_streak, last_seen_at, next_due_at,
+               created_at, updated_at)
+          key (user_id, vocab_item_id)
+          values (?, ?, ?, ?, ?, ?, ?, ?)
+          """);
+
+  private final PlatformUpserts upserts;
+
+  UserVocabMemoryRepositoryCustomImpl(PlatformUpserts upserts) {
+    this.upserts = upserts;
+  }
+
+  @Override
+  public void upsertAll(UUID userId, Collection<VocabMemoryUpsert> memories, Instant now) {
+    Timestamp writtenAt = Timestamp.from(now);
+    List<Object[]> rows =
+        memories.stream()
+            .map(
+                memory ->
+                    new Object[] {
+                      userId,
+                      memory.vocabItemId(),
+                      memory.strength(),
+                      memory.correctStreak(),
+                      memory.lastSeenAt() == null ? null : Timestamp.from(memory.lastSeenAt()),
+                      Timestamp.from(memory.nextDueAt()),
+                      writtenAt,
+                      writtenAt
+                    })
+            .toList();
+    upserts.batchUpdate(UPSERT, rows);
+  }
+}
@@ -10,4 +10,6 @@ public interface VocabItemRepository extends JpaRepository<VocabItem, Long> {
   Optional<VocabItem> findByTermIgnoreCase(String term);
 
   List<VocabItem> findByIdIn(Collection<Long> ids);
+
+  long countByIdIn(Collection<Long> ids);
 }
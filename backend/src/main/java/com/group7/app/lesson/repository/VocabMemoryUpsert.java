@@ -0,0 +1,7 @@
+package com.group7.app.lesson.repository;
+
+import java.time.Instant;
+
+/** Full spaced-repetition state of one vocab card, written back with a single upsert. */
+public record VocabMemoryUpsert(
+    Long vocabItemId, int strength, int correctStreak, Instant lastSeenAt, Instant nextDueAt) {}
@@ -0,0 +1,90 @@
+package com.group7.app.lesson.service;
+
+import com.group7.app.lesson.model.LessonStatus;
+import com.group7.app.lesson.model.StepType;
+import com.group7.app.lesson.repository.LessonStepRepository;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Read-mostly snapshot of the question steps learners may revise, i.e. the question steps of
+ * approved lessons. Readers share one immutable snapshot; lesson edits bump the version after
+ * their transaction commits and the next reader swaps in a freshly loaded snapshot.
+ */
+@Component
+public class ApprovedQuestionCatalog {
+
+  private final LessonStepRepository lessonStepRepository;
+  private final AtomicLong version = new AtomicLong();
+  private volatile Snapshot snapshot;
+
+  public ApprovedQuestionCatalog(LessonStepRepository lessonStepRepository) {
+    this.lessonStepRepository = lessonStepRepository;
+  }
+
+  public Snapshot current() {
+    Snapshot current = snapshot;
+    if (current != null && current.version() == version.get()) {
+      return current;
+    }
+    synchronized (this) {
+      long wanted = version.get();
+      current = snapshot;
+      if (current == null || current.version() != wanted) {
+        current = load(wanted);
+        snapshot = current;
+      }
+      return current;
+    }
+  }
+
+  /**
+   * Marks the snapshot stale. Inside a transaction this waits for the commit, so a rebuild never
+   * reads the edit before other transactions can.
+   */
+  public void invalidate() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              version.incrementAndGet();
+            }
+          });
+      return;
+    }
+    version.incrementAndGet();
+  }
+
+  private Snapshot load(long snapshotVersion) {
+    List<CatalogStep> steps = new ArrayList<>();
+    for (LessonStepRepository.CatalogStepView view :
+        lessonStepRepository.findCatalogSteps(StepType.QUESTION, LessonStatus.APPROVED)) {
+      steps.add(new CatalogStep(view.getStepId(), view.getLessonId(), view.getLessonTitle()));
+    }
+    return Snapshot.of(snapshotVersion, steps);
+  }
+
+  public record CatalogStep(long stepId, long lessonId, String lessonTitle) {}
+
+  public record Snapshot(long version, List<CatalogStep> steps, Map<Long, CatalogStep> byStepId) {
+
+    static Snapshot of(long version, List<CatalogStep> steps) {
+      Map<Long, CatalogStep> byStepId = new HashMap<>();
+      for (CatalogStep step : steps) {
+        byStepId.put(step.stepId(), step);
+      }
+      return new Snapshot(version, List.copyOf(steps), Map.copyOf(byStepId));
+    }
+
+    public boolean contains(Long stepId) {
+      return stepId != null && byStepId.containsKey(stepId);
+    }
+  }
+}
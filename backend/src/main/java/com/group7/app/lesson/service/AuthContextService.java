@@ -1,26 +1,52 @@
 package com.group7.app.lesson.service;
 
+import com.group7.app.config.ResolvedUserJwtAuthenticationToken;
+import com.group7.app.user.AuthenticatedUserCache;
 import com.group7.app.user.User;
 import com.group7.app.user.UserService;
 import java.util.UUID;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
+/**
+ * Resolves the {@link User} behind a JWT. The authentication converter resolves it once per
+ * request and every later call in that request reuses it; across requests a short-lived cache
+ * keyed by subject spares the {@code users} lookup entirely.
+ */
 @Service
 public class AuthContextService {
 
   private final UserService userService;
+  private final AuthenticatedUserCache authenticatedUserCache;
 
-  public AuthContextService(UserService userService) {
+  public AuthContextService(
+      UserService userService, AuthenticatedUserCache authenticatedUserCache) {
     this.userService = userService;
+    this.authenticatedUserCache = authenticatedUserCache;
   }
 
+  /** The returned user may be shared with other requests; reload it before modifying it. */
   public User resolveUser(Jwt jwt) {
+    if (SecurityContextHolder.getContext().getAuthentication()
+            instanceof ResolvedUserJwtAuthenticationToken token
+        && token.getToken() == jwt) {
+      return token.getUser();
+    }
     UUID userId = parseUserId(jwt);
     String email = getEmail(jwt);
-    return userService.findById(userId).orElseGet(() -> userService.createFromAuth(userId, email));
+    User cached = authenticatedUserCache.get(userId);
+    if (cached != null) {
+      return cached;
+    }
+    // taken before the read, so a profile update committing meanwhile keeps this row uncached
+    long generation = authenticatedUserCache.generation();
+    User user =
+        userService.findById(userId).orElseGet(() -> userService.createFromAuth(userId, email));
+    authenticatedUserCache.put(user, generation);
+    return user;
   }
 
   private static UUID parseUserId(Jwt jwt) {
@@ -0,0 +1,42 @@
+package com.group7.app.lesson.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/** Periodically folds new attempt results into the item-analysis stats, one page at a time. */
+@Component
+public class ItemAnalysisJob {
+
+  static final int BATCH_SIZE = 1000;
+
+  // results get their created_at before they commit; leaving recent rows for the next run means
+  // a slow transaction cannot commit a row behind the watermark
+  static final Duration SETTLE_DELAY = Duration.ofMinutes(2);
+
+  private static final Logger log = LoggerFactory.getLogger(ItemAnalysisJob.class);
+  private final ItemAnalysisService itemAnalysisService;
+
+  public ItemAnalysisJob(ItemAnalysisService itemAnalysisService) {
+    this.itemAnalysisService = itemAnalysisService;
+  }
+
+  @Scheduled(
+      fixedDelayString = "${lesson.item-analysis.interval:PT15M}",
+      initialDelayString = "${lesson.item-analysis.interval:PT15M}")
+  public void run() {
+    Instant until = Instant.now().minus(SETTLE_DELAY);
+    long processed = 0;
+    int batch;
+    do {
+      batch = itemAnalysisService.processNextBatch(until, BATCH_SIZE);
+      processed += batch;
+    } while (batch == BATCH_SIZE);
+    if (processed > 0) {
+      log.info("Item analysis folded in {} attempt results", processed);
+    }
+  }
+}
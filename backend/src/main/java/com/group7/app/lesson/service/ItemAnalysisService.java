@@ -0,0 +1,176 @@
+package com.group7.app.lesson.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.group7.app.lesson.model.JobWatermark;
+import com.group7.app.lesson.model.LessonStepItemStats;
+import com.group7.app.lesson.repository.JobWatermarkRepository;
+import com.group7.app.lesson.repository.LessonAttemptResultRepository;
+import com.group7.app.lesson.repository.LessonStepItemStatsRepository;
+import jakarta.transaction.Transactional;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+/**
+ * Per-step item analysis for lesson authors. {@link #processNextBatch} folds one page of new
+ * {@code lesson_attempt_results} rows into {@code lesson_step_item_stats} and moves the persisted
+ * watermark past them in the same transaction, so every row is counted exactly once and memory
+ * stays bounded by the page size whatever the table size.
+ *
+ * <p>Results do not record how long a single answer took, so answer times are the durations of
+ * the attempts the step was answered in.
+ */
+@Service
+@Transactional
+public class ItemAnalysisService {
+
+  static final String JOB_NAME = "item-analysis";
+  static final int REPORTED_WRONG_ANSWERS = 5;
+  private static final int MAX_ANSWER_LENGTH = 120;
+  private static final String NO_ANSWER = "(no answer)";
+
+  private final LessonAttemptResultRepository lessonAttemptResultRepository;
+  private final LessonStepItemStatsRepository lessonStepItemStatsRepository;
+  private final JobWatermarkRepository jobWatermarkRepository;
+
+  public ItemAnalysisService(
+      LessonAttemptResultRepository lessonAttemptResultRepository,
+      LessonStepItemStatsRepository lessonStepItemStatsRepository,
+      JobWatermarkRepository jobWatermarkRepository) {
+    this.lessonAttemptResultRepository = lessonAttemptResultRepository;
+    this.lessonStepItemStatsRepository = lessonStepItemStatsRepository;
+    this.jobWatermarkRepository = jobWatermarkRepository;
+  }
+
+  /**
+   * Processes up to {@code batchSize} results created after the watermark and no later than
+   * {@code until}. Returns the number of results processed; fewer than {@code batchSize} means
+   * the job has caught up.
+   */
+  public int processNextBatch(Instant until, int batchSize) {
+    JobWatermark watermark =
+        jobWatermarkRepository
+            .lockByJobName(JOB_NAME)
+            .orElseGet(() -> new JobWatermark(JOB_NAME));
+    List<LessonAttemptResultRepository.ItemAnalysisRow> rows =
+        lessonAttemptResultRepository.findItemAnalysisRows(
+            watermark.getLastCreatedAt(),
+            watermark.getLastId(),
+            until,
+            PageRequest.of(0, batchSize));
+    if (rows.isEmpty()) {
+      return 0;
+    }
+
+    Map<Long, Long> lessonIdsByStep = new LinkedHashMap<>();
+    for (LessonAttemptResultRepository.ItemAnalysisRow row : rows) {
+      lessonIdsByStep.putIfAbsent(row.getLessonStepId(), row.getLessonId());
+    }
+    Map<Long, LessonStepItemStats> statsByStep = new HashMap<>();
+    for (LessonStepItemStats stats :
+        lessonStepItemStatsRepository.findAllById(lessonIdsByStep.keySet())) {
+      statsByStep.put(stats.getLessonStepId(), stats);
+    }
+
+    Map<Long, ItemTally> tallies = new LinkedHashMap<>();
+    for (LessonAttemptResultRepository.ItemAnalysisRow row : rows) {
+      ItemTally tally =
+          tallies.computeIfAbsent(row.getLessonStepId(), id -> ItemTally.of(statsByStep.get(id)));
+      long durationSeconds =
+          Math.max(0, Duration.between(row.getStartedAt(), row.getSubmittedAt()).toSeconds());
+      tally.add(
+          row.getCorrect(),
+          row.getScore(),
+          durationSeconds,
+          row.getCorrect() ? null : answerKey(row.getSubmittedAnswer()));
+    }
+
+    Instant now = Instant.now();
+    List<LessonStepItemStats> updated = new ArrayList<>(tallies.size());
+    for (Map.Entry<Long, ItemTally> entry : tallies.entrySet()) {
+      Long stepId = entry.getKey();
+      LessonStepItemStats stats =
+          statsByStep.computeIfAbsent(
+              stepId, id -> new LessonStepItemStats(id, lessonIdsByStep.get(id)));
+      entry.getValue().writeTo(stats, now);
+      updated.add(stats);
+    }
+    lessonStepItemStatsRepository.saveAll(updated);
+
+    LessonAttemptResultRepository.ItemAnalysisRow last = rows.get(rows.size() - 1);
+    watermark.advance(last.getCreatedAt(), last.getId(), now);
+    jobWatermarkRepository.save(watermark);
+    return rows.size();
+  }
+
+  /** Item reports for every analysed step of one lesson, in step id order. */
+  public List<ItemReport> reportForLesson(Long lessonId) {
+    return toReports(lessonStepItemStatsRepository.findByLessonIdOrderByLessonStepIdAsc(lessonId));
+  }
+
+  /** Item reports for the steps learners get right least often. */
+  public List<ItemReport> reportHardest(long minResponses, int limit) {
+    return toReports(
+        lessonStepItemStatsRepository.findHardest(minResponses, PageRequest.of(0, limit)));
+  }
+
+  private List<ItemReport> toReports(List<LessonStepItemStats> statsList) {
+    List<ItemReport> reports = new ArrayList<>(statsList.size());
+    for (LessonStepItemStats stats : statsList) {
+      ItemTally tally = ItemTally.of(stats);
+      List<WrongAnswer> wrongAnswers = new ArrayList<>();
+      for (Map.Entry<String, Long> answer : tally.topWrongAnswers(REPORTED_WRONG_ANSWERS)) {
+        wrongAnswers.add(new WrongAnswer(answer.getKey(), answer.getValue()));
+      }
+      reports.add(
+          new ItemReport(
+              stats.getLessonStepId(),
+              stats.getLessonId(),
+              tally.responses(),
+              tally.pValue(),
+              tally.discrimination(),
+              wrongAnswers,
+              tally.durationPercentile(0.5),
+              tally.durationPercentile(0.9),
+              stats.getUpdatedAt()));
+    }
+    return reports;
+  }
+
+  static String answerKey(JsonNode submittedAnswer) {
+    if (submittedAnswer == null || submittedAnswer.isNull() || submittedAnswer.isMissingNode()) {
+      return NO_ANSWER;
+    }
+    String text =
+        submittedAnswer.isTextual() ? submittedAnswer.asText().trim() : submittedAnswer.toString();
+    if (text.isEmpty()) {
+      return NO_ANSWER;
+    }
+    return text.length() > MAX_ANSWER_LENGTH ? text.substring(0, MAX_ANSWER_LENGTH) : text;
+  }
+
+  public record WrongAnswer(String answer, long count) {}
+
+  /**
+   * {@code pValue} is the share of correct answers and {@code discrimination} the point-biserial
+   * correlation with the attempt score. Wrong-answer counts may overcount once more distinct
+   * answers than tracked slots have been seen. The time percentiles are bucket upper bounds in
+   * seconds.
+   */
+  public record ItemReport(
+      Long lessonStepId,
+      Long lessonId,
+      long responses,
+      Double pValue,
+      Double discrimination,
+      List<WrongAnswer> commonWrongAnswers,
+      Integer medianSeconds,
+      Integer p90Seconds,
+      Instant updatedAt) {}
+}
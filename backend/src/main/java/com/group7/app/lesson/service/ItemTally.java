@@ -0,0 +1,182 @@
+package com.group7.app.lesson.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.group7.app.lesson.model.LessonStepItemStats;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Working copy of one step's {@link LessonStepItemStats}: answers are added one at a time, then
+ * the totals are written back in one go. Wrong answers are counted with the space-saving
+ * heavy-hitters scheme, so the stored map never grows past {@link #WRONG_ANSWER_SLOTS} entries
+ * however many distinct answers learners type.
+ */
+final class ItemTally {
+
+  /** Upper bounds of the attempt-duration buckets; one more bucket catches everything slower. */
+  static final int[] DURATION_BOUNDS_SECONDS = {
+    5, 10, 15, 20, 30, 45, 60, 90, 120, 180, 300, 600, 1200, 1800, 3600
+  };
+
+  static final int WRONG_ANSWER_SLOTS = 20;
+
+  private static final JsonNodeFactory JSON = JsonNodeFactory.instance;
+
+  private long responses;
+  private long correctResponses;
+  private long scoreSum;
+  private long scoreSquareSum;
+  private long correctScoreSum;
+  private final Map<String, Long> wrongAnswers = new LinkedHashMap<>();
+  private final long[] durationCounts = new long[DURATION_BOUNDS_SECONDS.length + 1];
+
+  static ItemTally of(LessonStepItemStats stats) {
+    ItemTally tally = new ItemTally();
+    if (stats == null) {
+      return tally;
+    }
+    tally.responses = stats.getResponses();
+    tally.correctResponses = stats.getCorrectResponses();
+    tally.scoreSum = stats.getScoreSum();
+    tally.scoreSquareSum = stats.getScoreSquareSum();
+    tally.correctScoreSum = stats.getCorrectScoreSum();
+    if (stats.getWrongAnswers() != null) {
+      Iterator<Map.Entry<String, JsonNode>> fields = stats.getWrongAnswers().fields();
+      while (fields.hasNext()) {
+        Map.Entry<String, JsonNode> field = fields.next();
+        tally.wrongAnswers.put(field.getKey(), field.getValue().asLong());
+      }
+    }
+    JsonNode histogram = stats.getDurationHistogram();
+    if (histogram != null) {
+      for (int i = 0; i < Math.min(histogram.size(), tally.durationCounts.length); i++) {
+        tally.durationCounts[i] = histogram.get(i).asLong();
+      }
+    }
+    return tally;
+  }
+
+  /**
+   * Adds one answer. {@code score} is the score of the attempt it belongs to and {@code
+   * wrongAnswer} the normalized answer text, ignored when the answer was correct.
+   */
+  void add(boolean correct, int score, long durationSeconds, String wrongAnswer) {
+    responses++;
+    scoreSum += score;
+    scoreSquareSum += (long) score * score;
+    if (correct) {
+      correctResponses++;
+      correctScoreSum += score;
+    } else {
+      countWrongAnswer(wrongAnswer);
+    }
+    durationCounts[durationBucket(durationSeconds)]++;
+  }
+
+  void writeTo(LessonStepItemStats stats, Instant now) {
+    stats.setResponses(responses);
+    stats.setCorrectResponses(correctResponses);
+    stats.setScoreSum(scoreSum);
+    stats.setScoreSquareSum(scoreSquareSum);
+    stats.setCorrectScoreSum(correctScoreSum);
+    ObjectNode answers = JSON.objectNode();
+    wrongAnswers.forEach(answers::put);
+    stats.setWrongAnswers(answers);
+    ArrayNode histogram = JSON.arrayNode();
+    for (long count : durationCounts) {
+      histogram.add(count);
+    }
+    stats.setDurationHistogram(histogram);
+    stats.setUpdatedAt(now);
+  }
+
+  long responses() {
+    return responses;
+  }
+
+  /** Share of answers that were correct, or {@code null} before the first answer. */
+  Double pValue() {
+    return responses == 0 ? null : (double) correctResponses / responses;
+  }
+
+  /**
+   * Point-biserial correlation between answering this step correctly and the attempt score, or
+   * {@code null} while either side has no variance.
+   */
+  Double discrimination() {
+    double n = responses;
+    double numerator = n * correctScoreSum - (double) correctResponses * scoreSum;
+    double itemVariance = n * correctResponses - (double) correctResponses * correctResponses;
+    double scoreVariance = n * scoreSquareSum - (double) scoreSum * scoreSum;
+    if (itemVariance <= 0 || scoreVariance <= 0) {
+      return null;
+    }
+    return numerator / Math.sqrt(itemVariance * scoreVariance);
+  }
+
+  /** The most frequent wrong answers, most frequent first. */
+  List<Map.Entry<String, Long>> topWrongAnswers(int limit) {
+    List<Map.Entry<String, Long>> entries = new ArrayList<>(wrongAnswers.entrySet());
+    entries.sort(
+        Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+            .thenComparing(Map.Entry.comparingByKey()));
+    return List.copyOf(entries.subList(0, Math.min(limit, entries.size())));
+  }
+
+  /**
+   * Upper bound in seconds of the bucket holding the {@code quantile} attempt duration, or {@code
+   * null} when there are no answers yet or it falls past the last bound.
+   */
+  Integer durationPercentile(double quantile) {
+    long total = 0;
+    for (long count : durationCounts) {
+      total += count;
+    }
+    if (total == 0) {
+      return null;
+    }
+    long target = Math.max(1, (long) Math.ceil(quantile * total));
+    long seen = 0;
+    for (int i = 0; i < DURATION_BOUNDS_SECONDS.length; i++) {
+      seen += durationCounts[i];
+      if (seen >= target) {
+        return DURATION_BOUNDS_SECONDS[i];
+      }
+    }
+    return null;
+  }
+
+  private void countWrongAnswer(String answer) {
+    Long count = wrongAnswers.get(answer);
+    if (count != null) {
+      wrongAnswers.put(answer, count + 1);
+      return;
+    }
+    if (wrongAnswers.size() < WRONG_ANSWER_SLOTS) {
+      wrongAnswers.put(answer, 1L);
+      return;
+    }
+    // space-saving: the newcomer takes over the smallest slot and inherits its count
+    Map.Entry<String, Long> smallest =
+        wrongAnswers.entrySet().stream().min(Map.Entry.comparingByValue()).orElseThrow();
+    wrongAnswers.remove(smallest.getKey());
+    wrongAnswers.put(answer, smallest.getValue() + 1);
+  }
+
+  private static int durationBucket(long durationSeconds) {
+    for (int i = 0; i < DURATION_BOUNDS_SECONDS.length; i++) {
+      if (durationSeconds <= DURATION_BOUNDS_SECONDS[i]) {
+        return i;
+      }
+    }
+    return DURATION_BOUNDS_SECONDS.length;
+  }
+}
@@ -0,0 +1,133 @@
+package com.group7.app.lesson.service;
+
+import com.group7.app.lesson.model.LessonAttempt;
+import com.group7.app.lesson.repository.DailyStatsDelta;
+import com.group7.app.lesson.repository.LessonAttemptRepository;
+import com.group7.app.lesson.repository.UnitStatsDelta;
+import com.group7.app.lesson.repository.UserDailyStatsRepository;
+import com.group7.app.lesson.repository.UserUnitStatsRepository;
+import com.group7.app.user.UserRepository;
+import jakarta.transaction.Transactional;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.springframework.stereotype.Service;
+
+/**
+ * Maintains the analytics rollups {@code user_daily_stats} and {@code user_unit_stats}. Submitted
+ * attempts are added as they come in; {@link #rebuildForUser} recomputes a learner's rows from
+ * their raw attempts.
+ */
+@Service
+@Transactional
+public class LearningStatsService {
+
+  private final UserDailyStatsRepository userDailyStatsRepository;
+  private final UserUnitStatsRepository userUnitStatsRepository;
+  private final LessonAttemptRepository lessonAttemptRepository;
+  private final UserRepository userRepository;
+
+  public LearningStatsService(
+      UserDailyStatsRepository userDailyStatsRepository,
+      UserUnitStatsRepository userUnitStatsRepository,
+      LessonAttemptRepository lessonAttemptRepository,
+      UserRepository userRepository) {
+    this.userDailyStatsRepository = userDailyStatsRepository;
+    this.userUnitStatsRepository = userUnitStatsRepository;
+    this.lessonAttemptRepository = lessonAttemptRepository;
+    this.userRepository = userRepository;
+  }
+
+  /**
+   * Adds one submitted attempt to the learner's rollups. Callers hold the learner's users row lock,
+   * which keeps concurrent attempts from racing on a fresh row.
+   */
+  public void recordAttempt(LessonAttempt attempt) {
+    Map<LocalDate, DailyStatsDelta> days = new LinkedHashMap<>();
+    Map<Long, UnitStatsDelta> units = new LinkedHashMap<>();
+    add(days, units, attempt);
+    userDailyStatsRepository.addAll(attempt.getUserId(), days.values(), attempt.getSubmittedAt());
+    userUnitStatsRepository.addAll(attempt.getUserId(), units.values(), attempt.getSubmittedAt());
+  }
+
+  /**
+   * Replaces the learner's rollup rows with totals recomputed from every attempt they have
+   * submitted; a learner with no attempts left ends up with no rows. Returns the number of days
+   * written.
+   */
+  public int rebuildForUser(UUID userId) {
+    // an attempt submitted meanwhile waits for this lock before adding itself to the rollups
+    if (userRepository.lockById(userId).isEmpty()) {
+      return 0;
+    }
+    Map<LocalDate, DailyStatsDelta> days = new LinkedHashMap<>();
+    Map<Long, UnitStatsDelta> units = new LinkedHashMap<>();
+    for (LessonAttempt attempt : lessonAttemptRepository.findByUserIdWithLessonAndUnit(userId)) {
+      add(days, units, attempt);
+    }
+
+    Instant now = Instant.now();
+    userDailyStatsRepository.deleteAllByUserId(userId);
+    userUnitStatsRepository.deleteAllByUserId(userId);
+    userDailyStatsRepository.addAll(userId, days.values(), now);
+    userUnitStatsRepository.addAll(userId, units.values(), now);
+    return days.size();
+  }
+
+  /** Learners with attempts, plus any whose rollup rows outlived their attempts. */
+  public List<UUID> findUsersToRebuild() {
+    Set<UUID> userIds = new LinkedHashSet<>(lessonAttemptRepository.findDistinctUserIds());
+    userIds.addAll(userDailyStatsRepository.findDistinctUserIds());
+    userIds.addAll(userUnitStatsRepository.findDistinctUserIds());
+    return List.copyOf(userIds);
+  }
+
+  private static void add(
+      Map<LocalDate, DailyStatsDelta> days,
+      Map<Long, UnitStatsDelta> units,
+      LessonAttempt attempt) {
+    Long unitId = attempt.getLesson().getUnit().getId();
+    LocalDate statDate = LocalDate.ofInstant(attempt.getSubmittedAt(), ZoneOffset.UTC);
+    int passed = attempt.isPassed() ? 1 : 0;
+    days.merge(
+        statDate,
+        new DailyStatsDelta(
+            statDate,
+            attempt.getScore(),
+            1,
+            passed,
+            attempt.getCorrectCount(),
+            attempt.getTotalQuestions()),
+        (left, right) ->
+            new DailyStatsDelta(
+                statDate,
+                left.xp() + right.xp(),
+                left.attempts() + right.attempts(),
+                left.passed() + right.passed(),
+                left.correct() + right.correct(),
+                left.total() + right.total()));
+    units.merge(
+        unitId,
+        new UnitStatsDelta(
+            unitId,
+            1,
+            attempt.getCorrectCount(),
+            attempt.getTotalQuestions(),
+            attempt.getSubmittedAt()),
+        (left, right) ->
+            new UnitStatsDelta(
+                unitId,
+                left.attempts() + right.attempts(),
+                left.correct() + right.correct(),
+                left.total() + right.total(),
+                left.firstAttemptAt().isAfter(right.firstAttemptAt())
+                    ? right.firstAttemptAt()
+                    : left.firstAttemptAt()));
+  }
+}
@@ -11,6 +11,7 @@ import com.group7.app.lesson.model.LessonStep;
 import com.group7.app.lesson.model.StepType;
 import com.group7.app.lesson.model.UserLessonProgress;
 import com.group7.app.lesson.model.UserStepEvent;
+import com.group7.app.lesson.model.UserStepReviewState;
 import com.group7.app.lesson.model.UserVocabMemory;
 import com.group7.app.lesson.model.VocabItem;
 import com.group7.app.lesson.repository.LessonAttemptRepository;
@@ -19,19 +20,26 @@ import com.group7.app.lesson.repository.LessonRepository;
 import com.group7.app.lesson.repository.LessonStepRepository;
 import com.group7.app.lesson.repository.UserLessonProgressRepository;
 import com.group7.app.lesson.repository.UserStepEventRepository;
+import com.group7.app.lesson.repository.UserStepReviewStateRepository;
 import com.group7.app.lesson.repository.UserVocabMemoryRepository;
 import com.group7.app.lesson.repository.VocabItemRepository;
+import com.group7.app.lesson.repository.VocabMemoryUpsert;
+import com.group7.app.user.AuthenticatedUserCache;
+import com.group7.app.user.LeaderboardIndex;
 import com.group7.app.user.User;
+import com.group7.app.user.UserDailyPointsRepository;
 import jakarta.transaction.Transactional;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 import org.springframework.data.domain.PageRequest;
@@ -44,7 +52,7 @@ import org.springframework.web.server.ResponseStatusException;
 public class LessonAttemptService {
 
   private static final JsonNodeFactory JSON = JsonNodeFactory.instance;
-  private static final String REVISE_EVENT_TYPE = "REVISE_ANSWERED";
+  static final String REVISE_EVENT_TYPE = "REVISE_ANSWERED";
 
   private final LessonRepository lessonRepository;
   private final LessonStepRepository lessonStepRepository;
@@ -56,6 +64,13 @@ public class LessonAttemptService {
   private final UserVocabMemoryRepository userVocabMemoryRepository;
   private final VocabItemRepository vocabItemRepository;
   private final com.group7.app.user.UserRepository userRepository;
+  private final UserStepReviewStateRepository userStepReviewStateRepository;
+  private final ReviewStateService reviewStateService;
+  private final ApprovedQuestionCatalog approvedQuestionCatalog;
+  private final LeaderboardIndex leaderboardIndex;
+  private final UserDailyPointsRepository userDailyPointsRepository;
+  private final LearningStatsService learningStatsService;
+  private final AuthenticatedUserCache authenticatedUserCache;
 
   public LessonAttemptService(
       LessonRepository lessonRepository,
@@ -67,7 +82,14 @@ public class LessonAttemptService {
       UserStepEventRepository userStepEventRepository,
       UserVocabMemoryRepository userVocabMemoryRepository,
       VocabItemRepository vocabItemRepository,
-      com.group7.app.user.UserRepository userRepository) {
+      com.group7.app.user.UserRepository userRepository,
+      UserStepReviewStateRepository userStepReviewStateRepository,
+      ReviewStateService reviewStateService,
+      ApprovedQuestionCatalog approvedQuestionCatalog,
+      LeaderboardIndex leaderboardIndex,
+      UserDailyPointsRepository userDailyPointsRepository,
+      LearningStatsService learningStatsService,
+      AuthenticatedUserCache authenticatedUserCache) {
     this.lessonRepository = lessonRepository;
     this.lessonStepRepository = lessonStepRepository;
     this.lessonStepPayloadService = lessonStepPayloadService;
@@ -78,6 +100,13 @@ public class LessonAttemptService {
     this.userVocabMemoryRepository = userVocabMemoryRepository;
     this.vocabItemRepository = vocabItemRepository;
     this.userRepository = userRepository;
+    this.userStepReviewStateRepository = userStepReviewStateRepository;
+    this.reviewStateService = reviewStateService;
+    this.approvedQuestionCatalog = approvedQuestionCatalog;
+    this.leaderboardIndex = leaderboardIndex;
+    this.userDailyPointsRepository = userDailyPointsRepository;
+    this.learningStatsService = learningStatsService;
+    this.authenticatedUserCache = authenticatedUserCache;
   }
 
   public AttemptSubmissionResult submitAttempt(
@@ -86,9 +115,6 @@ public class LessonAttemptService {
     Instant submittedAt = Instant.now();
     Instant safeStartedAt = startedAt != null ? startedAt : submittedAt.minusSeconds(60);
 
-    List<LessonStep> questionSteps =
-        lessonStepRepository.findByLessonIdAndStepTypeOrderByOrderIndexAsc(
-            lessonId, StepType.QUESTION);
     List<LessonStep> lessonSteps =
         lessonStepRepository.findByLessonIdOrderByOrderIndexAsc(lessonId);
     Map<Long, AnswerInput> answersByStep = new HashMap<>();
@@ -96,49 +122,52 @@ public class LessonAttemptService {
       answersByStep.put(answer.stepId(), answer);
     }
 
-    // Refresh user from DB to have latest streak data
-    User user = userRepository.findById(actor.getId()).orElse(actor);
-
+    // the progress row is created up front and locked, so concurrent attempts at the same lesson
+    // read it one at a time and every delta below is taken against the latest best and completion
+    userLessonProgressRepository.insertIfAbsent(actor.getId(), lessonId, submittedAt);
     UserLessonProgress progress =
-        userLessonProgressRepository.findByUserIdAndLessonId(actor.getId(), lessonId).orElse(null);
-    boolean isFirstAttempt = progress == null || progress.getAttemptCount() == 0;
-
-    int currentStreak = user.getCurrentCorrectStreak();
-    int maxStreak = user.getMaxCorrectStreak();
-
+        userLessonProgressRepository
+            .lockByUserIdAndLessonId(actor.getId(), lessonId)
+            .orElseThrow(() -> new IllegalStateException("lesson progress row missing"));
+    boolean isFirstAttempt = progress.getAttemptCount() == 0;
+    // then the learner's row, before the review state the revise path also writes under it
+    userRepository.lockById(actor.getId());
+
+    // single grading pass: every question is evaluated exactly once and the outcome feeds both
+    // the response items and the persisted result rows. The streak is tracked as runs of correct
+    // answers so it can be applied to the stored counters as one delta.
     int correctCount = 0;
-    List<ResultItem> resultItems = new ArrayList<>();
-    for (LessonStep step : questionSteps) {
+    int leadingRun = 0;
+    int currentRun = 0;
+    int longestRun = 0;
+    boolean streakBroken = false;
+    List<GradedAnswer> gradedAnswers = new ArrayList<>();
+    Map<Long, VocabItem> taughtVocab = new LinkedHashMap<>();
+    for (LessonStep step : lessonSteps) {
+      if (step.getStepType() == StepType.TEACH && step.getVocabItem() != null) {
+        taughtVocab.putIfAbsent(step.getVocabItem().getId(), step.getVocabItem());
+      }
+      if (step.getStepType() != StepType.QUESTION) {
+        continue;
+      }
+
       AnswerInput input = answersByStep.get(step.getId());
       LessonStepPayloadService.Evaluation evaluation = evaluateAnswer(step, input);
       if (evaluation.correct()) {
         correctCount++;
-        if (isFirstAttempt) {
-          currentStreak++;
-          if (currentStreak > maxStreak) {
-            maxStreak = currentStreak;
-          }
+        currentRun++;
+        longestRun = Math.max(longestRun, currentRun);
+        if (!streakBroken) {
+          leadingRun++;
         }
       } else {
-        if (isFirstAttempt) {
-          currentStreak = 0;
-        }
+        streakBroken = true;
+        currentRun = 0;
       }
-      resultItems.add(
-          new ResultItem(
-              step.getId(),
-              evaluation.correct(),
-              submittedAnswerFromInput(input),
-              evaluation.correctAnswerText(),
-              evaluation.explanation()));
-    }
-
-    if (isFirstAttempt) {
-      user.setCurrentCorrectStreak(currentStreak);
-      user.setMaxCorrectStreak(maxStreak);
+      gradedAnswers.add(new GradedAnswer(step, submittedAnswerFromInput(input), evaluation));
     }
 
-    int totalQuestions = questionSteps.size();
+    int totalQuestions = gradedAnswers.size();
     int score = totalQuestions == 0 ? 0 : (int) Math.round((correctCount * 100.0) / totalQuestions);
     boolean passed = score >= 60;
 
@@ -154,63 +183,85 @@ public class LessonAttemptService {
                 safeStartedAt,
                 submittedAt));
 
+    int completedLessonsDelta = 0;
+    long totalTimeSecondsDelta = 0;
     if (passed) {
       long durationSeconds = java.time.Duration.between(safeStartedAt, submittedAt).toSeconds();
       long safeDuration = Math.max(0, durationSeconds);
 
       // If first time passing, increment completedLessonsCount
-      if (progress == null || progress.getCompletedAt() == null) {
-        user.setCompletedLessonsCount(user.getCompletedLessonsCount() + 1);
+      if (progress.getCompletedAt() == null) {
+        completedLessonsDelta = 1;
       }
 
       // Track personal best time per lesson for "Fastest Trial"
-      if (progress == null) {
-        // This shouldn't happen usually as upsertProgress is called later,
-        // but we handle it by updating the user total time here based on first pass
-        user.setTotalTimeSeconds(user.getTotalTimeSeconds() + safeDuration);
-      } else {
-        Long oldBest = progress.getBestTimeSeconds();
-        if (oldBest == null) {
-          user.setTotalTimeSeconds(user.getTotalTimeSeconds() + safeDuration);
-          progress.setBestTimeSeconds(safeDuration);
-        } else if (safeDuration < oldBest) {
-          // New Personal Best! Update total time by subtracting the improvement
-          long improvement = oldBest - safeDuration;
-          user.setTotalTimeSeconds(user.getTotalTimeSeconds() - improvement);
-          progress.setBestTimeSeconds(safeDuration);
-        }
+      Long oldBest = progress.getBestTimeSeconds();
+      if (oldBest == null) {
+        totalTimeSecondsDelta = safeDuration;
+        progress.setBestTimeSeconds(safeDuration);
+      } else if (safeDuration < oldBest) {
+        // New Personal Best! Update total time by subtracting the improvement
+        totalTimeSecondsDelta = safeDuration - oldBest;
+        progress.setBestTimeSeconds(safeDuration);
       }
     }
-    userRepository.save(user);
-
-    List<LessonAttemptResult> attemptResults = new ArrayList<>();
-    for (ResultItem resultItem : resultItems) {
-      AnswerInput input = answersByStep.get(resultItem.stepId());
-      LessonStep step =
-          questionSteps.stream()
-              .filter(s -> s.getId().equals(resultItem.stepId()))
-              .findFirst()
-              .orElseThrow();
 
-      JsonNode submittedAnswer = submittedAnswerFromInput(input);
-
-      LessonStepPayloadService.Evaluation evaluation = evaluateAnswer(step, input);
+    List<ResultItem> resultItems = new ArrayList<>(totalQuestions);
+    List<LessonAttemptResult> attemptResults = new ArrayList<>(totalQuestions);
+    List<ReviewStateService.StepOutcome> outcomes = new ArrayList<>(totalQuestions);
+    for (GradedAnswer graded : gradedAnswers) {
+      LessonStepPayloadService.Evaluation evaluation = graded.evaluation();
+      resultItems.add(
+          new ResultItem(
+              graded.step().getId(),
+              evaluation.correct(),
+              graded.submittedAnswer(),
+              evaluation.correctAnswerText(),
+              evaluation.explanation()));
       attemptResults.add(
           new LessonAttemptResult(
               attempt,
-              step,
+              graded.step(),
               lessonId,
-              resultItem.correct(),
-              submittedAnswer,
+              evaluation.correct(),
+              graded.submittedAnswer(),
               evaluation.evaluatedAnswer(),
-              resultItem.explanation()));
+              evaluation.explanation()));
+      outcomes.add(
+          new ReviewStateService.StepOutcome(
+              graded.step().getId(), evaluation.correct(), submittedAt));
     }
     lessonAttemptResultRepository.saveAll(attemptResults);
+    reviewStateService.recordOutcomes(actor.getId(), outcomes);
 
     LessonStep lastLessonStep =
         lessonSteps.isEmpty() ? null : lessonSteps.get(lessonSteps.size() - 1);
-    upsertProgress(actor.getId(), lesson, lastLessonStep, score, passed);
-    updateLessonVocabMemory(actor.getId(), lessonId, passed);
+    int pointsDelta = updateProgress(progress, lastLessonStep, score, passed);
+    updateLessonVocabMemory(actor.getId(), taughtVocab.values(), passed);
+
+    // Counters are applied as deltas in one statement, last, so concurrent attempts by the same
+    // learner cannot overwrite each other and the users row stays locked only until commit.
+    // Only the first attempt at a lesson moves the streak. The daily bucket and the analytics
+    // rollups follow under that row lock, so the learner's concurrent attempts add to them one at
+    // a time.
+    userRepository.applyAttemptCounters(
+        actor.getId(),
+        isFirstAttempt ? leadingRun : 0,
+        isFirstAttempt ? longestRun : 0,
+        isFirstAttempt && streakBroken,
+        isFirstAttempt ? currentRun : 0,
+        completedLessonsDelta,
+        totalTimeSecondsDelta,
+        pointsDelta,
+        submittedAt);
+    if (pointsDelta > 0) {
+      LocalDate bucketDate = LocalDate.ofInstant(submittedAt, ZoneOffset.UTC);
+      userDailyPointsRepository.addPoints(actor.getId(), bucketDate, pointsDelta, submittedAt);
+    }
+    learningStatsService.recordAttempt(attempt);
+    leaderboardIndex.markChanged(actor.getId());
+    // the cached user still carries the old counters
+    authenticatedUserCache.invalidate(actor.getId());
 
     return new AttemptSubmissionResult(
         attempt.getId(), score, totalQuestions, correctCount, passed, resultItems);
@@ -253,72 +304,30 @@ public class LessonAttemptService {
   public ReviseQueueResponse getReviseQueue(User actor, int limit) {
     int safeLimit = Math.max(1, Math.min(limit, 20));
     Instant now = Instant.now();
-    List<LessonStep> approvedQuestionSteps =
-        lessonStepRepository.findByStepTypeAndLessonStatusOrderByLessonOrderIndexAsc(
-            StepType.QUESTION, LessonStatus.APPROVED);
-
-    if (approvedQuestionSteps.isEmpty()) {
-      return new ReviseQueueResponse(List.of(), 0);
-    }
-
-    Map<Long, ReviewState> reviewStateByStepId =
-        buildReviewState(actor.getId(), approvedQuestionSteps);
-    Set<Long> startedLessonIds = findStartedLessonIds(actor.getId());
-
-    List<ReviseQueueItem> dueItems = new ArrayList<>();
-    List<ReviseQueueItem> weakItems = new ArrayList<>();
-    List<ReviseQueueItem> seenItems = new ArrayList<>();
-    List<ReviseQueueItem> startedLessonFallbackItems = new ArrayList<>();
-    List<ReviseQueueItem> approvedFallbackItems = new ArrayList<>();
-
-    for (LessonStep step : approvedQuestionSteps) {
-      ReviewState state = reviewStateByStepId.get(step.getId());
-      if (state != null && state.seen) {
-        ReviseQueueItem item = toReviseQueueItem(step, state, now);
-        if (state.isDue(now)) {
-          dueItems.add(item);
-        } else if (state.isWeak()) {
-          weakItems.add(item);
-        } else {
-          seenItems.add(item);
-        }
-        continue;
-      }
-
-      ReviseQueueItem fallbackItem =
-          new ReviseQueueItem(
-              step.getId(),
-              step.getLesson().getId(),
-              step.getLesson().getTitle(),
-              "fallback",
-              step);
-      if (startedLessonIds.contains(step.getLesson().getId())) {
-        startedLessonFallbackItems.add(fallbackItem);
-      } else {
-        approvedFallbackItems.add(fallbackItem);
-      }
-    }
-
-    dueItems.sort(compareReviseItems(reviewStateByStepId, true));
-    weakItems.sort(compareReviseItems(reviewStateByStepId, false));
-    seenItems.sort(compareReviseItems(reviewStateByStepId, false));
-    startedLessonFallbackItems.sort(compareFallbackItems(actor.getId()));
-    approvedFallbackItems.sort(compareFallbackItems(actor.getId()));
 
+    // the stored review state already orders due, weak and seen steps, so only the rows that
+    // make it into the queue are read
     List<ReviseQueueItem> queue = new ArrayList<>();
-    appendUntilLimit(queue, dueItems, safeLimit);
-    appendUntilLimit(queue, weakItems, safeLimit);
-    appendUntilLimit(queue, seenItems, safeLimit);
-    appendUntilLimit(queue, startedLessonFallbackItems, safeLimit);
-    appendUntilLimit(queue, approvedFallbackItems, safeLimit);
+    for (UserStepReviewState state :
+        userStepReviewStateRepository.findReviseCandidates(
+            actor.getId(), now, PageRequest.of(0, safeLimit))) {
+      queue.add(toReviseQueueItem(state, now));
+    }
+    int dueCount = (int) userStepReviewStateRepository.countDueForRevise(actor.getId(), now);
 
-    return new ReviseQueueResponse(queue, dueItems.size());
+    if (queue.size() < safeLimit) {
+      appendFallbackItems(actor.getId(), queue, safeLimit);
+    }
+    return new ReviseQueueResponse(queue, dueCount);
   }
 
   public ReviseAttemptResult submitReviseAttempt(User actor, List<AnswerInput> answers) {
     if (answers.isEmpty()) {
-      return new ReviseAttemptResult(0, 0, 0, List.of(), getReviseQueue(actor, 20).dueCount());
+      return new ReviseAttemptResult(0, 0, 0, List.of(), countDueForRevise(actor));
     }
+    // review state is read, advanced and written back; the learner's row lock keeps concurrent
+    // revise submits and lesson attempts from overwriting each other's updates
+    userRepository.lockById(actor.getId());
 
     List<Long> stepIds = answers.stream().map(AnswerInput::stepId).distinct().toList();
     Map<Long, LessonStep> stepsById = new HashMap<>();
@@ -326,8 +335,11 @@ public class LessonAttemptService {
       stepsById.put(step.getId(), step);
     }
 
+    ApprovedQuestionCatalog.Snapshot catalog = approvedQuestionCatalog.current();
+    Instant answeredAt = Instant.now();
     List<ResultItem> results = new ArrayList<>();
     List<UserStepEvent> events = new ArrayList<>();
+    List<ReviewStateService.StepOutcome> outcomes = new ArrayList<>();
     int correctCount = 0;
 
     for (AnswerInput answer : answers) {
@@ -335,7 +347,7 @@ public class LessonAttemptService {
       if (step == null || step.getStepType() != StepType.QUESTION) {
         throw new ResponseStatusException(HttpStatus.NOT_FOUND, "lesson step not found");
       }
-      if (step.getLesson().getStatus() != LessonStatus.APPROVED) {
+      if (!catalog.contains(step.getId())) {
         throw new ResponseStatusException(
             HttpStatus.BAD_REQUEST, "only approved lessons can be accessed by learners");
       }
@@ -360,17 +372,26 @@ public class LessonAttemptService {
               null,
               REVISE_EVENT_TYPE,
               buildReviseEventPayload(answer.answer(), evaluation)));
+      outcomes.add(
+          new ReviewStateService.StepOutcome(step.getId(), evaluation.correct(), answeredAt));
     }
 
     userStepEventRepository.saveAll(events);
+    reviewStateService.recordOutcomes(actor.getId(), outcomes);
 
     int totalQuestions = answers.size();
     int score = totalQuestions == 0 ? 0 : (int) Math.round((correctCount * 100.0) / totalQuestions);
-    int dueCount = getReviseQueue(actor, 20).dueCount();
+    int dueCount = countDueForRevise(actor);
 
     return new ReviseAttemptResult(score, totalQuestions, correctCount, results, dueCount);
   }
 
+  public DueSummary getDueSummary(User actor) {
+    UserStepReviewStateRepository.DueCountsView counts =
+        userStepReviewStateRepository.countDueItems(actor.getId(), Instant.now());
+    return new DueSummary((int) counts.getReviseDue(), (int) counts.getVocabDue());
+  }
+
   public List<VocabMemoryItem> listDueVocabMemory(User actor, int limit, boolean dueOnly) {
     int safeLimit = Math.max(1, Math.min(limit, 50));
     Instant now = Instant.now();
@@ -401,24 +422,15 @@ public class LessonAttemptService {
 
   public List<VocabMemoryItem> submitVocabMemoryAttempt(
       User actor, List<VocabMemoryAnswerInput> answers) {
-    Instant now = Instant.now();
-
+    Set<Long> vocabItemIds = new HashSet<>();
     for (VocabMemoryAnswerInput input : answers) {
-      VocabItem vocabItem =
-          vocabItemRepository
-              .findById(input.vocabItemId())
-              .orElseThrow(
-                  () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "vocab item not found"));
-
-      UserVocabMemory memory =
-          userVocabMemoryRepository
-              .findByUserIdAndVocabItemId(actor.getId(), vocabItem.getId())
-              .orElseGet(() -> new UserVocabMemory(actor.getId(), vocabItem, now));
-
-      updateMemory(memory, input.correct(), now);
-      userVocabMemoryRepository.save(memory);
+      vocabItemIds.add(input.vocabItemId());
+    }
+    if (vocabItemRepository.countByIdIn(vocabItemIds) != vocabItemIds.size()) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "vocab item not found");
     }
 
+    applyVocabMemoryAnswers(actor.getId(), answers, Instant.now());
     return listDueVocabMemory(actor, 20, true);
   }
 
@@ -430,47 +442,114 @@ public class LessonAttemptService {
             .orElseThrow(
                 () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "lesson step not found"));
 
+    // same insert-then-lock as submitAttempt, so a racing first attempt never hits the unique key
+    userLessonProgressRepository.insertIfAbsent(actor.getId(), lesson.getId(), Instant.now());
     UserLessonProgress progress =
         userLessonProgressRepository
-            .findByUserIdAndLessonId(actor.getId(), lesson.getId())
-            .orElseGet(() -> new UserLessonProgress(actor.getId(), lesson));
+            .lockByUserIdAndLessonId(actor.getId(), lesson.getId())
+            .orElseThrow(() -> new IllegalStateException("lesson progress row missing"));
 
     progress.setLastStep(lastStep);
-    UserLessonProgress saved = userLessonProgressRepository.save(progress);
-    return toProgressItem(saved);
+    return toProgressItem(progress);
   }
 
-  private Map<Long, ReviewState> buildReviewState(UUID userId, List<LessonStep> approvedSteps) {
-    Set<Long> approvedStepIds =
-        approvedSteps.stream().map(LessonStep::getId).collect(java.util.stream.Collectors.toSet());
-    Map<Long, ReviewState> reviewStateByStepId = new HashMap<>();
+  /**
+   * Takes back the leaderboard points a lesson earned, before it is deleted and its progress and
+   * attempts go with it. Each learner loses their best score on it from their total, and every
+   * daily bucket loses what the lesson's attempts added to it on that day.
+   */
+  public void revokeLessonPoints(Long lessonId) {
+    // the lesson lock holds off new learners; the progress locks wait out attempts in flight
+    lessonRepository.lockById(lessonId);
+    List<UserLessonProgress> progressRows =
+        userLessonProgressRepository.lockAllByLessonId(lessonId);
+    Instant now = Instant.now();
 
-    for (LessonAttemptResult result :
-        lessonAttemptResultRepository.findByAttemptUserIdOrderByCreatedAtAsc(userId)) {
-      Long stepId = result.getLessonStep().getId();
-      if (!approvedStepIds.contains(stepId)) {
-        continue;
+    // replays the attempts the way submitAttempt credited them: the rise over the best so far
+    Map<UUID, Map<LocalDate, Long>> risesByUser = new HashMap<>();
+    UUID currentUser = null;
+    int best = 0;
+    for (LessonAttemptRepository.AttemptScoreView attempt :
+        lessonAttemptRepository.findScoresByLessonId(lessonId)) {
+      if (!attempt.getUserId().equals(currentUser)) {
+        currentUser = attempt.getUserId();
+        best = 0;
+      }
+      int rise = Math.max(0, attempt.getScore() - best);
+      best = Math.max(best, attempt.getScore());
+      if (rise > 0) {
+        LocalDate bucketDate = LocalDate.ofInstant(attempt.getSubmittedAt(), ZoneOffset.UTC);
+        risesByUser
+            .computeIfAbsent(currentUser, userId -> new HashMap<>())
+            .merge(bucketDate, (long) rise, Long::sum);
       }
+    }
 
-      reviewStateByStepId
-          .computeIfAbsent(stepId, ignored -> new ReviewState())
-          .recordResult(result.isCorrect(), result.getCreatedAt());
+    for (UserLessonProgress progress : progressRows) {
+      UUID userId = progress.getUserId();
+      int bestScore = progress.getBestScore() == null ? 0 : progress.getBestScore();
+      if (bestScore > 0) {
+        userRepository.deductPoints(userId, bestScore, now);
+      }
+      risesByUser
+          .getOrDefault(userId, Map.of())
+          .forEach(
+              (bucketDate, rise) ->
+                  userDailyPointsRepository.addPoints(userId, bucketDate, -rise, now));
+      leaderboardIndex.markChanged(userId);
+      authenticatedUserCache.invalidate(userId);
     }
+  }
 
-    for (UserStepEvent event :
-        userStepEventRepository.findByUserIdAndEventTypeOrderByCreatedAtAsc(
-            userId, REVISE_EVENT_TYPE)) {
-      Long stepId = event.getLessonStep().getId();
-      if (!approvedStepIds.contains(stepId)) {
-        continue;
+  private void appendFallbackItems(UUID userId, List<ReviseQueueItem> queue, int limit) {
+    List<ApprovedQuestionCatalog.CatalogStep> catalogSteps =
+        approvedQuestionCatalog.current().steps();
+    if (catalogSteps.isEmpty()) {
+      return;
+    }
+
+    Set<Long> reviewedStepIds =
+        new HashSet<>(userStepReviewStateRepository.findLessonStepIdsByUserId(userId));
+    Set<Long> startedLessonIds = findStartedLessonIds(userId);
+    ReviseFallbackSelector<ApprovedQuestionCatalog.CatalogStep> selector =
+        new ReviseFallbackSelector<>(userId, limit - queue.size());
+    for (ApprovedQuestionCatalog.CatalogStep catalogStep : catalogSteps) {
+      if (!reviewedStepIds.contains(catalogStep.stepId())) {
+        selector.offer(
+            catalogStep.stepId(),
+            catalogStep.lessonTitle(),
+            startedLessonIds.contains(catalogStep.lessonId()),
+            catalogStep);
       }
+    }
 
-      reviewStateByStepId
-          .computeIfAbsent(stepId, ignored -> new ReviewState())
-          .recordResult(event.getPayload().path("correct").asBoolean(false), event.getCreatedAt());
+    List<ApprovedQuestionCatalog.CatalogStep> selected = selector.selected();
+    if (selected.isEmpty()) {
+      return;
+    }
+    // only the chosen steps are loaded; one deleted since the snapshot was taken is skipped
+    Map<Long, LessonStep> stepsById = new HashMap<>();
+    for (LessonStep step :
+        lessonStepRepository.findByIdInWithLesson(
+            selected.stream().map(ApprovedQuestionCatalog.CatalogStep::stepId).toList())) {
+      stepsById.put(step.getId(), step);
+    }
+    for (ApprovedQuestionCatalog.CatalogStep catalogStep : selected) {
+      LessonStep step = stepsById.get(catalogStep.stepId());
+      if (step != null) {
+        queue.add(
+            new ReviseQueueItem(
+                step.getId(),
+                step.getLesson().getId(),
+                step.getLesson().getTitle(),
+                "fallback",
+                step));
+      }
     }
+  }
 
-    return reviewStateByStepId;
+  private int countDueForRevise(User actor) {
+    return (int) userStepReviewStateRepository.countDueForRevise(actor.getId(), Instant.now());
   }
 
   private Set<Long> findStartedLessonIds(UUID userId) {
@@ -485,63 +564,28 @@ public class LessonAttemptService {
     return startedLessonIds;
   }
 
-  private ReviseQueueItem toReviseQueueItem(LessonStep step, ReviewState state, Instant now) {
+  private ReviseQueueItem toReviseQueueItem(UserStepReviewState state, Instant now) {
+    LessonStep step = state.getLessonStep();
     return new ReviseQueueItem(
         step.getId(),
         step.getLesson().getId(),
         step.getLesson().getTitle(),
-        state.priorityReason(now),
+        priorityReason(state, now),
         step);
   }
 
-  private Comparator<ReviseQueueItem> compareReviseItems(
-      Map<Long, ReviewState> reviewStateByStepId, boolean dueOnly) {
-    return Comparator.comparing(
-            (ReviseQueueItem item) ->
-                reviewStateByStepId.getOrDefault(item.stepId(), new ReviewState()).nextDueAt,
-            Comparator.nullsLast(Comparator.naturalOrder()))
-        .thenComparing(
-            (ReviseQueueItem item) ->
-                reviewStateByStepId.getOrDefault(item.stepId(), new ReviewState()).timesWrong,
-            Comparator.reverseOrder())
-        .thenComparing(
-            (ReviseQueueItem item) ->
-                reviewStateByStepId.getOrDefault(item.stepId(), new ReviewState()).strength)
-        .thenComparing(
-            (ReviseQueueItem item) ->
-                reviewStateByStepId.getOrDefault(item.stepId(), new ReviewState()).lastSeenAt,
-            Comparator.nullsFirst(Comparator.naturalOrder()))
-        .thenComparing(ReviseQueueItem::lessonTitle)
-        .thenComparing(ReviseQueueItem::stepId);
-  }
-
-  private Comparator<ReviseQueueItem> compareFallbackItems(UUID userId) {
-    return Comparator.comparingInt(
-            (ReviseQueueItem item) -> stableFallbackOrder(userId, item.stepId()))
-        .thenComparing(ReviseQueueItem::lessonTitle)
-        .thenComparing(ReviseQueueItem::stepId);
-  }
-
-  private int stableFallbackOrder(UUID userId, Long stepId) {
-    return Math.abs(Objects.hash(userId, stepId));
-  }
-
-  private void appendUntilLimit(
-      List<ReviseQueueItem> queue, List<ReviseQueueItem> candidates, int limit) {
-    if (queue.size() >= limit) {
-      return;
+  private String priorityReason(UserStepReviewState state, Instant now) {
+    boolean due = !state.getNextDueAt().isAfter(now);
+    if (state.getTimesWrong() > 0 && (state.getCorrectStreak() == 0 || due)) {
+      return "recent_mistake";
     }
-
-    Set<Long> existingStepIds =
-        queue.stream().map(ReviseQueueItem::stepId).collect(java.util.stream.Collectors.toSet());
-    for (ReviseQueueItem candidate : candidates) {
-      if (queue.size() >= limit) {
-        return;
-      }
-      if (existingStepIds.add(candidate.stepId())) {
-        queue.add(candidate);
-      }
+    if (due) {
+      return "due";
+    }
+    if (state.getTimesWrong() > 0 || state.getStrength() <= 2) {
+      return "weak";
     }
+    return "review";
   }
 
   private ObjectNode buildReviseEventPayload(
@@ -565,15 +609,12 @@ public class LessonAttemptService {
     return payload;
   }
 
-  private void upsertProgress(
-      UUID userId, Lesson lesson, LessonStep lastLessonStep, int score, boolean passed) {
-    UserLessonProgress progress =
-        userLessonProgressRepository
-            .findByUserIdAndLessonId(userId, lesson.getId())
-            .orElseGet(() -> new UserLessonProgress(userId, lesson));
-
+  /** Records the attempt on the learner's progress row and returns the rise in best score. */
+  private int updateProgress(
+      UserLessonProgress progress, LessonStep lastLessonStep, int score, boolean passed) {
+    int previousBest = progress.getBestScore();
     progress.setAttemptCount(progress.getAttemptCount() + 1);
-    progress.setBestScore(Math.max(progress.getBestScore(), score));
+    progress.setBestScore(Math.max(previousBest, score));
     progress.setLastAttemptAt(Instant.now());
     if (lastLessonStep != null) {
       progress.setLastStep(lastLessonStep);
@@ -583,6 +624,8 @@ public class LessonAttemptService {
     }
 
     userLessonProgressRepository.save(progress);
+    // the row is locked, so racing attempts each credit only what they add over the latest best
+    return Math.max(0, score - previousBest);
   }
 
   private Lesson requireApprovedLesson(Long lessonId) {
@@ -608,43 +651,62 @@ public class LessonAttemptService {
         progress.getLastStep() == null ? null : progress.getLastStep().getId());
   }
 
-  private void updateLessonVocabMemory(UUID userId, Long lessonId, boolean passed) {
-    Instant now = Instant.now();
-    Set<Long> vocabIds = new HashSet<>();
-    for (LessonStep step : lessonStepRepository.findByLessonIdOrderByOrderIndexAsc(lessonId)) {
-      if (step.getStepType() == StepType.TEACH && step.getVocabItem() != null) {
-        vocabIds.add(step.getVocabItem().getId());
-      }
+  private void updateLessonVocabMemory(
+      UUID userId, Collection<VocabItem> taughtVocab, boolean passed) {
+    List<VocabMemoryAnswerInput> answers =
+        taughtVocab.stream()
+            .map(vocabItem -> new VocabMemoryAnswerInput(vocabItem.getId(), passed))
+            .toList();
+    applyVocabMemoryAnswers(userId, answers, Instant.now());
+  }
+
+  /**
+   * Reads the current state of every card touched by the answers in one query, replays the answers
+   * in order in memory and writes the results back with a single batched upsert.
+   */
+  private void applyVocabMemoryAnswers(
+      UUID userId, List<VocabMemoryAnswerInput> answers, Instant now) {
+    if (answers.isEmpty()) {
+      return;
+    }
+    Set<Long> vocabItemIds = new HashSet<>();
+    for (VocabMemoryAnswerInput answer : answers) {
+      vocabItemIds.add(answer.vocabItemId());
     }
 
-    for (Long vocabId : vocabIds) {
-      VocabItem vocabItem =
-          vocabItemRepository
-              .findById(vocabId)
-              .orElseThrow(
-                  () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "vocab item not found"));
-      UserVocabMemory memory =
-          userVocabMemoryRepository
-              .findByUserIdAndVocabItemId(userId, vocabId)
-              .orElseGet(() -> new UserVocabMemory(userId, vocabItem, now));
-      updateMemory(memory, passed, now);
-      userVocabMemoryRepository.save(memory);
+    Map<Long, VocabMemoryUpsert> memories = new LinkedHashMap<>();
+    for (UserVocabMemoryRepository.VocabMemoryStateView state :
+        userVocabMemoryRepository.findStatesByUserIdAndVocabItemIds(userId, vocabItemIds)) {
+      memories.put(
+          state.getVocabItemId(),
+          new VocabMemoryUpsert(
+              state.getVocabItemId(),
+              state.getStrength(),
+              state.getCorrectStreak(),
+              state.getLastSeenAt(),
+              state.getNextDueAt()));
+    }
+    for (VocabMemoryAnswerInput answer : answers) {
+      Long vocabItemId = answer.vocabItemId();
+      VocabMemoryUpsert previous = memories.get(vocabItemId);
+      memories.put(vocabItemId, nextMemoryState(vocabItemId, previous, answer.correct(), now));
     }
+
+    userVocabMemoryRepository.upsertAll(userId, memories.values(), now);
   }
 
-  private void updateMemory(UserVocabMemory memory, boolean correct, Instant now) {
+  private VocabMemoryUpsert nextMemoryState(
+      Long vocabItemId, VocabMemoryUpsert previous, boolean correct, Instant now) {
+    int strength = previous == null ? 0 : previous.strength();
+    int correctStreak = previous == null ? 0 : previous.correctStreak();
     if (correct) {
-      int nextStrength = Math.min(10, memory.getStrength() + 1);
-      memory.setStrength(nextStrength);
-      memory.setCorrectStreak(memory.getCorrectStreak() + 1);
+      int nextStrength = Math.min(10, strength + 1);
       int intervalDays = Math.min(60, (int) Math.pow(2, Math.max(0, nextStrength - 1)));
-      memory.setNextDueAt(now.plus(intervalDays, ChronoUnit.DAYS));
-    } else {
-      memory.setStrength(Math.max(0, memory.getStrength() - 2));
-      memory.setCorrectStreak(0);
-      memory.setNextDueAt(now.plus(1, ChronoUnit.DAYS));
+      Instant nextDueAt = now.plus(intervalDays, ChronoUnit.DAYS);
+      return new VocabMemoryUpsert(vocabItemId, nextStrength, correctStreak + 1, now, nextDueAt);
     }
-    memory.setLastSeenAt(now);
+    return new VocabMemoryUpsert(
+        vocabItemId, Math.max(0, strength - 2), 0, now, now.plus(1, ChronoUnit.DAYS));
   }
 
   private LessonStepPayloadService.Evaluation evaluateAnswer(LessonStep step, AnswerInput input) {
@@ -683,6 +745,9 @@ public class LessonAttemptService {
 
   public record AnswerInput(Long stepId, JsonNode answer) {}
 
+  private record GradedAnswer(
+      LessonStep step, JsonNode submittedAnswer, LessonStepPayloadService.Evaluation evaluation) {}
+
   public record ResultItem(
       Long stepId,
       boolean correct,
@@ -711,6 +776,8 @@ public class LessonAttemptService {
 
   public record ReviseQueueResponse(List<ReviseQueueItem> items, int dueCount) {}
 
+  public record DueSummary(int reviseDue, int vocabDue) {}
+
   public record ReviseAttemptResult(
       int score, int totalQuestions, int correctCount, List<ResultItem> results, int dueCount) {}
 
@@ -723,51 +790,4 @@ public class LessonAttemptService {
       Instant nextDueAt) {}
 
   public record VocabMemoryAnswerInput(Long vocabItemId, boolean correct) {}
-
-  private static final class ReviewState {
-    private int strength;
-    private int correctStreak;
-    private int timesWrong;
-    private Instant lastSeenAt;
-    private Instant nextDueAt;
-    private boolean seen;
-
-    private void recordResult(boolean correct, Instant seenAt) {
-      seen = true;
-      lastSeenAt = seenAt;
-      if (correct) {
-        strength = Math.min(10, strength + 1);
-        correctStreak++;
-        int intervalDays = Math.min(60, (int) Math.pow(2, Math.max(0, strength - 1)));
-        nextDueAt = seenAt.plus(intervalDays, ChronoUnit.DAYS);
-        return;
-      }
-
-      strength = Math.max(0, strength - 2);
-      correctStreak = 0;
-      timesWrong++;
-      nextDueAt = seenAt.plus(4, ChronoUnit.HOURS);
-    }
-
-    private boolean isDue(Instant now) {
-      return seen && nextDueAt != null && !nextDueAt.isAfter(now);
-    }
-
-    private boolean isWeak() {
-      return timesWrong > 0 || strength <= 2;
-    }
-
-    private String priorityReason(Instant now) {
-      if (timesWrong > 0 && (correctStreak == 0 || isDue(now))) {
-        return "recent_mistake";
-      }
-      if (isDue(now)) {
-        return "due";
-      }
-      if (isWeak()) {
-        return "weak";
-      }
-      return "review";
-    }
-  }
 }
@@ -32,18 +32,24 @@ public class LessonService {
   private final LessonStepRepository lessonStepRepository;
   private final VocabItemRepository vocabItemRepository;
   private final LessonStepPayloadService lessonStepPayloadService;
+  private final ApprovedQuestionCatalog approvedQuestionCatalog;
+  private final LessonAttemptService lessonAttemptService;
 
   public LessonService(
       UnitRepository unitRepository,
       LessonRepository lessonRepository,
       LessonStepRepository lessonStepRepository,
       VocabItemRepository vocabItemRepository,
-      LessonStepPayloadService lessonStepPayloadService) {
+      LessonStepPayloadService lessonStepPayloadService,
+      ApprovedQuestionCatalog approvedQuestionCatalog,
+      LessonAttemptService lessonAttemptService) {
     this.unitRepository = unitRepository;
     this.lessonRepository = lessonRepository;
     this.lessonStepRepository = lessonStepRepository;
     this.vocabItemRepository = vocabItemRepository;
     this.lessonStepPayloadService = lessonStepPayloadService;
+    this.approvedQuestionCatalog = approvedQuestionCatalog;
+    this.lessonAttemptService = lessonAttemptService;
   }
 
   public List<Unit> listUnits() {
@@ -192,6 +198,7 @@ public class LessonService {
         String title = sanitize(input.title());
         lesson.setTitle(title);
         lesson.setSlug(slugify(title));
+        invalidateCatalogIfApproved(lesson);
       }
       if (input.description() != null) {
         lesson.setDescription(sanitize(input.description()));
@@ -303,6 +310,7 @@ public class LessonService {
 
     LessonStep saved = lessonStepRepository.saveAndFlush(step);
     reorderStep(saved, lessonId, orderIndex);
+    invalidateCatalogIfApproved(lesson);
     return saved;
   }
 
@@ -318,6 +326,8 @@ public class LessonService {
 
     step.setStepType(input.stepType());
     applyStepPayload(step, input);
+    lessonStepPayloadService.evictCompiledQuestion(step.getId());
+    invalidateCatalogIfApproved(lesson);
 
     reorderStep(step, lessonId, input.orderIndex());
     return step;
@@ -333,12 +343,15 @@ public class LessonService {
             .orElseThrow(
                 () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "lesson step not found"));
     lessonStepRepository.delete(step);
+    lessonStepPayloadService.evictCompiledQuestion(stepId);
+    invalidateCatalogIfApproved(lesson);
     normalizeStepOrder(lessonId);
 
     // If no steps remain for this lesson, remove the empty lesson as well (owner/admin only)
     List<LessonStep> remaining = lessonStepRepository.findByLessonIdOrderByOrderIndexAsc(lessonId);
     if (remaining == null || remaining.isEmpty()) {
       // requireOwnerOrAdmin already checked via ensureCanEditSteps, so safe to delete
+      lessonAttemptService.revokeLessonPoints(lessonId);
       lessonRepository.delete(lesson);
     }
   }
@@ -352,8 +365,12 @@ public class LessonService {
         lessonStepRepository.findByLessonIdOrderByOrderIndexAsc(lesson.getId());
     for (LessonStep s : steps) {
       lessonStepRepository.delete(s);
+      lessonStepPayloadService.evictCompiledQuestion(s.getId());
     }
+    invalidateCatalogIfApproved(lesson);
 
+    // progress and attempts are cascade-deleted with the lesson, so its points go first
+    lessonAttemptService.revokeLessonPoints(lesson.getId());
     lessonRepository.delete(lesson);
   }
 
@@ -389,6 +406,7 @@ public class LessonService {
       lesson.setReviewComment(isBlank(reviewComment) ? null : reviewComment.trim());
       if (targetStatus == LessonStatus.APPROVED) {
         lesson.setPublishedAt(Instant.now());
+        approvedQuestionCatalog.invalidate();
       }
       return;
     }
@@ -404,6 +422,12 @@ public class LessonService {
         HttpStatus.BAD_REQUEST, "invalid status transition: " + current + " -> " + targetStatus);
   }
 
+  private void invalidateCatalogIfApproved(Lesson lesson) {
+    if (lesson.getStatus() == LessonStatus.APPROVED) {
+      approvedQuestionCatalog.invalidate();
+    }
+  }
+
   private void applyStepPayload(LessonStep step, StepWriteInput input) {
     switch (input.stepType()) {
       case TEACH -> {
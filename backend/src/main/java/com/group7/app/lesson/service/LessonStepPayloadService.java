@@ -7,12 +7,15 @@ import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.group7.app.lesson.model.LessonStep;
 import com.group7.app.lesson.model.QuestionType;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
@@ -22,7 +25,16 @@ public class LessonStepPayloadService {
 
   private static final JsonNodeFactory JSON = JsonNodeFactory.instance;
 
+  private static final int COMPILED_QUESTION_CACHE_LIMIT = 10_000;
+
   private final ObjectMapper objectMapper;
+  private final Map<Long, CompiledQuestion> compiledQuestions =
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CompiledQuestion> eldest) {
+          return size() > COMPILED_QUESTION_CACHE_LIMIT;
+        }
+      };
 
   public LessonStepPayloadService(ObjectMapper objectMapper) {
     this.objectMapper = objectMapper;
@@ -176,6 +188,44 @@ public class LessonStepPayloadService {
   }
 
   public Evaluation evaluate(LessonStep step, JsonNode submitted) {
+    return compile(step).evaluate(submitted);
+  }
+
+  /**
+   * Returns the compiled grader for a question step, reusing the cached one while the step's
+   * {@code updatedAt} is unchanged. Unsaved steps are compiled on every call.
+   */
+  public CompiledQuestion compile(LessonStep step) {
+    Long stepId = step.getId();
+    Instant updatedAt = step.getUpdatedAt();
+    if (stepId == null || updatedAt == null) {
+      return compileQuestion(step);
+    }
+
+    CompiledQuestion cached;
+    synchronized (compiledQuestions) {
+      cached = compiledQuestions.get(stepId);
+    }
+    if (cached != null && updatedAt.equals(cached.updatedAt())) {
+      return cached;
+    }
+
+    CompiledQuestion compiled = compileQuestion(step);
+    synchronized (compiledQuestions) {
+      compiledQuestions.put(stepId, compiled);
+    }
+    return compiled;
+  }
+
+  public void evictCompiledQuestion(Long stepId) {
+    if (stepId != null) {
+      synchronized (compiledQuestions) {
+        compiledQuestions.remove(stepId);
+      }
+    }
+  }
+
+  private CompiledQuestion compileQuestion(LessonStep step) {
     QuestionContent question = readQuestion(step);
 
     if (question.questionType() == QuestionType.MCQ) {
@@ -188,44 +238,40 @@ public class LessonStepPayloadService {
                   () ->
                       new ResponseStatusException(
                           HttpStatus.BAD_REQUEST, "question has no answer key"));
-      String submittedText = extractStringAnswer(submitted);
-      boolean correct = normalize(submittedText).equals(normalize(correctChoice.text()));
       ObjectNode evaluatedAnswer = JSON.objectNode();
       evaluatedAnswer.put("choiceId", correctChoice.id());
       evaluatedAnswer.put("text", correctChoice.text());
-      return new Evaluation(correct, evaluatedAnswer, correctChoice.text(), question.explanation());
+      return CompiledQuestion.of(
+          step,
+          question,
+          Set.of(normalize(correctChoice.text())),
+          Map.of(),
+          evaluatedAnswer,
+          correctChoice.text());
     }
 
     if (question.questionType() == QuestionType.SHORT_ANSWER) {
-      String submittedText = normalize(extractStringAnswer(submitted));
-      boolean correct =
-          question.acceptedAnswers().stream()
-              .anyMatch(answer -> normalize(answer).equals(submittedText));
-      String expected =
-          question.acceptedAnswers().isEmpty() ? "" : question.acceptedAnswers().getFirst();
+      Set<String> accepted = new HashSet<>();
       ObjectNode evaluatedAnswer = JSON.objectNode();
       ArrayNode answers = evaluatedAnswer.putArray("acceptedAnswers");
       for (String answer : question.acceptedAnswers()) {
+        accepted.add(normalize(answer));
         answers.add(answer);
       }
-      return new Evaluation(correct, evaluatedAnswer, expected, question.explanation());
+      String expected =
+          question.acceptedAnswers().isEmpty() ? "" : question.acceptedAnswers().getFirst();
+      return CompiledQuestion.of(step, question, accepted, Map.of(), evaluatedAnswer, expected);
     }
 
     if (question.questionType() == QuestionType.MATCH) {
       Map<String, String> expectedMap = new LinkedHashMap<>();
-      for (MatchPairOption pair : question.matchPairs()) {
-        if (pair.right() != null) {
-          expectedMap.put(normalize(pair.left()), normalize(pair.right()));
-        }
-      }
-      Map<String, String> submittedMap = parseMatchAnswer(submitted);
-      boolean correct = expectedMap.equals(submittedMap);
       ArrayNode pairs = JSON.arrayNode();
       for (MatchPairOption pair : question.matchPairs()) {
         ObjectNode node = pairs.addObject();
         node.put("left", pair.left());
         if (pair.right() != null) {
           node.put("right", pair.right());
+          expectedMap.put(normalize(pair.left()), normalize(pair.right()));
         }
       }
       ObjectNode evaluatedAnswer = JSON.objectNode();
@@ -235,7 +281,7 @@ public class LessonStepPayloadService {
               .map(pair -> pair.left() + " = " + pair.right())
               .reduce((left, right) -> left + "; " + right)
               .orElse("");
-      return new Evaluation(correct, evaluatedAnswer, expected, question.explanation());
+      return CompiledQuestion.of(step, question, Set.of(), expectedMap, evaluatedAnswer, expected);
     }
 
     throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "unsupported question type");
@@ -347,4 +393,51 @@ public class LessonStepPayloadService {
 
   public record Evaluation(
       boolean correct, JsonNode evaluatedAnswer, String correctAnswerText, String explanation) {}
+
+  /**
+   * Immutable grader for one question step. Accepted answers and match pairs are normalized once
+   * at compile time, so grading is a set or map lookup. Each {@link Evaluation} gets its own copy
+   * of the compiled answer node, since callers may write it into their response.
+   */
+  public record CompiledQuestion(
+      Long stepId,
+      Instant updatedAt,
+      QuestionType questionType,
+      Set<String> acceptedAnswers,
+      Map<String, String> expectedMatches,
+      JsonNode evaluatedAnswer,
+      String correctAnswerText,
+      String explanation) {
+
+    private static CompiledQuestion of(
+        LessonStep step,
+        QuestionContent question,
+        Set<String> acceptedAnswers,
+        Map<String, String> expectedMatches,
+        JsonNode evaluatedAnswer,
+        String correctAnswerText) {
+      return new CompiledQuestion(
+          step.getId(),
+          step.getUpdatedAt(),
+          question.questionType(),
+          Set.copyOf(acceptedAnswers),
+          Map.copyOf(expectedMatches),
+          evaluatedAnswer,
+          correctAnswerText,
+          question.explanation());
+    }
+
+    @Override
+    public JsonNode evaluatedAnswer() {
+      return evaluatedAnswer.deepCopy();
+    }
+
+    public Evaluation evaluate(JsonNode submitted) {
+      boolean correct =
+          questionType == QuestionType.MATCH
+              ? expectedMatches.equals(parseMatchAnswer(submitted))
+              : acceptedAnswers.contains(normalize(extractStringAnswer(submitted)));
+      return new Evaluation(correct, evaluatedAnswer(), correctAnswerText, explanation);
+    }
+  }
 }
@@ -0,0 +1,152 @@
+package com.group7.app.lesson.service;
+
+import com.group7.app.lesson.model.LessonAttemptResult;
+import com.group7.app.lesson.model.UserStepEvent;
+import com.group7.app.lesson.repository.LessonAttemptRepository;
+import com.group7.app.lesson.repository.LessonAttemptResultRepository;
+import com.group7.app.lesson.repository.StepReviewUpsert;
+import com.group7.app.lesson.repository.UserStepEventRepository;
+import com.group7.app.lesson.repository.UserStepReviewStateRepository;
+import jakarta.transaction.Transactional;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.springframework.stereotype.Service;
+
+/**
+ * Maintains {@code user_step_review_state}, the per-learner spaced-repetition state behind the
+ * revise queue. Graded answers are folded in as they are submitted; {@link #rebuildForUser}
+ * replays a learner's full history for the one-off backfill.
+ */
+@Service
+@Transactional
+public class ReviewStateService {
+
+  private final UserStepReviewStateRepository userStepReviewStateRepository;
+  private final LessonAttemptRepository lessonAttemptRepository;
+  private final LessonAttemptResultRepository lessonAttemptResultRepository;
+  private final UserStepEventRepository userStepEventRepository;
+
+  public ReviewStateService(
+      UserStepReviewStateRepository userStepReviewStateRepository,
+      LessonAttemptRepository lessonAttemptRepository,
+      LessonAttemptResultRepository lessonAttemptResultRepository,
+      UserStepEventRepository userStepEventRepository) {
+    this.userStepReviewStateRepository = userStepReviewStateRepository;
+    this.lessonAttemptRepository = lessonAttemptRepository;
+    this.lessonAttemptResultRepository = lessonAttemptResultRepository;
+    this.userStepEventRepository = userStepEventRepository;
+  }
+
+  /**
+   * Applies graded answers, in order, on top of the learner's stored review state. Callers hold
+   * the learner's {@code users} row lock, so two submits never advance the same state from the
+   * same read.
+   */
+  public void recordOutcomes(UUID userId, List<StepOutcome> outcomes) {
+    if (outcomes.isEmpty()) {
+      return;
+    }
+    Set<Long> stepIds = new HashSet<>();
+    for (StepOutcome outcome : outcomes) {
+      stepIds.add(outcome.lessonStepId());
+    }
+
+    Map<Long, StepReviewUpsert> states = new LinkedHashMap<>();
+    for (UserStepReviewStateRepository.ReviewStateView state :
+        userStepReviewStateRepository.findStatesByUserIdAndLessonStepIds(userId, stepIds)) {
+      states.put(
+          state.getLessonStepId(),
+          new StepReviewUpsert(
+              state.getLessonStepId(),
+              state.getStrength(),
+              state.getCorrectStreak(),
+              state.getTimesWrong(),
+              state.getLastSeenAt(),
+              state.getNextDueAt()));
+    }
+    applyOutcomes(states, outcomes);
+    userStepReviewStateRepository.upsertAll(userId, states.values(), Instant.now());
+  }
+
+  /**
+   * Recomputes the learner's review state from every lesson attempt result and revise answer they
+   * have submitted, in chronological order. Returns the number of steps written.
+   */
+  public int rebuildForUser(UUID userId) {
+    List<StepOutcome> history = new ArrayList<>();
+    for (LessonAttemptResult result :
+        lessonAttemptResultRepository.findByAttemptUserIdOrderByCreatedAtAsc(userId)) {
+      history.add(
+          new StepOutcome(
+              result.getLessonStep().getId(), result.isCorrect(), result.getCreatedAt()));
+    }
+    for (UserStepEvent event :
+        userStepEventRepository.findByUserIdAndEventTypeOrderByCreatedAtAsc(
+            userId, LessonAttemptService.REVISE_EVENT_TYPE)) {
+      history.add(
+          new StepOutcome(
+              event.getLessonStep().getId(),
+              event.getPayload().path("correct").asBoolean(false),
+              event.getCreatedAt()));
+    }
+    // stable sort, so an attempt result and a revise answer with the same timestamp keep that order
+    history.sort(Comparator.comparing(StepOutcome::answeredAt));
+
+    Map<Long, StepReviewUpsert> states = new LinkedHashMap<>();
+    applyOutcomes(states, history);
+    userStepReviewStateRepository.upsertAll(userId, states.values(), Instant.now());
+    return states.size();
+  }
+
+  public List<UUID> findUsersWithAnswerHistory() {
+    Set<UUID> userIds = new LinkedHashSet<>(lessonAttemptRepository.findDistinctUserIds());
+    userIds.addAll(
+        userStepEventRepository.findDistinctUserIdsByEventType(
+            LessonAttemptService.REVISE_EVENT_TYPE));
+    return new ArrayList<>(userIds);
+  }
+
+  private void applyOutcomes(Map<Long, StepReviewUpsert> states, List<StepOutcome> outcomes) {
+    for (StepOutcome outcome : outcomes) {
+      Long stepId = outcome.lessonStepId();
+      StepReviewUpsert previous = states.get(stepId);
+      states.put(stepId, nextState(stepId, previous, outcome.correct(), outcome.answeredAt()));
+    }
+  }
+
+  static StepReviewUpsert nextState(
+      Long lessonStepId, StepReviewUpsert previous, boolean correct, Instant seenAt) {
+    int strength = previous == null ? 0 : previous.strength();
+    int correctStreak = previous == null ? 0 : previous.correctStreak();
+    int timesWrong = previous == null ? 0 : previous.timesWrong();
+    if (correct) {
+      int nextStrength = Math.min(10, strength + 1);
+      int intervalDays = Math.min(60, (int) Math.pow(2, Math.max(0, nextStrength - 1)));
+      return new StepReviewUpsert(
+          lessonStepId,
+          nextStrength,
+          correctStreak + 1,
+          timesWrong,
+          seenAt,
+          seenAt.plus(intervalDays, ChronoUnit.DAYS));
+    }
+    return new StepReviewUpsert(
+        lessonStepId,
+        Math.max(0, strength - 2),
+        0,
+        timesWrong + 1,
+        seenAt,
+        seenAt.plus(4, ChronoUnit.HOURS));
+  }
+
+  public record StepOutcome(Long lessonStepId, boolean correct, Instant answeredAt) {}
+}
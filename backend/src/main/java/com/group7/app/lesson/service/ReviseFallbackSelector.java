@@ -0,0 +1,85 @@
+package com.group7.app.lesson.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+/**
+ * Streaming top-k selection of revise-queue fallback steps. Steps from lessons the learner has
+ * started come first, then every other approved step; inside each bucket the order is a stable
+ * per-learner shuffle, then lesson title, then step id.
+ *
+ * <p>Each bucket keeps at most {@code limit} candidates in a bounded max-heap, so selecting from n
+ * steps costs O(n log limit) and a step that cannot make the cut is rejected on its precomputed
+ * shuffle key without allocating anything.
+ */
+final class ReviseFallbackSelector<T> {
+
+  private static final Comparator<Candidate<?>> ORDER =
+      Comparator.<Candidate<?>>comparingInt(Candidate::shuffleKey)
+          .thenComparing(Candidate::lessonTitle)
+          .thenComparingLong(Candidate::stepId);
+
+  private final int userHash;
+  private final int limit;
+  private final PriorityQueue<Candidate<T>> startedLessonSteps;
+  private final PriorityQueue<Candidate<T>> otherSteps;
+
+  ReviseFallbackSelector(UUID userId, int limit) {
+    this.userHash = userId.hashCode();
+    this.limit = limit;
+    // heads are the worst kept candidate, so they are the ones a better step evicts
+    this.startedLessonSteps = new PriorityQueue<>(limit + 1, ORDER.reversed());
+    this.otherSteps = new PriorityQueue<>(limit + 1, ORDER.reversed());
+  }
+
+  void offer(long stepId, String lessonTitle, boolean startedLesson, T item) {
+    if (limit <= 0) {
+      return;
+    }
+    PriorityQueue<Candidate<T>> bucket = startedLesson ? startedLessonSteps : otherSteps;
+    int shuffleKey = shuffleKey(stepId);
+    if (bucket.size() >= limit) {
+      Candidate<T> worst = bucket.peek();
+      if (shuffleKey > worst.shuffleKey()) {
+        return;
+      }
+      Candidate<T> candidate = new Candidate<>(shuffleKey, lessonTitle, stepId, item);
+      if (ORDER.compare(candidate, worst) >= 0) {
+        return;
+      }
+      bucket.poll();
+      bucket.add(candidate);
+      return;
+    }
+    bucket.add(new Candidate<>(shuffleKey, lessonTitle, stepId, item));
+  }
+
+  /** The selected items in queue order, at most {@code limit} of them. */
+  List<T> selected() {
+    List<T> selected = new ArrayList<>(limit);
+    appendSorted(selected, startedLessonSteps);
+    appendSorted(selected, otherSteps);
+    return selected;
+  }
+
+  private void appendSorted(List<T> selected, PriorityQueue<Candidate<T>> bucket) {
+    List<Candidate<T>> candidates = new ArrayList<>(bucket);
+    candidates.sort(ORDER);
+    for (Candidate<T> candidate : candidates) {
+      if (selected.size() >= limit) {
+        return;
+      }
+      selected.add(candidate.item());
+    }
+  }
+
+  // same value as Math.abs(Objects.hash(userId, stepId)), without the varargs array and boxing
+  private int shuffleKey(long stepId) {
+    return Math.abs(31 * (31 + userHash) + Long.hashCode(stepId));
+  }
+
+  private record Candidate<T>(int shuffleKey, String lessonTitle, long stepId, T item) {}
+}
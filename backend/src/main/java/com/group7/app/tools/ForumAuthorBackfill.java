@@ -0,0 +1,45 @@
+package com.group7.app.tools;
+
+import com.group7.app.forum.service.ForumAuthorBackfillService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * One-off job that sets {@code author_id} on legacy {@code questions} and {@code answers} rows
+ * from the stored display name. Enable it for a single startup with {@code
+ * FORUM_AUTHOR_BACKFILL=true}; rows are updated in small batches, each in its own transaction, and
+ * rerunning it only picks up what is still missing.
+ */
+@Component
+@ConditionalOnProperty(name = "forum.author-backfill", havingValue = "true")
+public class ForumAuthorBackfill implements ApplicationRunner {
+
+  private static final int BATCH_SIZE = 500;
+
+  private static final Logger log = LoggerFactory.getLogger(ForumAuthorBackfill.class);
+  private final ForumAuthorBackfillService backfillService;
+
+  public ForumAuthorBackfill(ForumAuthorBackfillService backfillService) {
+    this.backfillService = backfillService;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    int questions = 0;
+    int batch;
+    do {
+      batch = backfillService.backfillQuestions(BATCH_SIZE);
+      questions += batch;
+    } while (batch > 0);
+    int answers = 0;
+    do {
+      batch = backfillService.backfillAnswers(BATCH_SIZE);
+      answers += batch;
+    } while (batch > 0);
+    log.info("Forum author backfill linked {} questions and {} answers", questions, answers);
+  }
+}
@@ -0,0 +1,40 @@
+package com.group7.app.tools;
+
+import com.group7.app.lesson.service.LearningStatsService;
+import java.util.List;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recomputes {@code user_daily_stats} and {@code user_unit_stats} from {@code lesson_attempts}.
+ * Enable it for a single startup with {@code LESSON_LEARNING_STATS_REBUILD=true} after the rollups
+ * drift, e.g. when attempts were edited by hand; every learner is rebuilt in their own
+ * transaction, so rerunning it is safe.
+ */
+@Component
+@ConditionalOnProperty(name = "lesson.learning-stats.rebuild", havingValue = "true")
+public class LearningStatsRebuild implements ApplicationRunner {
+
+  private static final Logger log = LoggerFactory.getLogger(LearningStatsRebuild.class);
+  private final LearningStatsService learningStatsService;
+
+  public LearningStatsRebuild(LearningStatsService learningStatsService) {
+    this.learningStatsService = learningStatsService;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    List<UUID> userIds = learningStatsService.findUsersToRebuild();
+    log.info("Rebuilding learning stats for {} learners", userIds.size());
+    int days = 0;
+    for (UUID userId : userIds) {
+      days += learningStatsService.rebuildForUser(userId);
+    }
+    log.info("Learning stats rebuild wrote {} daily rows", days);
+  }
+}
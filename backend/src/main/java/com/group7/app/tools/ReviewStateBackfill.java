@@ -0,0 +1,39 @@
+package com.group7.app.tools;
+
+import com.group7.app.lesson.service.ReviewStateService;
+import java.util.List;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * One-off job that fills {@code user_step_review_state} from existing attempt results and revise
+ * answers. Enable it for a single startup with {@code LESSON_REVIEW_STATE_BACKFILL=true}; every
+ * learner is rebuilt in their own transaction, so rerunning it is safe.
+ */
+@Component
+@ConditionalOnProperty(name = "lesson.review-state.backfill", havingValue = "true")
+public class ReviewStateBackfill implements ApplicationRunner {
+
+  private static final Logger log = LoggerFactory.getLogger(ReviewStateBackfill.class);
+  private final ReviewStateService reviewStateService;
+
+  public ReviewStateBackfill(ReviewStateService reviewStateService) {
+    this.reviewStateService = reviewStateService;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    List<UUID> userIds = reviewStateService.findUsersWithAnswerHistory();
+    log.info("Rebuilding review state for {} learners", userIds.size());
+    int steps = 0;
+    for (UUID userId : userIds) {
+      steps += reviewStateService.rebuildForUser(userId);
+    }
+    log.info("Review state backfill wrote {} step rows", steps);
+  }
+}
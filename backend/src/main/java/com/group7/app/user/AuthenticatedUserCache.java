@@ -0,0 +1,90 @@
+package com.group7.app.user;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Short-lived cache of the {@link User} behind a token subject, so authenticating a request does
+ * not read {@code users} every time. Role and profile edits in {@link UserService} and counter
+ * updates from lesson attempts evict the entry after commit; the TTL bounds anything else. Cached
+ * users are detached and shared between requests, so callers must treat them as read-only and
+ * reload before writing. A loader reads {@link #generation()} before going to the database and
+ * hands it to {@link #put}, so a row read before an invalidation that has since run is not cached.
+ */
+@Component
+public class AuthenticatedUserCache {
+
+  private final int maxSize;
+  private final long ttlNanos;
+  private final Map<UUID, CachedUser> entries;
+  private long generation;
+
+  public AuthenticatedUserCache(
+      @Value("${user.auth-cache.max-size:10000}") int maxSize,
+      @Value("${user.auth-cache.ttl:PT30S}") Duration ttl) {
+    this.maxSize = maxSize;
+    this.ttlNanos = ttl.toNanos();
+    // access order, so the eldest entry is the least recently used one
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<UUID, CachedUser> eldest) {
+            return size() > AuthenticatedUserCache.this.maxSize;
+          }
+        };
+  }
+
+  /** The cached user, or {@code null} when absent or expired. */
+  public synchronized User get(UUID userId) {
+    CachedUser entry = entries.get(userId);
+    if (entry == null) {
+      return null;
+    }
+    if (System.nanoTime() - entry.expiresAt() >= 0) {
+      entries.remove(userId);
+      return null;
+    }
+    return entry.user();
+  }
+
+  /** Bumped by every invalidation; read it before loading the user to {@link #put}. */
+  public synchronized long generation() {
+    return generation;
+  }
+
+  /** Caches {@code user} unless an invalidation ran since {@code loadedAt} was read. */
+  public synchronized void put(User user, long loadedAt) {
+    if (generation != loadedAt) {
+      return;
+    }
+    entries.put(user.getId(), new CachedUser(user, System.nanoTime() + ttlNanos));
+  }
+
+  /** Drops the user's entry; inside a transaction this waits for the commit. */
+  public void invalidate(UUID userId) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              evict(userId);
+            }
+          });
+      return;
+    }
+    evict(userId);
+  }
+
+  private synchronized void evict(UUID userId) {
+    generation++;
+    entries.remove(userId);
+  }
+
+  private record CachedUser(User user, long expiresAt) {}
+}
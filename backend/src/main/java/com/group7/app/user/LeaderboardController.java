@@ -3,26 +3,34 @@ package com.group7.app.user;
 import com.group7.app.lesson.service.AuthContextService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.List;
 import java.util.UUID;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 @RestController
 @RequestMapping("/api/leaderboard")
 @Tag(name = "Leaderboard", description = "Global user rankings and scores")
 public class LeaderboardController {
 
+  private final LeaderboardIndex leaderboardIndex;
   private final LeaderboardRepository leaderboardRepository;
   private final AuthContextService authContextService;
 
   public LeaderboardController(
-      LeaderboardRepository leaderboardRepository, AuthContextService authContextService) {
+      LeaderboardIndex leaderboardIndex,
+      LeaderboardRepository leaderboardRepository,
+      AuthContextService authContextService) {
+    this.leaderboardIndex = leaderboardIndex;
     this.leaderboardRepository = leaderboardRepository;
     this.authContextService = authContextService;
   }
@@ -31,46 +39,111 @@ public class LeaderboardController {
   @Operation(summary = "Get global leaderboard")
   public List<LeaderboardEntry> getLeaderboard(
       @RequestParam(defaultValue = "10") int limit,
-      @RequestParam(defaultValue = "points") String sortBy) {
+      @RequestParam(defaultValue = "points") String sortBy,
+      @RequestParam(defaultValue = "all") String window,
+      @RequestParam(required = false) String after) {
     int safeLimit = Math.max(1, Math.min(limit, 100));
-    String safeSortBy =
-        List.of("points", "streak", "speed").contains(sortBy.toLowerCase())
-            ? sortBy.toLowerCase()
-            : "points";
-    return leaderboardRepository.getTopPlayers(safeSortBy, PageRequest.of(0, safeLimit));
+    LeaderboardWindow safeWindow = LeaderboardWindow.fromKey(window);
+    LeaderboardIndex.Sort sort = LeaderboardIndex.Sort.fromKey(sortBy);
+    if (after != null) {
+      if (safeWindow != LeaderboardWindow.ALL || sort != LeaderboardIndex.Sort.POINTS) {
+        throw new ResponseStatusException(
+            HttpStatus.BAD_REQUEST, "after is only supported on the all-time points leaderboard");
+      }
+      PointsCursor cursor = PointsCursor.parse(after);
+      return leaderboardIndex.pointsAfter(cursor.totalScore(), cursor.userId(), safeLimit);
+    }
+    if (safeWindow != LeaderboardWindow.ALL) {
+      // windowed boards rank by points earned inside the window only
+      return leaderboardRepository.findWindowPlayers(
+          firstBucket(safeWindow), PageRequest.of(0, safeLimit));
+    }
+    return leaderboardIndex.top(sort, safeLimit);
+  }
+
+  @GetMapping("/around-me")
+  @Operation(summary = "Get the leaderboard entries around the current user")
+  public LeaderboardAroundResponse getLeaderboardAroundMe(
+      @AuthenticationPrincipal Jwt jwt,
+      @RequestParam(defaultValue = "5") int radius,
+      @RequestParam(defaultValue = "points") String sortBy) {
+    User user = authContextService.resolveUser(jwt);
+    int safeRadius = Math.max(0, Math.min(radius, 50));
+    LeaderboardIndex.Neighbourhood neighbourhood =
+        leaderboardIndex.around(LeaderboardIndex.Sort.fromKey(sortBy), user.getId(), safeRadius);
+    if (neighbourhood == null) {
+      return new LeaderboardAroundResponse(null, null, List.of(), leaderboardIndex.size());
+    }
+    return new LeaderboardAroundResponse(
+        neighbourhood.rank(),
+        neighbourhood.firstRank(),
+        neighbourhood.entries(),
+        neighbourhood.totalRankedUsers());
   }
 
   @GetMapping("/me")
   @Operation(summary = "Get leaderboard ranks for the current user")
-  public LeaderboardMeResponse getMyLeaderboard(@AuthenticationPrincipal Jwt jwt) {
+  public LeaderboardMeResponse getMyLeaderboard(
+      @AuthenticationPrincipal Jwt jwt, @RequestParam(defaultValue = "all") String window) {
     User user = authContextService.resolveUser(jwt);
-    List<LeaderboardEntry> pointsBoard = leaderboardRepository.getAllPlayers("points");
-    int totalRankedUsers = pointsBoard.size();
+    LeaderboardWindow safeWindow = LeaderboardWindow.fromKey(window);
+    LocalDate firstBucket = safeWindow == LeaderboardWindow.ALL ? null : firstBucket(safeWindow);
+    int totalRankedUsers =
+        firstBucket == null
+            ? leaderboardIndex.size()
+            : (int) leaderboardRepository.countWindowPlayers(firstBucket);
 
     if (user.getRole() != Role.LEARNER) {
       return new LeaderboardMeResponse(null, null, null, null, totalRankedUsers);
     }
 
     UUID userId = user.getId();
+    // streak and speed have no window, so those ranks stay all-time
+    Integer streakRank = leaderboardIndex.rank(LeaderboardIndex.Sort.STREAK, userId);
+    Integer speedRank = leaderboardIndex.rank(LeaderboardIndex.Sort.SPEED, userId);
+    if (firstBucket != null) {
+      // the learner's own sum, then a count of who beats it, rather than reading the whole board
+      LeaderboardEntry entry =
+          leaderboardRepository.findWindowPlayer(firstBucket, userId).orElse(null);
+      Integer pointsRank = null;
+      if (entry != null) {
+        long ahead =
+            leaderboardRepository.countWindowPlayersAhead(firstBucket, entry.totalScore(), userId);
+        pointsRank = (int) ahead + 1;
+      }
+      return new LeaderboardMeResponse(entry, pointsRank, streakRank, speedRank, totalRankedUsers);
+    }
     return new LeaderboardMeResponse(
-        findEntry(pointsBoard, userId),
-        findRank(pointsBoard, userId),
-        findRank(leaderboardRepository.getAllPlayers("streak"), userId),
-        findRank(leaderboardRepository.getAllPlayers("speed"), userId),
+        leaderboardIndex.entry(userId),
+        leaderboardIndex.rank(LeaderboardIndex.Sort.POINTS, userId),
+        streakRank,
+        speedRank,
         totalRankedUsers);
   }
 
-  private static LeaderboardEntry findEntry(List<LeaderboardEntry> board, UUID userId) {
-    return board.stream().filter(entry -> entry.userId().equals(userId)).findFirst().orElse(null);
+  private static LocalDate firstBucket(LeaderboardWindow window) {
+    return window.firstBucket(LocalDate.now(ZoneOffset.UTC));
   }
 
-  private static Integer findRank(List<LeaderboardEntry> board, UUID userId) {
-    for (int i = 0; i < board.size(); i++) {
-      if (board.get(i).userId().equals(userId)) {
-        return i + 1;
+  public record LeaderboardAroundResponse(
+      Integer rank, Integer firstRank, List<LeaderboardEntry> entries, int totalRankedUsers) {}
+
+  // "score,userId" of the last entry the client has already seen
+  private record PointsCursor(long totalScore, UUID userId) {
+
+    static PointsCursor parse(String value) {
+      int comma = value.indexOf(',');
+      if (comma > 0) {
+        try {
+          return new PointsCursor(
+              Long.parseLong(value.substring(0, comma).trim()),
+              UUID.fromString(value.substring(comma + 1).trim()));
+        } catch (IllegalArgumentException ex) {
+          // reported below together with a missing comma
+        }
       }
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "after must be score,userId");
     }
-    return null;
   }
 
   public record LeaderboardMeResponse(
@@ -0,0 +1,246 @@
+package com.group7.app.user;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory learner rankings, one order-statistic tree per sort key. Seeded with one full
+ * leaderboard query at startup and reconciled against the database periodically; in between,
+ * learners whose counters changed are reloaded individually before the next read. Database reads
+ * happen outside the monitor the trees are read under: a reconcile builds fresh trees and swaps
+ * them in, and a refresh loads the changed learners before patching them in.
+ */
+@Component
+public class LeaderboardIndex {
+
+  private static final double UNRANKED_SPEED = 9999999.0;
+
+  private final LeaderboardRepository leaderboardRepository;
+  private final Set<UUID> changedUserIds = ConcurrentHashMap.newKeySet();
+  // one full scan at a time, and one incremental reload at a time so an older load never lands
+  // after a newer one
+  private final Object reconciling = new Object();
+  private final ReentrantLock refreshing = new ReentrantLock();
+  private Map<UUID, LeaderboardEntry> entries = new HashMap<>();
+  private Map<Sort, OrderStatisticTree<LeaderboardEntry>> trees = emptyTrees();
+  private volatile boolean seeded;
+
+  public LeaderboardIndex(LeaderboardRepository leaderboardRepository) {
+    this.leaderboardRepository = leaderboardRepository;
+  }
+
+  /**
+   * Queues a learner for reloading. Inside a transaction this waits for the commit, so the reload
+   * never misses the change that triggered it.
+   */
+  public void markChanged(UUID userId) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              changedUserIds.add(userId);
+            }
+          });
+      return;
+    }
+    changedUserIds.add(userId);
+  }
+
+  public List<LeaderboardEntry> top(Sort sort, int limit) {
+    refresh();
+    synchronized (this) {
+      return trees.get(sort).first(limit);
+    }
+  }
+
+  /**
+   * Keyset page of the points board: the learners ranked strictly after the one with {@code
+   * totalScore} and {@code userId}. The cursor entry does not have to exist any more.
+   */
+  public List<LeaderboardEntry> pointsAfter(long totalScore, UUID userId, int limit) {
+    refresh();
+    LeaderboardEntry cursor =
+        new LeaderboardEntry(userId, null, null, null, totalScore, null, null, null);
+    synchronized (this) {
+      OrderStatisticTree<LeaderboardEntry> tree = trees.get(Sort.POINTS);
+      return tree.range(tree.countAtMost(cursor), limit);
+    }
+  }
+
+  /**
+   * The learner plus up to {@code radius} neighbours on either side, or {@code null} when they are
+   * not ranked.
+   */
+  public Neighbourhood around(Sort sort, UUID userId, int radius) {
+    refresh();
+    synchronized (this) {
+      LeaderboardEntry entry = entries.get(userId);
+      if (entry == null) {
+        return null;
+      }
+      OrderStatisticTree<LeaderboardEntry> tree = trees.get(sort);
+      int position = tree.rank(entry);
+      int from = Math.max(0, position - radius);
+      return new Neighbourhood(
+          position + 1, from + 1, tree.range(from, position - from + radius + 1), entries.size());
+    }
+  }
+
+  /** One-based rank of the learner, or {@code null} when they are not ranked. */
+  public Integer rank(Sort sort, UUID userId) {
+    refresh();
+    synchronized (this) {
+      LeaderboardEntry entry = entries.get(userId);
+      return entry == null ? null : trees.get(sort).rank(entry) + 1;
+    }
+  }
+
+  public LeaderboardEntry entry(UUID userId) {
+    refresh();
+    synchronized (this) {
+      return entries.get(userId);
+    }
+  }
+
+  public int size() {
+    refresh();
+    synchronized (this) {
+      return entries.size();
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void seed() {
+    reconcile();
+  }
+
+  /**
+   * Rebuilds every tree from the database, dropping anything the incremental path missed. Pending
+   * reloads stay queued: one that was loaded before this scan may still be patched in afterwards,
+   * and the learner marked since is what puts it right again.
+   */
+  @Scheduled(
+      fixedDelayString = "${leaderboard.index.reconcile-interval:PT10M}",
+      initialDelayString = "${leaderboard.index.reconcile-interval:PT10M}")
+  public void reconcile() {
+    synchronized (reconciling) {
+      Map<UUID, LeaderboardEntry> freshEntries = new HashMap<>();
+      Map<Sort, OrderStatisticTree<LeaderboardEntry>> freshTrees = emptyTrees();
+      for (LeaderboardEntry entry : leaderboardRepository.findAllPlayers()) {
+        freshEntries.put(entry.userId(), entry);
+        freshTrees.values().forEach(tree -> tree.add(entry));
+      }
+      synchronized (this) {
+        entries = freshEntries;
+        trees = freshTrees;
+      }
+      seeded = true;
+    }
+  }
+
+  private void refresh() {
+    if (!seeded) {
+      synchronized (reconciling) {
+        if (!seeded) {
+          reconcile();
+        }
+      }
+    }
+    if (changedUserIds.isEmpty()) {
+      return;
+    }
+
+    refreshing.lock();
+    try {
+      List<UUID> userIds = new ArrayList<>(changedUserIds);
+      if (userIds.isEmpty()) {
+        return;
+      }
+      changedUserIds.removeAll(userIds);
+      // learners who lost the role or were deleted simply do not come back
+      List<LeaderboardEntry> reloaded = leaderboardRepository.findPlayers(userIds);
+      synchronized (this) {
+        for (UUID userId : userIds) {
+          LeaderboardEntry previous = entries.remove(userId);
+          if (previous != null) {
+            trees.values().forEach(tree -> tree.remove(previous));
+          }
+        }
+        for (LeaderboardEntry entry : reloaded) {
+          entries.put(entry.userId(), entry);
+          trees.values().forEach(tree -> tree.add(entry));
+        }
+      }
+    } finally {
+      refreshing.unlock();
+    }
+  }
+
+  private static Map<Sort, OrderStatisticTree<LeaderboardEntry>> emptyTrees() {
+    Map<Sort, OrderStatisticTree<LeaderboardEntry>> trees = new EnumMap<>(Sort.class);
+    for (Sort sort : Sort.values()) {
+      trees.put(sort, new OrderStatisticTree<>(sort.comparator));
+    }
+    return trees;
+  }
+
+  /** A slice of one board; {@code firstRank} is the one-based rank of the first entry. */
+  public record Neighbourhood(
+      int rank, int firstRank, List<LeaderboardEntry> entries, int totalRankedUsers) {}
+
+  public enum Sort {
+    POINTS(
+        Comparator.comparing(LeaderboardEntry::totalScore, Comparator.reverseOrder())
+            .thenComparing(LeaderboardEntry::userId)),
+    STREAK(
+        Comparator.comparing(
+                LeaderboardEntry::maxCorrectStreak,
+                Comparator.nullsLast(Comparator.<Integer>reverseOrder()))
+            .thenComparing(LeaderboardEntry::totalScore, Comparator.reverseOrder())
+            .thenComparing(LeaderboardEntry::userId)),
+    SPEED(
+        Comparator.comparingDouble(Sort::speedKey)
+            .thenComparing(LeaderboardEntry::totalScore, Comparator.reverseOrder())
+            .thenComparing(LeaderboardEntry::userId));
+
+    private final Comparator<LeaderboardEntry> comparator;
+
+    Sort(Comparator<LeaderboardEntry> comparator) {
+      this.comparator = comparator;
+    }
+
+    public String key() {
+      return name().toLowerCase(Locale.ROOT);
+    }
+
+    /** Parses a {@code sortBy} request parameter, falling back to points. */
+    public static Sort fromKey(String key) {
+      for (Sort sort : values()) {
+        if (sort.key().equalsIgnoreCase(key)) {
+          return sort;
+        }
+      }
+      return POINTS;
+    }
+
+    private static double speedKey(LeaderboardEntry entry) {
+      return entry.avgTimeSeconds() != null ? entry.avgTimeSeconds() : UNRANKED_SPEED;
+    }
+  }
+}
@@ -1,7 +1,11 @@
 package com.group7.app.user;
 
 import com.group7.app.lesson.model.UserLessonProgress;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -11,11 +15,15 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface LeaderboardRepository extends JpaRepository<UserLessonProgress, Long> {
 
+  /**
+   * Leaderboard rows of every learner, in no particular order. Points come from the denormalized
+   * {@code users.total_points}, so this is a scan of users alone.
+   */
   @Query(
       """
       SELECT new com.group7.app.user.LeaderboardEntry(
           u.id, u.displayName, u.avatarColor, u.avatarPath,
-          COALESCE(SUM(p.bestScore), 0L),
+          COALESCE(u.totalPoints, 0L),
           u.completedLessonsCount,
           u.maxCorrectStreak,
           CASE WHEN u.completedLessonsCount > 0
@@ -23,26 +31,16 @@ public interface LeaderboardRepository extends JpaRepository<UserLessonProgress,
                ELSE NULL END
       )
       FROM User u
-      LEFT JOIN UserLessonProgress p ON u.id = p.userId
       WHERE u.role = com.group7.app.user.Role.LEARNER
-      GROUP BY u.id, u.displayName, u.avatarColor, u.avatarPath, u.maxCorrectStreak, u.totalTimeSeconds, u.completedLessonsCount
-      ORDER BY
-        CASE WHEN :sortBy = 'points' THEN SUM(p.bestScore) END DESC NULLS LAST,
-        CASE WHEN :sortBy = 'streak' THEN u.maxCorrectStreak END DESC NULLS LAST,
-        CASE WHEN :sortBy = 'speed' THEN
-            CASE WHEN u.completedLessonsCount > 0
-                 THEN 1.0 * u.totalTimeSeconds / u.completedLessonsCount
-                 ELSE 9999999.0 END
-        END ASC,
-        SUM(p.bestScore) DESC
       """)
-  List<LeaderboardEntry> getTopPlayers(@Param("sortBy") String sortBy, Pageable pageable);
+  List<LeaderboardEntry> findAllPlayers();
 
+  /** Current leaderboard rows of the given learners, in no particular order. */
   @Query(
       """
       SELECT new com.group7.app.user.LeaderboardEntry(
           u.id, u.displayName, u.avatarColor, u.avatarPath,
-          COALESCE(SUM(p.bestScore), 0L),
+          COALESCE(u.totalPoints, 0L),
           u.completedLessonsCount,
           u.maxCorrectStreak,
           CASE WHEN u.completedLessonsCount > 0
@@ -50,18 +48,92 @@ public interface LeaderboardRepository extends JpaRepository<UserLessonProgress,
                ELSE NULL END
       )
       FROM User u
-      LEFT JOIN UserLessonProgress p ON u.id = p.userId
       WHERE u.role = com.group7.app.user.Role.LEARNER
+        AND u.id IN :userIds
+      """)
+  List<LeaderboardEntry> findPlayers(@Param("userIds") Collection<UUID> userIds);
+
+  /**
+   * Learners ranked by the points in their daily buckets from {@code firstBucket} on. Only
+   * learners with a bucket in the window are read, through the bucket-date index.
+   */
+  @Query(
+      """
+      SELECT new com.group7.app.user.LeaderboardEntry(
+          u.id, u.displayName, u.avatarColor, u.avatarPath,
+          SUM(d.points),
+          u.completedLessonsCount,
+          u.maxCorrectStreak,
+          CASE WHEN u.completedLessonsCount > 0
+               THEN 1.0 * u.totalTimeSeconds / u.completedLessonsCount
+               ELSE NULL END
+      )
+      FROM UserDailyPoints d
+      JOIN User u ON u.id = d.userId
+      WHERE d.bucketDate >= :firstBucket
+        AND u.role = com.group7.app.user.Role.LEARNER
       GROUP BY u.id, u.displayName, u.avatarColor, u.avatarPath, u.maxCorrectStreak, u.totalTimeSeconds, u.completedLessonsCount
-      ORDER BY
-        CASE WHEN :sortBy = 'points' THEN SUM(p.bestScore) END DESC NULLS LAST,
-        CASE WHEN :sortBy = 'streak' THEN u.maxCorrectStreak END DESC NULLS LAST,
-        CASE WHEN :sortBy = 'speed' THEN
-            CASE WHEN u.completedLessonsCount > 0
-                 THEN 1.0 * u.totalTimeSeconds / u.completedLessonsCount
-                 ELSE 9999999.0 END
-        END ASC,
-        SUM(p.bestScore) DESC
-  """)
-  List<LeaderboardEntry> getAllPlayers(@Param("sortBy") String sortBy);
+      ORDER BY SUM(d.points) DESC, u.id ASC
+      """)
+  List<LeaderboardEntry> findWindowPlayers(
+      @Param("firstBucket") LocalDate firstBucket, Pageable pageable);
+
+  /** One learner's row of the {@link #findWindowPlayers} board, if they scored in the window. */
+  @Query(
+      """
+      SELECT new com.group7.app.user.LeaderboardEntry(
+          u.id, u.displayName, u.avatarColor, u.avatarPath,
+          SUM(d.points),
+          u.completedLessonsCount,
+          u.maxCorrectStreak,
+          CASE WHEN u.completedLessonsCount > 0
+               THEN 1.0 * u.totalTimeSeconds / u.completedLessonsCount
+               ELSE NULL END
+      )
+      FROM UserDailyPoints d
+      JOIN User u ON u.id = d.userId
+      WHERE d.userId = :userId
+        AND d.bucketDate >= :firstBucket
+        AND u.role = com.group7.app.user.Role.LEARNER
+      GROUP BY u.id, u.displayName, u.avatarColor, u.avatarPath,
+               u.maxCorrectStreak, u.totalTimeSeconds, u.completedLessonsCount
+      """)
+  Optional<LeaderboardEntry> findWindowPlayer(
+      @Param("firstBucket") LocalDate firstBucket, @Param("userId") UUID userId);
+
+  /** How many learners the {@link #findWindowPlayers} board holds. */
+  @Query(
+      """
+      SELECT COUNT(DISTINCT d.userId)
+      FROM UserDailyPoints d
+      JOIN User u ON u.id = d.userId
+      WHERE d.bucketDate >= :firstBucket
+        AND u.role = com.group7.app.user.Role.LEARNER
+      """)
+  long countWindowPlayers(@Param("firstBucket") LocalDate firstBucket);
+
+  /**
+   * How many learners the {@link #findWindowPlayers} board puts ahead of one with {@code points}
+   * and {@code userId}: more points, or as many and a smaller id.
+   */
+  @Query(
+      nativeQuery = true,
+      value =
+          """
+          select count(*)
+          from (
+            select d.user_id
+            from user_daily_points d
+            join users u on u.id = d.user_id
+            where d.bucket_date >= :firstBucket
+              and u.role = 'LEARNER'
+            group by d.user_id
+            having sum(d.points) > :points
+                or (sum(d.points) = :points and d.user_id < :userId)
+          ) ahead
+          """)
+  long countWindowPlayersAhead(
+      @Param("firstBucket") LocalDate firstBucket,
+      @Param("points") long points,
+      @Param("userId") UUID userId);
 }
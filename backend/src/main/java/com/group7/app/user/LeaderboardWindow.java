@@ -0,0 +1,31 @@
+package com.group7.app.user;
+
+import java.time.LocalDate;
+
+/** Time span a leaderboard covers. Windowed boards sum that many daily point buckets. */
+public enum LeaderboardWindow {
+  DAY(1),
+  WEEK(7),
+  ALL(0);
+
+  private final int days;
+
+  LeaderboardWindow(int days) {
+    this.days = days;
+  }
+
+  /** First bucket date inside the window ending on {@code today}; not used for {@link #ALL}. */
+  public LocalDate firstBucket(LocalDate today) {
+    return today.minusDays(days - 1L);
+  }
+
+  /** Parses a {@code window} request parameter, falling back to all-time. */
+  public static LeaderboardWindow fromKey(String key) {
+    for (LeaderboardWindow window : values()) {
+      if (window.name().equalsIgnoreCase(key)) {
+        return window;
+      }
+    }
+    return ALL;
+  }
+}
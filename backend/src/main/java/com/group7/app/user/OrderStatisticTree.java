@@ -0,0 +1,181 @@
+package com.group7.app.user;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Size-augmented treap. Besides insert and remove it answers "how many elements sort before this
+ * one" and "the n elements from position k" in expected O(log n) (plus n for the listing). The
+ * comparator must be a total order; elements comparing equal are treated as the same element. Not
+ * thread-safe.
+ */
+final class OrderStatisticTree<T> {
+
+  private final Comparator<? super T> comparator;
+  private final SplittableRandom random = new SplittableRandom();
+  private Node<T> root;
+
+  OrderStatisticTree(Comparator<? super T> comparator) {
+    this.comparator = comparator;
+  }
+
+  int size() {
+    return size(root);
+  }
+
+  void add(T value) {
+    remove(value);
+    Node<T>[] parts = split(root, value);
+    root = merge(merge(parts[0], new Node<>(value, random.nextInt())), parts[1]);
+  }
+
+  boolean remove(T value) {
+    int before = size(root);
+    root = remove(root, value);
+    return size(root) != before;
+  }
+
+  /** Zero-based position of {@code value}, or -1 when it is not in the tree. */
+  int rank(T value) {
+    int rank = 0;
+    Node<T> node = root;
+    while (node != null) {
+      int comparison = comparator.compare(value, node.value);
+      if (comparison < 0) {
+        node = node.left;
+      } else if (comparison > 0) {
+        rank += size(node.left) + 1;
+        node = node.right;
+      } else {
+        return rank + size(node.left);
+      }
+    }
+    return -1;
+  }
+
+  /** Number of elements that sort before or equal to {@code value}, present or not. */
+  int countAtMost(T value) {
+    int count = 0;
+    Node<T> node = root;
+    while (node != null) {
+      if (comparator.compare(node.value, value) <= 0) {
+        count += size(node.left) + 1;
+        node = node.right;
+      } else {
+        node = node.left;
+      }
+    }
+    return count;
+  }
+
+  List<T> first(int limit) {
+    return range(0, limit);
+  }
+
+  /** Up to {@code count} elements in order, starting at zero-based position {@code fromIndex}. */
+  List<T> range(int fromIndex, int count) {
+    List<T> values = new ArrayList<>(Math.max(0, Math.min(count, size() - fromIndex)));
+    // descend to the start element, remembering every node still to be visited after it
+    Deque<Node<T>> pending = new ArrayDeque<>();
+    Node<T> node = root;
+    int index = fromIndex;
+    while (node != null) {
+      int leftSize = size(node.left);
+      if (index < leftSize) {
+        pending.push(node);
+        node = node.left;
+      } else if (index > leftSize) {
+        index -= leftSize + 1;
+        node = node.right;
+      } else {
+        pending.push(node);
+        break;
+      }
+    }
+    while (values.size() < count && !pending.isEmpty()) {
+      Node<T> next = pending.pop();
+      values.add(next.value);
+      for (Node<T> child = next.right; child != null; child = child.left) {
+        pending.push(child);
+      }
+    }
+    return values;
+  }
+
+  // splits into elements strictly before value and the rest
+  private Node<T>[] split(Node<T> node, T value) {
+    @SuppressWarnings("unchecked")
+    Node<T>[] parts = new Node[2];
+    if (node == null) {
+      return parts;
+    }
+    if (comparator.compare(node.value, value) < 0) {
+      Node<T>[] right = split(node.right, value);
+      node.right = right[0];
+      parts[0] = update(node);
+      parts[1] = right[1];
+    } else {
+      Node<T>[] left = split(node.left, value);
+      node.left = left[1];
+      parts[0] = left[0];
+      parts[1] = update(node);
+    }
+    return parts;
+  }
+
+  private Node<T> merge(Node<T> left, Node<T> right) {
+    if (left == null) {
+      return right;
+    }
+    if (right == null) {
+      return left;
+    }
+    if (left.priority > right.priority) {
+      left.right = merge(left.right, right);
+      return update(left);
+    }
+    right.left = merge(left, right.left);
+    return update(right);
+  }
+
+  private Node<T> remove(Node<T> node, T value) {
+    if (node == null) {
+      return null;
+    }
+    int comparison = comparator.compare(value, node.value);
+    if (comparison < 0) {
+      node.left = remove(node.left, value);
+    } else if (comparison > 0) {
+      node.right = remove(node.right, value);
+    } else {
+      return merge(node.left, node.right);
+    }
+    return update(node);
+  }
+
+  private static <T> Node<T> update(Node<T> node) {
+    node.size = 1 + size(node.left) + size(node.right);
+    return node;
+  }
+
+  private static int size(Node<?> node) {
+    return node == null ? 0 : node.size;
+  }
+
+  private static final class Node<T> {
+    private final T value;
+    private final int priority;
+    private int size = 1;
+    private Node<T> left;
+    private Node<T> right;
+
+    private Node(T value, int priority) {
+      this.value = value;
+      this.priority = priority;
+    }
+  }
+}
@@ -63,6 +63,10 @@ public class User {
   @Column(name = "completed_lessons_count")
   private Integer completedLessonsCount = 0;
 
+  // sum of the learner's best score per lesson, kept in step with user_lesson_progress
+  @Column(name = "total_points", nullable = false)
+  private Long totalPoints = 0L;
+
   protected User() {}
 
   public User(UUID id, String email) {
@@ -178,6 +182,14 @@ public class User {
     this.completedLessonsCount = completedLessonsCount;
   }
 
+  public Long getTotalPoints() {
+    return totalPoints != null ? totalPoints : 0L;
+  }
+
+  public void setTotalPoints(Long totalPoints) {
+    this.totalPoints = totalPoints;
+  }
+
   @PrePersist
   protected void onCreate() {
     Instant now = Instant.now();
@@ -0,0 +1,73 @@
+package com.group7.app.user;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Leaderboard points one learner earned on one UTC day. Attempts add to the bucket by upsert, so
+ * a windowed board sums a fixed number of buckets instead of scanning attempts.
+ */
+@Entity
+@Table(
+    name = "user_daily_points",
+    uniqueConstraints =
+        @UniqueConstraint(
+            name = "uq_user_daily_points_user_date",
+            columnNames = {"user_id", "bucket_date"}),
+    indexes = @Index(name = "idx_user_daily_points_date", columnList = "bucket_date, user_id"))
+public class UserDailyPoints {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "user_id", nullable = false)
+  private UUID userId;
+
+  @Column(name = "bucket_date", nullable = false)
+  private LocalDate bucketDate;
+
+  @Column(nullable = false)
+  private Long points = 0L;
+
+  @Column(name = "created_at", nullable = false, updatable = false)
+  private Instant createdAt;
+
+  @Column(name = "updated_at", nullable = false)
+  private Instant updatedAt;
+
+  protected UserDailyPoints() {}
+
+  public Long getId() {
+    return id;
+  }
+
+  public UUID getUserId() {
+    return userId;
+  }
+
+  public LocalDate getBucketDate() {
+    return bucketDate;
+  }
+
+  public Long getPoints() {
+    return points;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public Instant getUpdatedAt() {
+    return updatedAt;
+  }
+}
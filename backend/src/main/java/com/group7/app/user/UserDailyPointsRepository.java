@@ -0,0 +1,6 @@
+package com.group7.app.user;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface UserDailyPointsRepository
+    extends JpaRepository<UserDailyPoints, Long>, UserDailyPointsRepositoryCustom {}
@@ -0,0 +1,11 @@
+package com.group7.app.user;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+public interface UserDailyPointsRepositoryCustom {
+
+  /** Adds {@code points} to the learner's bucket for {@code bucketDate}, creating it if needed. */
+  void addPoints(UUID userId, LocalDate bucketDate, long points, Instant now);
+}
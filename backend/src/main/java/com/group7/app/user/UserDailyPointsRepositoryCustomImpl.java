@@ -0,0 +1,45 @@
+package com.group7.app.user;
+
+import com.group7.app.config.PlatformUpserts;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+class UserDailyPointsRepositoryCustomImpl implements UserDailyPointsRepositoryCustom {
+
+  private static final PlatformUpserts.Statement ADD =
+      new PlatformUpserts.Statement(
+          """
+          insert into user_daily_points (user_id, bucket_date, points, created_at, updated_at)
+          values (?, ?, ?, ?, ?)
+          on conflict (user_id, bucket_date) do update set
+              points = user_daily_points.points + excluded.points,
+              updated_at = excluded.updated_at
+          """,
+          """
+          merge into user_daily_points t
+          using (values (cast(? as uuid), cast(? as date), cast(? as bigint),
+                         cast(? as timestamp with time zone), cast(? as timestamp with time zone)))
+              s (user_id, bucket_date, points, created_at, updated_at)
+          on t.user_id = s.user_id and t.bucket_date = s.bucket_date
+          when matched then update set
+              points = t.points + s.points,
+              updated_at = s.updated_at
+          when not matched then insert (user_id, bucket_date, points, created_at, updated_at)
+              values (s.user_id, s.bucket_date, s.points, s.created_at, s.updated_at)
+          """);
+
+  private final PlatformUpserts upserts;
+
+  UserDailyPointsRepositoryCustomImpl(PlatformUpserts upserts) {
+    this.upserts = upserts;
+  }
+
+  @Override
+  public void addPoints(UUID userId, LocalDate bucketDate, long points, Instant now) {
+    Timestamp writtenAt = Timestamp.from(now);
+    upserts.update(ADD, userId, Date.valueOf(bucketDate), points, writtenAt, writtenAt);
+  }
+}
@@ -0,0 +1,209 @@
+package com.group7.app.user;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Bounded, expiring cache of the user fields that author and creator labels render, shared by the
+ * forum, content and lesson mappers. Entries are looked up by id or by lowercased email; misses are
+ * loaded in one query per call. {@link UserService} invalidates an entry when the profile changes,
+ * and the TTL bounds how long anything written elsewhere stays stale.
+ */
+@Component
+public class UserProfileCache {
+
+  private final UserRepository userRepository;
+  private final int maxSize;
+  private final long ttlNanos;
+  private final Map<UUID, CachedProfile> entries;
+  private final Map<String, UUID> idsByEmail = new HashMap<>();
+  // bumped by every invalidation, so a load that raced one does not re-cache what it read
+  private long invalidations;
+
+  public UserProfileCache(
+      UserRepository userRepository,
+      @Value("${user.profile-cache.max-size:10000}") int maxSize,
+      @Value("${user.profile-cache.ttl:PT10M}") Duration ttl) {
+    this.userRepository = userRepository;
+    this.maxSize = maxSize;
+    this.ttlNanos = ttl.toNanos();
+    // access order, so the eldest entry is the least recently used one
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<UUID, CachedProfile> eldest) {
+            if (size() <= UserProfileCache.this.maxSize) {
+              return false;
+            }
+            idsByEmail.remove(normalizeEmail(eldest.getValue().profile().email()));
+            return true;
+          }
+        };
+  }
+
+  public Optional<UserProfile> get(UUID id) {
+    return Optional.ofNullable(getAll(List.of(id)).get(id));
+  }
+
+  /** Profiles for the given ids; ids without a user are simply absent from the result. */
+  public Map<UUID, UserProfile> getAll(Collection<UUID> ids) {
+    Map<UUID, UserProfile> profiles = new HashMap<>();
+    List<UUID> missing = new ArrayList<>();
+    long loadedAfter;
+    synchronized (this) {
+      loadedAfter = invalidations;
+      for (UUID id : ids) {
+        UserProfile cached = cached(id);
+        if (cached != null) {
+          profiles.put(id, cached);
+        } else if (id != null) {
+          missing.add(id);
+        }
+      }
+    }
+    if (!missing.isEmpty()) {
+      for (User user : userRepository.findAllById(missing)) {
+        profiles.put(user.getId(), put(user, loadedAfter));
+      }
+    }
+    return profiles;
+  }
+
+  /** Profiles keyed by lowercased email; emails without a user are absent from the result. */
+  public Map<String, UserProfile> getAllByEmail(Collection<String> emails) {
+    Map<String, UserProfile> profiles = new HashMap<>();
+    List<String> missing = new ArrayList<>();
+    long loadedAfter;
+    synchronized (this) {
+      loadedAfter = invalidations;
+      for (String email : emails) {
+        if (email == null) {
+          continue;
+        }
+        String key = normalizeEmail(email);
+        UUID id = idsByEmail.get(key);
+        UserProfile cached = id == null ? null : cached(id);
+        if (cached != null) {
+          profiles.put(key, cached);
+        } else {
+          missing.add(key);
+        }
+      }
+    }
+    if (!missing.isEmpty()) {
+      for (User user : userRepository.findAllByEmailLowercaseIn(missing)) {
+        profiles.put(normalizeEmail(user.getEmail()), put(user, loadedAfter));
+      }
+    }
+    return profiles;
+  }
+
+  /**
+   * Drops the user's entry. Inside a transaction this waits for the commit, so the next read loads
+   * the committed row rather than re-caching the old one.
+   */
+  public void invalidate(UUID id) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              invalidateNow(id);
+            }
+          });
+      return;
+    }
+    invalidateNow(id);
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Caches the loaded user unless an invalidation landed after {@code loadedAfter} was read: the
+   * row may have been read before that change committed, so caching it could keep the old profile
+   * for the whole TTL. The caller still gets the profile either way.
+   */
+  private synchronized UserProfile put(User user, long loadedAfter) {
+    UserProfile profile = UserProfile.of(user);
+    if (invalidations != loadedAfter) {
+      return profile;
+    }
+    CachedProfile previous =
+        entries.put(user.getId(), new CachedProfile(profile, System.nanoTime() + ttlNanos));
+    if (previous != null) {
+      idsByEmail.remove(normalizeEmail(previous.profile().email()));
+    }
+    idsByEmail.put(normalizeEmail(profile.email()), profile.id());
+    return profile;
+  }
+
+  private synchronized void invalidateNow(UUID id) {
+    invalidations++;
+    evict(id);
+  }
+
+  private synchronized void evict(UUID id) {
+    CachedProfile removed = entries.remove(id);
+    if (removed != null) {
+      idsByEmail.remove(normalizeEmail(removed.profile().email()));
+    }
+  }
+
+  // caller holds the lock
+  private UserProfile cached(UUID id) {
+    CachedProfile entry = entries.get(id);
+    if (entry == null) {
+      return null;
+    }
+    if (System.nanoTime() - entry.expiresAt() >= 0) {
+      evict(id);
+      return null;
+    }
+    return entry.profile();
+  }
+
+  private static String normalizeEmail(String email) {
+    return email == null ? null : email.toLowerCase(Locale.ROOT);
+  }
+
+  private record CachedProfile(UserProfile profile, long expiresAt) {}
+
+  /** The user fields shown next to forum posts, content submissions and lessons. */
+  public record UserProfile(
+      UUID id,
+      String email,
+      String displayName,
+      String avatarPath,
+      String avatarColor,
+      Role role) {
+
+    public static UserProfile of(User user) {
+      return new UserProfile(
+          user.getId(),
+          user.getEmail(),
+          user.getDisplayName(),
+          user.getAvatarPath(),
+          user.getAvatarColor(),
+          user.getRole());
+    }
+
+    /** The display name when one is set, otherwise the email. */
+    public String label() {
+      return displayName != null && !displayName.isBlank() ? displayName : email;
+    }
+  }
+}
@@ -1,14 +1,18 @@
 package com.group7.app.user;
 
+import jakarta.persistence.LockModeType;
+import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
-public interface UserRepository extends JpaRepository<User, UUID> {
+public interface UserRepository extends JpaRepository<User, UUID>, UserRepositoryCustom {
   Optional<User> findByEmailIgnoreCase(String email);
 
   @Query("select u from User u where lower(u.email) in :emails")
@@ -16,5 +20,63 @@ public interface UserRepository extends JpaRepository<User, UUID> {
 
   boolean existsByEmailIgnoreCase(String email);
 
-  Optional<User> findFirstByDisplayNameIgnoreCase(String displayName);
+  // resolves legacy forum posts that only stored the author's display name
+  @Query("select u from User u where lower(u.displayName) in :names")
+  List<User> findAllByDisplayNameLowercaseIn(@Param("names") Collection<String> names);
+
+  /** Loads the learner with a row lock held until commit, serializing their attempt writes. */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select u from User u where u.id = :userId")
+  Optional<User> lockById(@Param("userId") UUID userId);
+
+  /**
+   * Applies the counter changes of one lesson attempt as deltas against the stored values, so
+   * concurrent attempts by the same learner never lose each other's updates. The streak columns
+   * take the attempt's runs of correct answers: an unbroken attempt extends the current streak by
+   * {@code leadingRun}; a broken one extends it by {@code leadingRun} before restarting it at
+   * {@code trailingRun}. {@code pointsDelta} is how far the attempt raised the lesson's best score.
+   * All right-hand sides see the pre-update row.
+   */
+  @Modifying
+  @Query(
+      """
+      update User u
+      set u.maxCorrectStreak = greatest(
+              coalesce(u.maxCorrectStreak, 0),
+              coalesce(u.currentCorrectStreak, 0) + :leadingRun,
+              :longestRun),
+          u.currentCorrectStreak = case
+              when :streakBroken = true then :trailingRun
+              else coalesce(u.currentCorrectStreak, 0) + :leadingRun
+          end,
+          u.completedLessonsCount = coalesce(u.completedLessonsCount, 0) + :completedLessons,
+          u.totalTimeSeconds = coalesce(u.totalTimeSeconds, 0) + :totalTimeSecondsDelta,
+          u.totalPoints = coalesce(u.totalPoints, 0) + :pointsDelta,
+          u.updatedAt = :updatedAt
+      where u.id = :userId
+      """)
+  int applyAttemptCounters(
+      @Param("userId") UUID userId,
+      @Param("leadingRun") int leadingRun,
+      @Param("longestRun") int longestRun,
+      @Param("streakBroken") boolean streakBroken,
+      @Param("trailingRun") int trailingRun,
+      @Param("completedLessons") int completedLessons,
+      @Param("totalTimeSecondsDelta") long totalTimeSecondsDelta,
+      @Param("pointsDelta") long pointsDelta,
+      @Param("updatedAt") Instant updatedAt);
+
+  /** Takes back points a learner earned on a lesson that is being deleted. */
+  @Modifying
+  @Query(
+      """
+      update User u
+      set u.totalPoints = greatest(coalesce(u.totalPoints, 0) - :points, 0),
+          u.updatedAt = :updatedAt
+      where u.id = :userId
+      """)
+  int deductPoints(
+      @Param("userId") UUID userId,
+      @Param("points") long points,
+      @Param("updatedAt") Instant updatedAt);
 }
@@ -0,0 +1,13 @@
+package com.group7.app.user;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public interface UserRepositoryCustom {
+
+  /**
+   * Inserts a fresh learner row unless one already conflicts with it, without raising on the
+   * conflict. Returns whether this call created the row.
+   */
+  boolean insertIfAbsent(UUID id, String email, Instant now);
+}
@@ -0,0 +1,54 @@
+package com.group7.app.user;
+
+import com.group7.app.config.DatabasePlatform;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+  // a row the auth trigger is still inserting makes this wait for that commit, not fail
+  private static final String POSTGRES_INSERT =
+      """
+      insert into users (id, email, role, created_at, updated_at, current_correct_streak,
+                         max_correct_streak, total_time_seconds, completed_lessons_count,
+                         total_points)
+      values (?, ?, 'LEARNER', ?, ?, 0, 0, 0, 0, 0)
+      on conflict do nothing
+      returning id
+      """;
+
+  // h2 has no returning clause, so the update count tells whether the row was new
+  private static final String H2_INSERT =
+      """
+      merge into users t
+      using (values (cast(? as uuid), cast(? as varchar),
+                     cast(? as timestamp with time zone), cast(? as timestamp with time zone)))
+          s (id, email, created_at, updated_at)
+      on t.id = s.id
+      when not matched then insert (id, email, role, created_at, updated_at,
+                                    current_correct_streak, max_correct_streak,
+                                    total_time_seconds, completed_lessons_count, total_points)
+          values (s.id, s.email, 'LEARNER', s.created_at, s.updated_at, 0, 0, 0, 0, 0)
+      """;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final DatabasePlatform databasePlatform;
+
+  UserRepositoryCustomImpl(JdbcTemplate jdbcTemplate, DatabasePlatform databasePlatform) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.databasePlatform = databasePlatform;
+  }
+
+  @Override
+  public boolean insertIfAbsent(UUID id, String email, Instant now) {
+    Timestamp writtenAt = Timestamp.from(now);
+    if (databasePlatform.isPostgres()) {
+      return !jdbcTemplate
+          .queryForList(POSTGRES_INSERT, UUID.class, id, email, writtenAt, writtenAt)
+          .isEmpty();
+    }
+    return jdbcTemplate.update(H2_INSERT, id, email, writtenAt, writtenAt) > 0;
+  }
+}
@@ -1,8 +1,13 @@
 package com.group7.app.user;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
@@ -12,13 +17,22 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional(readOnly = true)
 public class UserService {
 
-  private static final int AUTH_SYNC_RETRY_ATTEMPTS = 6;
-  private static final long AUTH_SYNC_RETRY_DELAY_MS = 100L;
-
   private final UserRepository userRepository;
-
-  public UserService(UserRepository userRepository) {
+  private final LeaderboardIndex leaderboardIndex;
+  private final UserProfileCache userProfileCache;
+  private final AuthenticatedUserCache authenticatedUserCache;
+  private final ConcurrentMap<UUID, CompletableFuture<User>> provisioning =
+      new ConcurrentHashMap<>();
+
+  public UserService(
+      UserRepository userRepository,
+      LeaderboardIndex leaderboardIndex,
+      UserProfileCache userProfileCache,
+      AuthenticatedUserCache authenticatedUserCache) {
     this.userRepository = userRepository;
+    this.leaderboardIndex = leaderboardIndex;
+    this.userProfileCache = userProfileCache;
+    this.authenticatedUserCache = authenticatedUserCache;
   }
 
   public List<User> findAll() {
@@ -37,12 +51,27 @@ public class UserService {
     return userRepository.existsByEmailIgnoreCase(email);
   }
 
+  /**
+   * Returns the user for a token subject that has no row yet, inserting it if the auth trigger has
+   * not. Concurrent first requests for the same subject share one insert; they all receive the
+   * same instance, which must be treated as read-only.
+   */
   @Transactional(propagation = Propagation.NOT_SUPPORTED)
   public User createFromAuth(UUID id, String email) {
+    CompletableFuture<User> flight = new CompletableFuture<>();
+    CompletableFuture<User> inFlight = provisioning.putIfAbsent(id, flight);
+    if (inFlight != null) {
+      return awaitProvisioning(inFlight);
+    }
     try {
-      return userRepository.saveAndFlush(new User(id, email));
-    } catch (DataIntegrityViolationException ex) {
-      return awaitUserRow(id, email, ex);
+      User user = provision(id, email);
+      flight.complete(user);
+      return user;
+    } catch (RuntimeException ex) {
+      flight.completeExceptionally(ex);
+      throw ex;
+    } finally {
+      provisioning.remove(id, flight);
     }
   }
 
@@ -64,6 +93,9 @@ public class UserService {
     user.setGender(gender);
     user.setAvatarColor(avatarColor);
     user.setAvatarPath(avatarPath);
+    leaderboardIndex.markChanged(id);
+    userProfileCache.invalidate(id);
+    authenticatedUserCache.invalidate(id);
     return userRepository.save(user);
   }
 
@@ -74,36 +106,38 @@ public class UserService {
 
   @Transactional
   public User save(User user) {
+    userProfileCache.invalidate(user.getId());
+    authenticatedUserCache.invalidate(user.getId());
     return userRepository.save(user);
   }
 
-  private User awaitUserRow(UUID id, String email, DataIntegrityViolationException originalError) {
-    for (int attempt = 0; attempt < AUTH_SYNC_RETRY_ATTEMPTS; attempt++) {
-      Optional<User> existing = userRepository.findById(id);
-      if (existing.isPresent()) {
-        return existing.get();
-      }
-
-      Optional<User> existingByEmail =
-          userRepository.findByEmailIgnoreCase(email).filter(user -> id.equals(user.getId()));
-      if (existingByEmail.isPresent()) {
-        return existingByEmail.get();
-      }
-
-      if (attempt + 1 < AUTH_SYNC_RETRY_ATTEMPTS) {
-        sleepBeforeRetry();
-      }
+  private User provision(UUID id, String email) {
+    DataIntegrityViolationException conflict = null;
+    try {
+      userRepository.insertIfAbsent(id, email, Instant.now());
+    } catch (DataIntegrityViolationException ex) {
+      // only h2's merge can still collide with a concurrent insert; postgres skips conflicts
+      conflict = ex;
     }
-
-    throw originalError;
+    // the insert returns once any competing insert has committed, so this read sees the row
+    Optional<User> user = userRepository.findById(id);
+    if (user.isEmpty()) {
+      throw conflict != null
+          ? conflict
+          : new DataIntegrityViolationException("no users row for " + id + " after insert");
+    }
+    leaderboardIndex.markChanged(id);
+    return user.get();
   }
 
-  private void sleepBeforeRetry() {
+  private static User awaitProvisioning(CompletableFuture<User> inFlight) {
     try {
-      Thread.sleep(AUTH_SYNC_RETRY_DELAY_MS);
-    } catch (InterruptedException ex) {
-      Thread.currentThread().interrupt();
-      throw new IllegalStateException("Interrupted while waiting for auth user sync", ex);
+      return inFlight.join();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw ex;
     }
   }
 }
@@ -12,7 +12,9 @@ import com.group7.app.content.model.ContentVote;
 import com.group7.app.content.repository.ContentRepository;
 import com.group7.app.content.repository.ContentVoteRepository;
 import com.group7.app.user.User;
+import com.group7.app.user.UserProfileCache;
 import com.group7.app.user.UserRepository;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -38,7 +40,11 @@ class ContentVoteServiceTest {
   @BeforeEach
   void setUp() {
     contentVoteService =
-        new ContentVoteService(contentVoteRepository, contentRepository, userRepository);
+        new ContentVoteService(
+            contentVoteRepository,
+            contentRepository,
+            userRepository,
+            new UserProfileCache(userRepository, 100, Duration.ofMinutes(10)));
   }
 
   @Test
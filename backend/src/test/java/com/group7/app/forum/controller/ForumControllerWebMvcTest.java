@@ -25,13 +25,14 @@ import com.group7.app.forum.service.AnswerService;
 import com.group7.app.forum.service.ForumMappingService;
 import com.group7.app.forum.service.ForumVoteService;
 import com.group7.app.forum.service.ModerationService;
+import com.group7.app.forum.service.QuestionFeedCursor;
 import com.group7.app.forum.service.QuestionService;
+import com.group7.app.lesson.service.AuthContextService;
 import com.group7.app.user.Role;
 import com.group7.app.user.User;
 import com.group7.app.user.UserService;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
 import java.util.UUID;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -40,6 +41,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.test.context.ActiveProfiles;
@@ -65,6 +67,8 @@ class ForumControllerWebMvcTest {
 
   @MockitoBean private UserService userService;
 
+  @MockitoBean private AuthContextService authContextService;
+
   @MockitoBean private ModerationService moderationService;
 
   @MockitoBean private JwtDecoder jwtDecoder;
@@ -86,12 +90,13 @@ class ForumControllerWebMvcTest {
             "2026-01-01T10:00:00",
             0L,
             new VoteSummary(0, 0, null),
-            false);
+            false,
+            "PENDING_MODERATION",
+            null);
 
     when(questionService.getQuestions(PageRequest.of(0, 10), null))
         .thenReturn(new PageImpl<>(List.of(question), PageRequest.of(0, 10), 1));
-    when(answerService.getAnswerCounts(List.of(1L))).thenReturn(Map.of(1L, 0L));
-    when(forumMappingService.toQuestionListItemResponses(List.of(question), null, Map.of(1L, 0L)))
+    when(forumMappingService.toQuestionListItemResponses(List.of(question), null))
         .thenReturn(List.of(response));
 
     mockMvc
@@ -101,6 +106,39 @@ class ForumControllerWebMvcTest {
         .andExpect(jsonPath("$.totalItems").value(1));
   }
 
+  @Test
+  void getQuestionsFeedPagesByOpaqueCursorWithoutTotals() throws Exception {
+    Question older = new Question("Older", "content", "Kai");
+    ReflectionTestUtils.setField(older, "id", 7L);
+    LocalDateTime createdAt = LocalDateTime.of(2026, 10, 1, 12, 30, 15, 123456000);
+    ReflectionTestUtils.setField(older, "createdAt", createdAt);
+    QuestionFeedCursor cursor = new QuestionFeedCursor(createdAt, 9L);
+
+    when(questionService.getQuestionFeed(cursor, 1))
+        .thenReturn(new SliceImpl<>(List.of(older), PageRequest.of(0, 1), true));
+    when(forumMappingService.toQuestionListItemResponses(List.of(older), null))
+        .thenReturn(List.of());
+
+    mockMvc
+        .perform(get("/api/forum/questions").param("size", "1").param("after", cursor.encode()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalItems").doesNotExist())
+        .andExpect(jsonPath("$.hasNext").value(true))
+        .andExpect(
+            jsonPath("$.nextCursor").value(new QuestionFeedCursor(createdAt, 7L).encode()));
+  }
+
+  @Test
+  void getQuestionsRejectsMalformedFeedCursor() throws Exception {
+    mockMvc
+        .perform(get("/api/forum/questions").param("after", "not-a-cursor"))
+        .andExpect(status().isBadRequest());
+    mockMvc
+        .perform(get("/api/forum/questions").param("after", "").param("q", "rizz"))
+        .andExpect(status().isBadRequest());
+    verifyNoInteractions(questionService);
+  }
+
   @Test
   void postQuestionRequiresAuthentication() throws Exception {
     mockMvc
@@ -142,9 +180,11 @@ class ForumControllerWebMvcTest {
             0L,
             List.of(),
             new VoteSummary(0, 0, null),
-            false);
+            false,
+            "PENDING_MODERATION",
+            null);
 
-    when(userService.findById(userId)).thenReturn(Optional.of(user));
+    when(authContextService.resolveUser(any())).thenReturn(user);
     when(userService.isOnboardingCompleted(user)).thenReturn(true);
     when(questionService.createQuestion(any(Question.class))).thenReturn(created);
     when(forumMappingService.toQuestionResponse(created, userId)).thenReturn(response);
@@ -170,7 +210,8 @@ class ForumControllerWebMvcTest {
                                 """))
         .andExpect(status().isCreated())
         .andExpect(jsonPath("$.id").value(2))
-        .andExpect(jsonPath("$.authorInfo.displayName").value("Kai"));
+        .andExpect(jsonPath("$.authorInfo.displayName").value("Kai"))
+        .andExpect(jsonPath("$.moderationStatus").value("PENDING_MODERATION"));
 
     ArgumentCaptor<Question> questionCaptor = ArgumentCaptor.forClass(Question.class);
     verify(questionService).createQuestion(questionCaptor.capture());
@@ -192,7 +233,7 @@ class ForumControllerWebMvcTest {
     user.setRole(Role.LEARNER);
     user.setDisplayName(null);
 
-    when(userService.findById(userId)).thenReturn(Optional.of(user));
+    when(authContextService.resolveUser(any())).thenReturn(user);
 
     mockMvc
         .perform(
@@ -227,7 +268,7 @@ class ForumControllerWebMvcTest {
     Question question = new Question("title", "content", "owner");
     question.setAuthorId(UUID.randomUUID());
 
-    when(userService.findById(userId)).thenReturn(Optional.of(user));
+    when(authContextService.resolveUser(any())).thenReturn(user);
     when(questionService.getQuestion(7L)).thenReturn(question);
 
     mockMvc
@@ -274,7 +315,7 @@ class ForumControllerWebMvcTest {
     User user = new User(userId, "user@example.com");
     user.setRole(Role.LEARNER);
 
-    when(userService.findById(userId)).thenReturn(Optional.of(user));
+    when(authContextService.resolveUser(any())).thenReturn(user);
     when(userService.isOnboardingCompleted(user)).thenReturn(true);
     when(forumVoteService.castQuestionVote(7L, userId, QuestionVote.VoteType.THUMBS_UP))
         .thenReturn(new VoteSummary(5, 1, "THUMBS_UP"));
@@ -311,7 +352,7 @@ class ForumControllerWebMvcTest {
     user.setRole(Role.LEARNER);
     user.setDisplayName("   ");
 
-    when(userService.findById(userId)).thenReturn(Optional.of(user));
+    when(authContextService.resolveUser(any())).thenReturn(user);
 
     mockMvc
         .perform(
@@ -345,7 +386,7 @@ class ForumControllerWebMvcTest {
     String moderationMessage =
         "Your post was flagged by our content moderation system and cannot be published.";
 
-    when(userService.findById(userId)).thenReturn(Optional.of(user));
+    when(authContextService.resolveUser(any())).thenReturn(user);
     when(userService.isOnboardingCompleted(user)).thenReturn(true);
     when(questionService.createQuestion(any(Question.class)))
         .thenThrow(new ResponseStatusException(HttpStatus.BAD_REQUEST, moderationMessage));
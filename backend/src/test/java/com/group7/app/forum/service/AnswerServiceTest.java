@@ -2,14 +2,18 @@ package com.group7.app.forum.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import com.group7.app.forum.model.Answer;
+import com.group7.app.forum.model.ModerationStatus;
 import com.group7.app.forum.model.Question;
 import com.group7.app.forum.repository.AnswerRepository;
 import com.group7.app.forum.repository.QuestionRepository;
-import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -29,26 +33,14 @@ class AnswerServiceTest {
 
   @Mock private ModerationService moderationService;
 
+  @Mock private ForumModerationQueue moderationQueue;
+
   private AnswerService answerService;
 
   @BeforeEach
   void setUp() {
-    answerService = new AnswerService(answerRepository, questionRepository, moderationService);
-  }
-
-  @Test
-  void getAnswerCountsReturnsEmptyMapForEmptyInput() {
-    assertThat(answerService.getAnswerCounts(List.of())).isEmpty();
-  }
-
-  @Test
-  void getAnswerCountsReturnsProjectionValues() {
-    when(answerRepository.countByQuestionIds(List.of(1L, 2L)))
-        .thenReturn(List.of(countView(1L, 3L), countView(2L, 5L)));
-
-    var result = answerService.getAnswerCounts(List.of(1L, 2L));
-
-    assertThat(result).containsEntry(1L, 3L).containsEntry(2L, 5L);
+    answerService =
+        new AnswerService(answerRepository, questionRepository, moderationService, moderationQueue);
   }
 
   @Test
@@ -94,7 +86,7 @@ class AnswerServiceTest {
   }
 
   @Test
-  void postAnswerAssociatesQuestionModeratesAndSaves() {
+  void postAnswerAssociatesQuestionSavesAndCountsWhenModerationIsOff() {
     Question question = new Question("title", "content", "author");
     ReflectionTestUtils.setField(question, "id", 2L);
     Answer answer = new Answer();
@@ -106,13 +98,34 @@ class AnswerServiceTest {
     Answer saved = answerService.postAnswer(2L, answer);
 
     assertThat(saved.getQuestion()).isSameAs(question);
-    verify(moderationService).moderateContent("new answer");
+    assertThat(saved.getModerationStatus()).isEqualTo(ModerationStatus.PUBLISHED);
     verify(answerRepository).save(answer);
+    verify(questionRepository).adjustAnswerCount(2L, 1);
+    verifyNoInteractions(moderationQueue);
+  }
+
+  @Test
+  void postAnswerQueuesModerationAndLeavesTheCountAlone() {
+    Question question = new Question("title", "content", "author");
+    ReflectionTestUtils.setField(question, "id", 2L);
+    Answer answer = new Answer();
+    answer.setContent("new answer");
+    ReflectionTestUtils.setField(answer, "id", 8L);
+
+    when(moderationService.isActive()).thenReturn(true);
+    when(questionRepository.findById(2L)).thenReturn(Optional.of(question));
+    when(answerRepository.save(answer)).thenReturn(answer);
+
+    Answer saved = answerService.postAnswer(2L, answer);
+
+    assertThat(saved.getModerationStatus()).isEqualTo(ModerationStatus.PENDING_MODERATION);
+    verify(moderationQueue).submitAnswer(8L);
+    verify(questionRepository, never()).adjustAnswerCount(any(), anyLong());
   }
 
   @Test
   void deleteAnswerRejectsMissingAnswer() {
-    when(answerRepository.existsById(3L)).thenReturn(false);
+    when(answerRepository.lockById(3L)).thenReturn(Optional.empty());
 
     assertThatThrownBy(() -> answerService.deleteAnswer(3L))
         .isInstanceOfSatisfying(
@@ -124,25 +137,29 @@ class AnswerServiceTest {
   }
 
   @Test
-  void deleteAnswerDeletesExistingAnswer() {
-    when(answerRepository.existsById(3L)).thenReturn(true);
+  void deleteAnswerDeletesExistingAnswerAndDecrementsTheCount() {
+    Question question = new Question("title", "content", "author");
+    ReflectionTestUtils.setField(question, "id", 2L);
+    Answer answer = new Answer("answer", "author", question);
+    when(answerRepository.lockById(3L)).thenReturn(Optional.of(answer));
 
     answerService.deleteAnswer(3L);
 
-    verify(answerRepository).deleteById(3L);
+    verify(answerRepository).delete(answer);
+    verify(questionRepository).adjustAnswerCount(2L, -1);
   }
 
-  private AnswerRepository.QuestionAnswerCountView countView(Long questionId, long answerCount) {
-    return new AnswerRepository.QuestionAnswerCountView() {
-      @Override
-      public Long getQuestionId() {
-        return questionId;
-      }
-
-      @Override
-      public long getAnswerCount() {
-        return answerCount;
-      }
-    };
+  @Test
+  void deleteAnswerLeavesTheCountAloneForAnUnpublishedAnswer() {
+    Question question = new Question("title", "content", "author");
+    ReflectionTestUtils.setField(question, "id", 2L);
+    Answer answer = new Answer("answer", "author", question);
+    answer.setModerationStatus(ModerationStatus.REJECTED);
+    when(answerRepository.lockById(3L)).thenReturn(Optional.of(answer));
+
+    answerService.deleteAnswer(3L);
+
+    verify(answerRepository).delete(answer);
+    verify(questionRepository, never()).adjustAnswerCount(any(), anyLong());
   }
 }
@@ -0,0 +1,94 @@
+package com.group7.app.forum.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.group7.app.forum.model.Answer;
+import com.group7.app.forum.model.Question;
+import com.group7.app.forum.repository.AnswerRepository;
+import com.group7.app.forum.repository.AnswerVoteRepository;
+import com.group7.app.forum.repository.QuestionRepository;
+import com.group7.app.forum.repository.QuestionVoteRepository;
+import com.group7.app.user.User;
+import com.group7.app.user.UserRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ForumAuthorBackfillServiceTest {
+
+  @Autowired private ForumAuthorBackfillService backfillService;
+
+  @Autowired private QuestionRepository questionRepository;
+
+  @Autowired private AnswerRepository answerRepository;
+
+  @Autowired private QuestionVoteRepository questionVoteRepository;
+
+  @Autowired private AnswerVoteRepository answerVoteRepository;
+
+  @Autowired private UserRepository userRepository;
+
+  private final List<UUID> userIds = new ArrayList<>();
+
+  @BeforeEach
+  void cleanForum() {
+    answerVoteRepository.deleteAll();
+    questionVoteRepository.deleteAll();
+    answerRepository.deleteAll();
+    questionRepository.deleteAll();
+  }
+
+  @AfterEach
+  void cleanUp() {
+    cleanForum();
+    userRepository.deleteAllById(userIds);
+  }
+
+  @Test
+  void linksUniqueDisplayNamesInBatchesAndSkipsAmbiguousOnes() {
+    UUID kai = user("BackfillKai");
+    user("BackfillTwin");
+    user("backfilltwin");
+    Question first = questionRepository.save(new Question("one", "content", "backfillkai"));
+    Question second = questionRepository.save(new Question("two", "content", "BACKFILLKAI"));
+    Question ambiguous = questionRepository.save(new Question("three", "content", "BackfillTwin"));
+    Question unknown = questionRepository.save(new Question("four", "content", "Ghost"));
+    Answer answer = new Answer();
+    answer.setContent("charisma");
+    answer.setAuthor("BackfillKai");
+    answer.setQuestion(first);
+    answer = answerRepository.save(answer);
+
+    assertThat(backfillService.backfillQuestions(1)).isOne();
+    assertThat(backfillService.backfillQuestions(1)).isOne();
+    assertThat(backfillService.backfillQuestions(1)).isZero();
+    assertThat(backfillService.backfillAnswers(10)).isOne();
+
+    assertThat(questionRepository.findById(first.getId()).orElseThrow().getAuthorId())
+        .isEqualTo(kai);
+    assertThat(questionRepository.findById(second.getId()).orElseThrow().getAuthorId())
+        .isEqualTo(kai);
+    assertThat(questionRepository.findById(ambiguous.getId()).orElseThrow().getAuthorId())
+        .isNull();
+    assertThat(questionRepository.findById(unknown.getId()).orElseThrow().getAuthorId()).isNull();
+    assertThat(answerRepository.findById(answer.getId()).orElseThrow().getAuthorId())
+        .isEqualTo(kai);
+  }
+
+  private UUID user(String displayName) {
+    UUID userId = UUID.randomUUID();
+    User user = new User(userId, userId + "@example.com");
+    user.setDisplayName(displayName);
+    userRepository.save(user);
+    userIds.add(userId);
+    return userId;
+  }
+}
@@ -0,0 +1,168 @@
+package com.group7.app.forum.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.group7.app.forum.dto.VoteSummary;
+import com.group7.app.forum.model.Answer;
+import com.group7.app.forum.model.AnswerVote;
+import com.group7.app.forum.model.Question;
+import com.group7.app.forum.model.QuestionVote;
+import com.group7.app.forum.repository.AnswerRepository;
+import com.group7.app.forum.repository.AnswerVoteRepository;
+import com.group7.app.forum.repository.QuestionRepository;
+import com.group7.app.forum.repository.QuestionVoteRepository;
+import com.group7.app.user.User;
+import com.group7.app.user.UserRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ForumCounterServiceTest {
+
+  @Autowired private ForumCounterService forumCounterService;
+
+  @Autowired private ForumVoteService forumVoteService;
+
+  @Autowired private AnswerService answerService;
+
+  @Autowired private QuestionRepository questionRepository;
+
+  @Autowired private AnswerRepository answerRepository;
+
+  @Autowired private QuestionVoteRepository questionVoteRepository;
+
+  @Autowired private AnswerVoteRepository answerVoteRepository;
+
+  @Autowired private UserRepository userRepository;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  private final List<UUID> userIds = new ArrayList<>();
+
+  @BeforeEach
+  void cleanForum() {
+    answerVoteRepository.deleteAll();
+    questionVoteRepository.deleteAll();
+    answerRepository.deleteAll();
+    questionRepository.deleteAll();
+  }
+
+  // other suites delete every user, which the vote rows would block
+  @AfterEach
+  void cleanUp() {
+    cleanForum();
+    userRepository.deleteAllById(userIds);
+  }
+
+  @Test
+  void writesKeepCountersInStepAndReconcileRepairsDrift() {
+    UUID first = user();
+    UUID second = user();
+    Long questionId = questionRepository.save(new Question("rizz?", "explain", "Kai")).getId();
+    Answer kept = answerService.postAnswer(questionId, answer("charisma"));
+    Answer removed = answerService.postAnswer(questionId, answer("aura"));
+
+    forumVoteService.castQuestionVote(questionId, first, QuestionVote.VoteType.THUMBS_UP);
+    forumVoteService.castQuestionVote(questionId, second, QuestionVote.VoteType.THUMBS_UP);
+    assertThat(
+            forumVoteService.castQuestionVote(
+                questionId, second, QuestionVote.VoteType.THUMBS_DOWN))
+        .isEqualTo(new VoteSummary(1, 1, "THUMBS_DOWN"));
+    // repeating a vote changes nothing
+    forumVoteService.castQuestionVote(questionId, first, QuestionVote.VoteType.THUMBS_UP);
+    assertThat(forumVoteService.clearQuestionVote(questionId, first))
+        .isEqualTo(new VoteSummary(0, 1, null));
+    assertThat(forumVoteService.clearQuestionVote(questionId, first))
+        .isEqualTo(new VoteSummary(0, 1, null));
+    assertThat(
+            forumVoteService.castAnswerVote(kept.getId(), first, AnswerVote.VoteType.THUMBS_UP))
+        .isEqualTo(new VoteSummary(1, 0, "THUMBS_UP"));
+    answerService.deleteAnswer(removed.getId());
+
+    Question question = questionRepository.findById(questionId).orElseThrow();
+    assertThat(question.getAnswerCount()).isEqualTo(1);
+    assertThat(question.getUpvotes()).isZero();
+    assertThat(question.getDownvotes()).isEqualTo(1);
+    assertThat(forumCounterService.findDriftedQuestionIds()).isEmpty();
+    assertThat(forumCounterService.findDriftedAnswerIds()).isEmpty();
+
+    jdbcTemplate.update(
+        "update questions set answer_count = 7, upvotes = 3 where id = ?", questionId);
+    jdbcTemplate.update("update answers set downvotes = 2 where id = ?", kept.getId());
+
+    assertThat(forumCounterService.findDriftedQuestionIds()).containsExactly(questionId);
+    assertThat(forumCounterService.findDriftedAnswerIds()).containsExactly(kept.getId());
+    assertThat(forumCounterService.reconcileQuestion(questionId)).isTrue();
+    assertThat(forumCounterService.reconcileAnswer(kept.getId())).isTrue();
+    assertThat(forumCounterService.reconcileQuestion(questionId)).isFalse();
+
+    question = questionRepository.findById(questionId).orElseThrow();
+    assertThat(question.getAnswerCount()).isEqualTo(1);
+    assertThat(question.getUpvotes()).isZero();
+    assertThat(question.getDownvotes()).isEqualTo(1);
+    Answer repaired = answerRepository.findById(kept.getId()).orElseThrow();
+    assertThat(repaired.getUpvotes()).isEqualTo(1);
+    assertThat(repaired.getDownvotes()).isZero();
+    assertThat(forumCounterService.findDriftedQuestionIds()).isEmpty();
+  }
+
+  @Test
+  void concurrentDeletesOfOneAnswerDecrementOnceAndReportNotFound() throws Exception {
+    Long questionId = questionRepository.save(new Question("rizz?", "explain", "Kai")).getId();
+    answerService.postAnswer(questionId, answer("charisma"));
+    Long answerId = answerService.postAnswer(questionId, answer("aura")).getId();
+
+    CountDownLatch start = new CountDownLatch(1);
+    List<HttpStatusCode> outcomes = new CopyOnWriteArrayList<>();
+    try (ExecutorService pool = Executors.newFixedThreadPool(2)) {
+      for (int i = 0; i < 2; i++) {
+        pool.submit(
+            () -> {
+              start.await();
+              try {
+                answerService.deleteAnswer(answerId);
+                outcomes.add(HttpStatus.NO_CONTENT);
+              } catch (ResponseStatusException ex) {
+                outcomes.add(ex.getStatusCode());
+              }
+              return null;
+            });
+      }
+      start.countDown();
+    }
+
+    assertThat(outcomes).containsExactlyInAnyOrder(HttpStatus.NO_CONTENT, HttpStatus.NOT_FOUND);
+    assertThat(questionRepository.findById(questionId).orElseThrow().getAnswerCount())
+        .isEqualTo(1);
+  }
+
+  private UUID user() {
+    UUID userId = UUID.randomUUID();
+    userRepository.save(new User(userId, userId + "@example.com"));
+    userIds.add(userId);
+    return userId;
+  }
+
+  private Answer answer(String content) {
+    Answer answer = new Answer();
+    answer.setContent(content);
+    answer.setAuthor("Luna");
+    return answer;
+  }
+}
@@ -1,18 +1,28 @@
 package com.group7.app.forum.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.group7.app.forum.dto.AnswerResponse;
 import com.group7.app.forum.dto.VoteSummary;
 import com.group7.app.forum.model.Answer;
+import com.group7.app.forum.model.ModerationStatus;
 import com.group7.app.forum.model.Question;
 import com.group7.app.user.Role;
 import com.group7.app.user.User;
+import com.group7.app.user.UserProfileCache;
 import com.group7.app.user.UserRepository;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -31,7 +41,11 @@ class ForumMappingServiceTest {
 
   @BeforeEach
   void setUp() {
-    forumMappingService = new ForumMappingService(userRepository, forumVoteService);
+    forumMappingService =
+        new ForumMappingService(
+            userRepository,
+            new UserProfileCache(userRepository, 100, Duration.ofMinutes(10)),
+            forumVoteService);
   }
 
   @Test
@@ -65,10 +79,12 @@ class ForumMappingServiceTest {
 
     when(userRepository.findAllById(org.mockito.ArgumentMatchers.anyIterable()))
         .thenReturn(List.of(questionAuthor, answerAuthor));
-    when(forumVoteService.getQuestionVoteSummaries(List.of(1L), viewerId))
-        .thenReturn(Map.of(1L, new VoteSummary(3, 1, "THUMBS_UP")));
-    when(forumVoteService.getAnswerVoteSummaries(List.of(2L), viewerId))
-        .thenReturn(Map.of(2L, new VoteSummary(1, 0, null)));
+    question.setUpvotes(3);
+    question.setDownvotes(1);
+    answer.setUpvotes(1);
+    when(forumVoteService.getQuestionUserVotes(List.of(1L), viewerId))
+        .thenReturn(Map.of(1L, "THUMBS_UP"));
+    when(forumVoteService.getAnswerUserVotes(List.of(2L), viewerId)).thenReturn(Map.of());
 
     var response = forumMappingService.toQuestionResponse(question, viewerId);
 
@@ -78,7 +94,26 @@ class ForumMappingServiceTest {
     assertThat(response.answerCount()).isEqualTo(1);
     assertThat(response.answers()).hasSize(1);
     assertThat(response.answers().get(0).authorInfo().displayName()).isEqualTo("Luna");
-    assertThat(response.votes().thumbsUp()).isEqualTo(3);
+    assertThat(response.votes()).isEqualTo(new VoteSummary(3, 1, "THUMBS_UP"));
+    assertThat(response.answers().get(0).votes()).isEqualTo(new VoteSummary(1, 0, null));
+  }
+
+  @Test
+  void toQuestionResponseShowsUnpublishedAnswersToTheirAuthorOnly() {
+    UUID viewerId = UUID.randomUUID();
+    Question question = new Question("title", "content", "Kai");
+    org.springframework.test.util.ReflectionTestUtils.setField(question, "id", 1L);
+    Answer published = answer(2L, UUID.randomUUID(), ModerationStatus.PUBLISHED);
+    Answer ownPending = answer(3L, viewerId, ModerationStatus.PENDING_MODERATION);
+    Answer rejected = answer(4L, UUID.randomUUID(), ModerationStatus.REJECTED);
+    question.setAnswers(List.of(published, ownPending, rejected));
+
+    var response = forumMappingService.toQuestionResponse(question, viewerId);
+
+    assertThat(response.answers()).extracting(AnswerResponse::id).containsExactly(2L, 3L);
+    assertThat(response.answers().get(1).moderationStatus()).isEqualTo("PENDING_MODERATION");
+    assertThat(response.answerCount()).isEqualTo(1);
+    verify(forumVoteService).getAnswerUserVotes(List.of(2L, 3L), viewerId);
   }
 
   @Test
@@ -90,14 +125,82 @@ class ForumMappingServiceTest {
     Question question = new Question("title", "content", "OldName");
     org.springframework.test.util.ReflectionTestUtils.setField(question, "id", 5L);
 
-    when(userRepository.findFirstByDisplayNameIgnoreCase("OldName"))
-        .thenReturn(Optional.of(legacyUser));
-    when(forumVoteService.getQuestionVoteSummaries(List.of(5L), viewerId))
-        .thenReturn(Map.of(5L, new VoteSummary(0, 0, null)));
+    when(userRepository.findAllByDisplayNameLowercaseIn(Set.of("oldname")))
+        .thenReturn(List.of(legacyUser));
+    when(forumVoteService.getQuestionUserVotes(List.of(5L), viewerId)).thenReturn(Map.of());
 
     var response = forumMappingService.toQuestionResponse(question, viewerId);
 
     assertThat(response.authorInfo().displayName()).isEqualTo("OldName");
     assertThat(response.authorInfo().id()).isEqualTo(legacyUser.getId().toString());
+    verify(userRepository, never()).findAllById(any());
+  }
+
+  @Test
+  void legacyDisplayNameSharedBySeveralUsersStaysUnresolved() {
+    User first = new User(UUID.randomUUID(), "first@example.com");
+    first.setDisplayName("Kai");
+    User second = new User(UUID.randomUUID(), "second@example.com");
+    second.setDisplayName("kai");
+
+    Question question = new Question("title", "content", "KAI");
+    org.springframework.test.util.ReflectionTestUtils.setField(question, "id", 5L);
+
+    when(userRepository.findAllByDisplayNameLowercaseIn(Set.of("kai")))
+        .thenReturn(List.of(first, second));
+    when(forumVoteService.getQuestionUserVotes(List.of(5L), null)).thenReturn(Map.of());
+
+    var response = forumMappingService.toQuestionResponse(question, null);
+
+    assertThat(response.authorInfo().id()).isNull();
+    assertThat(response.authorInfo().displayName()).isEqualTo("KAI");
+  }
+
+  @Test
+  void legacyPageResolvesAuthorsWithOneQueryPerKind() {
+    UUID linkedId = UUID.randomUUID();
+    UUID deletedId = UUID.randomUUID();
+    User linked = new User(linkedId, "linked@example.com");
+    linked.setDisplayName("Kai");
+    User legacy = new User(UUID.randomUUID(), "legacy@example.com");
+    legacy.setDisplayName("Luna");
+
+    List<Question> questions = new ArrayList<>();
+    for (long id = 1; id <= 6; id++) {
+      Question question = new Question("title " + id, "content", id % 2 == 0 ? "luna" : "LUNA");
+      org.springframework.test.util.ReflectionTestUtils.setField(question, "id", id);
+      questions.add(question);
+    }
+    questions.get(0).setAuthorId(linkedId);
+    // an author id that no longer matches a user still falls back to the stored name
+    questions.get(1).setAuthorId(deletedId);
+    Question anonymous = new Question("title", "content", "Nobody");
+    org.springframework.test.util.ReflectionTestUtils.setField(anonymous, "id", 7L);
+    questions.add(anonymous);
+
+    when(userRepository.findAllById(anyIterable())).thenReturn(List.of(linked));
+    when(userRepository.findAllByDisplayNameLowercaseIn(Set.of("luna", "nobody")))
+        .thenReturn(List.of(legacy));
+    when(forumVoteService.getQuestionUserVotes(anyCollection(), any())).thenReturn(Map.of());
+
+    var items = forumMappingService.toQuestionListItemResponses(questions, null);
+
+    assertThat(items)
+        .extracting(item -> item.authorInfo().displayName())
+        .containsExactly("Kai", "Luna", "Luna", "Luna", "Luna", "Luna", "Nobody");
+    assertThat(items.get(1).authorInfo().id()).isEqualTo(legacy.getId().toString());
+    assertThat(items.get(6).authorInfo().id()).isNull();
+    verify(userRepository).findAllById(any());
+    verify(userRepository).findAllByDisplayNameLowercaseIn(any());
+  }
+
+  private static Answer answer(Long id, UUID authorId, ModerationStatus status) {
+    Answer answer = new Answer();
+    org.springframework.test.util.ReflectionTestUtils.setField(answer, "id", id);
+    answer.setAuthor("author " + id);
+    answer.setAuthorId(authorId);
+    answer.setContent("answer " + id);
+    answer.setModerationStatus(status);
+    return answer;
   }
 }
@@ -0,0 +1,294 @@
+package com.group7.app.forum.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.group7.app.forum.model.Answer;
+import com.group7.app.forum.model.ModerationStatus;
+import com.group7.app.forum.model.Question;
+import com.group7.app.forum.model.QuestionVote;
+import com.group7.app.forum.repository.AnswerRepository;
+import com.group7.app.forum.repository.QuestionRepository;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Posts go through the real queue against a local stand-in for the moderation API, which flags any
+ * input containing "forbidden", can be held closed to prove posting does not wait for it, and can
+ * be switched to answering 500.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ForumModerationPipelineTest {
+
+  private static final String FLAGGED =
+      """
+      {"flagged": true, "categories": {"harassment": true, "violence": false}}""";
+  private static final String PASSED =
+      """
+      {"flagged": false, "categories": {"harassment": false}}""";
+
+  private static final ObjectMapper JSON = new ObjectMapper();
+  private static final HttpServer STUB = startStub();
+  private static final AtomicInteger CALLS = new AtomicInteger();
+  private static volatile CountDownLatch gate = new CountDownLatch(0);
+  private static volatile boolean failing;
+
+  @Autowired private QuestionService questionService;
+
+  @Autowired private ModerationService moderationService;
+
+  @Autowired private AnswerService answerService;
+
+  @Autowired private ForumModerationQueue moderationQueue;
+
+  @Autowired private ForumCounterService forumCounterService;
+
+  @Autowired private ForumVoteService forumVoteService;
+
+  @Autowired private QuestionRepository questionRepository;
+
+  @Autowired private AnswerRepository answerRepository;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @DynamicPropertySource
+  static void moderationApi(DynamicPropertyRegistry registry) {
+    registry.add("openai.api-key", () -> "sk-test");
+    registry.add(
+        "openai.moderation.url",
+        () -> "http://localhost:" + STUB.getAddress().getPort() + "/v1/moderations");
+  }
+
+  @AfterAll
+  static void stopStub() {
+    STUB.stop(0);
+  }
+
+  @BeforeEach
+  void cleanForum() {
+    answerRepository.deleteAll();
+    questionRepository.deleteAll();
+  }
+
+  @AfterEach
+  void cleanUp() {
+    failing = false;
+    gate.countDown();
+    cleanForum();
+  }
+
+  @Test
+  void questionIsSavedPendingAndPublishedOnceTheCheckPasses() throws Exception {
+    gate = new CountDownLatch(1);
+    UUID authorId = UUID.randomUUID();
+
+    // the stub is still holding every call, so this can only return because nothing waits on it
+    Question created = questionService.createQuestion(question("what is aura?", authorId));
+
+    assertThat(created.getModerationStatus()).isEqualTo(ModerationStatus.PENDING_MODERATION);
+    assertThat(listedQuestionCount()).isZero();
+    assertThat(questionService.getQuestionWithAnswers(created.getId(), authorId)).isNotNull();
+
+    gate.countDown();
+    awaitStatus(() -> questionStatus(created.getId()), ModerationStatus.PUBLISHED);
+    assertThat(listedQuestionCount()).isEqualTo(1);
+  }
+
+  @Test
+  void flaggedQuestionIsRejectedAndStaysVisibleToItsAuthorOnly() throws Exception {
+    UUID authorId = UUID.randomUUID();
+    Question created = questionService.createQuestion(question("forbidden words", authorId));
+
+    awaitStatus(() -> questionStatus(created.getId()), ModerationStatus.REJECTED);
+
+    Question seenByAuthor = questionService.getQuestionWithAnswers(created.getId(), authorId);
+    assertThat(seenByAuthor.getModerationReason()).contains("harassment");
+    assertThatThrownBy(
+            () -> questionService.getQuestionWithAnswers(created.getId(), UUID.randomUUID()))
+        .isInstanceOf(ResponseStatusException.class);
+    assertThat(listedQuestionCount()).isZero();
+    // its answers and votes are just as hidden
+    assertThat(answerService.getAnswersForQuestion(created.getId(), authorId)).isEmpty();
+    assertThatThrownBy(() -> answerService.getAnswersForQuestion(created.getId(), null))
+        .isInstanceOf(ResponseStatusException.class);
+    assertThatThrownBy(
+            () ->
+                forumVoteService.castQuestionVote(
+                    created.getId(), UUID.randomUUID(), QuestionVote.VoteType.THUMBS_UP))
+        .isInstanceOf(ResponseStatusException.class)
+        .hasMessageContaining("Question not found");
+  }
+
+  @Test
+  void answersOnlyCountOnceTheyArePublished() throws Exception {
+    Long questionId = questionRepository.save(new Question("rizz?", "explain", "Kai")).getId();
+    UUID answerAuthorId = UUID.randomUUID();
+
+    Answer kept = answerService.postAnswer(questionId, answer("charisma", answerAuthorId));
+    Answer flagged = answerService.postAnswer(questionId, answer("forbidden", answerAuthorId));
+
+    awaitStatus(() -> answerStatus(kept.getId()), ModerationStatus.PUBLISHED);
+    awaitStatus(() -> answerStatus(flagged.getId()), ModerationStatus.REJECTED);
+    assertThat(questionRepository.findById(questionId).orElseThrow().getAnswerCount())
+        .isEqualTo(1);
+    assertThat(answerService.getAnswersForQuestion(questionId, null))
+        .extracting(Answer::getId)
+        .containsExactly(kept.getId());
+    assertThat(answerService.getAnswersForQuestion(questionId, answerAuthorId)).hasSize(2);
+    assertThat(forumCounterService.findDriftedQuestionIds()).isEmpty();
+  }
+
+  @Test
+  void sweepPicksUpPostsLeftPendingByARestart() throws Exception {
+    Question orphan = new Question("left behind", "by a restart", "Kai");
+    orphan.setModerationStatus(ModerationStatus.PENDING_MODERATION);
+    Long questionId = questionRepository.save(orphan).getId();
+    jdbcTemplate.update(
+        "update questions set created_at = ? where id = ?",
+        LocalDateTime.now().minusHours(1),
+        questionId);
+
+    assertThat(moderationQueue.sweep()).isEqualTo(1);
+
+    awaitStatus(() -> questionStatus(questionId), ModerationStatus.PUBLISHED);
+  }
+
+  @Test
+  void failedCheckLeavesThePostPendingForTheSweep() throws Exception {
+    failing = true;
+    int callsBefore = CALLS.get();
+    Question created = questionService.createQuestion(question("api is down", UUID.randomUUID()));
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (CALLS.get() == callsBefore && System.nanoTime() < deadline) {
+      Thread.sleep(20);
+    }
+    assertThat(CALLS.get()).isGreaterThan(callsBefore);
+
+    // hold the retry so the status below is what the failed check left behind
+    gate = new CountDownLatch(1);
+    failing = false;
+    jdbcTemplate.update(
+        "update questions set created_at = ? where id = ?",
+        LocalDateTime.now().minusHours(1),
+        created.getId());
+    // the sweep skips the post while the failed check is still on the queue
+    while (moderationQueue.sweep() == 0 && System.nanoTime() < deadline) {
+      Thread.sleep(20);
+    }
+    assertThat(questionStatus(created.getId())).isEqualTo(ModerationStatus.PENDING_MODERATION);
+
+    gate.countDown();
+    awaitStatus(() -> questionStatus(created.getId()), ModerationStatus.PUBLISHED);
+  }
+
+  @Test
+  void repostedTextIsAnsweredFromTheCacheWithoutAnotherCall() throws Exception {
+    UUID authorId = UUID.randomUUID();
+    Question first = questionService.createQuestion(question("forbidden  repost", authorId));
+    awaitStatus(() -> questionStatus(first.getId()), ModerationStatus.REJECTED);
+    int callsBefore = CALLS.get();
+    long hitsBefore = moderationService.stats().cacheHits();
+
+    Question repost = questionService.createQuestion(question("forbidden repost ", authorId));
+
+    awaitStatus(() -> questionStatus(repost.getId()), ModerationStatus.REJECTED);
+    assertThat(CALLS.get()).isEqualTo(callsBefore);
+    assertThat(moderationService.stats().cacheHits()).isGreaterThan(hitsBefore);
+  }
+
+  private long listedQuestionCount() {
+    return questionService.getQuestions(PageRequest.of(0, 10), null).getTotalElements();
+  }
+
+  private ModerationStatus questionStatus(Long id) {
+    return questionRepository.findById(id).orElseThrow().getModerationStatus();
+  }
+
+  private ModerationStatus answerStatus(Long id) {
+    return answerRepository.findById(id).orElseThrow().getModerationStatus();
+  }
+
+  private static void awaitStatus(Supplier<ModerationStatus> status, ModerationStatus expected)
+      throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (status.get() != expected && System.nanoTime() < deadline) {
+      Thread.sleep(20);
+    }
+    assertThat(status.get()).isEqualTo(expected);
+  }
+
+  private static Question question(String title, UUID authorId) {
+    Question question = new Question(title, "content", "Kai");
+    question.setAuthorId(authorId);
+    return question;
+  }
+
+  private static Answer answer(String content, UUID authorId) {
+    Answer answer = new Answer();
+    answer.setContent(content);
+    answer.setAuthor("Luna");
+    answer.setAuthorId(authorId);
+    return answer;
+  }
+
+  private static HttpServer startStub() {
+    try {
+      HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+      server.createContext(
+          "/v1/moderations",
+          exchange -> {
+            CALLS.incrementAndGet();
+            JsonNode input = JSON.readTree(exchange.getRequestBody()).get("input");
+            if (failing) {
+              exchange.sendResponseHeaders(500, -1);
+              exchange.close();
+              return;
+            }
+            try {
+              gate.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+              Thread.currentThread().interrupt();
+            }
+            // one result per input, in order, like the real API
+            StringJoiner results = new StringJoiner(",", "{\"results\": [", "]}");
+            for (JsonNode item : input) {
+              results.add(item.toString().contains("forbidden") ? FLAGGED : PASSED);
+            }
+            byte[] response = results.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+          });
+      server.start();
+      return server;
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+}
@@ -0,0 +1,212 @@
+package com.group7.app.forum.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.group7.app.forum.model.Answer;
+import com.group7.app.forum.model.AnswerVote;
+import com.group7.app.forum.model.Question;
+import com.group7.app.forum.model.QuestionVote;
+import com.group7.app.forum.repository.AnswerRepository;
+import com.group7.app.forum.repository.AnswerVoteRepository;
+import com.group7.app.forum.repository.QuestionRepository;
+import com.group7.app.forum.repository.QuestionVoteRepository;
+import com.group7.app.user.User;
+import com.group7.app.user.UserRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Many voters toggling on one hot question, once through the direct path and once through the
+ * write-behind buffer: both paths must land on counters matching the vote rows, the buffer must
+ * coalesce to one write per voter and must outpace the direct path. Separately, the same voter
+ * casting a first vote from several requests at once must be counted once.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ForumVoteLoadTest {
+
+  private static final Logger log = LoggerFactory.getLogger(ForumVoteLoadTest.class);
+  private static final int VOTERS = 8;
+  private static final int TOGGLES_PER_VOTER = 40;
+  private static final int RACERS_PER_VOTER = 4;
+
+  @Autowired private ForumVoteService forumVoteService;
+
+  @Autowired private ForumCounterService forumCounterService;
+
+  @Autowired private AnswerService answerService;
+
+  @Autowired private QuestionRepository questionRepository;
+
+  @Autowired private AnswerRepository answerRepository;
+
+  @Autowired private QuestionVoteRepository questionVoteRepository;
+
+  @Autowired private AnswerVoteRepository answerVoteRepository;
+
+  @Autowired private UserRepository userRepository;
+
+  private final List<UUID> userIds = new ArrayList<>();
+
+  @BeforeEach
+  void cleanForum() {
+    answerVoteRepository.deleteAll();
+    questionVoteRepository.deleteAll();
+    answerRepository.deleteAll();
+    questionRepository.deleteAll();
+  }
+
+  // other suites delete every user, which the vote rows would block
+  @AfterEach
+  void cleanUp() {
+    cleanForum();
+    userRepository.deleteAllById(userIds);
+  }
+
+  @Test
+  void toggleStormsLeaveCountersMatchingTheVoteRows() throws Exception {
+    saveVoters();
+
+    Long direct = questionRepository.save(new Question("direct?", "votes", "Kai")).getId();
+    double directRate = storm(forumVoteService, direct);
+    assertFinalCounts(direct);
+
+    ForumVoteBuffer buffer = new ForumVoteBuffer(true);
+    ForumVoteService bufferedService =
+        new ForumVoteService(
+            questionVoteRepository,
+            answerVoteRepository,
+            questionRepository,
+            answerRepository,
+            userRepository,
+            buffer);
+    Long buffered = questionRepository.save(new Question("buffered?", "votes", "Kai")).getId();
+    double bufferedRate = storm(bufferedService, buffered);
+    assertThat(buffer.size()).isEqualTo(VOTERS);
+    assertThat(new ForumVoteFlushJob(buffer, bufferedService).flush()).isEqualTo(VOTERS);
+    assertThat(buffer.size()).isZero();
+    assertFinalCounts(buffered);
+
+    // throughput depends on the machine, so it is reported rather than asserted
+    log.info(
+        "{} voters x {} toggles: direct {} votes/s, write-behind {} votes/s",
+        VOTERS,
+        TOGGLES_PER_VOTER,
+        Math.round(directRate),
+        Math.round(bufferedRate));
+  }
+
+  @Test
+  void racingFirstVotesBySameVoterAreCountedOnce() throws Exception {
+    saveVoters();
+    Long questionId = questionRepository.save(new Question("racing?", "votes", "Kai")).getId();
+    Answer answer = new Answer();
+    answer.setContent("first");
+    answer.setAuthor("Luna");
+    Long answerId = answerService.postAnswer(questionId, answer).getId();
+
+    ExecutorService executor = Executors.newFixedThreadPool(VOTERS * RACERS_PER_VOTER);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<?>> racers = new ArrayList<>();
+      for (UUID userId : userIds) {
+        for (int i = 0; i < RACERS_PER_VOTER; i++) {
+          racers.add(
+              executor.submit(
+                  () -> {
+                    start.await();
+                    forumVoteService.castQuestionVote(
+                        questionId, userId, QuestionVote.VoteType.THUMBS_UP);
+                    forumVoteService.castAnswerVote(
+                        answerId, userId, AnswerVote.VoteType.THUMBS_DOWN);
+                    return null;
+                  }));
+        }
+      }
+      start.countDown();
+      // a lost insert race must neither fail the request nor count twice
+      for (Future<?> racer : racers) {
+        racer.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Question storedQuestion = questionRepository.findById(questionId).orElseThrow();
+    assertThat(storedQuestion.getUpvotes()).isEqualTo(VOTERS);
+    assertThat(storedQuestion.getDownvotes()).isZero();
+    Answer storedAnswer = answerRepository.findById(answerId).orElseThrow();
+    assertThat(storedAnswer.getUpvotes()).isZero();
+    assertThat(storedAnswer.getDownvotes()).isEqualTo(VOTERS);
+    assertThat(answerVoteRepository.count()).isEqualTo(VOTERS);
+    assertThat(forumCounterService.findDriftedQuestionIds()).isEmpty();
+    assertThat(forumCounterService.findDriftedAnswerIds()).isEmpty();
+  }
+
+  private void saveVoters() {
+    for (int i = 0; i < VOTERS; i++) {
+      UUID userId = UUID.randomUUID();
+      userRepository.save(new User(userId, userId + "@example.com"));
+      userIds.add(userId);
+    }
+  }
+
+  // every voter ends on THUMBS_DOWN after an even number of toggles
+  private double storm(ForumVoteService service, Long questionId) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(VOTERS);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<?>> voters = new ArrayList<>();
+      for (UUID userId : userIds) {
+        voters.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  for (int i = 0; i < TOGGLES_PER_VOTER; i++) {
+                    service.castQuestionVote(
+                        questionId,
+                        userId,
+                        i % 2 == 0
+                            ? QuestionVote.VoteType.THUMBS_UP
+                            : QuestionVote.VoteType.THUMBS_DOWN);
+                  }
+                  return null;
+                }));
+      }
+      long startedAt = System.nanoTime();
+      start.countDown();
+      for (Future<?> voter : voters) {
+        voter.get(60, TimeUnit.SECONDS);
+      }
+      double seconds = (System.nanoTime() - startedAt) / 1e9;
+      return VOTERS * TOGGLES_PER_VOTER / seconds;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void assertFinalCounts(Long questionId) {
+    Question question = questionRepository.findById(questionId).orElseThrow();
+    assertThat(question.getUpvotes()).isZero();
+    assertThat(question.getDownvotes()).isEqualTo(VOTERS);
+    assertThat(
+            questionVoteRepository.countByQuestionIdAndVoteType(
+                questionId, QuestionVote.VoteType.THUMBS_DOWN))
+        .isEqualTo(VOTERS);
+    assertThat(forumCounterService.findDriftedQuestionIds()).isEmpty();
+  }
+}
@@ -3,18 +3,29 @@ package com.group7.app.forum.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import com.group7.app.forum.dto.VoteSummary;
 import com.group7.app.forum.model.AnswerVote;
+import com.group7.app.forum.model.ModerationStatus;
 import com.group7.app.forum.model.Question;
 import com.group7.app.forum.model.QuestionVote;
 import com.group7.app.forum.repository.AnswerRepository;
 import com.group7.app.forum.repository.AnswerVoteRepository;
 import com.group7.app.forum.repository.QuestionRepository;
 import com.group7.app.forum.repository.QuestionVoteRepository;
+import com.group7.app.forum.repository.VoteCountsView;
+import com.group7.app.forum.repository.VoteWrite;
 import com.group7.app.user.User;
 import com.group7.app.user.UserRepository;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
@@ -22,6 +33,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.server.ResponseStatusException;
 
 @ExtendWith(MockitoExtension.class)
@@ -41,75 +55,55 @@ class ForumVoteServiceTest {
 
   @BeforeEach
   void setUp() {
-    forumVoteService =
-        new ForumVoteService(
-            questionVoteRepository,
-            answerVoteRepository,
-            questionRepository,
-            answerRepository,
-            userRepository);
+    forumVoteService = service(new ForumVoteBuffer(false));
   }
 
   @Test
-  void castQuestionVoteUpdatesExistingVoteAndReturnsSummary() {
+  void castQuestionVoteUpsertsAndReadsTheCounters() {
     UUID userId = UUID.randomUUID();
-    Question question = new Question("title", "content", "author");
-    org.springframework.test.util.ReflectionTestUtils.setField(question, "id", 7L);
-    User user = new User(userId, "user@example.com");
-    QuestionVote existingVote = new QuestionVote(question, user, QuestionVote.VoteType.THUMBS_DOWN);
-
-    when(questionRepository.findById(7L)).thenReturn(Optional.of(question));
-    when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-    when(questionVoteRepository.findByQuestionIdAndUserId(7L, userId))
-        .thenReturn(Optional.of(existingVote));
-    when(questionVoteRepository.save(any(QuestionVote.class)))
-        .thenAnswer(invocation -> invocation.getArgument(0));
-    QuestionVoteRepository.QuestionVoteCountView upCount =
-        org.mockito.Mockito.mock(QuestionVoteRepository.QuestionVoteCountView.class);
-    when(upCount.getQuestionId()).thenReturn(7L);
-    when(upCount.getVoteType()).thenReturn(QuestionVote.VoteType.THUMBS_UP);
-    when(upCount.getVoteCount()).thenReturn(4L);
-    QuestionVoteRepository.QuestionVoteCountView downCount =
-        org.mockito.Mockito.mock(QuestionVoteRepository.QuestionVoteCountView.class);
-    when(downCount.getQuestionId()).thenReturn(7L);
-    when(downCount.getVoteType()).thenReturn(QuestionVote.VoteType.THUMBS_DOWN);
-    when(downCount.getVoteCount()).thenReturn(1L);
-    when(questionVoteRepository.summarizeByQuestionIds(java.util.List.of(7L)))
-        .thenReturn(java.util.List.of(upCount, downCount));
-    when(questionVoteRepository.findAllByQuestionIdInAndUserId(java.util.List.of(7L), userId))
-        .thenReturn(java.util.List.of(existingVote));
+    when(questionRepository.findVoteCountsById(eq(7L), any(), eq(ModerationStatus.PUBLISHED)))
+        .thenReturn(Optional.of(counts(4, 1)));
 
     var summary = forumVoteService.castQuestionVote(7L, userId, QuestionVote.VoteType.THUMBS_UP);
 
-    assertThat(existingVote.getVoteType()).isEqualTo(QuestionVote.VoteType.THUMBS_UP);
-    assertThat(summary.thumbsUp()).isEqualTo(4L);
-    assertThat(summary.userVote()).isEqualTo("THUMBS_UP");
-    verify(questionVoteRepository).save(existingVote);
+    assertThat(summary).isEqualTo(new VoteSummary(4, 1, "THUMBS_UP"));
+    verify(questionVoteRepository).castVote(eq(7L), eq(userId), eq("THUMBS_UP"), any());
+    verify(questionRepository, never()).findById(any());
   }
 
   @Test
-  void clearAnswerVoteReturnsSummaryWithoutUserVote() {
+  void clearAnswerVoteDeletesAndReadsTheCounters() {
     UUID userId = UUID.randomUUID();
-    AnswerVoteRepository.AnswerVoteCountView upCount =
-        org.mockito.Mockito.mock(AnswerVoteRepository.AnswerVoteCountView.class);
-    when(upCount.getAnswerId()).thenReturn(9L);
-    when(upCount.getVoteType()).thenReturn(AnswerVote.VoteType.THUMBS_UP);
-    when(upCount.getVoteCount()).thenReturn(2L);
-    when(answerVoteRepository.summarizeByAnswerIds(java.util.List.of(9L)))
-        .thenReturn(java.util.List.of(upCount));
-    when(answerVoteRepository.findAllByAnswerIdInAndUserId(java.util.List.of(9L), userId))
-        .thenReturn(java.util.List.of());
+    when(answerRepository.findVoteCountsById(eq(9L), any(), eq(ModerationStatus.PUBLISHED)))
+        .thenReturn(Optional.of(counts(2, 0)));
 
     var summary = forumVoteService.clearAnswerVote(9L, userId);
 
-    assertThat(summary.thumbsUp()).isEqualTo(2L);
-    assertThat(summary.userVote()).isNull();
-    verify(answerVoteRepository).deleteByAnswerIdAndUserId(9L, userId);
+    assertThat(summary).isEqualTo(new VoteSummary(2, 0, null));
+    verify(answerVoteRepository).clearVote(9L, userId);
+  }
+
+  @Test
+  void castAnswerVoteRejectsMissingOrHiddenAnswerWithoutWriting() {
+    when(answerRepository.findVoteCountsById(eq(99L), any(), eq(ModerationStatus.PUBLISHED)))
+        .thenReturn(Optional.empty());
+
+    assertThatThrownBy(
+            () ->
+                forumVoteService.castAnswerVote(
+                    99L, UUID.randomUUID(), AnswerVote.VoteType.THUMBS_UP))
+        .isInstanceOf(ResponseStatusException.class)
+        .hasMessageContaining("Answer not found");
+    verifyNoInteractions(answerVoteRepository);
   }
 
   @Test
-  void castAnswerVoteRejectsMissingAnswer() {
-    when(answerRepository.findById(99L)).thenReturn(Optional.empty());
+  void castAnswerVoteRejectsAnswerDeletedDuringTheWrite() {
+    when(answerRepository.findVoteCountsById(eq(99L), any(), eq(ModerationStatus.PUBLISHED)))
+        .thenReturn(Optional.of(counts(0, 0)))
+        .thenReturn(Optional.empty());
+    when(answerVoteRepository.castVote(eq(99L), any(), any(), any()))
+        .thenThrow(new DataIntegrityViolationException("fk_answer_votes_answer"));
 
     assertThatThrownBy(
             () ->
@@ -121,9 +115,11 @@ class ForumVoteServiceTest {
 
   @Test
   void castQuestionVoteRejectsMissingUser() {
-    when(questionRepository.findById(7L))
-        .thenReturn(Optional.of(new Question("title", "content", "author")));
-    when(userRepository.findById(any(UUID.class))).thenReturn(Optional.empty());
+    when(questionVoteRepository.castVote(eq(7L), any(), any(), any()))
+        .thenThrow(new DataIntegrityViolationException("fk_question_votes_user"));
+    when(questionRepository.findVoteCountsById(eq(7L), any(), eq(ModerationStatus.PUBLISHED)))
+        .thenReturn(Optional.of(counts(0, 0)));
+    when(userRepository.existsById(any())).thenReturn(false);
 
     assertThatThrownBy(
             () ->
@@ -132,4 +128,104 @@ class ForumVoteServiceTest {
         .isInstanceOf(ResponseStatusException.class)
         .hasMessageContaining("User not found");
   }
+
+  @Test
+  void castQuestionVoteRepeatsTheWriteAfterLosingTheFirstInsert() {
+    UUID userId = UUID.randomUUID();
+    when(questionVoteRepository.castVote(eq(7L), eq(userId), eq("THUMBS_UP"), any()))
+        .thenThrow(new DuplicateKeyException("uq_question_vote"))
+        .thenReturn(false);
+    when(questionRepository.findVoteCountsById(eq(7L), any(), eq(ModerationStatus.PUBLISHED)))
+        .thenReturn(Optional.of(counts(1, 0)));
+
+    var summary = forumVoteService.castQuestionVote(7L, userId, QuestionVote.VoteType.THUMBS_UP);
+
+    assertThat(summary).isEqualTo(new VoteSummary(1, 0, "THUMBS_UP"));
+    verify(questionVoteRepository, times(2))
+        .castVote(eq(7L), eq(userId), eq("THUMBS_UP"), any());
+    verifyNoInteractions(userRepository);
+  }
+
+  @Test
+  void castAnswerVoteRethrowsViolationsThatAreNotAMissingPostOrVoter() {
+    DataIntegrityViolationException violation = new DataIntegrityViolationException("check");
+    when(answerVoteRepository.castVote(eq(9L), any(), any(), any())).thenThrow(violation);
+    when(answerRepository.findVoteCountsById(eq(9L), any(), eq(ModerationStatus.PUBLISHED)))
+        .thenReturn(Optional.of(counts(0, 0)));
+    when(userRepository.existsById(any())).thenReturn(true);
+
+    assertThatThrownBy(
+            () ->
+                forumVoteService.castAnswerVote(
+                    9L, UUID.randomUUID(), AnswerVote.VoteType.THUMBS_UP))
+        .isSameAs(violation);
+  }
+
+  @Test
+  void bufferedVotesAreQueuedAndShownToTheVoterBeforeTheFlush() {
+    ForumVoteBuffer buffer = new ForumVoteBuffer(true);
+    forumVoteService = service(buffer);
+    UUID userId = UUID.randomUUID();
+    Question question = new Question("title", "content", "author");
+    ReflectionTestUtils.setField(question, "id", 8L);
+    QuestionVote stored =
+        new QuestionVote(
+            question, new User(userId, "user@example.com"), QuestionVote.VoteType.THUMBS_UP);
+    when(questionRepository.findVoteCountsById(eq(7L), any(), eq(ModerationStatus.PUBLISHED)))
+        .thenReturn(Optional.of(counts(4, 1)));
+    when(questionRepository.findVoteCountsById(eq(8L), any(), eq(ModerationStatus.PUBLISHED)))
+        .thenReturn(Optional.of(counts(1, 0)));
+    when(questionVoteRepository.findAllByQuestionIdInAndUserId(List.of(7L, 8L), userId))
+        .thenReturn(List.of(stored));
+
+    var summary = forumVoteService.castQuestionVote(7L, userId, QuestionVote.VoteType.THUMBS_UP);
+    forumVoteService.castQuestionVote(7L, userId, QuestionVote.VoteType.THUMBS_DOWN);
+    forumVoteService.clearQuestionVote(8L, userId);
+
+    assertThat(summary).isEqualTo(new VoteSummary(4, 1, "THUMBS_UP"));
+    assertThat(forumVoteService.getQuestionUserVotes(List.of(7L, 8L), userId))
+        .isEqualTo(Map.of(7L, "THUMBS_DOWN"));
+    verify(questionVoteRepository, never()).castVote(any(), any(), any(), any());
+    verify(questionVoteRepository, never()).clearVote(any(), any());
+
+    // toggles coalesce into one write per voter and post
+    assertThat(buffer.drain(ForumVoteBuffer.Target.QUESTION, 10))
+        .containsExactlyInAnyOrder(
+            new VoteWrite(7L, userId, "THUMBS_DOWN"), new VoteWrite(8L, userId, null));
+    assertThat(buffer.size()).isZero();
+  }
+
+  @Test
+  void applyBufferedWritesTheBatchToTheMatchingRepository() {
+    List<VoteWrite> writes = List.of(new VoteWrite(9L, UUID.randomUUID(), "THUMBS_UP"));
+
+    assertThat(forumVoteService.applyBuffered(ForumVoteBuffer.Target.ANSWER, writes)).isOne();
+
+    verify(answerVoteRepository).applyVotes(eq(writes), any(Instant.class));
+    verifyNoInteractions(questionVoteRepository);
+  }
+
+  private ForumVoteService service(ForumVoteBuffer buffer) {
+    return new ForumVoteService(
+        questionVoteRepository,
+        answerVoteRepository,
+        questionRepository,
+        answerRepository,
+        userRepository,
+        buffer);
+  }
+
+  private VoteCountsView counts(long upvotes, long downvotes) {
+    return new VoteCountsView() {
+      @Override
+      public long getUpvotes() {
+        return upvotes;
+      }
+
+      @Override
+      public long getDownvotes() {
+        return downvotes;
+      }
+    };
+  }
 }
@@ -0,0 +1,143 @@
+package com.group7.app.forum.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+
+class ModerationBatcherTest {
+
+  private final List<List<String>> calls = new CopyOnWriteArrayList<>();
+
+  // flags every text containing "bad", one verdict per text in order
+  private final Function<List<String>, List<ModerationService.Verdict>> api =
+      texts -> {
+        calls.add(texts);
+        return texts.stream()
+            .map(
+                text ->
+                    text.contains("bad")
+                        ? new ModerationService.Verdict(true, List.of("harassment"))
+                        : ModerationService.Verdict.PASSED)
+            .toList();
+      };
+
+  @Test
+  void concurrentChecksShareOneCallAndEachGetsItsOwnVerdict() throws Exception {
+    ModerationBatcher batcher = new ModerationBatcher(32, Duration.ofMillis(300), api);
+    List<String> texts = List.of("fine one", "bad one", "fine two", "bad two", "fine three");
+
+    Map<String, ModerationService.Verdict> verdicts = checkConcurrently(batcher, texts);
+
+    assertThat(calls).hasSize(1);
+    assertThat(calls.get(0)).containsExactlyInAnyOrderElementsOf(texts);
+    for (String text : texts) {
+      assertThat(verdicts.get(text).flagged()).isEqualTo(text.contains("bad"));
+    }
+    assertThat(batcher.batches()).isEqualTo(1);
+    assertThat(batcher.batchedTexts()).isEqualTo(5);
+    assertThat(batcher.largestBatch()).isEqualTo(5);
+  }
+
+  @Test
+  void batchesAreCappedAtMaxItems() throws Exception {
+    ModerationBatcher batcher = new ModerationBatcher(2, Duration.ofMillis(100), api);
+    List<String> texts = List.of("a", "b", "bad c", "d", "e");
+
+    Map<String, ModerationService.Verdict> verdicts = checkConcurrently(batcher, texts);
+
+    assertThat(calls).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(2));
+    assertThat(calls.stream().mapToInt(List::size).sum()).isEqualTo(5);
+    assertThat(verdicts.get("bad c").flagged()).isTrue();
+    assertThat(verdicts.get("d").flagged()).isFalse();
+    assertThat(batcher.largestBatch()).isEqualTo(2);
+  }
+
+  @Test
+  void failedCallYieldsNoVerdict() {
+    ModerationBatcher batcher = new ModerationBatcher(32, Duration.ZERO, texts -> null);
+
+    assertThat(batcher.check("key", "anything")).isNull();
+    assertThat(batcher.batches()).isEqualTo(1);
+  }
+
+  @Test
+  void throwingCallYieldsNoVerdictAndLeavesNothingWaiting() {
+    ModerationBatcher batcher =
+        new ModerationBatcher(
+            32,
+            Duration.ZERO,
+            texts -> {
+              throw new IllegalStateException("connection reset");
+            });
+
+    assertThat(batcher.check("key", "anything")).isNull();
+    assertThat(batcher.check("key", "anything")).isNull();
+    assertThat(batcher.batches()).isEqualTo(2);
+  }
+
+  @Test
+  void nextBatchGoesOutWhileTheFirstIsInFlight() throws Exception {
+    CountDownLatch bothInFlight = new CountDownLatch(2);
+    AtomicInteger overlapping = new AtomicInteger();
+    // each call waits for the other, so this only finishes quickly if they overlap
+    ModerationBatcher batcher =
+        new ModerationBatcher(
+            1,
+            Duration.ZERO,
+            texts -> {
+              bothInFlight.countDown();
+              try {
+                if (bothInFlight.await(5, TimeUnit.SECONDS)) {
+                  overlapping.incrementAndGet();
+                }
+              } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+              }
+              return api.apply(texts);
+            });
+
+    Map<String, ModerationService.Verdict> verdicts =
+        checkConcurrently(batcher, List.of("fine", "bad"));
+
+    assertThat(overlapping.get()).isEqualTo(2);
+    assertThat(verdicts.get("bad").flagged()).isTrue();
+    assertThat(verdicts.get("fine").flagged()).isFalse();
+    assertThat(batcher.batches()).isEqualTo(2);
+  }
+
+  private static Map<String, ModerationService.Verdict> checkConcurrently(
+      ModerationBatcher batcher, List<String> texts) throws Exception {
+    CountDownLatch start = new CountDownLatch(1);
+    Map<String, ModerationService.Verdict> verdicts = new ConcurrentHashMap<>();
+    try (ExecutorService pool = Executors.newFixedThreadPool(texts.size())) {
+      List<Future<?>> futures =
+          texts.stream()
+              .<Future<?>>map(
+                  text ->
+                      pool.submit(
+                          () -> {
+                            start.await();
+                            verdicts.put(text, batcher.check(text, text));
+                            return null;
+                          }))
+              .toList();
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    }
+    return verdicts;
+  }
+}
@@ -0,0 +1,48 @@
+package com.group7.app.forum.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ModerationResultCacheTest {
+
+  private static final ModerationService.Verdict FLAGGED =
+      new ModerationService.Verdict(true, List.of("hate"));
+
+  @Test
+  void textKeysIgnoreWhitespaceAndUnicodeCompositionDifferences() {
+    // a decomposed "e" plus combining accent against the precomposed character
+    String key =
+        ModerationResultCache.textKey(ModerationResultCache.normalize("cafe\u0301  au\nlait "));
+
+    assertThat(ModerationResultCache.textKey(ModerationResultCache.normalize("caf\u00e9 au lait")))
+        .isEqualTo(key);
+    assertThat(ModerationResultCache.textKey(ModerationResultCache.normalize("cafe au lait")))
+        .isNotEqualTo(key);
+    assertThat(key).startsWith("text:").hasSize("text:".length() + 64);
+    assertThat(ModerationResultCache.imageKey(" https://cdn.example.com/a.png"))
+        .isEqualTo("image:https://cdn.example.com/a.png");
+  }
+
+  @Test
+  void entriesExpireAndTheLeastRecentlyUsedOneIsEvicted() {
+    ModerationResultCache expiring = new ModerationResultCache(100, Duration.ZERO);
+    expiring.put("text:a", FLAGGED);
+    assertThat(expiring.get("text:a")).isNull();
+
+    ModerationResultCache bounded = new ModerationResultCache(2, Duration.ofMinutes(1));
+    bounded.put("text:a", FLAGGED);
+    bounded.put("text:b", ModerationService.Verdict.PASSED);
+    bounded.get("text:a");
+    bounded.put("image:c", ModerationService.Verdict.PASSED);
+
+    assertThat(bounded.get("text:a")).isEqualTo(FLAGGED);
+    assertThat(bounded.get("text:b")).isNull();
+    assertThat(bounded.get("image:c")).isEqualTo(ModerationService.Verdict.PASSED);
+    assertThat(bounded.hits()).isEqualTo(3);
+    assertThat(bounded.misses()).isEqualTo(1);
+    assertThat(bounded.size()).isEqualTo(2);
+  }
+}
@@ -1,15 +1,19 @@
 package com.group7.app.forum.service;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
 import org.junit.jupiter.api.Test;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -17,21 +21,35 @@ class ModerationServiceTest {
 
   private final ObjectMapper objectMapper = new ObjectMapper();
 
+  private HttpClient client;
+
   @SuppressWarnings("unchecked")
   private ModerationService createService(
       String apiKey, boolean enabled, int statusCode, String body) throws Exception {
-    HttpClient client = mock(HttpClient.class);
+    client = mock(HttpClient.class);
     HttpResponse<String> response = mock(HttpResponse.class);
     when(response.statusCode()).thenReturn(statusCode);
     when(response.body()).thenReturn(body);
     when(client.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
         .thenReturn(response);
 
-    ModerationService service = new ModerationService(apiKey, enabled, objectMapper);
+    ModerationService service = service(apiKey, enabled);
     service.setHttpClient(client);
     return service;
   }
 
+  private ModerationService service(String apiKey, boolean enabled) {
+    return new ModerationService(
+        apiKey,
+        enabled,
+        "https://api.openai.com/v1/moderations",
+        Duration.ofSeconds(10),
+        32,
+        Duration.ZERO,
+        new ModerationResultCache(100, Duration.ofMinutes(1)),
+        objectMapper);
+  }
+
   @Test
   void safeContentPassesModeration() throws Exception {
     String responseJson =
@@ -76,23 +94,74 @@ class ModerationServiceTest {
         .hasMessageContaining("hate");
   }
 
+  @Test
+  void reviewReturnsTheFlaggedCategoriesInsteadOfThrowing() throws Exception {
+    String responseJson =
+        """
+        {"results": [{"flagged": true, "categories": {"harassment": true, "hate": false}}]}
+        """;
+    ModerationService service = createService("sk-test", true, 200, responseJson);
+
+    ModerationService.Verdict verdict = service.review("some bad content").orElseThrow();
+
+    assertThat(verdict.flagged()).isTrue();
+    assertThat(verdict.categories()).containsExactly("harassment");
+    assertThat(service("", true).review("anything")).contains(ModerationService.Verdict.PASSED);
+  }
+
   @Test
   void apiErrorFailsOpen() throws Exception {
     ModerationService service = createService("sk-test", true, 500, "Internal Server Error");
 
     assertThatCode(() -> service.moderateText("anything")).doesNotThrowAnyException();
+    // a fail-open pass is not cached, so the next check asks again
+    service.moderateText("anything");
+    verify(client, times(2)).send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+  }
+
+  @Test
+  void reviewReportsAFailedCallInsteadOfPassing() throws Exception {
+    ModerationService service = createService("sk-test", true, 500, "Internal Server Error");
+
+    assertThat(service.review("anything ![a](https://cdn.example.com/a.png)")).isEmpty();
+    assertThatCode(() -> service.moderateContent("anything")).doesNotThrowAnyException();
+    assertThat(service.stats().cachedResults()).isZero();
+  }
+
+  @Test
+  void repeatedTextAndImagesAreAnsweredFromTheCache() throws Exception {
+    String responseJson =
+        """
+        {"results": [{"flagged": true, "categories": {"harassment": true}}]}
+        """;
+    ModerationService service = createService("sk-test", true, 200, responseJson);
+
+    service.review("same  text ![a](https://cdn.example.com/a.png)");
+    ModerationService.Verdict again =
+        service.review(" same text ![a](https://cdn.example.com/a.png)\n").orElseThrow();
+
+    assertThat(again.flagged()).isTrue();
+    assertThat(again.categories()).containsExactly("harassment");
+    // one text call and one image call, then only cache hits
+    verify(client, times(2)).send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+    ModerationService.Stats stats = service.stats();
+    assertThat(stats.cacheHits()).isEqualTo(2);
+    assertThat(stats.cacheMisses()).isEqualTo(2);
+    assertThat(stats.cacheHitRate()).isEqualTo(0.5);
+    assertThat(stats.textBatches()).isEqualTo(1);
+    assertThat(stats.imageCalls()).isEqualTo(1);
   }
 
   @Test
   void disabledModerationSkipsCheck() {
-    ModerationService service = new ModerationService("sk-test", false, objectMapper);
+    ModerationService service = service("sk-test", false);
 
     assertThatCode(() -> service.moderateText("anything")).doesNotThrowAnyException();
   }
 
   @Test
   void missingApiKeySkipsCheck() {
-    ModerationService service = new ModerationService("", true, objectMapper);
+    ModerationService service = service("", true);
 
     assertThatCode(() -> service.moderateText("anything")).doesNotThrowAnyException();
   }
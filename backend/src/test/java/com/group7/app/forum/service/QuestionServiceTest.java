@@ -5,10 +5,13 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import com.group7.app.forum.model.ModerationStatus;
 import com.group7.app.forum.model.Question;
 import com.group7.app.forum.repository.QuestionRepository;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -19,6 +22,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.server.ResponseStatusException;
@@ -30,39 +34,65 @@ class QuestionServiceTest {
 
   @Mock private ModerationService moderationService;
 
+  @Mock private ForumModerationQueue moderationQueue;
+
   private QuestionService questionService;
 
   @BeforeEach
   void setUp() {
-    questionService = new QuestionService(repository, moderationService);
+    questionService = new QuestionService(repository, moderationService, moderationQueue);
   }
 
   @Test
-  void getQuestionsUsesSearchRepositoryWhenSearchIsPresent() {
+  void getQuestionsReturnsSearchMatchesInRelevanceOrder() {
     PageRequest pageable = PageRequest.of(0, 10);
-    Question question = new Question("title", "content", "author");
-    when(repository.searchIncludingAnswers("rizz", pageable))
-        .thenReturn(new PageImpl<>(List.of(question), pageable, 1));
+    Question best = new Question("rizz", "content", "author");
+    ReflectionTestUtils.setField(best, "id", 4L);
+    Question other = new Question("title", "rizzler", "author");
+    ReflectionTestUtils.setField(other, "id", 9L);
+    when(repository.searchQuestionIds("rizz", pageable))
+        .thenReturn(new PageImpl<>(List.of(4L, 9L), pageable, 12));
+    when(repository.findAllById(List.of(4L, 9L))).thenReturn(List.of(other, best));
 
     var result = questionService.getQuestions(pageable, "rizz");
 
-    assertThat(result.getContent()).containsExactly(question);
-    verify(repository).searchIncludingAnswers("rizz", pageable);
-    verify(repository, never()).findAllByOrderByCreatedAtDesc(any());
+    assertThat(result.getContent()).containsExactly(best, other);
+    assertThat(result.getTotalElements()).isEqualTo(12);
+    verify(repository, never()).findByModerationStatusOrderByCreatedAtDescIdDesc(any(), any());
   }
 
   @Test
   void getQuestionsFallsBackToDefaultListingWhenSearchIsBlank() {
     PageRequest pageable = PageRequest.of(0, 10);
     Question question = new Question("title", "content", "author");
-    when(repository.findAllByOrderByCreatedAtDesc(pageable))
+    when(repository.findByModerationStatusOrderByCreatedAtDescIdDesc(
+            ModerationStatus.PUBLISHED, pageable))
         .thenReturn(new PageImpl<>(List.of(question), pageable, 1));
 
     var result = questionService.getQuestions(pageable, "   ");
 
     assertThat(result.getContent()).containsExactly(question);
-    verify(repository).findAllByOrderByCreatedAtDesc(pageable);
-    verify(repository, never()).searchIncludingAnswers(any(), any());
+    verify(repository)
+        .findByModerationStatusOrderByCreatedAtDescIdDesc(ModerationStatus.PUBLISHED, pageable);
+    verify(repository, never()).searchQuestionIds(any(), any());
+  }
+
+  @Test
+  void getQuestionFeedStartsAtTheTopAndResumesAfterTheCursor() {
+    Question question = new Question("title", "content", "author");
+    LocalDateTime createdAt = LocalDateTime.of(2026, 10, 1, 12, 0);
+    when(repository.findFeedByModerationStatusOrderByCreatedAtDescIdDesc(
+            ModerationStatus.PUBLISHED, PageRequest.of(0, 5)))
+        .thenReturn(new SliceImpl<>(List.of(question), PageRequest.of(0, 5), true));
+    when(repository.findFeedAfter(
+            ModerationStatus.PUBLISHED, createdAt, 42L, PageRequest.of(0, 5)))
+        .thenReturn(new SliceImpl<>(List.of(), PageRequest.of(0, 5), false));
+
+    QuestionFeedCursor cursor = new QuestionFeedCursor(createdAt, 42L);
+
+    assertThat(questionService.getQuestionFeed(null, 5).getContent()).containsExactly(question);
+    assertThat(questionService.getQuestionFeed(cursor, 5).hasNext()).isFalse();
+    verify(repository, never()).findByModerationStatusOrderByCreatedAtDescIdDesc(any(), any());
   }
 
   @Test
@@ -71,11 +101,27 @@ class QuestionServiceTest {
     ReflectionTestUtils.setField(question, "id", 9L);
     when(repository.findWithAnswersById(9L)).thenReturn(Optional.of(question));
 
-    Question result = questionService.getQuestionWithAnswers(9L);
+    Question result = questionService.getQuestionWithAnswers(9L, null);
 
     assertThat(result).isSameAs(question);
   }
 
+  @Test
+  void getQuestionWithAnswersShowsPendingQuestionToItsAuthorOnly() {
+    UUID authorId = UUID.randomUUID();
+    Question question = new Question("title", "content", "author");
+    ReflectionTestUtils.setField(question, "id", 9L);
+    question.setAuthorId(authorId);
+    question.setModerationStatus(ModerationStatus.PENDING_MODERATION);
+    when(repository.findWithAnswersById(9L)).thenReturn(Optional.of(question));
+
+    assertThat(questionService.getQuestionWithAnswers(9L, authorId)).isSameAs(question);
+    assertThatThrownBy(() -> questionService.getQuestionWithAnswers(9L, UUID.randomUUID()))
+        .isInstanceOfSatisfying(
+            ResponseStatusException.class,
+            ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+  }
+
   @Test
   void createQuestionRejectsMissingTitle() {
     assertThatThrownBy(() -> questionService.createQuestion(new Question(" ", "content", "Kai")))
@@ -99,16 +145,31 @@ class QuestionServiceTest {
   }
 
   @Test
-  void createQuestionTrimsFieldsDefaultsAnonymousAndModerates() {
+  void createQuestionTrimsFieldsDefaultsAnonymousAndQueuesModeration() {
     Question question = new Question("  what is aura?  ", "explain it", "   ");
+    ReflectionTestUtils.setField(question, "id", 5L);
+    when(moderationService.isActive()).thenReturn(true);
     when(repository.save(question)).thenReturn(question);
 
     Question created = questionService.createQuestion(question);
 
     assertThat(created.getTitle()).isEqualTo("what is aura?");
     assertThat(created.getAuthor()).isEqualTo("Anonymous");
-    verify(moderationService).moderateContent("what is aura?\nexplain it");
+    assertThat(created.getModerationStatus()).isEqualTo(ModerationStatus.PENDING_MODERATION);
     verify(repository).save(question);
+    verify(moderationQueue).submitQuestion(5L);
+    verify(moderationService, never()).moderateContent(any());
+  }
+
+  @Test
+  void createQuestionPublishesRightAwayWhenModerationIsOff() {
+    Question question = new Question("title", "content", "Kai");
+    when(repository.save(question)).thenReturn(question);
+
+    Question created = questionService.createQuestion(question);
+
+    assertThat(created.getModerationStatus()).isEqualTo(ModerationStatus.PUBLISHED);
+    verifyNoInteractions(moderationQueue);
   }
 
   @Test
@@ -21,12 +21,16 @@ import com.group7.app.lesson.repository.LessonAttemptResultRepository;
 import com.group7.app.lesson.repository.LessonRepository;
 import com.group7.app.lesson.repository.LessonStepRepository;
 import com.group7.app.lesson.repository.UnitRepository;
+import com.group7.app.lesson.repository.UserDailyStatsRepository;
 import com.group7.app.lesson.repository.UserLessonProgressRepository;
 import com.group7.app.lesson.repository.UserStepEventRepository;
+import com.group7.app.lesson.repository.UserStepReviewStateRepository;
+import com.group7.app.lesson.repository.UserUnitStatsRepository;
 import com.group7.app.lesson.repository.UserVocabMemoryRepository;
 import com.group7.app.lesson.repository.VocabItemRepository;
 import com.group7.app.user.Role;
 import com.group7.app.user.User;
+import com.group7.app.user.UserDailyPointsRepository;
 import com.group7.app.user.UserRepository;
 import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
@@ -59,6 +63,8 @@ class LessonSchemaV2E2ETest {
 
   @Autowired private UserVocabMemoryRepository userVocabMemoryRepository;
 
+  @Autowired private UserStepReviewStateRepository userStepReviewStateRepository;
+
   @Autowired private LessonStepRepository lessonStepRepository;
 
   @Autowired private LessonRepository lessonRepository;
@@ -69,6 +75,12 @@ class LessonSchemaV2E2ETest {
 
   @Autowired private UserRepository userRepository;
 
+  @Autowired private UserDailyPointsRepository userDailyPointsRepository;
+
+  @Autowired private UserDailyStatsRepository userDailyStatsRepository;
+
+  @Autowired private UserUnitStatsRepository userUnitStatsRepository;
+
   @BeforeEach
   void cleanDatabase() {
     lessonAttemptResultRepository.deleteAll();
@@ -76,10 +88,14 @@ class LessonSchemaV2E2ETest {
     userStepEventRepository.deleteAll();
     userLessonProgressRepository.deleteAll();
     userVocabMemoryRepository.deleteAll();
+    userStepReviewStateRepository.deleteAll();
     lessonStepRepository.deleteAll();
     lessonRepository.deleteAll();
     vocabItemRepository.deleteAll();
+    userUnitStatsRepository.deleteAll();
     unitRepository.deleteAll();
+    userDailyPointsRepository.deleteAll();
+    userDailyStatsRepository.deleteAll();
     userRepository.deleteAll();
   }
 
@@ -296,6 +312,22 @@ class LessonSchemaV2E2ETest {
             jsonPath("$.results[1].correctAnswer")
                 .value("rizz = charisma or flirting ability; cap = a lie"));
 
+    mockMvc
+        .perform(get("/api/leaderboard").with(auth(learner)).param("window", "day"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].userId").value(learner.getId().toString()))
+        .andExpect(jsonPath("$[0].totalScore").value(100));
+
+    mockMvc
+        .perform(get("/api/analytics/me").with(auth(learner)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.dailyXp[29].xp").value(100))
+        .andExpect(jsonPath("$.weeklyAttempts[7].passed").value(1))
+        .andExpect(jsonPath("$.unitAccuracy[0].unitTitle").value("Slang Foundations"))
+        .andExpect(jsonPath("$.unitAccuracy[0].accuracyPct").value(100))
+        .andExpect(jsonPath("$.totalAttempts").value(1))
+        .andExpect(jsonPath("$.totalCorrect").value(3));
+
     mockMvc
         .perform(get("/api/user-lesson-progress").with(auth(learner)))
         .andExpect(status().isOk())
@@ -337,6 +369,12 @@ class LessonSchemaV2E2ETest {
         .andExpect(jsonPath("$.results[0].correct").value(false))
         .andExpect(jsonPath("$.results[0].correctAnswer").value("Charisma or flirting ability"))
         .andExpect(jsonPath("$.dueCount").value(0));
+
+    mockMvc
+        .perform(get("/api/due-summary").with(auth(learner)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.reviseDue").value(0))
+        .andExpect(jsonPath("$.vocabDue").value(0));
   }
 
   @Test
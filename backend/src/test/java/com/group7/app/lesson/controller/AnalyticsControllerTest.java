@@ -1,15 +1,16 @@
 package com.group7.app.lesson.controller;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
-import com.group7.app.lesson.model.Lesson;
-import com.group7.app.lesson.model.LessonAttempt;
-import com.group7.app.lesson.model.Unit;
-import com.group7.app.lesson.repository.LessonAttemptRepository;
+import com.group7.app.lesson.model.UserDailyStats;
+import com.group7.app.lesson.repository.UserDailyStatsRepository;
+import com.group7.app.lesson.repository.UserUnitStatsRepository;
 import com.group7.app.lesson.service.AuthContextService;
 import com.group7.app.user.User;
-import java.time.Instant;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.util.List;
@@ -19,6 +20,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.BeanUtils;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -26,7 +28,9 @@ import org.springframework.test.util.ReflectionTestUtils;
 @ExtendWith(MockitoExtension.class)
 class AnalyticsControllerTest {
 
-  @Mock private LessonAttemptRepository lessonAttemptRepository;
+  @Mock private UserDailyStatsRepository userDailyStatsRepository;
+
+  @Mock private UserUnitStatsRepository userUnitStatsRepository;
 
   @Mock private AuthContextService authContextService;
 
@@ -34,11 +38,13 @@ class AnalyticsControllerTest {
 
   @BeforeEach
   void setUp() {
-    analyticsController = new AnalyticsController(lessonAttemptRepository, authContextService);
+    analyticsController =
+        new AnalyticsController(
+            userDailyStatsRepository, userUnitStatsRepository, authContextService);
   }
 
   @Test
-  void getMyAnalyticsAggregatesRecentAttemptsAndUserStats() {
+  void getMyAnalyticsBuildsChartsFromRollupsAndUserStats() {
     UUID userId = UUID.randomUUID();
     User user = new User(userId, "user@example.com");
     user.setCompletedLessonsCount(2);
@@ -47,51 +53,55 @@ class AnalyticsControllerTest {
     user.setTotalTimeSeconds(240L);
 
     LocalDate today = LocalDate.now(ZoneOffset.UTC);
-    LessonAttempt recentPassed = attemptForDate(userId, "Core", today.minusDays(1), 20, 5, 4, true);
-    LessonAttempt recentFailed =
-        attemptForDate(userId, "Core", today.minusDays(8), 10, 4, 2, false);
-    LessonAttempt zeroQuestionAttempt =
-        attemptForDate(userId, "Meta", today.minusDays(2), 5, 0, 0, true);
-    LessonAttempt oldAttempt =
-        attemptForDate(userId, "Archived", today.minusDays(60), 50, 10, 10, true);
-
+    LocalDate firstDay = today.with(DayOfWeek.MONDAY).minusWeeks(7);
     Jwt jwt = jwt(userId);
     when(authContextService.resolveUser(jwt)).thenReturn(user);
-    when(lessonAttemptRepository.findByUserIdWithLessonAndUnit(userId))
-        .thenReturn(List.of(recentPassed, recentFailed, zeroQuestionAttempt, oldAttempt));
+    when(userDailyStatsRepository.findByUserIdAndStatDateBetweenOrderByStatDateAsc(
+            userId, firstDay, today))
+        .thenReturn(
+            List.of(
+                day(today.minusDays(8), 10, 1, 0),
+                day(today.minusDays(2), 5, 1, 1),
+                day(today.minusDays(1), 20, 1, 1)));
+    // an old attempt only shows up in the all-time unit counters; two units share the "Core" title
+    when(userUnitStatsRepository.findUnitStats(userId))
+        .thenReturn(
+            List.of(
+                unit("Core", 2, 6, 9),
+                unit("Meta", 1, 0, 0),
+                unit("Archived", 1, 10, 10),
+                unit("Core", 1, 2, 3)));
 
     ResponseEntity<AnalyticsController.UserAnalyticsResponse> response =
         analyticsController.getMyAnalytics(jwt);
 
     AnalyticsController.UserAnalyticsResponse body = response.getBody();
     assertThat(body).isNotNull();
-    assertThat(body.totalAttempts()).isEqualTo(4);
-    assertThat(body.totalCorrect()).isEqualTo(16);
-    assertThat(body.totalQuestions()).isEqualTo(19);
+    assertThat(body.totalAttempts()).isEqualTo(5);
+    assertThat(body.totalCorrect()).isEqualTo(18);
+    assertThat(body.totalQuestions()).isEqualTo(22);
     assertThat(body.lessonsCompleted()).isEqualTo(2);
     assertThat(body.maxStreak()).isEqualTo(7);
     assertThat(body.currentStreak()).isEqualTo(3);
     assertThat(body.avgTimeSeconds()).isEqualTo(120.0);
     assertThat(body.dailyXp()).hasSize(30);
-    assertThat(body.dailyXp())
-        .anySatisfy(entry -> assertThat(entry.date()).isEqualTo(today.minusDays(1).toString()));
     assertThat(body.dailyXp())
         .filteredOn(entry -> entry.date().equals(today.minusDays(1).toString()))
         .singleElement()
         .extracting(AnalyticsController.DailyXpEntry::xp)
         .isEqualTo(20);
-    assertThat(body.unitAccuracy()).hasSize(2);
     assertThat(body.unitAccuracy())
-        .filteredOn(entry -> entry.unitTitle().equals("Core"))
-        .singleElement()
+        .extracting(AnalyticsController.UnitAccuracy::unitTitle)
+        .containsExactly("Core", "Archived");
+    assertThat(body.unitAccuracy().get(0))
         .satisfies(
             entry -> {
-              assertThat(entry.correct()).isEqualTo(6);
-              assertThat(entry.total()).isEqualTo(9);
+              assertThat(entry.correct()).isEqualTo(8);
+              assertThat(entry.total()).isEqualTo(12);
               assertThat(entry.accuracyPct()).isEqualTo(67);
             });
-    assertThat(body.unitAccuracy()).noneMatch(entry -> entry.unitTitle().equals("Meta"));
     assertThat(body.weeklyAttempts()).hasSize(8);
+    assertThat(body.weeklyAttempts().get(0).weekStart()).isEqualTo(firstDay.toString());
     assertThat(
             body.weeklyAttempts().stream()
                 .mapToInt(AnalyticsController.WeeklyEntry::attempts)
@@ -109,7 +119,10 @@ class AnalyticsControllerTest {
     Jwt jwt = jwt(userId);
 
     when(authContextService.resolveUser(jwt)).thenReturn(user);
-    when(lessonAttemptRepository.findByUserIdWithLessonAndUnit(userId)).thenReturn(List.of());
+    when(userDailyStatsRepository.findByUserIdAndStatDateBetweenOrderByStatDateAsc(
+            eq(userId), any(LocalDate.class), any(LocalDate.class)))
+        .thenReturn(List.of());
+    when(userUnitStatsRepository.findUnitStats(userId)).thenReturn(List.of());
 
     AnalyticsController.UserAnalyticsResponse body =
         analyticsController.getMyAnalytics(jwt).getBody();
@@ -124,28 +137,38 @@ class AnalyticsControllerTest {
     assertThat(body.unitAccuracy()).isEmpty();
   }
 
-  private LessonAttempt attemptForDate(
-      UUID userId,
-      String unitTitle,
-      LocalDate submittedDate,
-      int score,
-      int totalQuestions,
-      int correctCount,
-      boolean passed) {
-    Unit unit = new Unit(unitTitle, unitTitle.toLowerCase(), "desc", 1);
-    ReflectionTestUtils.setField(unit, "id", (long) Math.abs(unitTitle.hashCode()));
-    Lesson lesson = new Lesson(unit, "Lesson", "lesson", "desc", null, 5, 1, userId);
-    ReflectionTestUtils.setField(lesson, "id", (long) Math.abs((unitTitle + "-lesson").hashCode()));
-    Instant submittedAt = submittedDate.atStartOfDay().toInstant(ZoneOffset.UTC);
-    return new LessonAttempt(
-        userId,
-        lesson,
-        score,
-        totalQuestions,
-        correctCount,
-        passed,
-        submittedAt.minusSeconds(120),
-        submittedAt);
+  private UserDailyStats day(LocalDate statDate, int xp, int attempts, int passed) {
+    UserDailyStats day = BeanUtils.instantiateClass(UserDailyStats.class);
+    ReflectionTestUtils.setField(day, "statDate", statDate);
+    ReflectionTestUtils.setField(day, "xp", xp);
+    ReflectionTestUtils.setField(day, "attempts", attempts);
+    ReflectionTestUtils.setField(day, "passed", passed);
+    return day;
+  }
+
+  private UserUnitStatsRepository.UnitStatsView unit(
+      String unitTitle, int attempts, int correct, int total) {
+    return new UserUnitStatsRepository.UnitStatsView() {
+      @Override
+      public String getUnitTitle() {
+        return unitTitle;
+      }
+
+      @Override
+      public int getAttempts() {
+        return attempts;
+      }
+
+      @Override
+      public int getCorrect() {
+        return correct;
+      }
+
+      @Override
+      public int getTotal() {
+        return total;
+      }
+    };
   }
 
   private Jwt jwt(UUID userId) {
@@ -0,0 +1,100 @@
+package com.group7.app.lesson.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.group7.app.lesson.model.LessonStatus;
+import com.group7.app.lesson.model.StepType;
+import com.group7.app.lesson.repository.LessonStepRepository;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+class ApprovedQuestionCatalogTest {
+
+  @Mock private LessonStepRepository lessonStepRepository;
+
+  private ApprovedQuestionCatalog catalog;
+
+  @BeforeEach
+  void setUp() {
+    catalog = new ApprovedQuestionCatalog(lessonStepRepository);
+  }
+
+  @AfterEach
+  void clearSynchronization() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void currentReusesSnapshotUntilInvalidated() {
+    when(lessonStepRepository.findCatalogSteps(StepType.QUESTION, LessonStatus.APPROVED))
+        .thenReturn(List.of(view(101L, 55L, "Greetings")))
+        .thenReturn(List.of(view(101L, 55L, "Greetings"), view(102L, 56L, "Slang")));
+
+    ApprovedQuestionCatalog.Snapshot first = catalog.current();
+
+    assertThat(catalog.current()).isSameAs(first);
+    assertThat(first.contains(101L)).isTrue();
+    assertThat(first.contains(102L)).isFalse();
+
+    catalog.invalidate();
+    ApprovedQuestionCatalog.Snapshot second = catalog.current();
+
+    assertThat(second.version()).isGreaterThan(first.version());
+    assertThat(second.steps())
+        .extracting(ApprovedQuestionCatalog.CatalogStep::stepId)
+        .containsExactly(101L, 102L);
+    verify(lessonStepRepository, times(2))
+        .findCatalogSteps(StepType.QUESTION, LessonStatus.APPROVED);
+  }
+
+  @Test
+  void invalidateInsideTransactionWaitsForCommit() {
+    when(lessonStepRepository.findCatalogSteps(StepType.QUESTION, LessonStatus.APPROVED))
+        .thenReturn(List.of());
+    ApprovedQuestionCatalog.Snapshot before = catalog.current();
+
+    TransactionSynchronizationManager.initSynchronization();
+    catalog.invalidate();
+
+    assertThat(catalog.current()).isSameAs(before);
+
+    for (TransactionSynchronization synchronization :
+        TransactionSynchronizationManager.getSynchronizations()) {
+      synchronization.afterCommit();
+    }
+
+    assertThat(catalog.current()).isNotSameAs(before);
+  }
+
+  private LessonStepRepository.CatalogStepView view(Long stepId, Long lessonId, String title) {
+    return new LessonStepRepository.CatalogStepView() {
+      @Override
+      public Long getStepId() {
+        return stepId;
+      }
+
+      @Override
+      public Long getLessonId() {
+        return lessonId;
+      }
+
+      @Override
+      public String getLessonTitle() {
+        return title;
+      }
+    };
+  }
+}
@@ -2,18 +2,27 @@ package com.group7.app.lesson.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import com.group7.app.config.ResolvedUserJwtAuthenticationToken;
+import com.group7.app.user.AuthenticatedUserCache;
 import com.group7.app.user.User;
 import com.group7.app.user.UserService;
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.server.ResponseStatusException;
 
 @ExtendWith(MockitoExtension.class)
@@ -21,11 +30,18 @@ class AuthContextServiceTest {
 
   @Mock private UserService userService;
 
+  private AuthenticatedUserCache authenticatedUserCache;
   private AuthContextService authContextService;
 
   @BeforeEach
   void setUp() {
-    authContextService = new AuthContextService(userService);
+    authenticatedUserCache = new AuthenticatedUserCache(100, Duration.ofMinutes(1));
+    authContextService = new AuthContextService(userService, authenticatedUserCache);
+  }
+
+  @AfterEach
+  void clearSecurityContext() {
+    SecurityContextHolder.clearContext();
   }
 
   @Test
@@ -53,6 +69,46 @@ class AuthContextServiceTest {
     verify(userService).createFromAuth(userId, "new@example.com");
   }
 
+  @Test
+  void resolveUserReusesTheRequestsTokenAndThenTheSubjectCache() {
+    UUID userId = UUID.randomUUID();
+    User existing = new User(userId, "learner@example.com");
+    Jwt jwt = jwt(userId, "learner@example.com");
+    SecurityContextHolder.getContext()
+        .setAuthentication(new ResolvedUserJwtAuthenticationToken(jwt, List.of(), existing));
+
+    assertThat(authContextService.resolveUser(jwt)).isSameAs(existing);
+    verifyNoInteractions(userService);
+
+    // a later request with a fresh token hits the cache filled by the first lookup
+    SecurityContextHolder.clearContext();
+    when(userService.findById(userId)).thenReturn(Optional.of(existing));
+    authContextService.resolveUser(jwt(userId, "learner@example.com"));
+    assertThat(authContextService.resolveUser(jwt(userId, "learner@example.com")))
+        .isSameAs(existing);
+    verify(userService, times(1)).findById(userId);
+  }
+
+  @Test
+  void resolveUserDoesNotCacheARowReadAcrossAnInvalidation() {
+    UUID userId = UUID.randomUUID();
+    User existing = new User(userId, "learner@example.com");
+    // a role change commits while the old row is on its way back
+    when(userService.findById(userId))
+        .thenAnswer(
+            invocation -> {
+              authenticatedUserCache.invalidate(userId);
+              return Optional.of(existing);
+            })
+        .thenReturn(Optional.of(existing));
+
+    authContextService.resolveUser(jwt(userId, "learner@example.com"));
+    authContextService.resolveUser(jwt(userId, "learner@example.com"));
+    authContextService.resolveUser(jwt(userId, "learner@example.com"));
+
+    verify(userService, times(2)).findById(userId);
+  }
+
   @Test
   void resolveUserRejectsMissingSubject() {
     assertThatThrownBy(
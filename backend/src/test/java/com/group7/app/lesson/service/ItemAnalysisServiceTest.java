@@ -0,0 +1,199 @@
+package com.group7.app.lesson.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.group7.app.lesson.model.Lesson;
+import com.group7.app.lesson.model.LessonStatus;
+import com.group7.app.lesson.model.LessonStep;
+import com.group7.app.lesson.model.QuestionType;
+import com.group7.app.lesson.model.StepType;
+import com.group7.app.lesson.model.Unit;
+import com.group7.app.lesson.repository.JobWatermarkRepository;
+import com.group7.app.lesson.repository.LessonAttemptRepository;
+import com.group7.app.lesson.repository.LessonAttemptResultRepository;
+import com.group7.app.lesson.repository.LessonRepository;
+import com.group7.app.lesson.repository.LessonStepItemStatsRepository;
+import com.group7.app.lesson.repository.LessonStepRepository;
+import com.group7.app.lesson.repository.UnitRepository;
+import com.group7.app.lesson.repository.UserDailyStatsRepository;
+import com.group7.app.lesson.repository.UserLessonProgressRepository;
+import com.group7.app.lesson.repository.UserStepEventRepository;
+import com.group7.app.lesson.repository.UserStepReviewStateRepository;
+import com.group7.app.lesson.repository.UserUnitStatsRepository;
+import com.group7.app.lesson.repository.UserVocabMemoryRepository;
+import com.group7.app.lesson.repository.VocabItemRepository;
+import com.group7.app.user.Role;
+import com.group7.app.user.User;
+import com.group7.app.user.UserDailyPointsRepository;
+import com.group7.app.user.UserRepository;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ItemAnalysisServiceTest {
+
+  @Autowired private ItemAnalysisService itemAnalysisService;
+
+  @Autowired private LessonAttemptService lessonAttemptService;
+
+  @Autowired private LessonStepPayloadService payloadService;
+
+  @Autowired private LessonStepItemStatsRepository lessonStepItemStatsRepository;
+
+  @Autowired private JobWatermarkRepository jobWatermarkRepository;
+
+  @Autowired private LessonAttemptResultRepository lessonAttemptResultRepository;
+
+  @Autowired private LessonAttemptRepository lessonAttemptRepository;
+
+  @Autowired private UserLessonProgressRepository userLessonProgressRepository;
+
+  @Autowired private UserStepEventRepository userStepEventRepository;
+
+  @Autowired private UserVocabMemoryRepository userVocabMemoryRepository;
+
+  @Autowired private UserStepReviewStateRepository userStepReviewStateRepository;
+
+  @Autowired private LessonStepRepository lessonStepRepository;
+
+  @Autowired private LessonRepository lessonRepository;
+
+  @Autowired private VocabItemRepository vocabItemRepository;
+
+  @Autowired private UnitRepository unitRepository;
+
+  @Autowired private UserRepository userRepository;
+
+  @Autowired private UserDailyPointsRepository userDailyPointsRepository;
+
+  @Autowired private UserDailyStatsRepository userDailyStatsRepository;
+
+  @Autowired private UserUnitStatsRepository userUnitStatsRepository;
+
+  @BeforeEach
+  void cleanDatabase() {
+    jobWatermarkRepository.deleteAll();
+    lessonStepItemStatsRepository.deleteAll();
+    lessonAttemptResultRepository.deleteAll();
+    lessonAttemptRepository.deleteAll();
+    userStepEventRepository.deleteAll();
+    userLessonProgressRepository.deleteAll();
+    userVocabMemoryRepository.deleteAll();
+    userStepReviewStateRepository.deleteAll();
+    lessonStepRepository.deleteAll();
+    lessonRepository.deleteAll();
+    vocabItemRepository.deleteAll();
+    userUnitStatsRepository.deleteAll();
+    unitRepository.deleteAll();
+    userDailyPointsRepository.deleteAll();
+    userDailyStatsRepository.deleteAll();
+    userRepository.deleteAll();
+  }
+
+  @Test
+  void foldsNewResultsInPagesAndNeverCountsARowTwice() {
+    Lesson lesson = approvedLesson();
+    List<LessonStep> steps =
+        lessonStepRepository.findByLessonIdAndStepTypeOrderByOrderIndexAsc(
+            lesson.getId(), StepType.QUESTION);
+    Long easyStep = steps.get(0).getId();
+    Long hardStep = steps.get(1).getId();
+
+    submit(lesson, "Charisma", "Charisma");
+    submit(lesson, "Charisma", "Food");
+    submit(lesson, "Food", "Food");
+
+    Instant until = Instant.now().plusSeconds(1);
+    assertThat(itemAnalysisService.processNextBatch(until, 4)).isEqualTo(4);
+    assertThat(itemAnalysisService.processNextBatch(until, 4)).isEqualTo(2);
+    assertThat(itemAnalysisService.processNextBatch(until, 4)).isZero();
+
+    List<ItemAnalysisService.ItemReport> reports =
+        itemAnalysisService.reportForLesson(lesson.getId());
+    assertThat(reports)
+        .extracting(ItemAnalysisService.ItemReport::lessonStepId)
+        .containsExactly(easyStep, hardStep);
+    ItemAnalysisService.ItemReport easy = reports.get(0);
+    assertThat(easy.responses()).isEqualTo(3);
+    assertThat(easy.pValue()).isCloseTo(2.0 / 3, within(1e-9));
+    assertThat(easy.discrimination()).isCloseTo(Math.sqrt(3) / 2, within(1e-9));
+    assertThat(easy.medianSeconds()).isEqualTo(30);
+    ItemAnalysisService.ItemReport hard = reports.get(1);
+    assertThat(hard.pValue()).isCloseTo(1.0 / 3, within(1e-9));
+    assertThat(hard.commonWrongAnswers())
+        .containsExactly(new ItemAnalysisService.WrongAnswer("Food", 2));
+
+    // only the rows after the watermark are read on the next run
+    submit(lesson, "Charisma", "Charisma");
+    assertThat(itemAnalysisService.processNextBatch(Instant.now().plusSeconds(1), 4))
+        .isEqualTo(2);
+    assertThat(itemAnalysisService.reportHardest(1, 1))
+        .singleElement()
+        .satisfies(
+            report -> {
+              assertThat(report.lessonStepId()).isEqualTo(hardStep);
+              assertThat(report.responses()).isEqualTo(4);
+              assertThat(report.pValue()).isEqualTo(0.5);
+            });
+  }
+
+  @Test
+  void leavesResultsNewerThanTheCutoffForTheNextRun() {
+    Lesson lesson = approvedLesson();
+    Instant cutoff = Instant.now().minusSeconds(60);
+    submit(lesson, "Charisma", "Charisma");
+
+    assertThat(itemAnalysisService.processNextBatch(cutoff, 10)).isZero();
+    assertThat(itemAnalysisService.processNextBatch(Instant.now().plusSeconds(1), 10))
+        .isEqualTo(2);
+  }
+
+  private void submit(Lesson lesson, String... answerTexts) {
+    User learner = new User(UUID.randomUUID(), UUID.randomUUID() + "@example.com");
+    learner.setRole(Role.LEARNER);
+    learner = userRepository.save(learner);
+    List<LessonStep> steps =
+        lessonStepRepository.findByLessonIdAndStepTypeOrderByOrderIndexAsc(
+            lesson.getId(), StepType.QUESTION);
+    List<LessonAttemptService.AnswerInput> answers = new ArrayList<>();
+    for (int i = 0; i < steps.size(); i++) {
+      answers.add(
+          new LessonAttemptService.AnswerInput(
+              steps.get(i).getId(), JsonNodeFactory.instance.textNode(answerTexts[i])));
+    }
+    lessonAttemptService.submitAttempt(
+        learner, lesson.getId(), answers, Instant.now().minusSeconds(25));
+  }
+
+  private Lesson approvedLesson() {
+    Unit unit = unitRepository.save(new Unit("Unit", "unit", "desc", 1));
+    Lesson lesson = new Lesson(unit, "lesson", "lesson", "desc", null, 5, 1, UUID.randomUUID());
+    lesson.setStatus(LessonStatus.APPROVED);
+    lesson = lessonRepository.save(lesson);
+
+    for (int i = 0; i < 2; i++) {
+      LessonStep questionStep = new LessonStep(lesson, i + 1, StepType.QUESTION);
+      questionStep.setPayload(
+          payloadService.buildQuestionPayload(
+              QuestionType.MCQ,
+              "What does rizz mean?",
+              "Because it means charisma.",
+              List.of("Charisma", "Food"),
+              0,
+              null,
+              null));
+      lessonStepRepository.save(questionStep);
+    }
+    return lesson;
+  }
+}
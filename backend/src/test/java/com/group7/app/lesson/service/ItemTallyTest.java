@@ -0,0 +1,70 @@
+package com.group7.app.lesson.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import com.group7.app.lesson.model.LessonStepItemStats;
+import java.time.Instant;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ItemTallyTest {
+
+  @Test
+  void derivesPValueAndDiscriminationFromRunningSums() {
+    ItemTally tally = ItemTally.of(null);
+    tally.add(true, 100, 30, null);
+    tally.add(true, 50, 40, null);
+    tally.add(false, 0, 50, "Food");
+
+    assertThat(tally.responses()).isEqualTo(3);
+    assertThat(tally.pValue()).isCloseTo(2.0 / 3, within(1e-9));
+    // point-biserial of (1, 1, 0) against (100, 50, 0)
+    assertThat(tally.discrimination()).isCloseTo(Math.sqrt(3) / 2, within(1e-9));
+  }
+
+  @Test
+  void discriminationIsUndefinedWithoutVariance() {
+    ItemTally tally = ItemTally.of(null);
+    tally.add(true, 100, 30, null);
+    tally.add(true, 80, 30, null);
+
+    assertThat(tally.discrimination()).isNull();
+    assertThat(ItemTally.of(null).pValue()).isNull();
+  }
+
+  @Test
+  void survivesARoundTripThroughTheEntity() {
+    ItemTally tally = ItemTally.of(null);
+    tally.add(false, 0, 12, "Food");
+    tally.add(false, 20, 25, "Food");
+    tally.add(false, 40, 70, "Drink");
+    tally.add(true, 100, 4000, null);
+    LessonStepItemStats stats = new LessonStepItemStats(101L, 55L);
+    tally.writeTo(stats, Instant.now());
+
+    ItemTally reloaded = ItemTally.of(stats);
+
+    assertThat(reloaded.responses()).isEqualTo(4);
+    assertThat(reloaded.topWrongAnswers(5))
+        .containsExactly(Map.entry("Food", 2L), Map.entry("Drink", 1L));
+    assertThat(reloaded.durationPercentile(0.5)).isEqualTo(30);
+    assertThat(reloaded.durationPercentile(0.75)).isEqualTo(90);
+    // the slowest attempt is past the last bucket bound
+    assertThat(reloaded.durationPercentile(1.0)).isNull();
+  }
+
+  @Test
+  void keepsFrequentWrongAnswersWithinBoundedSlots() {
+    ItemTally tally = ItemTally.of(null);
+    for (int i = 0; i < 500; i++) {
+      tally.add(false, 0, 10, "answer-" + i);
+      if (i % 3 == 0) {
+        tally.add(false, 0, 10, "Food");
+      }
+    }
+
+    assertThat(tally.topWrongAnswers(100)).hasSize(ItemTally.WRONG_ANSWER_SLOTS);
+    assertThat(tally.topWrongAnswers(1)).extracting(Map.Entry::getKey).containsExactly("Food");
+  }
+}
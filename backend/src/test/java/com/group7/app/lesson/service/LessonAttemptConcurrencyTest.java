@@ -0,0 +1,418 @@
+package com.group7.app.lesson.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.group7.app.lesson.model.Lesson;
+import com.group7.app.lesson.model.LessonStatus;
+import com.group7.app.lesson.model.LessonStep;
+import com.group7.app.lesson.model.QuestionType;
+import com.group7.app.lesson.model.StepType;
+import com.group7.app.lesson.model.Unit;
+import com.group7.app.lesson.model.UserLessonProgress;
+import com.group7.app.lesson.model.UserStepReviewState;
+import com.group7.app.lesson.repository.LessonAttemptRepository;
+import com.group7.app.lesson.repository.LessonAttemptResultRepository;
+import com.group7.app.lesson.repository.LessonRepository;
+import com.group7.app.lesson.repository.LessonStepRepository;
+import com.group7.app.lesson.repository.UnitRepository;
+import com.group7.app.lesson.repository.UserDailyStatsRepository;
+import com.group7.app.lesson.repository.UserLessonProgressRepository;
+import com.group7.app.lesson.repository.UserStepEventRepository;
+import com.group7.app.lesson.repository.UserStepReviewStateRepository;
+import com.group7.app.lesson.repository.UserUnitStatsRepository;
+import com.group7.app.lesson.repository.UserVocabMemoryRepository;
+import com.group7.app.lesson.repository.VocabItemRepository;
+import com.group7.app.user.Role;
+import com.group7.app.user.User;
+import com.group7.app.user.UserDailyPoints;
+import com.group7.app.user.UserDailyPointsRepository;
+import com.group7.app.user.UserRepository;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class LessonAttemptConcurrencyTest {
+
+  private static final int PARALLEL_ATTEMPTS = 8;
+
+  private static final int QUESTIONS_PER_LESSON = 3;
+
+  private static final long ATTEMPT_SECONDS = 30;
+
+  @Autowired private LessonAttemptService lessonAttemptService;
+
+  @Autowired private LessonStepPayloadService payloadService;
+
+  @Autowired private LearningStatsService learningStatsService;
+
+  @Autowired private ApprovedQuestionCatalog approvedQuestionCatalog;
+
+  @Autowired private LessonAttemptResultRepository lessonAttemptResultRepository;
+
+  @Autowired private LessonAttemptRepository lessonAttemptRepository;
+
+  @Autowired private UserLessonProgressRepository userLessonProgressRepository;
+
+  @Autowired private UserStepEventRepository userStepEventRepository;
+
+  @Autowired private UserVocabMemoryRepository userVocabMemoryRepository;
+
+  @Autowired private UserStepReviewStateRepository userStepReviewStateRepository;
+
+  @Autowired private LessonStepRepository lessonStepRepository;
+
+  @Autowired private LessonRepository lessonRepository;
+
+  @Autowired private VocabItemRepository vocabItemRepository;
+
+  @Autowired private UnitRepository unitRepository;
+
+  @Autowired private UserRepository userRepository;
+
+  @Autowired private UserDailyPointsRepository userDailyPointsRepository;
+
+  @Autowired private UserDailyStatsRepository userDailyStatsRepository;
+
+  @Autowired private UserUnitStatsRepository userUnitStatsRepository;
+
+  @BeforeEach
+  void cleanDatabase() {
+    lessonAttemptResultRepository.deleteAll();
+    lessonAttemptRepository.deleteAll();
+    userStepEventRepository.deleteAll();
+    userLessonProgressRepository.deleteAll();
+    userVocabMemoryRepository.deleteAll();
+    userStepReviewStateRepository.deleteAll();
+    lessonStepRepository.deleteAll();
+    lessonRepository.deleteAll();
+    vocabItemRepository.deleteAll();
+    userUnitStatsRepository.deleteAll();
+    unitRepository.deleteAll();
+    userDailyPointsRepository.deleteAll();
+    userDailyStatsRepository.deleteAll();
+    userRepository.deleteAll();
+  }
+
+  @Test
+  void parallelAttemptsBySameLearnerKeepEveryCounterUpdate() throws Exception {
+    User learner = learner();
+    Unit unit = unitRepository.save(new Unit("Unit", "unit", "desc", 1));
+    List<Lesson> lessons = new ArrayList<>();
+    for (int i = 0; i < PARALLEL_ATTEMPTS; i++) {
+      lessons.add(approvedLesson(unit, "lesson-" + i, i + 1));
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(PARALLEL_ATTEMPTS);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<LessonAttemptService.AttemptSubmissionResult>> submissions = new ArrayList<>();
+      for (Lesson lesson : lessons) {
+        List<LessonAttemptService.AnswerInput> answers = correctAnswers(lesson);
+        submissions.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return lessonAttemptService.submitAttempt(
+                      learner,
+                      lesson.getId(),
+                      answers,
+                      Instant.now().minusSeconds(ATTEMPT_SECONDS));
+                }));
+      }
+      start.countDown();
+      for (Future<LessonAttemptService.AttemptSubmissionResult> submission : submissions) {
+        assertThat(submission.get(30, TimeUnit.SECONDS).passed()).isTrue();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    User stored = userRepository.findById(learner.getId()).orElseThrow();
+    int totalCorrect = PARALLEL_ATTEMPTS * QUESTIONS_PER_LESSON;
+    assertThat(stored.getCompletedLessonsCount()).isEqualTo(PARALLEL_ATTEMPTS);
+    assertThat(stored.getCurrentCorrectStreak()).isEqualTo(totalCorrect);
+    assertThat(stored.getMaxCorrectStreak()).isEqualTo(totalCorrect);
+    assertThat(stored.getTotalPoints()).isEqualTo(PARALLEL_ATTEMPTS * 100L);
+    // every attempt lands in today's bucket, so the parallel increments must all survive
+    assertThat(userDailyPointsRepository.findAll())
+        .singleElement()
+        .extracting(UserDailyPoints::getPoints)
+        .isEqualTo(PARALLEL_ATTEMPTS * 100L);
+    assertRollups(PARALLEL_ATTEMPTS, totalCorrect);
+    // a rebuild from the raw attempts lands on the same rollups the live path produced
+    assertThat(learningStatsService.rebuildForUser(learner.getId())).isEqualTo(1);
+    assertRollups(PARALLEL_ATTEMPTS, totalCorrect);
+    // queueing for a pooled connection can stretch an attempt a little past its nominal duration
+    assertThat(stored.getTotalTimeSeconds())
+        .isBetween(
+            PARALLEL_ATTEMPTS * ATTEMPT_SECONDS, PARALLEL_ATTEMPTS * (ATTEMPT_SECONDS + 5));
+  }
+
+  @Test
+  void parallelAttemptsAtOneLessonCompleteItOnceAndKeepEveryAttempt() throws Exception {
+    User learner = learner();
+    Unit unit = unitRepository.save(new Unit("Unit", "unit", "desc", 1));
+    Lesson lesson = approvedLesson(unit, "lesson", 1);
+    List<Submission> submissions = new ArrayList<>();
+    for (int i = 0; i < PARALLEL_ATTEMPTS; i++) {
+      submissions.add(new Submission(lesson.getId(), correctAnswers(lesson)));
+    }
+
+    submitInParallel(learner, submissions);
+
+    User stored = userRepository.findById(learner.getId()).orElseThrow();
+    UserLessonProgress progress =
+        userLessonProgressRepository
+            .findByUserIdAndLessonId(learner.getId(), lesson.getId())
+            .orElseThrow();
+    assertThat(userLessonProgressRepository.findAll()).hasSize(1);
+    assertThat(progress.getAttemptCount()).isEqualTo(PARALLEL_ATTEMPTS);
+    assertThat(stored.getCompletedLessonsCount()).isEqualTo(1);
+    // the total keeps only the best time of the one lesson, however the attempts interleaved
+    assertThat(stored.getTotalTimeSeconds()).isEqualTo(progress.getBestTimeSeconds());
+  }
+
+  @Test
+  void parallelAttemptsCreditOnlyTheImprovementOnTheBestScore() throws Exception {
+    User learner = learner();
+    Unit unit = unitRepository.save(new Unit("Unit", "unit", "desc", 1));
+    List<Submission> submissions = new ArrayList<>();
+    for (Lesson lesson :
+        List.of(approvedLesson(unit, "first", 1), approvedLesson(unit, "second", 2))) {
+      // scores of 0, 33, 67 and 100 racing each other on the same lesson
+      for (int i = 0; i < PARALLEL_ATTEMPTS; i++) {
+        submissions.add(new Submission(lesson.getId(), answersWithCorrect(lesson, i % 4)));
+      }
+    }
+
+    submitInParallel(learner, submissions);
+
+    long bestScores =
+        userLessonProgressRepository.findAll().stream()
+            .mapToLong(UserLessonProgress::getBestScore)
+            .sum();
+    assertThat(bestScores).isEqualTo(200L);
+    assertThat(userRepository.findById(learner.getId()).orElseThrow().getTotalPoints())
+        .isEqualTo(bestScores);
+    assertThat(userDailyPointsRepository.findAll())
+        .singleElement()
+        .extracting(UserDailyPoints::getPoints)
+        .isEqualTo(bestScores);
+  }
+
+  @Test
+  void revokingALessonsPointsTakesBackItsBestScoreAndDailyRises() {
+    User learner = learner();
+    Unit unit = unitRepository.save(new Unit("Unit", "unit", "desc", 1));
+    Lesson removed = approvedLesson(unit, "removed", 1);
+    Lesson kept = approvedLesson(unit, "kept", 2);
+    for (int correct : List.of(1, 3, 2)) {
+      lessonAttemptService.submitAttempt(
+          learner, removed.getId(), answersWithCorrect(removed, correct), Instant.now());
+    }
+    lessonAttemptService.submitAttempt(
+        learner, kept.getId(), answersWithCorrect(kept, 2), Instant.now());
+    assertThat(userRepository.findById(learner.getId()).orElseThrow().getTotalPoints())
+        .isEqualTo(100L + 67L);
+
+    lessonAttemptService.revokeLessonPoints(removed.getId());
+
+    assertThat(userRepository.findById(learner.getId()).orElseThrow().getTotalPoints())
+        .isEqualTo(67L);
+    assertThat(userDailyPointsRepository.findAll())
+        .singleElement()
+        .extracting(UserDailyPoints::getPoints)
+        .isEqualTo(67L);
+  }
+
+  @Test
+  void rebuildClearsTheRollupsOfALearnerWhoseAttemptsAreGone() {
+    User learner = learner();
+    Unit unit = unitRepository.save(new Unit("Unit", "unit", "desc", 1));
+    Lesson lesson = approvedLesson(unit, "lesson", 1);
+    lessonAttemptService.submitAttempt(
+        learner, lesson.getId(), correctAnswers(lesson), Instant.now());
+    lessonAttemptResultRepository.deleteAll();
+    lessonAttemptRepository.deleteAll();
+
+    assertThat(learningStatsService.findUsersToRebuild()).containsExactly(learner.getId());
+    assertThat(learningStatsService.rebuildForUser(learner.getId())).isZero();
+
+    assertThat(userDailyStatsRepository.findAll()).isEmpty();
+    assertThat(userUnitStatsRepository.findAll()).isEmpty();
+    assertThat(learningStatsService.findUsersToRebuild()).isEmpty();
+  }
+
+  @Test
+  void parallelReviseSubmitsOnOneStepKeepEveryOutcome() throws Exception {
+    User learner = learner();
+    Unit unit = unitRepository.save(new Unit("Unit", "unit", "desc", 1));
+    Lesson lesson = approvedLesson(unit, "lesson", 1);
+    approvedQuestionCatalog.invalidate();
+    List<LessonAttemptService.AnswerInput> wrong = answersWithCorrect(lesson, 0).subList(0, 1);
+
+    ExecutorService executor = Executors.newFixedThreadPool(PARALLEL_ATTEMPTS);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<LessonAttemptService.ReviseAttemptResult>> results = new ArrayList<>();
+      for (int i = 0; i < PARALLEL_ATTEMPTS; i++) {
+        results.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return lessonAttemptService.submitReviseAttempt(learner, wrong);
+                }));
+      }
+      start.countDown();
+      for (Future<LessonAttemptService.ReviseAttemptResult> result : results) {
+        result.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    // every miss lands on the state the previous one wrote
+    assertThat(userStepReviewStateRepository.findAll())
+        .singleElement()
+        .extracting(UserStepReviewState::getTimesWrong)
+        .isEqualTo(PARALLEL_ATTEMPTS);
+  }
+
+  @Test
+  void brokenStreakRestartsFromTrailingRunAndKeepsLongestRun() {
+    User learner = learner();
+    Unit unit = unitRepository.save(new Unit("Unit", "unit", "desc", 1));
+    Lesson warmUp = approvedLesson(unit, "warm-up", 1);
+    Lesson mixed = approvedLesson(unit, "mixed", 2);
+
+    lessonAttemptService.submitAttempt(
+        learner, warmUp.getId(), correctAnswers(warmUp), Instant.now().minusSeconds(10));
+    List<LessonAttemptService.AnswerInput> answers = correctAnswers(mixed);
+    answers.set(
+        1,
+        new LessonAttemptService.AnswerInput(
+            answers.get(1).stepId(), JsonNodeFactory.instance.textNode("Food")));
+    lessonAttemptService.submitAttempt(
+        learner, mixed.getId(), answers, Instant.now().minusSeconds(10));
+
+    User stored = userRepository.findById(learner.getId()).orElseThrow();
+    // three correct in the first lesson, one more before the miss, then one after it
+    assertThat(stored.getMaxCorrectStreak()).isEqualTo(4);
+    assertThat(stored.getCurrentCorrectStreak()).isEqualTo(1);
+    assertThat(stored.getCompletedLessonsCount()).isEqualTo(2);
+    assertThat(stored.getTotalPoints()).isEqualTo(100L + 67L);
+  }
+
+  private void assertRollups(int attempts, int correct) {
+    assertThat(userDailyStatsRepository.findAll())
+        .singleElement()
+        .satisfies(
+            day -> {
+              assertThat(day.getAttempts()).isEqualTo(attempts);
+              assertThat(day.getPassed()).isEqualTo(attempts);
+              assertThat(day.getXp()).isEqualTo(attempts * 100);
+              assertThat(day.getCorrect()).isEqualTo(correct);
+            });
+    assertThat(userUnitStatsRepository.findAll())
+        .singleElement()
+        .satisfies(
+            unit -> {
+              assertThat(unit.getAttempts()).isEqualTo(attempts);
+              assertThat(unit.getTotal()).isEqualTo(correct);
+            });
+  }
+
+  private void submitInParallel(User learner, List<Submission> submissions) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(submissions.size());
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<LessonAttemptService.AttemptSubmissionResult>> results = new ArrayList<>();
+      for (Submission submission : submissions) {
+        results.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return lessonAttemptService.submitAttempt(
+                      learner,
+                      submission.lessonId(),
+                      submission.answers(),
+                      Instant.now().minusSeconds(ATTEMPT_SECONDS));
+                }));
+      }
+      start.countDown();
+      for (Future<LessonAttemptService.AttemptSubmissionResult> result : results) {
+        result.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  // the first correctCount questions answered right, the rest wrong
+  private List<LessonAttemptService.AnswerInput> answersWithCorrect(
+      Lesson lesson, int correctCount) {
+    List<LessonAttemptService.AnswerInput> answers = correctAnswers(lesson);
+    for (int i = correctCount; i < answers.size(); i++) {
+      answers.set(
+          i,
+          new LessonAttemptService.AnswerInput(
+              answers.get(i).stepId(), JsonNodeFactory.instance.textNode("Food")));
+    }
+    return answers;
+  }
+
+  private User learner() {
+    User learner = new User(UUID.randomUUID(), "learner@example.com");
+    learner.setRole(Role.LEARNER);
+    return userRepository.save(learner);
+  }
+
+  private List<LessonAttemptService.AnswerInput> correctAnswers(Lesson lesson) {
+    List<LessonAttemptService.AnswerInput> answers = new ArrayList<>();
+    for (LessonStep step :
+        lessonStepRepository.findByLessonIdAndStepTypeOrderByOrderIndexAsc(
+            lesson.getId(), StepType.QUESTION)) {
+      answers.add(
+          new LessonAttemptService.AnswerInput(
+              step.getId(), JsonNodeFactory.instance.textNode("Charisma")));
+    }
+    return answers;
+  }
+
+  private Lesson approvedLesson(Unit unit, String slug, int orderIndex) {
+    Lesson lesson = new Lesson(unit, slug, slug, "desc", null, 5, orderIndex, UUID.randomUUID());
+    lesson.setStatus(LessonStatus.APPROVED);
+    lesson = lessonRepository.save(lesson);
+
+    for (int i = 0; i < QUESTIONS_PER_LESSON; i++) {
+      LessonStep questionStep = new LessonStep(lesson, i + 1, StepType.QUESTION);
+      questionStep.setPayload(
+          payloadService.buildQuestionPayload(
+              QuestionType.MCQ,
+              "What does rizz mean?",
+              "Because it means charisma.",
+              List.of("Charisma", "Food"),
+              0,
+              null,
+              null));
+      lessonStepRepository.save(questionStep);
+    }
+    return lesson;
+  }
+
+  private record Submission(Long lessonId, List<LessonAttemptService.AnswerInput> answers) {}
+}
@@ -2,7 +2,12 @@ package com.group7.app.lesson.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -18,7 +23,7 @@ import com.group7.app.lesson.model.StepType;
 import com.group7.app.lesson.model.Unit;
 import com.group7.app.lesson.model.UserLessonProgress;
 import com.group7.app.lesson.model.UserStepEvent;
-import com.group7.app.lesson.model.UserVocabMemory;
+import com.group7.app.lesson.model.UserStepReviewState;
 import com.group7.app.lesson.model.VocabItem;
 import com.group7.app.lesson.repository.LessonAttemptRepository;
 import com.group7.app.lesson.repository.LessonAttemptResultRepository;
@@ -26,15 +31,24 @@ import com.group7.app.lesson.repository.LessonRepository;
 import com.group7.app.lesson.repository.LessonStepRepository;
 import com.group7.app.lesson.repository.UserLessonProgressRepository;
 import com.group7.app.lesson.repository.UserStepEventRepository;
+import com.group7.app.lesson.repository.UserStepReviewStateRepository;
 import com.group7.app.lesson.repository.UserVocabMemoryRepository;
 import com.group7.app.lesson.repository.VocabItemRepository;
+import com.group7.app.lesson.repository.VocabMemoryUpsert;
+import com.group7.app.user.AuthenticatedUserCache;
 import com.group7.app.user.Role;
+import com.group7.app.user.LeaderboardIndex;
 import com.group7.app.user.User;
+import com.group7.app.user.UserDailyPointsRepository;
 import com.group7.app.user.UserRepository;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -67,6 +81,20 @@ class LessonAttemptServiceTest {
 
   @Mock private UserRepository userRepository;
 
+  @Mock private UserStepReviewStateRepository userStepReviewStateRepository;
+
+  @Mock private ReviewStateService reviewStateService;
+
+  @Mock private ApprovedQuestionCatalog approvedQuestionCatalog;
+
+  @Mock private LeaderboardIndex leaderboardIndex;
+
+  @Mock private AuthenticatedUserCache authenticatedUserCache;
+
+  @Mock private UserDailyPointsRepository userDailyPointsRepository;
+
+  @Mock private LearningStatsService learningStatsService;
+
   private LessonAttemptService lessonAttemptService;
 
   private LessonStepPayloadService payloadService;
@@ -85,7 +113,14 @@ class LessonAttemptServiceTest {
             userStepEventRepository,
             userVocabMemoryRepository,
             vocabItemRepository,
-            userRepository);
+            userRepository,
+            userStepReviewStateRepository,
+            reviewStateService,
+            approvedQuestionCatalog,
+            leaderboardIndex,
+            userDailyPointsRepository,
+            learningStatsService,
+            authenticatedUserCache);
   }
 
   @Test
@@ -97,10 +132,7 @@ class LessonAttemptServiceTest {
     LessonStep teachStep = teachStep(lesson, vocabItem, 100L, 1);
     LessonStep questionStep = mcqQuestionStep(lesson, 101L, 2);
 
-    when(userRepository.findById(learner.getId())).thenReturn(Optional.of(learner));
     when(lessonRepository.findById(55L)).thenReturn(Optional.of(lesson));
-    when(lessonStepRepository.findByLessonIdAndStepTypeOrderByOrderIndexAsc(55L, StepType.QUESTION))
-        .thenReturn(List.of(questionStep));
     when(lessonStepRepository.findByLessonIdOrderByOrderIndexAsc(55L))
         .thenReturn(List.of(teachStep, questionStep));
     when(lessonAttemptRepository.save(any(LessonAttempt.class)))
@@ -112,13 +144,13 @@ class LessonAttemptServiceTest {
               ReflectionTestUtils.setField(attempt, "submittedAt", Instant.now());
               return attempt;
             });
-    when(userLessonProgressRepository.findByUserIdAndLessonId(learner.getId(), 55L))
-        .thenReturn(Optional.empty());
+    when(userLessonProgressRepository.lockByUserIdAndLessonId(learner.getId(), 55L))
+        .thenReturn(Optional.of(new UserLessonProgress(learner.getId(), lesson)));
     when(userLessonProgressRepository.save(any(UserLessonProgress.class)))
         .thenAnswer(invocation -> invocation.getArgument(0));
-    when(vocabItemRepository.findById(vocabItem.getId())).thenReturn(Optional.of(vocabItem));
-    when(userVocabMemoryRepository.findByUserIdAndVocabItemId(learner.getId(), vocabItem.getId()))
-        .thenReturn(Optional.empty());
+    when(userVocabMemoryRepository.findStatesByUserIdAndVocabItemIds(
+            learner.getId(), Set.of(vocabItem.getId())))
+        .thenReturn(List.of());
 
     var result =
         lessonAttemptService.submitAttempt(
@@ -132,6 +164,7 @@ class LessonAttemptServiceTest {
     assertThat(result.attemptId()).isEqualTo(77L);
     assertThat(result.score()).isEqualTo(100);
     assertThat(result.correctCount()).isEqualTo(1);
+    assertThat(result.dueCount()).isEqualTo(2);
     assertThat(result.passed()).isTrue();
     assertThat(result.results())
         .singleElement()
@@ -143,6 +176,27 @@ class LessonAttemptServiceTest {
               assertThat(item.correctAnswer()).isEqualTo("Charisma");
             });
 
+    verify(lessonStepRepository).findByLessonIdOrderByOrderIndexAsc(55L);
+    verify(userLessonProgressRepository)
+        .insertIfAbsent(eq(learner.getId()), eq(55L), any(Instant.class));
+    verify(userLessonProgressRepository).lockByUserIdAndLessonId(learner.getId(), 55L);
+    verify(userRepository)
+        .applyAttemptCounters(
+            eq(learner.getId()),
+            eq(1),
+            eq(1),
+            eq(false),
+            eq(1),
+            eq(1),
+            longThat(seconds -> seconds >= 30),
+            eq(100L),
+            any(Instant.class));
+    verify(leaderboardIndex).markChanged(learner.getId());
+    verify(userDailyPointsRepository)
+        .addPoints(eq(learner.getId()), any(LocalDate.class), eq(100L), any(Instant.class));
+    verify(learningStatsService)
+        .recordAttempt(argThat(attempt -> attempt.getId().equals(77L) && attempt.isPassed()));
+
     ArgumentCaptor<UserLessonProgress> progressCaptor =
         ArgumentCaptor.forClass(UserLessonProgress.class);
     verify(userLessonProgressRepository).save(progressCaptor.capture());
@@ -168,16 +222,29 @@ class LessonAttemptServiceTest {
               assertThat(savedResult.getExplanation()).isEqualTo("Because it means charisma.");
             });
 
-    ArgumentCaptor<UserVocabMemory> memoryCaptor = ArgumentCaptor.forClass(UserVocabMemory.class);
-    verify(userVocabMemoryRepository).save(memoryCaptor.capture());
-    UserVocabMemory savedMemory = memoryCaptor.getValue();
-    assertThat(savedMemory.getUserId()).isEqualTo(learner.getId());
-    assertThat(savedMemory.getVocabItem()).isSameAs(vocabItem);
-    assertThat(savedMemory.getStrength()).isEqualTo(1);
-    assertThat(savedMemory.getCorrectStreak()).isEqualTo(1);
-    assertThat(savedMemory.getLastSeenAt()).isNotNull();
-    assertThat(savedMemory.getNextDueAt())
-        .isEqualTo(savedMemory.getLastSeenAt().plus(1, ChronoUnit.DAYS));
+    ArgumentCaptor<List<ReviewStateService.StepOutcome>> outcomeCaptor =
+        ArgumentCaptor.forClass(List.class);
+    verify(reviewStateService).recordOutcomes(eq(learner.getId()), outcomeCaptor.capture());
+    assertThat(outcomeCaptor.getValue())
+        .extracting(
+            ReviewStateService.StepOutcome::lessonStepId, ReviewStateService.StepOutcome::correct)
+        .containsExactly(tuple(101L, true));
+
+    ArgumentCaptor<Collection<VocabMemoryUpsert>> memoryCaptor =
+        ArgumentCaptor.forClass(Collection.class);
+    verify(userVocabMemoryRepository)
+        .upsertAll(eq(learner.getId()), memoryCaptor.capture(), any(Instant.class));
+    assertThat(memoryCaptor.getValue())
+        .singleElement()
+        .satisfies(
+            savedMemory -> {
+              assertThat(savedMemory.vocabItemId()).isEqualTo(vocabItem.getId());
+              assertThat(savedMemory.strength()).isEqualTo(1);
+              assertThat(savedMemory.correctStreak()).isEqualTo(1);
+              assertThat(savedMemory.lastSeenAt()).isNotNull();
+              assertThat(savedMemory.nextDueAt())
+                  .isEqualTo(savedMemory.lastSeenAt().plus(1, ChronoUnit.DAYS));
+            });
   }
 
   @Test
@@ -244,6 +311,51 @@ class LessonAttemptServiceTest {
     assertThat(pageableCaptor.getValue().getPageSize()).isEqualTo(50);
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  void submitVocabMemoryAttemptReplaysAnswersOnStoredStateWithOneUpsert() {
+    User learner = learner();
+    Instant lastSeen = Instant.now().minus(3, ChronoUnit.DAYS);
+    when(vocabItemRepository.countByIdIn(Set.of(5L, 6L))).thenReturn(2L);
+    when(userVocabMemoryRepository.findStatesByUserIdAndVocabItemIds(
+            learner.getId(), Set.of(5L, 6L)))
+        .thenReturn(List.of(new StoredVocabState(5L, 3, 2, lastSeen, lastSeen)));
+    when(userVocabMemoryRepository.findByUserIdAndNextDueAtLessThanEqualOrderByNextDueAtAsc(
+            any(UUID.class), any(Instant.class), any(Pageable.class)))
+        .thenReturn(List.of());
+
+    lessonAttemptService.submitVocabMemoryAttempt(
+        learner,
+        List.of(
+            new LessonAttemptService.VocabMemoryAnswerInput(5L, true),
+            new LessonAttemptService.VocabMemoryAnswerInput(6L, false),
+            new LessonAttemptService.VocabMemoryAnswerInput(5L, true)));
+
+    ArgumentCaptor<Collection<VocabMemoryUpsert>> memoryCaptor =
+        ArgumentCaptor.forClass(Collection.class);
+    verify(userVocabMemoryRepository)
+        .upsertAll(eq(learner.getId()), memoryCaptor.capture(), any(Instant.class));
+    assertThat(memoryCaptor.getValue())
+        .extracting(
+            VocabMemoryUpsert::vocabItemId,
+            VocabMemoryUpsert::strength,
+            VocabMemoryUpsert::correctStreak)
+        .containsExactly(tuple(5L, 5, 4), tuple(6L, 0, 0));
+  }
+
+  @Test
+  void submitVocabMemoryAttemptRejectsUnknownVocabItem() {
+    User learner = learner();
+    when(vocabItemRepository.countByIdIn(Set.of(404L))).thenReturn(0L);
+
+    assertThatThrownBy(
+            () ->
+                lessonAttemptService.submitVocabMemoryAttempt(
+                    learner, List.of(new LessonAttemptService.VocabMemoryAnswerInput(404L, true))))
+        .isInstanceOf(ResponseStatusException.class)
+        .hasMessageContaining("vocab item not found");
+  }
+
   @Test
   void updateProgressPositionCreatesProgressWhenMissing() {
     User learner = learner();
@@ -252,15 +364,16 @@ class LessonAttemptServiceTest {
 
     when(lessonRepository.findById(55L)).thenReturn(Optional.of(lesson));
     when(lessonStepRepository.findByIdAndLessonId(101L, 55L)).thenReturn(Optional.of(step));
-    when(userLessonProgressRepository.findByUserIdAndLessonId(learner.getId(), 55L))
-        .thenReturn(Optional.empty());
-    when(userLessonProgressRepository.save(any(UserLessonProgress.class)))
-        .thenAnswer(invocation -> invocation.getArgument(0));
+    when(userLessonProgressRepository.lockByUserIdAndLessonId(learner.getId(), 55L))
+        .thenReturn(Optional.of(new UserLessonProgress(learner.getId(), lesson)));
 
     var progress = lessonAttemptService.updateProgressPosition(learner, 55L, 101L);
 
     assertThat(progress.lessonId()).isEqualTo(55L);
     assertThat(progress.lastStepId()).isEqualTo(101L);
+    verify(userLessonProgressRepository)
+        .insertIfAbsent(eq(learner.getId()), eq(55L), any(Instant.class));
+    verify(userLessonProgressRepository, never()).save(any(UserLessonProgress.class));
   }
 
   @Test
@@ -269,31 +382,22 @@ class LessonAttemptServiceTest {
     Lesson lesson = approvedLesson();
     LessonStep weakStep = mcqQuestionStep(lesson, 101L, 1);
     LessonStep fallbackStep = mcqQuestionStep(lesson, 102L, 2);
-    LessonAttempt lessonAttempt =
-        new LessonAttempt(learner.getId(), lesson, 0, 1, 0, false, Instant.now(), Instant.now());
-    ReflectionTestUtils.setField(lessonAttempt, "id", 99L);
-
-    LessonAttemptResult wrongResult =
-        new LessonAttemptResult(
-            lessonAttempt,
-            weakStep,
-            55L,
-            false,
-            JsonNodeFactory.instance.textNode("Food"),
-            JsonNodeFactory.instance.objectNode().put("text", "Charisma"),
-            "Because it means charisma.");
-    ReflectionTestUtils.setField(
-        wrongResult, "createdAt", Instant.now().minus(5, ChronoUnit.HOURS));
-
-    when(lessonStepRepository.findByStepTypeAndLessonStatusOrderByLessonOrderIndexAsc(
-            StepType.QUESTION, LessonStatus.APPROVED))
-        .thenReturn(List.of(weakStep, fallbackStep));
-    when(lessonAttemptResultRepository.findByAttemptUserIdOrderByCreatedAtAsc(learner.getId()))
-        .thenReturn(List.of(wrongResult));
-    when(userStepEventRepository.findByUserIdAndEventTypeOrderByCreatedAtAsc(
-            learner.getId(), "REVISE_ANSWERED"))
-        .thenReturn(List.of());
+    Instant missedAt = Instant.now().minus(5, ChronoUnit.HOURS);
+    UserStepReviewState missed =
+        new UserStepReviewState(
+            learner.getId(), weakStep, 0, 0, 1, missedAt, missedAt.plus(4, ChronoUnit.HOURS));
+
+    when(userStepReviewStateRepository.findReviseCandidates(
+            eq(learner.getId()), any(Instant.class), any(Pageable.class)))
+        .thenReturn(List.of(missed));
+    when(userStepReviewStateRepository.countDueForRevise(eq(learner.getId()), any(Instant.class)))
+        .thenReturn(1L);
+    when(approvedQuestionCatalog.current()).thenReturn(catalogOf(weakStep, fallbackStep));
+    when(userStepReviewStateRepository.findLessonStepIdsByUserId(learner.getId()))
+        .thenReturn(List.of(101L));
     when(userLessonProgressRepository.findByUserId(learner.getId())).thenReturn(List.of());
+    when(lessonStepRepository.findByIdInWithLesson(List.of(102L)))
+        .thenReturn(List.of(fallbackStep));
 
     var queue = lessonAttemptService.getReviseQueue(learner, 2);
 
@@ -302,6 +406,45 @@ class LessonAttemptServiceTest {
     assertThat(queue.items().getFirst().stepId()).isEqualTo(101L);
     assertThat(queue.items().getFirst().priorityReason()).isEqualTo("recent_mistake");
     assertThat(queue.items().get(1).stepId()).isEqualTo(102L);
+    assertThat(queue.items().get(1).priorityReason()).isEqualTo("fallback");
+  }
+
+  @Test
+  void getReviseQueueSkipsFallbackWhenStoredStateFillsTheLimit() {
+    User learner = learner();
+    Lesson lesson = approvedLesson();
+    Instant seenAt = Instant.now().minus(3, ChronoUnit.DAYS);
+    UserStepReviewState due =
+        new UserStepReviewState(
+            learner.getId(),
+            mcqQuestionStep(lesson, 101L, 1),
+            1,
+            1,
+            0,
+            seenAt,
+            seenAt.plus(1, ChronoUnit.DAYS));
+    UserStepReviewState strong =
+        new UserStepReviewState(
+            learner.getId(),
+            mcqQuestionStep(lesson, 102L, 2),
+            5,
+            5,
+            0,
+            seenAt,
+            seenAt.plus(16, ChronoUnit.DAYS));
+
+    when(userStepReviewStateRepository.findReviseCandidates(
+            eq(learner.getId()), any(Instant.class), any(Pageable.class)))
+        .thenReturn(List.of(due, strong));
+    when(userStepReviewStateRepository.countDueForRevise(eq(learner.getId()), any(Instant.class)))
+        .thenReturn(1L);
+
+    var queue = lessonAttemptService.getReviseQueue(learner, 2);
+
+    assertThat(queue.items())
+        .extracting(LessonAttemptService.ReviseQueueItem::priorityReason)
+        .containsExactly("due", "review");
+    verify(approvedQuestionCatalog, never()).current();
   }
 
   @Test
@@ -313,15 +456,9 @@ class LessonAttemptServiceTest {
     when(lessonStepRepository.findByIdInWithLesson(List.of(101L))).thenReturn(List.of(step));
     when(userStepEventRepository.saveAll(any()))
         .thenAnswer(invocation -> invocation.getArgument(0));
-    when(lessonStepRepository.findByStepTypeAndLessonStatusOrderByLessonOrderIndexAsc(
-            StepType.QUESTION, LessonStatus.APPROVED))
-        .thenReturn(List.of(step));
-    when(lessonAttemptResultRepository.findByAttemptUserIdOrderByCreatedAtAsc(learner.getId()))
-        .thenReturn(List.of());
-    when(userStepEventRepository.findByUserIdAndEventTypeOrderByCreatedAtAsc(
-            learner.getId(), "REVISE_ANSWERED"))
-        .thenReturn(List.of());
-    when(userLessonProgressRepository.findByUserId(learner.getId())).thenReturn(List.of());
+    when(approvedQuestionCatalog.current()).thenReturn(catalogOf(step));
+    when(userStepReviewStateRepository.countDueForRevise(eq(learner.getId()), any(Instant.class)))
+        .thenReturn(2L);
 
     var result =
         lessonAttemptService.submitReviseAttempt(
@@ -347,6 +484,99 @@ class LessonAttemptServiceTest {
               assertThat(event.getEventType()).isEqualTo("REVISE_ANSWERED");
               assertThat(event.getPayload().path("correct").asBoolean()).isTrue();
             });
+    verify(reviewStateService).recordOutcomes(eq(learner.getId()), any());
+    verify(userStepReviewStateRepository, never())
+        .findReviseCandidates(any(), any(), any(Pageable.class));
+  }
+
+  @Test
+  void getDueSummaryReturnsBothCountsFromOneQuery() {
+    User learner = learner();
+    UserStepReviewStateRepository.DueCountsView counts =
+        new UserStepReviewStateRepository.DueCountsView() {
+          @Override
+          public long getReviseDue() {
+            return 3L;
+          }
+
+          @Override
+          public long getVocabDue() {
+            return 7L;
+          }
+        };
+    when(userStepReviewStateRepository.countDueItems(eq(learner.getId()), any(Instant.class)))
+        .thenReturn(counts);
+
+    var summary = lessonAttemptService.getDueSummary(learner);
+
+    assertThat(summary.reviseDue()).isEqualTo(3);
+    assertThat(summary.vocabDue()).isEqualTo(7);
+    verify(approvedQuestionCatalog, never()).current();
+  }
+
+  @Test
+  void submitReviseAttemptRejectsStepMissingFromApprovedCatalog() {
+    User learner = learner();
+    Lesson lesson = approvedLesson();
+    lesson.setStatus(LessonStatus.DRAFT);
+    LessonStep step = mcqQuestionStep(lesson, 101L, 1);
+
+    when(lessonStepRepository.findByIdInWithLesson(List.of(101L))).thenReturn(List.of(step));
+    when(approvedQuestionCatalog.current()).thenReturn(catalogOf());
+
+    assertThatThrownBy(
+            () ->
+                lessonAttemptService.submitReviseAttempt(
+                    learner,
+                    List.of(
+                        new LessonAttemptService.AnswerInput(
+                            101L, JsonNodeFactory.instance.textNode("Charisma")))))
+        .isInstanceOf(ResponseStatusException.class)
+        .hasMessageContaining("only approved lessons can be accessed by learners");
+    verify(userStepEventRepository, never()).saveAll(any());
+  }
+
+  private record StoredVocabState(
+      Long vocabItemId,
+      Integer strength,
+      Integer correctStreak,
+      Instant lastSeenAt,
+      Instant nextDueAt)
+      implements UserVocabMemoryRepository.VocabMemoryStateView {
+    @Override
+    public Long getVocabItemId() {
+      return vocabItemId;
+    }
+
+    @Override
+    public Integer getStrength() {
+      return strength;
+    }
+
+    @Override
+    public Integer getCorrectStreak() {
+      return correctStreak;
+    }
+
+    @Override
+    public Instant getLastSeenAt() {
+      return lastSeenAt;
+    }
+
+    @Override
+    public Instant getNextDueAt() {
+      return nextDueAt;
+    }
+  }
+
+  private ApprovedQuestionCatalog.Snapshot catalogOf(LessonStep... steps) {
+    List<ApprovedQuestionCatalog.CatalogStep> catalogSteps = new ArrayList<>();
+    for (LessonStep step : steps) {
+      catalogSteps.add(
+          new ApprovedQuestionCatalog.CatalogStep(
+              step.getId(), step.getLesson().getId(), step.getLesson().getTitle()));
+    }
+    return ApprovedQuestionCatalog.Snapshot.of(1L, catalogSteps);
   }
 
   private User learner() {
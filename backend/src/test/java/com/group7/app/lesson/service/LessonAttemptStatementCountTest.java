@@ -0,0 +1,172 @@
+package com.group7.app.lesson.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.group7.app.lesson.model.Lesson;
+import com.group7.app.lesson.model.LessonStatus;
+import com.group7.app.lesson.model.LessonStep;
+import com.group7.app.lesson.model.QuestionType;
+import com.group7.app.lesson.model.StepType;
+import com.group7.app.lesson.model.Unit;
+import com.group7.app.lesson.model.VocabItem;
+import com.group7.app.lesson.repository.LessonAttemptRepository;
+import com.group7.app.lesson.repository.LessonAttemptResultRepository;
+import com.group7.app.lesson.repository.LessonRepository;
+import com.group7.app.lesson.repository.LessonStepRepository;
+import com.group7.app.lesson.repository.UnitRepository;
+import com.group7.app.lesson.repository.UserDailyStatsRepository;
+import com.group7.app.lesson.repository.UserLessonProgressRepository;
+import com.group7.app.lesson.repository.UserStepEventRepository;
+import com.group7.app.lesson.repository.UserStepReviewStateRepository;
+import com.group7.app.lesson.repository.UserUnitStatsRepository;
+import com.group7.app.lesson.repository.UserVocabMemoryRepository;
+import com.group7.app.lesson.repository.VocabItemRepository;
+import com.group7.app.user.Role;
+import com.group7.app.user.User;
+import com.group7.app.user.UserDailyPointsRepository;
+import com.group7.app.user.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class LessonAttemptStatementCountTest {
+
+  // five reads, the counter update, one insert, insert batch or upsert per table and id fetches
+  private static final long MAX_STATEMENTS_PER_ATTEMPT = 16;
+
+  // each pooled id sequence may need one refill between two attempts
+  private static final long MAX_ID_BLOCK_FETCHES = 3;
+
+  @Autowired private LessonAttemptService lessonAttemptService;
+
+  @Autowired private LessonStepPayloadService payloadService;
+
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  @Autowired private LessonAttemptResultRepository lessonAttemptResultRepository;
+
+  @Autowired private LessonAttemptRepository lessonAttemptRepository;
+
+  @Autowired private UserLessonProgressRepository userLessonProgressRepository;
+
+  @Autowired private UserStepEventRepository userStepEventRepository;
+
+  @Autowired private UserVocabMemoryRepository userVocabMemoryRepository;
+
+  @Autowired private UserStepReviewStateRepository userStepReviewStateRepository;
+
+  @Autowired private LessonStepRepository lessonStepRepository;
+
+  @Autowired private LessonRepository lessonRepository;
+
+  @Autowired private VocabItemRepository vocabItemRepository;
+
+  @Autowired private UnitRepository unitRepository;
+
+  @Autowired private UserRepository userRepository;
+
+  @Autowired private UserDailyPointsRepository userDailyPointsRepository;
+
+  @Autowired private UserDailyStatsRepository userDailyStatsRepository;
+
+  @Autowired private UserUnitStatsRepository userUnitStatsRepository;
+
+  @BeforeEach
+  void cleanDatabase() {
+    lessonAttemptResultRepository.deleteAll();
+    lessonAttemptRepository.deleteAll();
+    userStepEventRepository.deleteAll();
+    userLessonProgressRepository.deleteAll();
+    userVocabMemoryRepository.deleteAll();
+    userStepReviewStateRepository.deleteAll();
+    lessonStepRepository.deleteAll();
+    lessonRepository.deleteAll();
+    vocabItemRepository.deleteAll();
+    userUnitStatsRepository.deleteAll();
+    unitRepository.deleteAll();
+    userDailyPointsRepository.deleteAll();
+    userDailyStatsRepository.deleteAll();
+    userRepository.deleteAll();
+  }
+
+  @Test
+  void submitAttemptStatementsDoNotGrowWithLessonSize() {
+    User learner = new User(UUID.randomUUID(), "learner@example.com");
+    learner.setRole(Role.LEARNER);
+    learner = userRepository.save(learner);
+    Unit unit = unitRepository.save(new Unit("Unit", "unit", "desc", 1));
+
+    Lesson smallLesson = approvedLesson(unit, "small", 1, 3);
+    Lesson largeLesson = approvedLesson(unit, "large", 2, 20);
+
+    long smallLessonStatements = statementsForAttempt(learner, smallLesson);
+    long largeLessonStatements = statementsForAttempt(learner, largeLesson);
+
+    // a 20-question attempt used to cost one INSERT round trip per result row
+    assertThat(largeLessonStatements - smallLessonStatements)
+        .isLessThanOrEqualTo(MAX_ID_BLOCK_FETCHES);
+    assertThat(largeLessonStatements).isLessThanOrEqualTo(MAX_STATEMENTS_PER_ATTEMPT);
+  }
+
+  private long statementsForAttempt(User learner, Lesson lesson) {
+    List<LessonAttemptService.AnswerInput> answers = new ArrayList<>();
+    for (LessonStep step :
+        lessonStepRepository.findByLessonIdAndStepTypeOrderByOrderIndexAsc(
+            lesson.getId(), StepType.QUESTION)) {
+      answers.add(
+          new LessonAttemptService.AnswerInput(
+              step.getId(), JsonNodeFactory.instance.textNode("Charisma")));
+    }
+
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    var result =
+        lessonAttemptService.submitAttempt(
+            learner, lesson.getId(), answers, Instant.now().minusSeconds(30));
+
+    assertThat(result.totalQuestions()).isEqualTo(answers.size());
+    assertThat(result.passed()).isTrue();
+    return statistics.getPrepareStatementCount();
+  }
+
+  private Lesson approvedLesson(Unit unit, String slug, int orderIndex, int questionCount) {
+    Lesson lesson = new Lesson(unit, slug, slug, "desc", null, 5, orderIndex, UUID.randomUUID());
+    lesson.setStatus(LessonStatus.APPROVED);
+    lesson = lessonRepository.save(lesson);
+
+    VocabItem vocabItem =
+        vocabItemRepository.save(new VocabItem(slug + "-term", "charisma", "example", "noun"));
+    LessonStep teachStep = new LessonStep(lesson, 1, StepType.TEACH);
+    teachStep.setVocabItem(vocabItem);
+    teachStep.setPayload(payloadService.buildTeachPayload(vocabItem.getTerm(), "charisma", null));
+    lessonStepRepository.save(teachStep);
+
+    for (int i = 0; i < questionCount; i++) {
+      LessonStep questionStep = new LessonStep(lesson, i + 2, StepType.QUESTION);
+      questionStep.setPayload(
+          payloadService.buildQuestionPayload(
+              QuestionType.MCQ,
+              "What does rizz mean?",
+              "Because it means charisma.",
+              List.of("Charisma", "Food"),
+              0,
+              null,
+              null));
+      lessonStepRepository.save(questionStep);
+    }
+    return lesson;
+  }
+}
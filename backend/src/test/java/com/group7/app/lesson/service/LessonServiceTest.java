@@ -44,6 +44,10 @@ class LessonServiceTest {
 
   @Mock private VocabItemRepository vocabItemRepository;
 
+  @Mock private ApprovedQuestionCatalog approvedQuestionCatalog;
+
+  @Mock private LessonAttemptService lessonAttemptService;
+
   private LessonService lessonService;
 
   @BeforeEach
@@ -54,7 +58,9 @@ class LessonServiceTest {
             lessonRepository,
             lessonStepRepository,
             vocabItemRepository,
-            new LessonStepPayloadService(new ObjectMapper()));
+            new LessonStepPayloadService(new ObjectMapper()),
+            approvedQuestionCatalog,
+            lessonAttemptService);
   }
 
   @Test
@@ -242,6 +248,7 @@ class LessonServiceTest {
     assertThat(updated.getStatus()).isEqualTo(LessonStatus.APPROVED);
     assertThat(updated.getReviewedBy()).isEqualTo(moderator.getId());
     assertThat(updated.getPublishedAt()).isNotNull();
+    verify(approvedQuestionCatalog).invalidate();
   }
 
   @Test
@@ -598,7 +605,30 @@ class LessonServiceTest {
     lessonService.deleteStep(contributor, 55L, 81L);
 
     verify(lessonStepRepository).delete(step);
+    verify(lessonAttemptService).revokeLessonPoints(55L);
     verify(lessonRepository).delete(lesson);
+    verify(approvedQuestionCatalog, never()).invalidate();
+  }
+
+  @Test
+  void deleteStepOfApprovedLessonInvalidatesCatalog() {
+    User moderator = user(Role.MODERATOR);
+    Lesson lesson = lesson(LessonStatus.APPROVED, user(Role.CONTRIBUTOR).getId());
+    LessonStep step = new LessonStep(lesson, 1, StepType.QUESTION);
+    ReflectionTestUtils.setField(step, "id", 81L);
+    LessonStep remaining = new LessonStep(lesson, 2, StepType.RECAP);
+
+    when(lessonRepository.findById(55L)).thenReturn(Optional.of(lesson));
+    when(lessonStepRepository.findByIdAndLessonId(81L, 55L)).thenReturn(Optional.of(step));
+    when(lessonStepRepository.findByLessonIdOrderByOrderIndexAsc(55L))
+        .thenReturn(List.of(remaining));
+
+    lessonService.deleteStep(moderator, 55L, 81L);
+
+    verify(lessonStepRepository).delete(step);
+    verify(lessonRepository, never()).delete(lesson);
+    verify(lessonAttemptService, never()).revokeLessonPoints(any());
+    verify(approvedQuestionCatalog).invalidate();
   }
 
   private User user(Role role) {
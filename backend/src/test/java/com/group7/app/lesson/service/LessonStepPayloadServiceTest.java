@@ -5,11 +5,13 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.group7.app.lesson.model.Lesson;
 import com.group7.app.lesson.model.LessonStep;
 import com.group7.app.lesson.model.QuestionType;
 import com.group7.app.lesson.model.StepType;
 import com.group7.app.lesson.model.Unit;
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
@@ -170,6 +172,62 @@ class LessonStepPayloadServiceTest {
     assertThat(evaluation.evaluatedAnswer().path("acceptedAnswers")).hasSize(2);
   }
 
+  @Test
+  void compileReusesCachedEvaluatorUntilStepIsUpdated() {
+    LessonStep step =
+        questionStep(
+            service.buildQuestionPayload(
+                QuestionType.SHORT_ANSWER, "Say it", null, null, null, List.of("no cap"), null));
+    Instant firstVersion = Instant.parse("2026-01-01T00:00:00Z");
+    ReflectionTestUtils.setField(step, "updatedAt", firstVersion);
+
+    var compiled = service.compile(step);
+
+    assertThat(service.compile(step)).isSameAs(compiled);
+    assertThat(compiled.acceptedAnswers()).containsExactly("no cap");
+
+    step.setPayload(
+        service.buildQuestionPayload(
+            QuestionType.SHORT_ANSWER, "Say it", null, null, null, List.of("bet"), null));
+    ReflectionTestUtils.setField(step, "updatedAt", firstVersion.plusSeconds(1));
+
+    assertThat(service.compile(step)).isNotSameAs(compiled);
+    assertThat(service.evaluate(step, JsonNodeFactory.instance.textNode("BET")).correct()).isTrue();
+    assertThat(service.evaluate(step, JsonNodeFactory.instance.textNode("no cap")).correct())
+        .isFalse();
+  }
+
+  @Test
+  void evaluationsFromACachedQuestionDoNotShareTheirAnswerNode() {
+    LessonStep step =
+        questionStep(
+            service.buildQuestionPayload(
+                QuestionType.SHORT_ANSWER, "Say it", null, null, null, List.of("no cap"), null));
+    ReflectionTestUtils.setField(step, "updatedAt", Instant.parse("2026-01-01T00:00:00Z"));
+
+    var first = service.evaluate(step, JsonNodeFactory.instance.textNode("no cap"));
+    ((ObjectNode) first.evaluatedAnswer()).put("tampered", true);
+
+    var second = service.evaluate(step, JsonNodeFactory.instance.textNode("no cap"));
+    assertThat(second.evaluatedAnswer().has("tampered")).isFalse();
+  }
+
+  @Test
+  void evictCompiledQuestionForcesRecompile() {
+    LessonStep step =
+        questionStep(
+            service.buildQuestionPayload(
+                QuestionType.MCQ, "Pick one", null, List.of("charisma", "food"), 0, null, null));
+    ReflectionTestUtils.setField(step, "updatedAt", Instant.parse("2026-01-01T00:00:00Z"));
+    var compiled = service.compile(step);
+
+    service.evictCompiledQuestion(step.getId());
+
+    assertThat(service.compile(step)).isNotSameAs(compiled);
+    assertThat(service.evaluate(step, JsonNodeFactory.instance.textNode(" Charisma ")).correct())
+        .isTrue();
+  }
+
   @Test
   void shuffledRightsReturnsOnlyNonBlankRights() {
     var rights =
@@ -0,0 +1,214 @@
+package com.group7.app.lesson.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.group7.app.lesson.model.Lesson;
+import com.group7.app.lesson.model.LessonAttempt;
+import com.group7.app.lesson.model.LessonAttemptResult;
+import com.group7.app.lesson.model.LessonStep;
+import com.group7.app.lesson.model.StepType;
+import com.group7.app.lesson.model.Unit;
+import com.group7.app.lesson.model.UserStepEvent;
+import com.group7.app.lesson.repository.LessonAttemptRepository;
+import com.group7.app.lesson.repository.LessonAttemptResultRepository;
+import com.group7.app.lesson.repository.StepReviewUpsert;
+import com.group7.app.lesson.repository.UserStepEventRepository;
+import com.group7.app.lesson.repository.UserStepReviewStateRepository;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class ReviewStateServiceTest {
+
+  private static final UUID USER_ID = UUID.randomUUID();
+
+  @Mock private UserStepReviewStateRepository userStepReviewStateRepository;
+
+  @Mock private LessonAttemptRepository lessonAttemptRepository;
+
+  @Mock private LessonAttemptResultRepository lessonAttemptResultRepository;
+
+  @Mock private UserStepEventRepository userStepEventRepository;
+
+  private ReviewStateService reviewStateService;
+
+  @BeforeEach
+  void setUp() {
+    reviewStateService =
+        new ReviewStateService(
+            userStepReviewStateRepository,
+            lessonAttemptRepository,
+            lessonAttemptResultRepository,
+            userStepEventRepository);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void recordOutcomesAppliesAnswersInOrderOnTopOfStoredState() {
+    Instant lastSeen = Instant.parse("2026-01-01T00:00:00Z");
+    Instant answeredAt = Instant.parse("2026-01-10T00:00:00Z");
+    when(userStepReviewStateRepository.findStatesByUserIdAndLessonStepIds(
+            USER_ID, Set.of(101L, 102L)))
+        .thenReturn(List.of(new StoredReviewState(101L, 3, 3, 0, lastSeen, lastSeen)));
+
+    reviewStateService.recordOutcomes(
+        USER_ID,
+        List.of(
+            new ReviewStateService.StepOutcome(101L, false, answeredAt),
+            new ReviewStateService.StepOutcome(102L, true, answeredAt),
+            new ReviewStateService.StepOutcome(101L, true, answeredAt)));
+
+    ArgumentCaptor<Collection<StepReviewUpsert>> stateCaptor =
+        ArgumentCaptor.forClass(Collection.class);
+    verify(userStepReviewStateRepository)
+        .upsertAll(eq(USER_ID), stateCaptor.capture(), any(Instant.class));
+    assertThat(stateCaptor.getValue())
+        .extracting(
+            StepReviewUpsert::lessonStepId,
+            StepReviewUpsert::strength,
+            StepReviewUpsert::correctStreak,
+            StepReviewUpsert::timesWrong,
+            StepReviewUpsert::nextDueAt)
+        .containsExactly(
+            tuple(101L, 2, 1, 1, answeredAt.plus(2, ChronoUnit.DAYS)),
+            tuple(102L, 1, 1, 0, answeredAt.plus(1, ChronoUnit.DAYS)));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void rebuildForUserReplaysResultsAndReviseAnswersChronologically() {
+    Lesson lesson =
+        new Lesson(
+            new Unit("Unit", "unit", "desc", 1), "Lesson", "lesson", "desc", null, 5, 1, USER_ID);
+    ReflectionTestUtils.setField(lesson, "id", 55L);
+    LessonStep step = new LessonStep(lesson, 1, StepType.QUESTION);
+    ReflectionTestUtils.setField(step, "id", 101L);
+    LessonAttempt attempt =
+        new LessonAttempt(USER_ID, lesson, 100, 1, 1, true, Instant.now(), Instant.now());
+    Instant first = Instant.parse("2026-01-01T00:00:00Z");
+    Instant second = first.plus(1, ChronoUnit.DAYS);
+    Instant third = first.plus(2, ChronoUnit.DAYS);
+
+    when(lessonAttemptResultRepository.findByAttemptUserIdOrderByCreatedAtAsc(USER_ID))
+        .thenReturn(
+            List.of(result(attempt, step, true, first), result(attempt, step, true, third)));
+    when(userStepEventRepository.findByUserIdAndEventTypeOrderByCreatedAtAsc(
+            USER_ID, "REVISE_ANSWERED"))
+        .thenReturn(List.of(reviseEvent(lesson, step, false, second)));
+
+    int written = reviewStateService.rebuildForUser(USER_ID);
+
+    assertThat(written).isEqualTo(1);
+    ArgumentCaptor<Collection<StepReviewUpsert>> stateCaptor =
+        ArgumentCaptor.forClass(Collection.class);
+    verify(userStepReviewStateRepository)
+        .upsertAll(eq(USER_ID), stateCaptor.capture(), any(Instant.class));
+    // correct, wrong, correct: the miss in the middle resets the streak but not the last answer
+    assertThat(stateCaptor.getValue())
+        .singleElement()
+        .satisfies(
+            state -> {
+              assertThat(state.strength()).isEqualTo(1);
+              assertThat(state.correctStreak()).isEqualTo(1);
+              assertThat(state.timesWrong()).isEqualTo(1);
+              assertThat(state.lastSeenAt()).isEqualTo(third);
+              assertThat(state.nextDueAt()).isEqualTo(third.plus(1, ChronoUnit.DAYS));
+            });
+  }
+
+  @Test
+  void findUsersWithAnswerHistoryMergesAttemptAndReviseUsers() {
+    UUID reviseOnly = UUID.randomUUID();
+    when(lessonAttemptRepository.findDistinctUserIds()).thenReturn(List.of(USER_ID));
+    when(userStepEventRepository.findDistinctUserIdsByEventType("REVISE_ANSWERED"))
+        .thenReturn(List.of(USER_ID, reviseOnly));
+
+    assertThat(reviewStateService.findUsersWithAnswerHistory())
+        .containsExactly(USER_ID, reviseOnly);
+  }
+
+  private LessonAttemptResult result(
+      LessonAttempt attempt, LessonStep step, boolean correct, Instant createdAt) {
+    LessonAttemptResult result =
+        new LessonAttemptResult(
+            attempt,
+            step,
+            55L,
+            correct,
+            JsonNodeFactory.instance.textNode("answer"),
+            JsonNodeFactory.instance.objectNode(),
+            null);
+    ReflectionTestUtils.setField(result, "createdAt", createdAt);
+    return result;
+  }
+
+  private UserStepEvent reviseEvent(
+      Lesson lesson, LessonStep step, boolean correct, Instant createdAt) {
+    UserStepEvent event =
+        new UserStepEvent(
+            USER_ID,
+            lesson,
+            step,
+            null,
+            "REVISE_ANSWERED",
+            JsonNodeFactory.instance.objectNode().put("correct", correct));
+    ReflectionTestUtils.setField(event, "createdAt", createdAt);
+    return event;
+  }
+
+  private record StoredReviewState(
+      Long lessonStepId,
+      Integer strength,
+      Integer correctStreak,
+      Integer timesWrong,
+      Instant lastSeenAt,
+      Instant nextDueAt)
+      implements UserStepReviewStateRepository.ReviewStateView {
+    @Override
+    public Long getLessonStepId() {
+      return lessonStepId;
+    }
+
+    @Override
+    public Integer getStrength() {
+      return strength;
+    }
+
+    @Override
+    public Integer getCorrectStreak() {
+      return correctStreak;
+    }
+
+    @Override
+    public Integer getTimesWrong() {
+      return timesWrong;
+    }
+
+    @Override
+    public Instant getLastSeenAt() {
+      return lastSeenAt;
+    }
+
+    @Override
+    public Instant getNextDueAt() {
+      return nextDueAt;
+    }
+  }
+}
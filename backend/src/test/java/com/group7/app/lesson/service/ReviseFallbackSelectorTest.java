@@ -0,0 +1,61 @@
+package com.group7.app.lesson.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class ReviseFallbackSelectorTest {
+
+  private record Step(long id, String lessonTitle, boolean startedLesson) {}
+
+  @Test
+  void selectsSameStepsAsSortingEveryBucket() {
+    UUID userId = UUID.fromString("6f1c2d8e-0000-4000-8000-000000000001");
+    Random random = new Random(7);
+    List<Step> steps = new ArrayList<>();
+    for (long id = 1; id <= 5_000; id++) {
+      steps.add(new Step(id, "Lesson " + random.nextInt(40), random.nextInt(10) == 0));
+    }
+
+    ReviseFallbackSelector<Step> selector = new ReviseFallbackSelector<>(userId, 20);
+    for (Step step : steps) {
+      selector.offer(step.id(), step.lessonTitle(), step.startedLesson(), step);
+    }
+
+    Comparator<Step> fullSortOrder =
+        Comparator.comparing((Step step) -> !step.startedLesson())
+            .thenComparingInt(step -> Math.abs(Objects.hash(userId, step.id())))
+            .thenComparing(Step::lessonTitle)
+            .thenComparingLong(Step::id);
+    List<Step> expected = steps.stream().sorted(fullSortOrder).limit(20).toList();
+    assertThat(selector.selected()).containsExactlyElementsOf(expected);
+  }
+
+  @Test
+  void fillsFromOtherLessonsWhenStartedLessonsRunOut() {
+    UUID userId = UUID.randomUUID();
+    ReviseFallbackSelector<Long> selector = new ReviseFallbackSelector<>(userId, 3);
+    selector.offer(1L, "Started", true, 1L);
+    for (long id = 2; id <= 10; id++) {
+      selector.offer(id, "Other", false, id);
+    }
+
+    List<Long> selected = selector.selected();
+    assertThat(selected).hasSize(3);
+    assertThat(selected.getFirst()).isEqualTo(1L);
+  }
+
+  @Test
+  void selectsNothingWhenNoRoomIsLeft() {
+    ReviseFallbackSelector<Long> selector = new ReviseFallbackSelector<>(UUID.randomUUID(), 0);
+    selector.offer(1L, "Lesson", true, 1L);
+
+    assertThat(selector.selected()).isEmpty();
+  }
+}
@@ -0,0 +1,74 @@
+package com.group7.app.user;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class AuthenticatedUserCacheTest {
+
+  @AfterEach
+  void clearSynchronization() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void entriesExpireAndTheLeastRecentlyUsedOneIsEvicted() {
+    User kai = new User(UUID.randomUUID(), "kai@example.com");
+    User luna = new User(UUID.randomUUID(), "luna@example.com");
+    User mia = new User(UUID.randomUUID(), "mia@example.com");
+
+    AuthenticatedUserCache expiring = new AuthenticatedUserCache(100, Duration.ZERO);
+    expiring.put(kai, expiring.generation());
+    assertThat(expiring.get(kai.getId())).isNull();
+
+    AuthenticatedUserCache bounded = new AuthenticatedUserCache(2, Duration.ofMinutes(1));
+    bounded.put(kai, bounded.generation());
+    bounded.put(luna, bounded.generation());
+    bounded.get(kai.getId());
+    bounded.put(mia, bounded.generation());
+
+    assertThat(bounded.get(kai.getId())).isSameAs(kai);
+    assertThat(bounded.get(luna.getId())).isNull();
+    assertThat(bounded.get(mia.getId())).isSameAs(mia);
+  }
+
+  @Test
+  void invalidateInsideTransactionWaitsForCommit() {
+    AuthenticatedUserCache cache = new AuthenticatedUserCache(100, Duration.ofMinutes(1));
+    User kai = new User(UUID.randomUUID(), "kai@example.com");
+    cache.put(kai, cache.generation());
+
+    TransactionSynchronizationManager.initSynchronization();
+    cache.invalidate(kai.getId());
+
+    assertThat(cache.get(kai.getId())).isSameAs(kai);
+
+    for (TransactionSynchronization synchronization :
+        TransactionSynchronizationManager.getSynchronizations()) {
+      synchronization.afterCommit();
+    }
+
+    assertThat(cache.get(kai.getId())).isNull();
+  }
+
+  @Test
+  void putSkipsAUserLoadedBeforeTheLatestInvalidation() {
+    AuthenticatedUserCache cache = new AuthenticatedUserCache(100, Duration.ofMinutes(1));
+    User kai = new User(UUID.randomUUID(), "kai@example.com");
+
+    long loadedAt = cache.generation();
+    cache.invalidate(kai.getId());
+    cache.put(kai, loadedAt);
+    assertThat(cache.get(kai.getId())).isNull();
+
+    cache.put(kai, cache.generation());
+    assertThat(cache.get(kai.getId())).isSameAs(kai);
+  }
+}
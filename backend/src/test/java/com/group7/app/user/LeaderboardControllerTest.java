@@ -1,25 +1,37 @@
 package com.group7.app.user;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.group7.app.lesson.service.AuthContextService;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.server.ResponseStatusException;
 
 @ExtendWith(MockitoExtension.class)
 class LeaderboardControllerTest {
 
+  @Mock private LeaderboardIndex leaderboardIndex;
+
   @Mock private LeaderboardRepository leaderboardRepository;
 
   @Mock private AuthContextService authContextService;
@@ -28,19 +40,130 @@ class LeaderboardControllerTest {
 
   @BeforeEach
   void setUp() {
-    leaderboardController = new LeaderboardController(leaderboardRepository, authContextService);
+    leaderboardController =
+        new LeaderboardController(leaderboardIndex, leaderboardRepository, authContextService);
   }
 
   @Test
   void getLeaderboardClampsLimitAndFallsBackToPointsSort() {
     List<LeaderboardEntry> expected = List.of();
-    when(leaderboardRepository.getTopPlayers(eq("points"), any(PageRequest.class)))
+    when(leaderboardIndex.top(LeaderboardIndex.Sort.POINTS, 100)).thenReturn(expected);
+
+    List<LeaderboardEntry> response =
+        leaderboardController.getLeaderboard(999, "unknown", "all", null);
+
+    assertThat(response).isSameAs(expected);
+    verify(leaderboardIndex).top(LeaderboardIndex.Sort.POINTS, 100);
+  }
+
+  @Test
+  void getLeaderboardSumsTheLastSevenDailyBucketsForWeeklyWindow() {
+    List<LeaderboardEntry> expected = List.of();
+    LocalDate today = LocalDate.now(ZoneOffset.UTC);
+    when(leaderboardRepository.findWindowPlayers(
+            any(LocalDate.class), eq(PageRequest.of(0, 10))))
         .thenReturn(expected);
 
-    List<LeaderboardEntry> response = leaderboardController.getLeaderboard(999, "unknown");
+    List<LeaderboardEntry> response =
+        leaderboardController.getLeaderboard(10, "streak", "WEEK", null);
+
+    assertThat(response).isSameAs(expected);
+    ArgumentCaptor<LocalDate> firstBucket = ArgumentCaptor.forClass(LocalDate.class);
+    verify(leaderboardRepository).findWindowPlayers(firstBucket.capture(), any(Pageable.class));
+    // the day boundary may pass between the two reads of the clock
+    assertThat(firstBucket.getValue()).isBetween(today.minusDays(6), today.minusDays(5));
+    verify(leaderboardIndex, never()).top(any(), anyInt());
+  }
+
+  @Test
+  void getLeaderboardPagesThePointsBoardAfterTheCursor() {
+    UUID userId = UUID.randomUUID();
+    List<LeaderboardEntry> expected = List.of();
+    when(leaderboardIndex.pointsAfter(300L, userId, 20)).thenReturn(expected);
+
+    List<LeaderboardEntry> response =
+        leaderboardController.getLeaderboard(20, "points", "all", "300," + userId);
 
     assertThat(response).isSameAs(expected);
-    verify(leaderboardRepository).getTopPlayers("points", PageRequest.of(0, 100));
+    verify(leaderboardIndex, never()).top(any(), anyInt());
+  }
+
+  @Test
+  void getLeaderboardRejectsMalformedOrUnsupportedCursors() {
+    assertThatThrownBy(() -> leaderboardController.getLeaderboard(10, "points", "all", "300"))
+        .isInstanceOf(ResponseStatusException.class)
+        .extracting(ex -> ((ResponseStatusException) ex).getStatusCode())
+        .isEqualTo(HttpStatus.BAD_REQUEST);
+    assertThatThrownBy(
+            () -> leaderboardController.getLeaderboard(10, "points", "all", "abc,not-a-uuid"))
+        .isInstanceOf(ResponseStatusException.class);
+    String cursor = "300," + UUID.randomUUID();
+    assertThatThrownBy(() -> leaderboardController.getLeaderboard(10, "streak", "all", cursor))
+        .isInstanceOf(ResponseStatusException.class);
+    assertThatThrownBy(() -> leaderboardController.getLeaderboard(10, "points", "week", cursor))
+        .isInstanceOf(ResponseStatusException.class);
+  }
+
+  @Test
+  void getLeaderboardAroundMeReturnsTheIndexNeighbourhood() {
+    UUID userId = UUID.randomUUID();
+    User learner = new User(userId, "learner@example.com");
+    learner.setRole(Role.LEARNER);
+    LeaderboardEntry mine = new LeaderboardEntry(userId, "Me", null, null, 40L, 1, 2, 50.0);
+    when(authContextService.resolveUser(any(Jwt.class))).thenReturn(learner);
+    when(leaderboardIndex.around(LeaderboardIndex.Sort.STREAK, userId, 50))
+        .thenReturn(new LeaderboardIndex.Neighbourhood(3, 1, List.of(mine), 9));
+
+    LeaderboardController.LeaderboardAroundResponse response =
+        leaderboardController.getLeaderboardAroundMe(jwt(userId), 500, "streak");
+
+    assertThat(response.rank()).isEqualTo(3);
+    assertThat(response.firstRank()).isEqualTo(1);
+    assertThat(response.entries()).containsExactly(mine);
+    assertThat(response.totalRankedUsers()).isEqualTo(9);
+  }
+
+  @Test
+  void getLeaderboardAroundMeIsEmptyWhenUserIsNotRanked() {
+    UUID userId = UUID.randomUUID();
+    User moderator = new User(userId, "moderator@example.com");
+    moderator.setRole(Role.MODERATOR);
+    when(authContextService.resolveUser(any(Jwt.class))).thenReturn(moderator);
+    when(leaderboardIndex.around(LeaderboardIndex.Sort.POINTS, userId, 5)).thenReturn(null);
+    when(leaderboardIndex.size()).thenReturn(4);
+
+    LeaderboardController.LeaderboardAroundResponse response =
+        leaderboardController.getLeaderboardAroundMe(jwt(userId), 5, "points");
+
+    assertThat(response.rank()).isNull();
+    assertThat(response.entries()).isEmpty();
+    assertThat(response.totalRankedUsers()).isEqualTo(4);
+  }
+
+  @Test
+  void getMyLeaderboardRanksPointsInsideTheWindow() {
+    UUID userId = UUID.randomUUID();
+    User learner = new User(userId, "learner@example.com");
+    learner.setRole(Role.LEARNER);
+    LeaderboardEntry mine = new LeaderboardEntry(userId, "Me", null, null, 40L, 1, 2, 50.0);
+    LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+    when(authContextService.resolveUser(any(Jwt.class))).thenReturn(learner);
+    when(leaderboardRepository.countWindowPlayers(today)).thenReturn(2L);
+    when(leaderboardRepository.findWindowPlayer(today, userId)).thenReturn(Optional.of(mine));
+    when(leaderboardRepository.countWindowPlayersAhead(today, 40L, userId)).thenReturn(1L);
+    when(leaderboardIndex.rank(LeaderboardIndex.Sort.STREAK, userId)).thenReturn(5);
+    when(leaderboardIndex.rank(LeaderboardIndex.Sort.SPEED, userId)).thenReturn(7);
+
+    LeaderboardController.LeaderboardMeResponse response =
+        leaderboardController.getMyLeaderboard(jwt(userId), "day");
+
+    assertThat(response.entry()).isSameAs(mine);
+    assertThat(response.pointsRank()).isEqualTo(2);
+    assertThat(response.streakRank()).isEqualTo(5);
+    assertThat(response.speedRank()).isEqualTo(7);
+    assertThat(response.totalRankedUsers()).isEqualTo(2);
+    verify(leaderboardRepository, never()).findWindowPlayers(any(LocalDate.class), any());
   }
 
   @Test
@@ -49,12 +172,10 @@ class LeaderboardControllerTest {
     User moderator = new User(userId, "moderator@example.com");
     moderator.setRole(Role.MODERATOR);
     when(authContextService.resolveUser(any(Jwt.class))).thenReturn(moderator);
-    when(leaderboardRepository.getAllPlayers("points"))
-        .thenReturn(
-            List.of(new LeaderboardEntry(UUID.randomUUID(), "Top", null, null, 300L, 4, 6, 30.0)));
+    when(leaderboardIndex.size()).thenReturn(1);
 
     LeaderboardController.LeaderboardMeResponse response =
-        leaderboardController.getMyLeaderboard(jwt(userId));
+        leaderboardController.getMyLeaderboard(jwt(userId), "all");
 
     assertThat(response.entry()).isNull();
     assertThat(response.pointsRank()).isNull();
@@ -68,16 +189,12 @@ class LeaderboardControllerTest {
     UUID userId = UUID.randomUUID();
     User learner = new User(userId, "learner@example.com");
     learner.setRole(Role.LEARNER);
-    LeaderboardEntry topPlayer =
-        new LeaderboardEntry(UUID.randomUUID(), "Top", null, null, 300L, 4, 6, 30.0);
 
     when(authContextService.resolveUser(any(Jwt.class))).thenReturn(learner);
-    when(leaderboardRepository.getAllPlayers("points")).thenReturn(List.of(topPlayer));
-    when(leaderboardRepository.getAllPlayers("streak")).thenReturn(List.of(topPlayer));
-    when(leaderboardRepository.getAllPlayers("speed")).thenReturn(List.of(topPlayer));
+    when(leaderboardIndex.size()).thenReturn(1);
 
     LeaderboardController.LeaderboardMeResponse response =
-        leaderboardController.getMyLeaderboard(jwt(userId));
+        leaderboardController.getMyLeaderboard(jwt(userId), "all");
 
     assertThat(response.entry()).isNull();
     assertThat(response.pointsRank()).isNull();
@@ -23,12 +23,14 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 @WebMvcTest(LeaderboardController.class)
-@Import(SecurityConfig.class)
+@Import({SecurityConfig.class, LeaderboardIndex.class})
 @ActiveProfiles("test")
 class LeaderboardControllerWebMvcTest {
 
   @Autowired private MockMvc mockMvc;
 
+  @Autowired private LeaderboardIndex leaderboardIndex;
+
   @MockitoBean private LeaderboardRepository leaderboardRepository;
 
   @MockitoBean private AuthContextService authContextService;
@@ -47,18 +49,17 @@ class LeaderboardControllerWebMvcTest {
     LeaderboardEntry topPlayer =
         new LeaderboardEntry(UUID.randomUUID(), "Top", "#111111", null, 500L, 12, 15, 42.0);
     LeaderboardEntry learnerEntry =
-        new LeaderboardEntry(learnerId, "Learner", "#222222", null, 200L, 6, 8, 55.0);
+        new LeaderboardEntry(learnerId, "Learner", "#222222", null, 200L, 6, 8, 40.0);
 
     when(authContextService.resolveUser(any(Jwt.class))).thenReturn(learner);
-    when(leaderboardRepository.getAllPlayers("points"))
+    when(leaderboardRepository.findAllPlayers())
         .thenReturn(
             List.of(
                 topPlayer,
                 learnerEntry,
                 new LeaderboardEntry(UUID.randomUUID(), "C", null, null, 10L, 1, 1, 80.0)));
-    when(leaderboardRepository.getAllPlayers("streak"))
-        .thenReturn(List.of(topPlayer, learnerEntry));
-    when(leaderboardRepository.getAllPlayers("speed")).thenReturn(List.of(learnerEntry, topPlayer));
+    // the index seeded itself from the empty mock when the context started
+    leaderboardIndex.reconcile();
 
     mockMvc
         .perform(
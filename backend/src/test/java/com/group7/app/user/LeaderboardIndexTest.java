@@ -0,0 +1,207 @@
+package com.group7.app.user;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class LeaderboardIndexTest {
+
+  @Mock private LeaderboardRepository leaderboardRepository;
+
+  private LeaderboardIndex leaderboardIndex;
+
+  @BeforeEach
+  void setUp() {
+    leaderboardIndex = new LeaderboardIndex(leaderboardRepository);
+  }
+
+  @Test
+  void ranksEachSortKeyLikeTheLeaderboardQuery() {
+    UUID fast = UUID.randomUUID();
+    UUID streaky = UUID.randomUUID();
+    UUID idle = UUID.randomUUID();
+    when(leaderboardRepository.findAllPlayers())
+        .thenReturn(
+            List.of(
+                entry(fast, 300L, 2, 20.0),
+                entry(streaky, 200L, 9, 60.0),
+                entry(idle, 0L, null, null)));
+
+    assertThat(leaderboardIndex.top(LeaderboardIndex.Sort.POINTS, 10))
+        .extracting(LeaderboardEntry::userId)
+        .containsExactly(fast, streaky, idle);
+    assertThat(leaderboardIndex.rank(LeaderboardIndex.Sort.STREAK, streaky)).isEqualTo(1);
+    assertThat(leaderboardIndex.rank(LeaderboardIndex.Sort.STREAK, idle)).isEqualTo(3);
+    assertThat(leaderboardIndex.rank(LeaderboardIndex.Sort.SPEED, fast)).isEqualTo(1);
+    assertThat(leaderboardIndex.rank(LeaderboardIndex.Sort.SPEED, idle)).isEqualTo(3);
+    assertThat(leaderboardIndex.rank(LeaderboardIndex.Sort.POINTS, UUID.randomUUID())).isNull();
+    assertThat(leaderboardIndex.size()).isEqualTo(3);
+  }
+
+  @Test
+  void changedLearnersAreReloadedBeforeTheNextRead() {
+    UUID leader = UUID.randomUUID();
+    UUID climber = UUID.randomUUID();
+    UUID demoted = UUID.randomUUID();
+    when(leaderboardRepository.findAllPlayers())
+        .thenReturn(
+            List.of(
+                entry(leader, 300L, 2, 20.0),
+                entry(climber, 100L, 1, 30.0),
+                entry(demoted, 50L, 1, 30.0)));
+    leaderboardIndex.reconcile();
+
+    when(leaderboardRepository.findPlayers(List.of(climber)))
+        .thenReturn(List.of(entry(climber, 400L, 3, 25.0)));
+    leaderboardIndex.markChanged(climber);
+
+    assertThat(leaderboardIndex.rank(LeaderboardIndex.Sort.POINTS, climber)).isEqualTo(1);
+    assertThat(leaderboardIndex.rank(LeaderboardIndex.Sort.POINTS, leader)).isEqualTo(2);
+
+    // a learner who is no longer returned (e.g. promoted to moderator) drops out
+    when(leaderboardRepository.findPlayers(List.of(demoted))).thenReturn(List.of());
+    leaderboardIndex.markChanged(demoted);
+
+    assertThat(leaderboardIndex.entry(demoted)).isNull();
+    assertThat(leaderboardIndex.size()).isEqualTo(2);
+    verify(leaderboardRepository, never()).findPlayers(List.of(leader));
+  }
+
+  @Test
+  void readsKeepServingTheOldTreesWhileAReconcileScans() throws Exception {
+    UUID seeded = UUID.randomUUID();
+    UUID joined = UUID.randomUUID();
+    CountDownLatch scanning = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(leaderboardRepository.findAllPlayers())
+        .thenReturn(List.of(entry(seeded, 100L, 1, 30.0)))
+        .thenAnswer(
+            invocation -> {
+              scanning.countDown();
+              release.await(5, TimeUnit.SECONDS);
+              return List.of(entry(seeded, 100L, 1, 30.0), entry(joined, 200L, 2, 20.0));
+            });
+    leaderboardIndex.reconcile();
+
+    Thread reconcile = new Thread(leaderboardIndex::reconcile);
+    reconcile.start();
+    assertThat(scanning.await(5, TimeUnit.SECONDS)).isTrue();
+
+    assertTimeoutPreemptively(
+        Duration.ofSeconds(2),
+        () -> assertThat(leaderboardIndex.rank(LeaderboardIndex.Sort.POINTS, seeded)).isEqualTo(1));
+    release.countDown();
+    reconcile.join();
+    assertThat(leaderboardIndex.rank(LeaderboardIndex.Sort.POINTS, seeded)).isEqualTo(2);
+  }
+
+  @Test
+  void ranksMatchAFullSortAfterRandomUpdates() {
+    Random random = new Random(7);
+    List<LeaderboardEntry> seed = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      seed.add(randomEntry(UUID.randomUUID(), random));
+    }
+    when(leaderboardRepository.findAllPlayers()).thenReturn(seed);
+    leaderboardIndex.reconcile();
+
+    List<LeaderboardEntry> current = new ArrayList<>(seed);
+    for (int i = 0; i < 50; i++) {
+      int index = random.nextInt(current.size());
+      LeaderboardEntry updated = randomEntry(current.get(index).userId(), random);
+      current.set(index, updated);
+      when(leaderboardRepository.findPlayers(List.of(updated.userId())))
+          .thenReturn(List.of(updated));
+      leaderboardIndex.markChanged(updated.userId());
+      leaderboardIndex.size();
+    }
+
+    List<LeaderboardEntry> expected =
+        current.stream()
+            .sorted(
+                Comparator.comparing(LeaderboardEntry::maxCorrectStreak, Comparator.reverseOrder())
+                    .thenComparing(LeaderboardEntry::totalScore, Comparator.reverseOrder())
+                    .thenComparing(LeaderboardEntry::userId))
+            .toList();
+    assertThat(leaderboardIndex.top(LeaderboardIndex.Sort.STREAK, 200)).isEqualTo(expected);
+    for (int i = 0; i < expected.size(); i += 17) {
+      assertThat(leaderboardIndex.rank(LeaderboardIndex.Sort.STREAK, expected.get(i).userId()))
+          .isEqualTo(i + 1);
+    }
+  }
+
+  @Test
+  void aroundAndKeysetPagesWalkThePointsBoardInOrder() {
+    Random random = new Random(11);
+    List<LeaderboardEntry> seed = new ArrayList<>();
+    for (int i = 0; i < 120; i++) {
+      seed.add(randomEntry(UUID.randomUUID(), random));
+    }
+    when(leaderboardRepository.findAllPlayers()).thenReturn(seed);
+    List<LeaderboardEntry> expected =
+        seed.stream()
+            .sorted(
+                Comparator.comparing(LeaderboardEntry::totalScore, Comparator.reverseOrder())
+                    .thenComparing(LeaderboardEntry::userId))
+            .toList();
+
+    List<LeaderboardEntry> walked =
+        new ArrayList<>(leaderboardIndex.top(LeaderboardIndex.Sort.POINTS, 25));
+    while (walked.size() < expected.size()) {
+      LeaderboardEntry last = walked.get(walked.size() - 1);
+      List<LeaderboardEntry> page =
+          leaderboardIndex.pointsAfter(last.totalScore(), last.userId(), 25);
+      assertThat(page).isNotEmpty();
+      walked.addAll(page);
+    }
+    assertThat(walked).isEqualTo(expected);
+
+    // a cursor whose learner has since left still resumes at the right place
+    LeaderboardEntry gone = expected.get(40);
+    when(leaderboardRepository.findPlayers(List.of(gone.userId()))).thenReturn(List.of());
+    leaderboardIndex.markChanged(gone.userId());
+    assertThat(leaderboardIndex.pointsAfter(gone.totalScore(), gone.userId(), 3))
+        .isEqualTo(expected.subList(41, 44));
+
+    LeaderboardEntry middle = expected.get(60);
+    LeaderboardIndex.Neighbourhood neighbourhood =
+        leaderboardIndex.around(LeaderboardIndex.Sort.POINTS, middle.userId(), 2);
+    assertThat(neighbourhood.rank()).isEqualTo(60);
+    assertThat(neighbourhood.firstRank()).isEqualTo(58);
+    assertThat(neighbourhood.entries()).isEqualTo(expected.subList(58, 63));
+
+    LeaderboardIndex.Neighbourhood top =
+        leaderboardIndex.around(LeaderboardIndex.Sort.POINTS, expected.get(0).userId(), 2);
+    assertThat(top.firstRank()).isEqualTo(1);
+    assertThat(top.entries()).isEqualTo(expected.subList(0, 3));
+    assertThat(leaderboardIndex.around(LeaderboardIndex.Sort.POINTS, gone.userId(), 2)).isNull();
+  }
+
+  private LeaderboardEntry randomEntry(UUID userId, Random random) {
+    return entry(
+        userId, random.nextInt(20) * 50L, random.nextInt(10), 10.0 + random.nextInt(50));
+  }
+
+  private LeaderboardEntry entry(
+      UUID userId, long totalScore, Integer maxCorrectStreak, Double avgTimeSeconds) {
+    return new LeaderboardEntry(
+        userId, "learner", null, null, totalScore, 1, maxCorrectStreak, avgTimeSeconds);
+  }
+}
@@ -0,0 +1,133 @@
+package com.group7.app.user;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+class UserProfileCacheTest {
+
+  @Mock private UserRepository userRepository;
+
+  @AfterEach
+  void clearSynchronization() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void getAllLoadsOnlyMissesAndServesRepeatsFromMemory() {
+    UserProfileCache cache = new UserProfileCache(userRepository, 100, Duration.ofMinutes(10));
+    User kai = user("Kai@Example.com", "Kai");
+    User luna = user("luna@example.com", null);
+    UUID unknown = UUID.randomUUID();
+    when(userRepository.findAllById(List.of(kai.getId()))).thenReturn(List.of(kai));
+    when(userRepository.findAllById(List.of(luna.getId(), unknown))).thenReturn(List.of(luna));
+
+    assertThat(cache.get(kai.getId()))
+        .get()
+        .extracting(UserProfileCache.UserProfile::label)
+        .isEqualTo("Kai");
+    var profiles = cache.getAll(List.of(kai.getId(), luna.getId(), unknown));
+    var byEmail = cache.getAllByEmail(List.of("KAI@example.com", "luna@example.com"));
+
+    assertThat(profiles).containsOnlyKeys(kai.getId(), luna.getId());
+    assertThat(profiles.get(luna.getId()).label()).isEqualTo("luna@example.com");
+    assertThat(byEmail).containsOnlyKeys("kai@example.com", "luna@example.com");
+    verify(userRepository).findAllById(List.of(kai.getId()));
+    verify(userRepository).findAllById(List.of(luna.getId(), unknown));
+    verifyNoMoreInteractions(userRepository);
+  }
+
+  @Test
+  void entriesExpireAndTheLeastRecentlyUsedOneIsEvicted() {
+    UserProfileCache expiring = new UserProfileCache(userRepository, 100, Duration.ZERO);
+    User kai = user("kai@example.com", "Kai");
+    when(userRepository.findAllById(List.of(kai.getId()))).thenReturn(List.of(kai));
+
+    expiring.get(kai.getId());
+    expiring.get(kai.getId());
+
+    verify(userRepository, times(2)).findAllById(List.of(kai.getId()));
+
+    UserProfileCache bounded = new UserProfileCache(userRepository, 2, Duration.ofMinutes(10));
+    User luna = user("luna@example.com", "Luna");
+    User noa = user("noa@example.com", "Noa");
+    when(userRepository.findAllById(List.of(luna.getId()))).thenReturn(List.of(luna));
+    when(userRepository.findAllById(List.of(noa.getId()))).thenReturn(List.of(noa));
+    when(userRepository.findAllByEmailLowercaseIn(List.of("luna@example.com")))
+        .thenReturn(List.of(luna));
+
+    bounded.get(kai.getId());
+    bounded.get(luna.getId());
+    bounded.get(kai.getId());
+    bounded.get(noa.getId());
+
+    assertThat(bounded.size()).isEqualTo(2);
+    // luna was the least recently used, so both her id and email entries are gone
+    assertThat(bounded.getAllByEmail(Set.of("luna@example.com")))
+        .containsOnlyKeys("luna@example.com");
+    verify(userRepository).findAllByEmailLowercaseIn(List.of("luna@example.com"));
+  }
+
+  @Test
+  void invalidateInsideTransactionWaitsForCommit() {
+    UserProfileCache cache = new UserProfileCache(userRepository, 100, Duration.ofMinutes(10));
+    User kai = user("kai@example.com", "Kai");
+    when(userRepository.findAllById(List.of(kai.getId()))).thenReturn(List.of(kai));
+    cache.get(kai.getId());
+
+    TransactionSynchronizationManager.initSynchronization();
+    cache.invalidate(kai.getId());
+    assertThat(cache.size()).isOne();
+
+    for (TransactionSynchronization synchronization :
+        TransactionSynchronizationManager.getSynchronizations()) {
+      synchronization.afterCommit();
+    }
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  void invalidationDuringALoadKeepsTheLoadedRowOutOfTheCache() {
+    UserProfileCache cache = new UserProfileCache(userRepository, 100, Duration.ofMinutes(10));
+    User kai = user("kai@example.com", "Kai");
+    // the profile update commits while the stale row is on its way back
+    when(userRepository.findAllById(List.of(kai.getId())))
+        .thenAnswer(
+            invocation -> {
+              cache.invalidate(kai.getId());
+              return List.of(kai);
+            })
+        .thenReturn(List.of(kai));
+
+    assertThat(cache.get(kai.getId())).isPresent();
+    assertThat(cache.size()).isZero();
+    cache.get(kai.getId());
+    cache.get(kai.getId());
+
+    verify(userRepository, times(2)).findAllById(List.of(kai.getId()));
+    assertThat(cache.size()).isOne();
+  }
+
+  private User user(String email, String displayName) {
+    User user = new User(UUID.randomUUID(), email);
+    user.setDisplayName(displayName);
+    return user;
+  }
+}
@@ -0,0 +1,90 @@
+package com.group7.app.user;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * A wave of first logins against the real schema: several new subjects, each sending a handful of
+ * parallel first requests. Every request must get its own subject's row and each subject must end
+ * up with exactly one.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class UserProvisioningBurstTest {
+
+  private static final int SUBJECTS = 12;
+  private static final int REQUESTS_PER_SUBJECT = 4;
+
+  @Autowired private UserService userService;
+
+  @Autowired private UserRepository userRepository;
+
+  private final List<UUID> userIds = new ArrayList<>();
+
+  @AfterEach
+  void cleanUp() {
+    userRepository.deleteAllById(userIds);
+  }
+
+  @Test
+  void parallelFirstLoginsProvisionEachSubjectOnce() throws Exception {
+    for (int i = 0; i < SUBJECTS; i++) {
+      userIds.add(UUID.randomUUID());
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(SUBJECTS * REQUESTS_PER_SUBJECT);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<User>> logins = new ArrayList<>();
+      for (int request = 0; request < REQUESTS_PER_SUBJECT; request++) {
+        for (UUID userId : userIds) {
+          logins.add(
+              executor.submit(
+                  () -> {
+                    start.await();
+                    return userService.createFromAuth(userId, userId + "@example.com");
+                  }));
+        }
+      }
+      start.countDown();
+      for (int i = 0; i < logins.size(); i++) {
+        User user = logins.get(i).get(30, TimeUnit.SECONDS);
+        assertThat(user.getId()).isEqualTo(userIds.get(i % SUBJECTS));
+        assertThat(user.getRole()).isEqualTo(Role.LEARNER);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(userRepository.findAllById(userIds)).hasSize(SUBJECTS);
+  }
+
+  @Test
+  void rowWrittenByTheAuthTriggerIsReturnedAsIs() {
+    UUID userId = UUID.randomUUID();
+    userIds.add(userId);
+    User fromTrigger = new User(userId, "trigger@example.com");
+    fromTrigger.setDisplayName("Kai");
+    userRepository.save(fromTrigger);
+
+    assertThat(userRepository.insertIfAbsent(userId, "other@example.com", Instant.now())).isFalse();
+    User resolved = userService.createFromAuth(userId, "other@example.com");
+
+    assertThat(resolved.getEmail()).isEqualTo("trigger@example.com");
+    assertThat(resolved.getDisplayName()).isEqualTo("Kai");
+  }
+}
@@ -1,12 +1,23 @@
 package com.group7.app.user;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,51 +30,95 @@ class UserServiceTest {
 
   @Mock private UserRepository userRepository;
 
+  @Mock private LeaderboardIndex leaderboardIndex;
+
+  @Mock private UserProfileCache userProfileCache;
+
+  @Mock private AuthenticatedUserCache authenticatedUserCache;
+
   private UserService userService;
 
   @BeforeEach
   void setUp() {
-    userService = new UserService(userRepository);
+    userService =
+        new UserService(
+            userRepository, leaderboardIndex, userProfileCache, authenticatedUserCache);
   }
 
   @Test
-  void createFromAuthReturnsSavedUser() {
+  void createFromAuthReturnsInsertedUser() {
     UUID userId = UUID.randomUUID();
-    User saved = new User(userId, "user@example.com");
-    when(userRepository.saveAndFlush(any(User.class))).thenReturn(saved);
+    User inserted = new User(userId, "user@example.com");
+    when(userRepository.insertIfAbsent(eq(userId), eq("user@example.com"), any(Instant.class)))
+        .thenReturn(true);
+    when(userRepository.findById(userId)).thenReturn(Optional.of(inserted));
 
     User created = userService.createFromAuth(userId, "user@example.com");
 
-    assertThat(created).isSameAs(saved);
+    assertThat(created).isSameAs(inserted);
+    verify(leaderboardIndex).markChanged(userId);
   }
 
   @Test
-  void createFromAuthReturnsExistingUserAfterRaceCondition() {
+  void createFromAuthReturnsTheAuthTriggersRowWithoutRetrying() {
     UUID userId = UUID.randomUUID();
     User existing = new User(userId, "user@example.com");
-    when(userRepository.saveAndFlush(any(User.class)))
-        .thenThrow(new DataIntegrityViolationException("duplicate"));
+    when(userRepository.insertIfAbsent(eq(userId), eq("user@example.com"), any(Instant.class)))
+        .thenReturn(false);
     when(userRepository.findById(userId)).thenReturn(Optional.of(existing));
 
     User created = userService.createFromAuth(userId, "user@example.com");
 
     assertThat(created).isSameAs(existing);
+    verify(userRepository, times(1)).findById(userId);
   }
 
   @Test
-  void createFromAuthRetriesWhileAuthTriggerRowBecomesVisible() {
+  void createFromAuthRethrowsConflictWhenNoRowIsVisible() {
     UUID userId = UUID.randomUUID();
-    User existing = new User(userId, "user@example.com");
-    when(userRepository.saveAndFlush(any(User.class)))
-        .thenThrow(new DataIntegrityViolationException("duplicate"));
-    when(userRepository.findById(userId))
-        .thenReturn(Optional.empty())
-        .thenReturn(Optional.empty())
-        .thenReturn(Optional.of(existing));
+    DataIntegrityViolationException conflict = new DataIntegrityViolationException("duplicate");
+    when(userRepository.insertIfAbsent(eq(userId), eq("user@example.com"), any(Instant.class)))
+        .thenThrow(conflict);
+    when(userRepository.findById(userId)).thenReturn(Optional.empty());
 
-    User created = userService.createFromAuth(userId, "user@example.com");
+    assertThatThrownBy(() -> userService.createFromAuth(userId, "user@example.com"))
+        .isSameAs(conflict);
+  }
 
-    assertThat(created).isSameAs(existing);
+  @Test
+  void concurrentFirstLoginsForOneSubjectShareOneInsert() throws Exception {
+    UUID userId = UUID.randomUUID();
+    User inserted = new User(userId, "user@example.com");
+    CountDownLatch insertStarted = new CountDownLatch(1);
+    CountDownLatch releaseInsert = new CountDownLatch(1);
+    when(userRepository.insertIfAbsent(eq(userId), eq("user@example.com"), any(Instant.class)))
+        .thenAnswer(
+            invocation -> {
+              insertStarted.countDown();
+              releaseInsert.await(10, TimeUnit.SECONDS);
+              return true;
+            });
+    when(userRepository.findById(userId)).thenReturn(Optional.of(inserted));
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<User>> logins = new ArrayList<>();
+      logins.add(executor.submit(() -> userService.createFromAuth(userId, "user@example.com")));
+      assertThat(insertStarted.await(10, TimeUnit.SECONDS)).isTrue();
+      for (int i = 1; i < 8; i++) {
+        logins.add(executor.submit(() -> userService.createFromAuth(userId, "user@example.com")));
+      }
+      // give the followers time to join the in-flight insert before it finishes
+      Thread.sleep(200);
+      releaseInsert.countDown();
+      for (Future<User> login : logins) {
+        assertThat(login.get(10, TimeUnit.SECONDS)).isSameAs(inserted);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    verify(userRepository, times(1)).insertIfAbsent(eq(userId), any(), any());
   }
 
   @Test
@@ -92,6 +147,9 @@ class UserServiceTest {
     assertThat(updated.getAvatarColor()).isEqualTo("#112233");
     assertThat(updated.getAvatarPath()).endsWith("/avatar.png");
     verify(userRepository).save(user);
+    verify(leaderboardIndex).markChanged(userId);
+    verify(userProfileCache).invalidate(userId);
+    verify(authenticatedUserCache).invalidate(userId);
   }
 
   @Test
@@ -36,13 +36,15 @@ export type QuestionListItemResp = {
   resolved: boolean;
 };
 
+// page and the totals are null on cursor-feed responses, which skip the count query
 export type ForumQuestionPageResp = {
   items: QuestionListItemResp[];
-  page: number;
+  page: number | null;
   size: number;
-  totalItems: number;
-  totalPages: number;
+  totalItems: number | null;
+  totalPages: number | null;
   hasNext: boolean;
+  nextCursor: string | null;
 };
 
 export const FORUM_QUERY_KEY = ["forum"] as const;
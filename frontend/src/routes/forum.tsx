@@ -870,8 +870,9 @@ function ForumPage() {
 
   useEffect(() => {
     if (!forumQuestionsQuery.isSuccess) return;
-    if (questions.length === 0 && page > 0 && pagination && pagination.totalPages <= page) {
-      setPage(Math.max(0, pagination.totalPages - 1));
+    const totalPages = pagination?.totalPages;
+    if (questions.length === 0 && page > 0 && totalPages != null && totalPages <= page) {
+      setPage(Math.max(0, totalPages - 1));
     }
   }, [forumQuestionsQuery.isSuccess, page, pagination, questions.length]);
 
@@ -1134,10 +1135,10 @@ function ForumPage() {
             />
           ))}
 
-          {pagination && pagination.totalPages > 1 && (
+          {pagination && (pagination.totalPages ?? 0) > 1 && (
             <div className="flex items-center justify-between rounded-xl border bg-card px-4 py-3">
               <p className="text-sm text-muted-foreground">
-                Page {pagination.page + 1} of {Math.max(1, pagination.totalPages)}
+                Page {(pagination.page ?? page) + 1} of {Math.max(1, pagination.totalPages ?? 0)}
               </p>
               <div className="flex items-center gap-2">
                 <Button
@@ -0,0 +1,8 @@
+-- lesson_attempts, lesson_attempt_results and user_step_events are append-only.
+-- hibernate now reserves their ids in blocks of 50 (pooled sequence optimizer) so
+-- a graded attempt is written as jdbc insert batches instead of one identity round
+-- trip per row. the increment must match the entity allocationSize.
+
+alter sequence if exists public.lesson_attempts_id_seq increment by 50;
+alter sequence if exists public.lesson_attempt_results_id_seq increment by 50;
+alter sequence if exists public.user_step_events_id_seq increment by 50;
@@ -0,0 +1,23 @@
+-- per-learner spaced-repetition state for every question step they have answered.
+-- the backend upserts a row whenever an attempt or revise answer is graded, so the
+-- revise queue reads these rows instead of replaying lesson_attempt_results and
+-- user_step_events on every request.
+-- existing history is replayed into the table by starting the backend once with
+-- LESSON_REVIEW_STATE_BACKFILL=true.
+
+create table if not exists public.user_step_review_state (
+    id bigserial primary key,
+    user_id uuid not null references public.users(id) on delete cascade,
+    lesson_step_id bigint not null references public.lesson_steps(id) on delete cascade,
+    strength integer not null default 0,
+    correct_streak integer not null default 0,
+    times_wrong integer not null default 0,
+    last_seen_at timestamptz,
+    next_due_at timestamptz not null default now(),
+    created_at timestamptz not null default now(),
+    updated_at timestamptz not null default now(),
+    constraint uq_user_step_review_state_user_step unique (user_id, lesson_step_id)
+);
+
+create index if not exists idx_user_step_review_state_due
+    on public.user_step_review_state(user_id, next_due_at);
@@ -0,0 +1,13 @@
+-- leaderboard points were summed from user_lesson_progress on every leaderboard read.
+-- the backend now keeps the sum on the user, adding the rise in best score whenever
+-- an attempt improves a lesson's best score, so the leaderboard reads users alone.
+
+alter table public.users
+    add column if not exists total_points bigint not null default 0;
+
+update public.users u
+set total_points = coalesce((
+    select sum(p.best_score)
+    from public.user_lesson_progress p
+    where p.user_id = u.id
+), 0);
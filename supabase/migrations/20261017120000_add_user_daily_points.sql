@@ -0,0 +1,35 @@
+-- per-learner, per-utc-day leaderboard points. an attempt that raises a lesson's best
+-- score adds the rise to the learner's bucket for that day, so the daily and weekly
+-- leaderboards sum one or seven buckets instead of scanning lesson_attempts.
+
+create table if not exists public.user_daily_points (
+    id bigserial primary key,
+    user_id uuid not null references public.users(id) on delete cascade,
+    bucket_date date not null,
+    points bigint not null default 0,
+    created_at timestamptz not null default now(),
+    updated_at timestamptz not null default now(),
+    constraint uq_user_daily_points_user_date unique (user_id, bucket_date)
+);
+
+create index if not exists idx_user_daily_points_date
+    on public.user_daily_points(bucket_date, user_id);
+
+-- seed the last seven days from attempt history: each attempt earns what it raised the
+-- lesson's best score by, measured against that learner's earlier attempts
+insert into public.user_daily_points (user_id, bucket_date, points)
+select user_id, bucket_date, sum(rise)
+from (
+    select
+        user_id,
+        (submitted_at at time zone 'utc')::date as bucket_date,
+        greatest(0, score - coalesce(max(score) over (
+            partition by user_id, lesson_id
+            order by submitted_at, id
+            rows between unbounded preceding and 1 preceding), 0)) as rise
+    from public.lesson_attempts
+) attempts
+where bucket_date >= (now() at time zone 'utc')::date - 6
+  and rise > 0
+group by user_id, bucket_date
+on conflict (user_id, bucket_date) do nothing;
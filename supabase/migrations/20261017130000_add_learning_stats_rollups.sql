@@ -0,0 +1,50 @@
+-- analytics rollups. user_daily_stats sums a learner's attempts per utc day and
+-- user_unit_stats keeps their all-time counters per unit, so /api/analytics/me reads a
+-- bounded number of small rows instead of every attempt the learner ever made.
+
+create table if not exists public.user_daily_stats (
+    id bigserial primary key,
+    user_id uuid not null references public.users(id) on delete cascade,
+    stat_date date not null,
+    xp integer not null default 0,
+    attempts integer not null default 0,
+    passed integer not null default 0,
+    correct integer not null default 0,
+    total integer not null default 0,
+    created_at timestamptz not null default now(),
+    updated_at timestamptz not null default now(),
+    constraint uq_user_daily_stats_user_date unique (user_id, stat_date)
+);
+
+create table if not exists public.user_unit_stats (
+    id bigserial primary key,
+    user_id uuid not null references public.users(id) on delete cascade,
+    unit_id bigint not null references public.units(id) on delete cascade,
+    attempts integer not null default 0,
+    correct integer not null default 0,
+    total integer not null default 0,
+    created_at timestamptz not null default now(),
+    updated_at timestamptz not null default now(),
+    constraint uq_user_unit_stats_user_unit unique (user_id, unit_id)
+);
+
+-- seed both rollups from the full attempt history
+insert into public.user_daily_stats (user_id, stat_date, xp, attempts, passed, correct, total)
+select
+    user_id,
+    (submitted_at at time zone 'utc')::date,
+    sum(score),
+    count(*),
+    count(*) filter (where passed),
+    sum(correct_count),
+    sum(total_questions)
+from public.lesson_attempts
+group by user_id, (submitted_at at time zone 'utc')::date
+on conflict (user_id, stat_date) do nothing;
+
+insert into public.user_unit_stats (user_id, unit_id, attempts, correct, total)
+select a.user_id, l.unit_id, count(*), sum(a.correct_count), sum(a.total_questions)
+from public.lesson_attempts a
+join public.lessons l on l.id = a.lesson_id
+group by a.user_id, l.unit_id
+on conflict (user_id, unit_id) do nothing;
@@ -0,0 +1,35 @@
+-- per-step item analysis. a scheduled job folds new lesson_attempt_results rows into
+-- lesson_step_item_stats, reading past the (created_at, id) watermark it keeps in
+-- job_watermarks, so each result is counted once and old rows are never rescanned.
+
+create table if not exists public.job_watermarks (
+    job_name varchar(64) primary key,
+    last_created_at timestamptz not null default 'epoch',
+    last_id bigint not null default 0,
+    updated_at timestamptz not null default now()
+);
+
+-- seeded so the first run of every instance finds a row to lock instead of racing to insert it
+insert into public.job_watermarks (job_name)
+values ('item-analysis')
+on conflict (job_name) do nothing;
+
+create table if not exists public.lesson_step_item_stats (
+    lesson_step_id bigint primary key references public.lesson_steps(id) on delete cascade,
+    lesson_id bigint not null references public.lessons(id) on delete cascade,
+    responses bigint not null default 0,
+    correct_responses bigint not null default 0,
+    score_sum bigint not null default 0,
+    score_square_sum bigint not null default 0,
+    correct_score_sum bigint not null default 0,
+    wrong_answers jsonb,
+    duration_histogram jsonb,
+    updated_at timestamptz not null default now()
+);
+
+create index if not exists idx_lesson_step_item_stats_lesson
+    on public.lesson_step_item_stats(lesson_id);
+
+-- the job pages through results in this order
+create index if not exists idx_lesson_attempt_results_created_id
+    on public.lesson_attempt_results(created_at, id);
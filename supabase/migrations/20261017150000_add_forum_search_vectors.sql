@@ -0,0 +1,21 @@
+-- forum full-text search. generated tsvector columns keep themselves in sync on every insert
+-- and update, so the application never writes them; the gin indexes serve the prefix queries
+-- built by QuestionRepositoryCustomImpl. the 'simple' configuration is used because posts mix
+-- english with slang that stemming would mangle.
+
+alter table public.questions
+    add column if not exists search_vector tsvector
+    generated always as (
+        setweight(to_tsvector('simple', coalesce(title, '')), 'A')
+        || setweight(to_tsvector('simple', coalesce(content, '')), 'B')
+    ) stored;
+
+alter table public.answers
+    add column if not exists search_vector tsvector
+    generated always as (to_tsvector('simple', coalesce(content, ''))) stored;
+
+create index if not exists idx_questions_search_vector
+    on public.questions using gin(search_vector);
+
+create index if not exists idx_answers_search_vector
+    on public.answers using gin(search_vector);
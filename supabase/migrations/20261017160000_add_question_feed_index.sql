@@ -0,0 +1,5 @@
+-- newest-first forum feed. keyset pages resume after the (created_at, id) of the last question
+-- a client saw, so every page is a short index range scan instead of an offset plus a count.
+
+create index if not exists idx_questions_created_id
+    on public.questions(created_at desc, id desc);
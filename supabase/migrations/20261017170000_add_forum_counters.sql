@@ -0,0 +1,22 @@
+-- denormalized forum counters. answer_count, upvotes and downvotes are shifted in the same
+-- transaction as the answer or vote row they count, so list and detail pages no longer group
+-- and count votes per request. a scheduled job recounts any row that drifts.
+
+alter table public.questions add column if not exists answer_count bigint not null default 0;
+alter table public.questions add column if not exists upvotes bigint not null default 0;
+alter table public.questions add column if not exists downvotes bigint not null default 0;
+alter table public.answers add column if not exists upvotes bigint not null default 0;
+alter table public.answers add column if not exists downvotes bigint not null default 0;
+
+update public.questions q
+set answer_count = (select count(*) from public.answers a where a.question_id = q.id),
+    upvotes = (select count(*) from public.question_votes v
+               where v.question_id = q.id and v.vote_type = 'THUMBS_UP'),
+    downvotes = (select count(*) from public.question_votes v
+                 where v.question_id = q.id and v.vote_type = 'THUMBS_DOWN');
+
+update public.answers a
+set upvotes = (select count(*) from public.answer_votes v
+               where v.answer_id = a.id and v.vote_type = 'THUMBS_UP'),
+    downvotes = (select count(*) from public.answer_votes v
+                 where v.answer_id = a.id and v.vote_type = 'THUMBS_DOWN');
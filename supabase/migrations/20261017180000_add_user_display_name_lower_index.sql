@@ -0,0 +1,7 @@
+-- legacy forum posts without author_id are matched to users by lower(display_name), batched
+-- per page and in the one-off author backfill. the partial index keeps both lookups off a
+-- sequential scan of users.
+
+create index if not exists idx_users_display_name_lower
+    on public.users (lower(display_name))
+    where display_name is not null;
@@ -0,0 +1,16 @@
+-- forum posts are moderated after they are saved. new posts start as PENDING_MODERATION and a
+-- background queue moves them to PUBLISHED or REJECTED; lists and search only show PUBLISHED.
+-- existing posts were moderated before saving, so they are all published.
+
+alter table public.questions
+    add column if not exists moderation_status text not null default 'PUBLISHED';
+alter table public.questions add column if not exists moderation_reason text;
+alter table public.answers
+    add column if not exists moderation_status text not null default 'PUBLISHED';
+alter table public.answers add column if not exists moderation_reason text;
+
+-- the sweep looks for posts left pending; there are only ever a few, so keep the index small
+create index if not exists idx_questions_pending_moderation
+    on public.questions (created_at, id) where moderation_status = 'PENDING_MODERATION';
+create index if not exists idx_answers_pending_moderation
+    on public.answers (created_at, id) where moderation_status = 'PENDING_MODERATION';
@@ -0,0 +1,18 @@
+-- /api/analytics/me lists unit accuracy in the order the learner first attempted each unit, as
+-- it did when it was computed from the raw attempts. record that instant on the unit rollup.
+
+alter table public.user_unit_stats add column if not exists first_attempt_at timestamptz;
+
+update public.user_unit_stats s
+set first_attempt_at = f.first_attempt_at
+from (
+    select a.user_id, l.unit_id, min(a.submitted_at) as first_attempt_at
+    from public.lesson_attempts a
+    join public.lessons l on l.id = a.lesson_id
+    group by a.user_id, l.unit_id
+) f
+where f.user_id = s.user_id and f.unit_id = s.unit_id and s.first_attempt_at is null;
+
+update public.user_unit_stats set first_attempt_at = created_at where first_attempt_at is null;
+
+alter table public.user_unit_stats alter column first_attempt_at set not null;